@@ -0,0 +1,51 @@
+package dungeon;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks. It takes the usual JMH command line, but unless told otherwise it
+ * writes the results as JSON to jmh-result.json and runs the gc profiler, so that the time and
+ * the allocation rate of every benchmark can be compared from release to release.
+ */
+public class BenchmarkMain {
+
+  /**
+   * Run the benchmarks.
+   *
+   * @param args JMH command line options.
+   * @throws RunnerException            if a benchmark fails.
+   * @throws CommandLineOptionException if the options are not valid.
+   * @throws IOException                if the benchmark list cannot be read.
+   */
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException,
+          IOException {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()
+            || commandLine.shouldListResultFormats() || commandLine.shouldListWithParams()) {
+      //Nothing to run, let JMH print what was asked for
+      org.openjdk.jmh.Main.main(args);
+      return;
+    }
+
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+    if (!commandLine.getResultFormat().hasValue()) {
+      options.resultFormat(ResultFormatType.JSON);
+    }
+    if (!commandLine.getResult().hasValue()) {
+      options.result("jmh-result.json");
+    }
+    if (commandLine.getProfilers().isEmpty()) {
+      options.addProfiler(GCProfiler.class);
+    }
+    new Runner(options.build()).run();
+  }
+}
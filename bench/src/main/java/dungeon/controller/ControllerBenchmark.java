@@ -0,0 +1,62 @@
+package dungeon.controller;
+
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dungeon.model.GameState;
+
+/**
+ * Benchmark for playing a whole scripted game through the controller, from the welcome message to
+ * the win. The game is created before each run and is not measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerBenchmark {
+
+  //The script wins the game created from this seed, see ControllerTest.testWinGame
+  private static final String WINNING_SCRIPT = "M east m north m east m north s north 1"
+          + " s north 1 m north";
+
+  @Param({"1463"})
+  private long seed;
+
+  private IController controller;
+  private StringBuilder output;
+
+  /**
+   * Create a new game and controller for the next run.
+   */
+  @Setup(Level.Invocation)
+  public void setUp() {
+    GameState model = new GameState(6, 6, 0, "nonwrapping", 100, 5, new Random(seed));
+    output = new StringBuilder();
+    controller = new Controller(new StringReader(WINNING_SCRIPT), output, model);
+  }
+
+  /**
+   * Play the game to the end.
+   */
+  @Benchmark
+  public StringBuilder playGame() {
+    controller.playGame();
+    return output;
+  }
+}
@@ -0,0 +1,49 @@
+package dungeon.generation;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for generating the doors of a square dungeon row by row. The rows go to a sink that
+ * only consumes them, so the allocation per operation is what the generator itself keeps, which
+ * grows with the width only.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EllerGeneratorBenchmark {
+
+  @Param({"100", "1000"})
+  private int size;
+
+  @Param({"nonwrapping", "wrapping"})
+  private String dungeonType;
+
+  @Param({"42"})
+  private long seed;
+
+  /**
+   * Generate a dungeon with as many extra paths as it has rows.
+   */
+  @Benchmark
+  public void generate(Blackhole blackhole) throws IOException {
+    new EllerGenerator(size, size, size, dungeonType, new Random(seed))
+            .generate((row, doors) -> blackhole.consume(doors));
+  }
+}
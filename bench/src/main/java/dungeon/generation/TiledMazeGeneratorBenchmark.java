@@ -0,0 +1,60 @@
+package dungeon.generation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for generating the doors of a square wrapping dungeon in tiles, on pools of several
+ * sizes. The dungeon is the same for every number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TiledMazeGeneratorBenchmark {
+
+  @Param({"100", "1000"})
+  private int size;
+
+  @Param({"1", "4"})
+  private int threads;
+
+  @Param({"42"})
+  private long seed;
+
+  private ForkJoinPool pool;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    pool = new ForkJoinPool(threads);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  /**
+   * Generate a dungeon with as many extra paths as it has rows.
+   */
+  @Benchmark
+  public byte[] generate() {
+    return new TiledMazeGenerator(size, size, size, "wrapping", seed).generate(pool);
+  }
+}
@@ -0,0 +1,148 @@
+package dungeon.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dungeon.model.directions.Direction;
+import dungeon.model.location.ILocation;
+
+/**
+ * Benchmarks for creating a game, restoring one from a snapshot, and for the queries the
+ * controller makes on it: the status of the player's location, and the whole dungeon as a copy and
+ * through the read-only view. {@link #playerTurn()} is a whole turn, a move by cell id and the
+ * status after it; run with the gc profiler, it allocates the status text and nothing else but
+ * the amortized growth of the cells the player has visited:
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar GameStateBenchmark.playerTurn -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateBenchmark {
+
+  //Direction.values() returns a new array on every call
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  @Param({"10", "50", "100"})
+  private int size;
+
+  @Param({"nonwrapping", "wrapping"})
+  private String dungeonType;
+
+  @Param({"42"})
+  private long seed;
+
+  private GameState model;
+  private byte[] snapshot;
+  private GameState playing;
+  private int turn;
+
+  /**
+   * Create the game the query benchmarks run on, and its snapshot.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    model = newGame();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    GameSnapshot.write(model, Channels.newChannel(bytes));
+    snapshot = bytes.toByteArray();
+  }
+
+  /**
+   * Start the game the turns are played on again, so its record of visited cells stays small.
+   */
+  @Setup(Level.Iteration)
+  public void startPlaying() {
+    playing = model.copy(new Random(seed));
+    turn = 0;
+  }
+
+  /**
+   * Create a game: generate the dungeon, place treasure, arrows and monsters and the player.
+   */
+  @Benchmark
+  public GameState createGame() {
+    return newGame();
+  }
+
+  /**
+   * Restore a game from a snapshot in memory, the same game {@link #createGame()} generates.
+   */
+  @Benchmark
+  public GameState restoreGame() throws IOException {
+    return GameSnapshot.read(Channels.newChannel(new ByteArrayInputStream(snapshot)));
+  }
+
+  /**
+   * Render the status of the player's location, done after every command.
+   */
+  @Benchmark
+  public String playerCurrentLocationStatus() {
+    return model.getPlayerCurrentLocationStatus();
+  }
+
+  /**
+   * Play one turn: move through a door of the player's location, chosen by the turn number, and
+   * render the status after it, as the controller does.
+   */
+  @Benchmark
+  public String playerTurn() {
+    int doors = playing.getDoorMask(playing.getCurrentCell());
+    for (int door = turn++ % Integer.bitCount(doors); door > 0; door--) {
+      doors &= doors - 1;
+    }
+    playing.movePlayerToCell(DIRECTIONS[Integer.numberOfTrailingZeros(doors)]);
+    return playing.getPlayerCurrentLocationStatus();
+  }
+
+  /**
+   * Copy the whole dungeon.
+   */
+  @Benchmark
+  public ILocation[][] getDungeon() {
+    return model.getDungeon();
+  }
+
+  /**
+   * Look at every location of the dungeon through the read-only view, as a renderer would.
+   */
+  @Benchmark
+  public int scanDungeonView() {
+    IDungeonView view = model.getDungeonView();
+    int caves = 0;
+    for (int row = 0; row < view.getNumRows(); row++) {
+      for (int col = 0; col < view.getNumCols(); col++) {
+        if (view.getLocation(row, col).isCave()) {
+          caves++;
+        }
+      }
+    }
+    return caves;
+  }
+
+  private GameState newGame() {
+    return new GameState(size, size, size / 2, dungeonType, 20, size, new Random(seed));
+  }
+}
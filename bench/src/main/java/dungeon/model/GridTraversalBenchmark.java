@@ -0,0 +1,99 @@
+package dungeon.model;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dungeon.model.location.ILocation;
+
+/**
+ * Benchmarks for the monster counts one and two locations away from the player, needed on every
+ * turn of the game. The game reads them from the smell field; the searches are kept for
+ * comparison. Run it with the gc profiler to see the allocation of the smell alone, which should be
+ * 0 bytes for {@link #smellPerTurn()} and {@link #smellFieldPerTurn()}; the whole turn, move and
+ * status, is {@link GameStateBenchmark#playerTurn()}:
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar GridTraversalBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridTraversalBenchmark {
+
+  @Param({"100"})
+  private int size;
+
+  @Param({"0", "20"})
+  private int interConnectivity;
+
+  @Param({"42"})
+  private long seed;
+
+  private Grid grid;
+  private ILocation[] locations;
+  private int turn;
+
+  /**
+   * Create a seeded dungeon and the locations the player visits, one per turn.
+   */
+  @Setup
+  public void setUp() {
+    grid = new Grid(size, size, interConnectivity, "nonwrapping", 20, size, new Random(seed));
+    locations = new ILocation[size * size];
+    for (int cellId = 0; cellId < locations.length; cellId++) {
+      locations[cellId] = grid.getLocation(cellId);
+    }
+    turn = 0;
+  }
+
+  /**
+   * Count the monsters one and two locations away with two searches.
+   */
+  @Benchmark
+  public int smellPerTurn() {
+    ILocation location = nextLocation();
+    return grid.countMonstersAway(location, 1) + grid.countMonstersAway(location, 2);
+  }
+
+  /**
+   * The smell field lookups of one turn.
+   */
+  @Benchmark
+  public int smellFieldPerTurn() {
+    ILocation location = nextLocation();
+    return grid.getMonstersAway(location, 1) + grid.getMonstersAway(location, 2);
+  }
+
+  /**
+   * The same searches returning the locations found, for comparison.
+   */
+  @Benchmark
+  public int locationsAwayPerTurn() {
+    ILocation location = nextLocation();
+    List<ILocation> oneAway = grid.getLocationsAway(location, 1);
+    List<ILocation> twoAway = grid.getLocationsAway(location, 2);
+    return oneAway.size() + twoAway.size();
+  }
+
+  private ILocation nextLocation() {
+    turn = (turn + 1) % locations.length;
+    return locations[turn];
+  }
+}
@@ -0,0 +1,89 @@
+package dungeon.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dungeon.model.character.Character;
+import dungeon.model.character.Player;
+import dungeon.model.directions.Direction;
+import dungeon.model.location.ILocation;
+import dungeon.model.treasure.TreasureType;
+
+/**
+ * Benchmark for shooting an arrow through the dungeon. The dungeon has no monsters, so every
+ * arrow flies the full distance and each shot does the same amount of work however many times it
+ * is repeated. Shots cycle through every door of every cave.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShootArrowBenchmark {
+
+  @Param({"1", "2", "3", "4", "5"})
+  private int distance;
+
+  @Param({"nonwrapping", "wrapping"})
+  private String dungeonType;
+
+  @Param({"42"})
+  private long seed;
+
+  private Character[] players;
+  private Direction[] directions;
+  private int shot;
+
+  /**
+   * Create a dungeon and one player standing in each cave, with a door to shoot through.
+   */
+  @Setup
+  public void setUp() {
+    Random random = new Random(seed);
+    Grid grid = new Grid(50, 50, 25, dungeonType, 20, random);
+
+    List<Character> shooters = new ArrayList<>();
+    List<Direction> shotDirections = new ArrayList<>();
+    for (int cellId = 0; cellId < 50 * 50; cellId++) {
+      ILocation location = grid.getLocation(cellId);
+      if (location.isCave()) {
+        for (Direction direction : location.getNeighbours().keySet()) {
+          Character player = new Player("Player", random);
+          player.setCurrentLocation(location);
+          shooters.add(player);
+          shotDirections.add(direction);
+        }
+      }
+    }
+    players = shooters.toArray(new Character[0]);
+    directions = shotDirections.toArray(new Direction[0]);
+    shot = 0;
+  }
+
+  /**
+   * Shoot one arrow from the next cave.
+   */
+  @Benchmark
+  public Character shootArrow() {
+    shot = (shot + 1) % players.length;
+    Character player = players[shot];
+    player.getTreasures().put(TreasureType.ARROWS, 1);
+    player.shootArrow(directions[shot], distance);
+    return player;
+  }
+}
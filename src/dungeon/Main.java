@@ -1,12 +1,38 @@
 package dungeon;
 
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
+import dungeon.catalogue.FeatureRange;
+import dungeon.catalogue.SeedCatalogue;
 import dungeon.controller.Controller;
 import dungeon.controller.IController;
+import dungeon.factory.AsyncDungeonGenerator;
+import dungeon.factory.DungeonFactory;
+import dungeon.factory.DungeonParameters;
+import dungeon.generation.EllerGenerator;
+import dungeon.generation.LayoutFile;
 import dungeon.model.GameState;
 import dungeon.model.IGameState;
+import dungeon.server.GameServer;
+import dungeon.simulation.DifficultyEstimator;
+import dungeon.simulation.DifficultyTuner;
+import dungeon.simulation.HunterBot;
+import dungeon.simulation.IBot;
+import dungeon.simulation.RandomBot;
+import dungeon.simulation.SimulationStats;
+import dungeon.simulation.Simulator;
 
 /**
  * Main class for the Dungeon game.
@@ -14,11 +40,43 @@ import dungeon.model.IGameState;
 public class Main {
 
   /**
-   * Main method for the Dungeon game.
+   * Main method for the Dungeon game. With "server" and a port as the first two arguments, the
+   * games are played over TCP connections instead of the console, see {@link #serve(String[])}.
+   * With "simulate", bots play many games, see {@link #simulate(String[])}, and with
+   * "difficulty", they estimate how hard a dungeon is, see {@link #difficulty(String[])}. With
+   * "tune", the parameters giving a win rate are searched, see {@link #tune(String[])}. With
+   * "generate", the doors of a dungeon of any size are written to a file, see
+   * {@link #generate(String[])}. With "catalogue", the features of many seeds are indexed and
+   * searched, see {@link #catalogue(String[])}.
    *
    * @param args Command line arguments.
    */
   public static void main(String[] args) {
+    if (args.length > 0 && args[0].equalsIgnoreCase("server")) {
+      serve(args);
+      return;
+    }
+    if (args.length > 0 && args[0].equalsIgnoreCase("simulate")) {
+      simulate(args);
+      return;
+    }
+    if (args.length > 0 && args[0].equalsIgnoreCase("difficulty")) {
+      difficulty(args);
+      return;
+    }
+    if (args.length > 0 && args[0].equalsIgnoreCase("tune")) {
+      tune(args);
+      return;
+    }
+    if (args.length > 0 && args[0].equalsIgnoreCase("generate")) {
+      generate(args);
+      return;
+    }
+    if (args.length > 0 && args[0].equalsIgnoreCase("catalogue")) {
+      catalogue(args);
+      return;
+    }
+
     int dungeonHeight = Integer.parseInt(args[0]);
     int dungeonWidth = Integer.parseInt(args[1]);
     int interConnectivity = Integer.parseInt(args[2]);
@@ -43,4 +101,260 @@ public class Main {
     controller.playGame();
   }
 
+  /**
+   * Run a game server: server port height width interconnectivity type treasure monsters. Every
+   * connection plays a new dungeon created with these attributes. The server allows
+   * dungeon.server.maxSessions sessions (1000 by default, a thread and its stack each), ends a
+   * session after dungeon.server.idleTimeout seconds without a command (300 by default), and
+   * gives the games in progress 10 seconds to finish when the process is stopped. The dungeons
+   * are generated ahead by a {@link DungeonFactory}, which keeps dungeon.factory.ready of them (16
+   * by default) ready and generates them on dungeon.factory.threads background threads (1 by
+   * default). When none is ready, the dungeon is generated on a pool of one thread per core, and
+   * the connection is refused if that takes more than dungeon.generation.budget seconds (10 by
+   * default).
+   *
+   * @param args Command line arguments.
+   */
+  private static void serve(String[] args) {
+    int port = Integer.parseInt(args[1]);
+    String[] gameArgs = Arrays.copyOfRange(args, 2, args.length);
+    int dungeonHeight = Integer.parseInt(gameArgs[0]);
+    int dungeonWidth = Integer.parseInt(gameArgs[1]);
+    int interConnectivity = Integer.parseInt(gameArgs[2]);
+    String dungeonType = (gameArgs[3]).toLowerCase();
+    int treasurePercentage = Integer.parseInt(gameArgs[4]);
+    int monsterCount = Integer.parseInt(gameArgs[5]);
+    int maxSessions = Integer.getInteger("dungeon.server.maxSessions", 1000);
+    int idleTimeout = Integer.getInteger("dungeon.server.idleTimeout", 300);
+    int readyGames = Integer.getInteger("dungeon.factory.ready", 16);
+    int factoryThreads = Integer.getInteger("dungeon.factory.threads", 1);
+    Duration budget = Duration.ofSeconds(Integer.getInteger("dungeon.generation.budget", 10));
+
+    DungeonParameters parameters = new DungeonParameters(dungeonHeight, dungeonWidth,
+            interConnectivity, dungeonType, treasurePercentage, monsterCount);
+    DungeonFactory factory;
+    try {
+      factory = new DungeonFactory(64L << 20, null, readyGames, factoryThreads);
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot create the dungeon factory", e);
+    }
+    factory.prepare(parameters);
+    ExecutorService generation = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), task -> {
+              Thread thread = new Thread(task, "dungeon-generation");
+              thread.setDaemon(true);
+              return thread;
+            });
+    AsyncDungeonGenerator generator = new AsyncDungeonGenerator(generation);
+    GameServer server = new GameServer(port, () -> {
+      IGameState game = factory.takeReadyGame(parameters);
+      if (game != null) {
+        return CompletableFuture.completedFuture(game);
+      }
+      return generator.generate(parameters, ThreadLocalRandom.current().nextLong(), budget, null);
+    }, maxSessions, Duration.ofSeconds(idleTimeout));
+    try {
+      server.start();
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot listen on port " + port, e);
+    }
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try {
+        server.shutdown(Duration.ofSeconds(10));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        generation.shutdownNow();
+        factory.close();
+      }
+    }));
+    System.out.println("Dungeon server listening on port " + server.getPort());
+  }
+
+  /**
+   * Let bots play games on every core and print the totals as they go: simulate games seed bot
+   * height width interconnectivity type treasure monsters. The bot is random or hunter. A game is
+   * abandoned after dungeon.simulation.maxTurns turns (1000 by default).
+   *
+   * @param args Command line arguments.
+   */
+  private static void simulate(String[] args) {
+    long games = Long.parseLong(args[1]);
+    long seed = Long.parseLong(args[2]);
+    Supplier<IBot> bots = bots(args[3]);
+    int dungeonHeight = Integer.parseInt(args[4]);
+    int dungeonWidth = Integer.parseInt(args[5]);
+    int interConnectivity = Integer.parseInt(args[6]);
+    String dungeonType = (args[7]).toLowerCase();
+    int treasurePercentage = Integer.parseInt(args[8]);
+    int monsterCount = Integer.parseInt(args[9]);
+    int maxTurns = Integer.getInteger("dungeon.simulation.maxTurns", 1000);
+
+    Simulator simulator = new Simulator(dungeonHeight, dungeonWidth, interConnectivity,
+            dungeonType, treasurePercentage, monsterCount, bots, maxTurns);
+    long start = System.nanoTime();
+    try {
+      SimulationStats stats = simulator.run(games, seed,
+              Runtime.getRuntime().availableProcessors(), Math.max(1, games / 20),
+              progress -> System.out.println(progress));
+      double seconds = (System.nanoTime() - start) / 1e9;
+      System.out.println("Done: " + stats);
+      System.out.printf("%.1f s, %.0f games per minute%n", seconds, games * 60 / seconds);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Estimate how hard a dungeon is from bots playing rollouts on every core: difficulty rollouts
+   * seed bot height width interconnectivity type treasure monsters. The dungeon is the one the
+   * seed generates, and the bot is random or hunter. The rollouts stop after
+   * dungeon.difficulty.budget seconds (10 by default) and are abandoned after
+   * dungeon.simulation.maxTurns turns (1000 by default).
+   *
+   * @param args Command line arguments.
+   */
+  private static void difficulty(String[] args) {
+    long rollouts = Long.parseLong(args[1]);
+    long seed = Long.parseLong(args[2]);
+    Supplier<IBot> bots = bots(args[3]);
+    DungeonParameters parameters = new DungeonParameters(Integer.parseInt(args[4]),
+            Integer.parseInt(args[5]), Integer.parseInt(args[6]), args[7],
+            Integer.parseInt(args[8]), Integer.parseInt(args[9]));
+    int maxTurns = Integer.getInteger("dungeon.simulation.maxTurns", 1000);
+    Duration budget = Duration.ofSeconds(Integer.getInteger("dungeon.difficulty.budget", 10));
+
+    DifficultyEstimator estimator = new DifficultyEstimator(bots, maxTurns);
+    try {
+      System.out.println(estimator.estimate(parameters.generate(seed), rollouts, seed, budget,
+              Runtime.getRuntime().availableProcessors()));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Search the parameters giving a win rate to a bot on every core: tune target seed bot height
+   * width type. The target is between 0 and 1, and the bot is random or hunter. The
+   * interconnectivities tried are 0 and a sixteenth, an eighth and a quarter of the number of
+   * locations, the treasure percentages 20, 50 and 80, and the number of monsters anything the
+   * dungeons allow. Every parameter set is measured on dungeon.tune.seeds dungeons (32 by default)
+   * from the seed, with dungeon.tune.rollouts rollouts each (4 by default), abandoned after
+   * dungeon.simulation.maxTurns turns (1000 by default).
+   *
+   * @param args Command line arguments.
+   */
+  private static void tune(String[] args) {
+    double target = Double.parseDouble(args[1]);
+    long seed = Long.parseLong(args[2]);
+    Supplier<IBot> bots = bots(args[3]);
+    int dungeonHeight = Integer.parseInt(args[4]);
+    int dungeonWidth = Integer.parseInt(args[5]);
+    String dungeonType = args[6];
+    int locations = dungeonHeight * dungeonWidth;
+    int[] interConnectivities = Arrays.stream(new int[] {0, locations / 16, locations / 8,
+            locations / 4}).distinct().toArray();
+    int maxTurns = Integer.getInteger("dungeon.simulation.maxTurns", 1000);
+
+    DifficultyTuner tuner = new DifficultyTuner(bots, maxTurns,
+            Integer.getInteger("dungeon.tune.seeds", 32),
+            Integer.getInteger("dungeon.tune.rollouts", 4));
+    try {
+      System.out.println(tuner.tune(dungeonHeight, dungeonWidth, dungeonType, target,
+              interConnectivities, new int[] {20, 50, 80}, locations, seed,
+              Runtime.getRuntime().availableProcessors()));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static Supplier<IBot> bots(String bot) {
+    switch (bot.toLowerCase()) {
+      case "random":
+        return RandomBot::new;
+      case "hunter":
+        return HunterBot::new;
+      default:
+        throw new IllegalArgumentException("Bot must be random or hunter");
+    }
+  }
+
+  /**
+   * Generate the doors of a dungeon row by row and write them to a layout file: generate file
+   * height width interconnectivity type seed. Only one row is kept in memory, so the dungeon can be
+   * far bigger than a game allows.
+   *
+   * @param args Command line arguments.
+   */
+  private static void generate(String[] args) {
+    String file = args[1];
+    int dungeonHeight = Integer.parseInt(args[2]);
+    int dungeonWidth = Integer.parseInt(args[3]);
+    long interConnectivity = Long.parseLong(args[4]);
+    String dungeonType = (args[5]).toLowerCase();
+    long seed = Long.parseLong(args[6]);
+
+    EllerGenerator generator = new EllerGenerator(dungeonHeight, dungeonWidth, interConnectivity,
+            dungeonType, new Random(seed));
+    long start = System.nanoTime();
+    try (LayoutFile layout = LayoutFile.create(Paths.get(file), dungeonHeight, dungeonWidth,
+            dungeonType.equals("wrapping"))) {
+      generator.generate(layout);
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot write " + file, e);
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    System.out.printf("Wrote a %dx%d dungeon to %s in %.1f s%n", dungeonHeight, dungeonWidth,
+            file, seconds);
+  }
+
+  /**
+   * Build or search a seed catalogue. With catalogue build file height width interconnectivity
+   * type treasure monsters firstSeed count, the features of count seeds are measured on every
+   * core and written to the file. With catalogue find file limit range..., the first limit seeds
+   * of the file whose features are in every range are printed, a range being written like
+   * start_end_distance>=15, dead_ends<=30 or monsters=4.
+   *
+   * @param args Command line arguments.
+   */
+  private static void catalogue(String[] args) {
+    Path file = Paths.get(args[2]);
+    if (args[1].equalsIgnoreCase("build")) {
+      DungeonParameters parameters = new DungeonParameters(Integer.parseInt(args[3]),
+              Integer.parseInt(args[4]), Integer.parseInt(args[5]), args[6],
+              Integer.parseInt(args[7]), Integer.parseInt(args[8]));
+      long firstSeed = Long.parseLong(args[9]);
+      int count = Integer.parseInt(args[10]);
+      long start = System.nanoTime();
+      SeedCatalogue catalogue = SeedCatalogue.build(parameters, firstSeed, count,
+              ForkJoinPool.commonPool());
+      try {
+        catalogue.write(file);
+      } catch (IOException e) {
+        throw new IllegalStateException("Cannot write " + file, e);
+      }
+      double seconds = (System.nanoTime() - start) / 1e9;
+      System.out.printf("Catalogued %d seeds of %s in %.1f s, %.0f seeds per hour%n", count,
+              parameters, seconds, count * 3600 / seconds);
+    } else if (args[1].equalsIgnoreCase("find")) {
+      int limit = Integer.parseInt(args[3]);
+      FeatureRange[] ranges = Arrays.stream(args, 4, args.length)
+              .map(FeatureRange::parse)
+              .toArray(FeatureRange[]::new);
+      SeedCatalogue catalogue;
+      try {
+        catalogue = SeedCatalogue.read(file);
+      } catch (IOException e) {
+        throw new IllegalStateException("Cannot read " + file, e);
+      }
+      long[] seeds = catalogue.find(limit, ranges);
+      System.out.println(catalogue.count(ranges) + " of " + catalogue.size() + " seeds of "
+              + catalogue.getParameters() + " match");
+      for (long seed : seeds) {
+        System.out.println(seed);
+      }
+    } else {
+      throw new IllegalArgumentException("Catalogue command must be build or find");
+    }
+  }
 }
@@ -0,0 +1,121 @@
+package dungeon.catalogue;
+
+/**
+ * The values of a feature a seed must have to be found in a catalogue, from a minimum to a
+ * maximum, both included.
+ */
+public final class FeatureRange {
+
+  private final SeedFeature feature;
+  private final int min;
+  private final int max;
+
+  /**
+   * Constructor for a range of a feature.
+   *
+   * @param feature the feature.
+   * @param min     the smallest value, included.
+   * @param max     the largest value, included.
+   */
+  public FeatureRange(SeedFeature feature, int min, int max) {
+    if (feature == null) {
+      throw new IllegalArgumentException("Feature cannot be null");
+    }
+    if (min > max) {
+      throw new IllegalArgumentException("Minimum cannot be greater than maximum");
+    }
+    this.feature = feature;
+    this.min = min;
+    this.max = max;
+  }
+
+  /**
+   * Get the range of the values of a feature from a minimum.
+   *
+   * @param feature the feature.
+   * @param min     the smallest value, included.
+   * @return the range.
+   */
+  public static FeatureRange atLeast(SeedFeature feature, int min) {
+    return new FeatureRange(feature, min, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Get the range of the values of a feature up to a maximum.
+   *
+   * @param feature the feature.
+   * @param max     the largest value, included.
+   * @return the range.
+   */
+  public static FeatureRange atMost(SeedFeature feature, int max) {
+    return new FeatureRange(feature, Integer.MIN_VALUE, max);
+  }
+
+  /**
+   * Parse a range written as a feature name, an operator and a value, like
+   * {@code start_end_distance>=15}, {@code dead_ends<=30} or {@code monsters=4}.
+   *
+   * @param range the range as text, the feature name in any case.
+   * @return the range.
+   */
+  public static FeatureRange parse(String range) {
+    if (range == null) {
+      throw new IllegalArgumentException("Range cannot be null");
+    }
+    int operator = range.indexOf("<=");
+    if (operator < 0) {
+      operator = range.indexOf(">=");
+    }
+    int valueStart = operator + 2;
+    if (operator < 0) {
+      operator = range.indexOf('=');
+      valueStart = operator + 1;
+    }
+    if (operator <= 0) {
+      throw new IllegalArgumentException("Range must be feature>=value, feature<=value or "
+              + "feature=value: " + range);
+    }
+    SeedFeature feature = SeedFeature.valueOf(range.substring(0, operator).trim().toUpperCase());
+    int value = Integer.parseInt(range.substring(valueStart).trim());
+    switch (range.charAt(operator)) {
+      case '<':
+        return atMost(feature, value);
+      case '>':
+        return atLeast(feature, value);
+      default:
+        return new FeatureRange(feature, value, value);
+    }
+  }
+
+  /**
+   * Get the feature.
+   *
+   * @return the feature.
+   */
+  public SeedFeature getFeature() {
+    return feature;
+  }
+
+  /**
+   * Get the smallest value, included.
+   *
+   * @return the minimum.
+   */
+  public int getMin() {
+    return min;
+  }
+
+  /**
+   * Get the largest value, included.
+   *
+   * @return the maximum.
+   */
+  public int getMax() {
+    return max;
+  }
+
+  @Override
+  public String toString() {
+    return min + " <= " + feature + " <= " + max;
+  }
+}
@@ -0,0 +1,427 @@
+package dungeon.catalogue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import dungeon.factory.DungeonParameters;
+import dungeon.model.DungeonFeatures;
+
+/**
+ * The features of a range of consecutive seeds for one parameter set, kept column by column so
+ * the seeds with given features are found by scanning only the columns asked about.
+ *
+ * <p>A catalogue is built once by generating the dungeon of every seed in parallel and measuring
+ * its {@link DungeonFeatures}, and written to a file to be queried many times. Every column holds
+ * the values of a feature minus the smallest of them, in one, two or four bytes each depending on
+ * the largest, so a catalogue of a small dungeon takes about a byte per feature per seed, on disk
+ * and in memory.
+ *
+ * <p>The file starts with a header: the magic number {@code DSCT}, the format version, the
+ * parameters, the first seed, the number of seeds and the columns, each with its feature, its
+ * smallest and largest value and its width in bytes. Then come the columns one after the other.
+ * Values are big-endian.
+ */
+public final class SeedCatalogue {
+
+  /**
+   * The magic number at the start of every catalogue file.
+   */
+  public static final int MAGIC = 0x44534354;
+
+  /**
+   * The version of the catalogue format written by this class. It also changes with
+   * {@link dungeon.model.GameState#GENERATION_VERSION}, as the features of an older catalogue no
+   * longer match the games of its seeds.
+   */
+  public static final short VERSION = 2;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  //SeedFeature.values() returns a new array on every call
+  private static final SeedFeature[] FEATURES = SeedFeature.values();
+
+  private final DungeonParameters parameters;
+  private final long firstSeed;
+  private final int size;
+  private final Column[] columns;
+
+  private SeedCatalogue(DungeonParameters parameters, long firstSeed, int size,
+                        Column[] columns) {
+    this.parameters = parameters;
+    this.firstSeed = firstSeed;
+    this.size = size;
+    this.columns = columns;
+  }
+
+  /**
+   * Build the catalogue of consecutive seeds, generating their dungeons on the given pool.
+   *
+   * @param parameters the parameters of the dungeons.
+   * @param firstSeed  the first seed.
+   * @param size       the number of seeds.
+   * @param pool       generates and measures the dungeons.
+   * @return the catalogue.
+   */
+  public static SeedCatalogue build(DungeonParameters parameters, long firstSeed, int size,
+                                    ForkJoinPool pool) {
+    if (parameters == null || pool == null) {
+      throw new IllegalArgumentException("Parameters and pool cannot be null");
+    }
+    if (size < 0) {
+      throw new IllegalArgumentException("Size cannot be negative");
+    }
+    int[][] values = new int[FEATURES.length][size];
+    try {
+      pool.submit(() -> IntStream.range(0, size).parallel().forEach(index -> {
+        DungeonFeatures features = DungeonFeatures.of(parameters.generate(firstSeed + index));
+        for (SeedFeature feature : FEATURES) {
+          values[feature.ordinal()][index] = feature.valueOf(features);
+        }
+      })).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while building the catalogue", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Building the catalogue failed", e.getCause());
+    }
+    Column[] columns = new Column[FEATURES.length];
+    for (SeedFeature feature : FEATURES) {
+      columns[feature.ordinal()] = Column.encode(values[feature.ordinal()]);
+      //Let the values go as soon as they are encoded
+      values[feature.ordinal()] = null;
+    }
+    return new SeedCatalogue(parameters, firstSeed, size, columns);
+  }
+
+  /**
+   * Read a catalogue from a file.
+   *
+   * @param file the file.
+   * @return the catalogue.
+   * @throws IOException if the file cannot be read or is not a valid catalogue.
+   */
+  public static SeedCatalogue read(Path file) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("File cannot be null");
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(headerSize(FEATURES.length));
+      readFully(channel, header, 6);
+      if (header.getInt() != MAGIC) {
+        throw new IOException("Not a seed catalogue");
+      }
+      short version = header.getShort();
+      if (version != VERSION) {
+        throw new IOException("Unsupported catalogue version " + version);
+      }
+      readFully(channel, header, headerSize(0) - 6);
+      DungeonParameters parameters;
+      try {
+        int height = header.getInt();
+        int width = header.getInt();
+        int interConnectivity = header.getInt();
+        String type = header.get() != 0 ? "wrapping" : "nonwrapping";
+        parameters = new DungeonParameters(height, width, interConnectivity, type,
+                header.getInt(), header.getInt());
+      } catch (IllegalArgumentException e) {
+        throw new IOException("Corrupt catalogue: " + e.getMessage(), e);
+      }
+      long firstSeed = header.getLong();
+      int size = header.getInt();
+      int columnCount = header.getShort();
+      if (size < 0 || columnCount != FEATURES.length) {
+        throw new IOException("Corrupt catalogue: " + size + " seeds and " + columnCount
+                + " columns");
+      }
+      readFully(channel, header, headerSize(columnCount) - headerSize(0));
+      int[][] bounds = new int[columnCount][];
+      long length = headerSize(columnCount);
+      for (int i = 0; i < columnCount; i++) {
+        int feature = header.get();
+        int min = header.getInt();
+        int max = header.getInt();
+        int width = header.get();
+        if (feature != i || min > max || width != Column.widthOf(min, max)) {
+          throw new IOException("Corrupt catalogue: column " + i);
+        }
+        bounds[i] = new int[] {min, max, width};
+        length += (long) size * width;
+      }
+      //Checked before allocating the columns, so a damaged size cannot exhaust the memory
+      if (length != channel.size()) {
+        throw new IOException("Corrupt catalogue: " + channel.size() + " bytes instead of "
+                + length);
+      }
+      Column[] columns = new Column[columnCount];
+      for (int i = 0; i < columnCount; i++) {
+        columns[i] = new Column(bounds[i][0], bounds[i][1], bounds[i][2],
+                new byte[size * bounds[i][2]]);
+      }
+      for (Column column : columns) {
+        readFully(channel, ByteBuffer.wrap(column.data));
+      }
+      return new SeedCatalogue(parameters, firstSeed, size, columns);
+    }
+  }
+
+  /**
+   * Write the catalogue to a file, replacing any file already there. The file is only replaced
+   * once it is complete.
+   *
+   * @param file the file.
+   * @throws IOException if the file cannot be written.
+   */
+  public void write(Path file) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("File cannot be null");
+    }
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(headerSize(columns.length));
+      header.putInt(MAGIC);
+      header.putShort(VERSION);
+      header.putInt(parameters.getDungeonHeight());
+      header.putInt(parameters.getDungeonWidth());
+      header.putInt(parameters.getInterConnectivity());
+      header.put((byte) (parameters.getDungeonType().equals("wrapping") ? 1 : 0));
+      header.putInt(parameters.getTreasurePercentage());
+      header.putInt(parameters.getMonsterCount());
+      header.putLong(firstSeed);
+      header.putInt(size);
+      header.putShort((short) columns.length);
+      for (int i = 0; i < columns.length; i++) {
+        header.put((byte) i);
+        header.putInt(columns[i].min);
+        header.putInt(columns[i].max);
+        header.put((byte) columns[i].width);
+      }
+      header.flip();
+      writeFully(channel, header);
+      for (Column column : columns) {
+        for (int offset = 0; offset < column.data.length; offset += BUFFER_SIZE) {
+          writeFully(channel, ByteBuffer.wrap(column.data, offset,
+                  Math.min(BUFFER_SIZE, column.data.length - offset)));
+        }
+      }
+    }
+    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Find the seeds whose features are all in the given ranges, in increasing order.
+   *
+   * @param limit  the most seeds to find.
+   * @param ranges the ranges of the features, none to find every seed.
+   * @return the seeds found.
+   */
+  public long[] find(int limit, FeatureRange... ranges) {
+    if (limit < 0) {
+      throw new IllegalArgumentException("Limit cannot be negative");
+    }
+    int[] rows = match(ranges);
+    int count = Math.min(limit, rows.length);
+    long[] seeds = new long[count];
+    for (int i = 0; i < count; i++) {
+      seeds[i] = firstSeed + rows[i];
+    }
+    return seeds;
+  }
+
+  /**
+   * Count the seeds whose features are all in the given ranges.
+   *
+   * @param ranges the ranges of the features, none to count every seed.
+   * @return the number of seeds.
+   */
+  public int count(FeatureRange... ranges) {
+    return match(ranges).length;
+  }
+
+  /**
+   * Get the value of a feature for a seed of the catalogue.
+   *
+   * @param seed    the seed.
+   * @param feature the feature.
+   * @return the value of the feature for the dungeon of the seed.
+   */
+  public int getFeature(long seed, SeedFeature feature) {
+    if (feature == null) {
+      throw new IllegalArgumentException("Feature cannot be null");
+    }
+    long row = seed - firstSeed;
+    if (row < 0 || row >= size) {
+      throw new IllegalArgumentException("Seed " + seed + " is not in the catalogue");
+    }
+    return columns[feature.ordinal()].get((int) row);
+  }
+
+  /**
+   * Get the parameters of the dungeons of the catalogue.
+   *
+   * @return the parameters.
+   */
+  public DungeonParameters getParameters() {
+    return parameters;
+  }
+
+  /**
+   * Get the first seed of the catalogue.
+   *
+   * @return the first seed.
+   */
+  public long getFirstSeed() {
+    return firstSeed;
+  }
+
+  /**
+   * Get the number of seeds in the catalogue.
+   *
+   * @return the number of seeds.
+   */
+  public int size() {
+    return size;
+  }
+
+  private int[] match(FeatureRange... ranges) {
+    if (ranges == null) {
+      throw new IllegalArgumentException("Ranges cannot be null");
+    }
+    int[] rows = new int[size];
+    int count = size;
+    boolean allRows = true;
+    for (FeatureRange range : ranges) {
+      if (range == null) {
+        throw new IllegalArgumentException("Range cannot be null");
+      }
+      //The first range scans every seed, the next ones only the seeds still matching
+      count = columns[range.getFeature().ordinal()].filter(rows, count, allRows, range.getMin(),
+              range.getMax());
+      allRows = false;
+      if (count == 0) {
+        break;
+      }
+    }
+    if (allRows) {
+      Arrays.setAll(rows, row -> row);
+    }
+    return count == size ? rows : Arrays.copyOf(rows, count);
+  }
+
+  private static int headerSize(int columnCount) {
+    //Magic, version, six parameters, first seed, size, column count, then the columns
+    return 4 + 2 + 4 * 5 + 1 + 8 + 4 + 2 + columnCount * (1 + 4 + 4 + 1);
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, int length)
+          throws IOException {
+    buffer.clear();
+    buffer.limit(length);
+    readFully(channel, buffer);
+    buffer.flip();
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException("Corrupt catalogue: the file is truncated");
+      }
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * The values of one feature, each stored as its difference from the smallest value in the
+   * fewest bytes holding the largest difference.
+   */
+  private static final class Column {
+    private final int min;
+    private final int max;
+    private final int width;
+    private final byte[] data;
+
+    private Column(int min, int max, int width, byte[] data) {
+      this.min = min;
+      this.max = max;
+      this.width = width;
+      this.data = data;
+    }
+
+    private static Column encode(int[] values) {
+      int min = Arrays.stream(values).min().orElse(0);
+      int max = Arrays.stream(values).max().orElse(0);
+      int width = widthOf(min, max);
+      ByteBuffer data = ByteBuffer.allocate(values.length * width);
+      for (int value : values) {
+        int offset = value - min;
+        if (width == 1) {
+          data.put((byte) offset);
+        } else if (width == 2) {
+          data.putShort((short) offset);
+        } else {
+          data.putInt(offset);
+        }
+      }
+      return new Column(min, max, width, data.array());
+    }
+
+    private static int widthOf(int min, int max) {
+      long range = (long) max - min;
+      return range < (1 << 8) ? 1 : range < (1 << 16) ? 2 : 4;
+    }
+
+    private int get(int row) {
+      return min + offsetAt(row);
+    }
+
+    private int offsetAt(int row) {
+      switch (width) {
+        case 1:
+          return data[row] & 0xFF;
+        case 2:
+          return (data[2 * row] & 0xFF) << 8 | data[2 * row + 1] & 0xFF;
+        default:
+          int i = 4 * row;
+          return data[i] << 24 | (data[i + 1] & 0xFF) << 16 | (data[i + 2] & 0xFF) << 8
+                  | data[i + 3] & 0xFF;
+      }
+    }
+
+    /**
+     * Keep the rows whose value is in the range, in order, at the start of the array.
+     */
+    private int filter(int[] rows, int count, boolean allRows, int low, int high) {
+      if (high < min || low > max) {
+        return 0;
+      }
+      //The differences can overflow an int, so they are compared unsigned
+      int lowOffset = Math.max(low, min) - min;
+      int highOffset = Math.min(high, max) - min;
+      int kept = 0;
+      for (int i = 0; i < count; i++) {
+        int row = allRows ? i : rows[i];
+        int offset = offsetAt(row);
+        if (Integer.compareUnsigned(offset, lowOffset) >= 0
+                && Integer.compareUnsigned(offset, highOffset) <= 0) {
+          rows[kept++] = row;
+        }
+      }
+      return kept;
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package dungeon.catalogue;
+
+import java.util.function.ToIntFunction;
+
+import dungeon.model.DungeonFeatures;
+import dungeon.model.treasure.TreasureType;
+
+/**
+ * The features of a dungeon a seed catalogue keeps, one column each. The position of a feature
+ * here is its id in catalogue files, so new features go at the end.
+ */
+public enum SeedFeature {
+  CAVES(DungeonFeatures::getCaveCount),
+  TUNNELS(DungeonFeatures::getTunnelCount),
+  DEAD_ENDS(DungeonFeatures::getDeadEndCount),
+  START_END_DISTANCE(DungeonFeatures::getStartEndDistance),
+  DIAMETER(DungeonFeatures::getDiameter),
+  MONSTERS(DungeonFeatures::getMonsterCount),
+  //Monsters per thousand caves
+  MONSTER_DENSITY(features -> features.getCaveCount() == 0 ? 0
+          : (int) (features.getMonsterCount() * 1000L / features.getCaveCount())),
+  TREASURE_CAVES(DungeonFeatures::getTreasureCaveCount),
+  TREASURE_BEFORE_EXIT(DungeonFeatures::getTreasureCavesBeforeExit),
+  DIAMONDS(features -> features.getTreasureTotal(TreasureType.DIAMONDS)),
+  RUBIES(features -> features.getTreasureTotal(TreasureType.RUBIES)),
+  SAPPHIRES(features -> features.getTreasureTotal(TreasureType.SAPPHIRES)),
+  ARROWS(features -> features.getTreasureTotal(TreasureType.ARROWS));
+
+  private final ToIntFunction<DungeonFeatures> extractor;
+
+  SeedFeature(ToIntFunction<DungeonFeatures> extractor) {
+    this.extractor = extractor;
+  }
+
+  /**
+   * Get the value of this feature for a dungeon.
+   *
+   * @param features the features of the dungeon.
+   * @return the value of this feature.
+   */
+  public int valueOf(DungeonFeatures features) {
+    if (features == null) {
+      throw new IllegalArgumentException("Features cannot be null");
+    }
+    return extractor.applyAsInt(features);
+  }
+}
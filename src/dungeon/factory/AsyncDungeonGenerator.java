@@ -0,0 +1,92 @@
+package dungeon.factory;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import dungeon.model.IGameState;
+import dungeon.model.IGenerationProgress;
+
+/**
+ * Generates games on an executor, so the caller never waits for a big dungeon. Every generation
+ * returns a future that can be cancelled and can be given a time budget.
+ *
+ * <p>A generation checks its future every time it reports progress, which it does regularly in
+ * every phase. Once the future is done, because it was cancelled or ran out of time, the
+ * generation stops at the next report instead of running to the end for nobody. One still waiting
+ * in the executor's queue never starts.
+ */
+public class AsyncDungeonGenerator {
+
+  private final Executor executor;
+
+  /**
+   * Constructor for a generator running on the given executor.
+   *
+   * @param executor runs the generations, one task each.
+   */
+  public AsyncDungeonGenerator(Executor executor) {
+    if (executor == null) {
+      throw new IllegalArgumentException("Executor cannot be null");
+    }
+    this.executor = executor;
+  }
+
+  /**
+   * Start generating a game. The future completes with the game, or exceptionally with a
+   * {@link TimeoutException} if the budget runs out first, with the
+   * {@link java.util.concurrent.RejectedExecutionException} if the executor refuses the task, or
+   * with what the generation threw.
+   *
+   * @param parameters the parameters of the game.
+   * @param seed       the seed of the game.
+   * @param budget     how long the generation may take from now, including the time it waits for
+   *                   the executor, or null for no limit.
+   * @param progress   follows the generation on the executor's thread, or null.
+   * @return the game to come.
+   */
+  public CompletableFuture<IGameState> generate(DungeonParameters parameters, long seed,
+                                                Duration budget, IGenerationProgress progress) {
+    if (parameters == null) {
+      throw new IllegalArgumentException("Parameters cannot be null");
+    }
+    if (budget != null && (budget.isNegative() || budget.isZero())) {
+      throw new IllegalArgumentException("Budget must be positive");
+    }
+    CompletableFuture<IGameState> game = new CompletableFuture<>();
+    if (budget != null) {
+      game.orTimeout(budget.toNanos(), TimeUnit.NANOSECONDS);
+    }
+    try {
+      executor.execute(() -> run(game, parameters, seed, progress));
+    } catch (RejectedExecutionException e) {
+      game.completeExceptionally(e);
+    }
+    return game;
+  }
+
+  private static void run(CompletableFuture<IGameState> game, DungeonParameters parameters,
+                          long seed, IGenerationProgress progress) {
+    if (game.isDone()) {
+      //Cancelled or out of time while waiting
+      return;
+    }
+    try {
+      game.complete(parameters.generate(seed, (phase, done, total) -> {
+        if (game.isDone()) {
+          throw new CancellationException("The game is no longer wanted");
+        }
+        if (progress != null) {
+          progress.report(phase, done, total);
+        }
+      }));
+    } catch (RuntimeException e) {
+      //Does nothing if the game was cancelled or ran out of time
+      game.completeExceptionally(e);
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package dungeon.factory;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import dungeon.model.DungeonFeatures;
+import dungeon.model.GameState;
+
+/**
+ * Generates a dungeon satisfying gameplay constraints by racing candidate seeds in parallel. The
+ * candidates are consecutive seeds from a first one, and a number of racers on an executor take
+ * them in turn, generate their dungeon and check it. The first dungeon satisfying the constraints
+ * wins and the racers stop: the generations still running are cancelled at their next progress
+ * report.
+ *
+ * <p>With one racer the winner is always the first satisfying seed. With more, it is the first
+ * one found, which can be a later seed when its dungeon was faster to generate.
+ */
+public class ConstrainedDungeonGenerator {
+
+  private final Executor executor;
+  private final int racers;
+
+  /**
+   * Constructor for a generator racing on the given executor.
+   *
+   * @param executor runs the racers, one task each.
+   * @param racers   the number of candidates generated at the same time.
+   */
+  public ConstrainedDungeonGenerator(Executor executor, int racers) {
+    if (executor == null) {
+      throw new IllegalArgumentException("Executor cannot be null");
+    }
+    if (racers < 1) {
+      throw new IllegalArgumentException("Racers must be greater than 0");
+    }
+    this.executor = executor;
+    this.racers = racers;
+  }
+
+  /**
+   * Start looking for a game satisfying the constraints. The future completes with the first game
+   * found, or exceptionally with an {@link IllegalStateException} if no candidate satisfies the
+   * constraints, with a {@link java.util.concurrent.TimeoutException} if the budget runs out
+   * first, or with what a generation threw. Cancelling it stops the racers.
+   *
+   * @param parameters    the parameters of the game.
+   * @param constraints   the constraints the game must satisfy.
+   * @param firstSeed     the seed of the first candidate, the next ones following it.
+   * @param maxCandidates the most candidates to try.
+   * @param budget        how long to look for from now, or null for no limit.
+   * @return the game to come, with its seed.
+   */
+  public CompletableFuture<SeededGame> generate(DungeonParameters parameters,
+                                                DungeonConstraints constraints, long firstSeed,
+                                                int maxCandidates, Duration budget) {
+    if (parameters == null || constraints == null) {
+      throw new IllegalArgumentException("Parameters and constraints cannot be null");
+    }
+    if (maxCandidates < 1) {
+      throw new IllegalArgumentException("Candidates must be greater than 0");
+    }
+    if (budget != null && (budget.isNegative() || budget.isZero())) {
+      throw new IllegalArgumentException("Budget must be positive");
+    }
+    CompletableFuture<SeededGame> winner = new CompletableFuture<>();
+    if (budget != null) {
+      winner.orTimeout(budget.toNanos(), TimeUnit.NANOSECONDS);
+    }
+    Race race = new Race(parameters, constraints, firstSeed, maxCandidates, winner,
+            Math.min(racers, maxCandidates));
+    for (int i = race.running.get(); i > 0; i--) {
+      try {
+        executor.execute(race::run);
+      } catch (RejectedExecutionException e) {
+        race.finish(e);
+      }
+    }
+    return winner;
+  }
+
+  /**
+   * The state shared by the racers looking for one game.
+   */
+  private static final class Race {
+    private final DungeonParameters parameters;
+    private final DungeonConstraints constraints;
+    private final long firstSeed;
+    private final int maxCandidates;
+    private final CompletableFuture<SeededGame> winner;
+    private final AtomicInteger nextCandidate;
+    private final AtomicInteger running;
+
+    private Race(DungeonParameters parameters, DungeonConstraints constraints, long firstSeed,
+                 int maxCandidates, CompletableFuture<SeededGame> winner, int racers) {
+      this.parameters = parameters;
+      this.constraints = constraints;
+      this.firstSeed = firstSeed;
+      this.maxCandidates = maxCandidates;
+      this.winner = winner;
+      this.nextCandidate = new AtomicInteger();
+      this.running = new AtomicInteger(racers);
+    }
+
+    private void run() {
+      try {
+        for (int candidate = nextCandidate.getAndIncrement();
+             candidate < maxCandidates && !winner.isDone();
+             candidate = nextCandidate.getAndIncrement()) {
+          long seed = firstSeed + candidate;
+          GameState game = parameters.generate(seed, (phase, done, total) -> {
+            if (winner.isDone()) {
+              throw new CancellationException("The race is over");
+            }
+          });
+          DungeonFeatures features = DungeonFeatures.of(game);
+          if (constraints.isSatisfiedBy(features)) {
+            winner.complete(new SeededGame(seed, game, features));
+          }
+        }
+        finish(null);
+      } catch (RuntimeException e) {
+        //Does nothing if the race is already over
+        winner.completeExceptionally(e);
+        finish(e);
+      }
+    }
+
+    private void finish(RuntimeException failure) {
+      if (running.decrementAndGet() > 0) {
+        return;
+      }
+      //The last racer to stop: every candidate was tried, or none could be
+      if (failure != null) {
+        winner.completeExceptionally(failure);
+      } else {
+        winner.completeExceptionally(new IllegalStateException("None of " + maxCandidates
+                + " dungeons " + parameters + " satisfies " + constraints));
+      }
+    }
+  }
+}
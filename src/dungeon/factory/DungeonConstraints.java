@@ -0,0 +1,102 @@
+package dungeon.factory;
+
+import dungeon.model.DungeonFeatures;
+
+/**
+ * The gameplay constraints a generated dungeon must satisfy: the shortest distance from the start
+ * to the end, the fewest caves, whether some treasure must be reachable before the exit, and the
+ * most dead ends.
+ */
+public final class DungeonConstraints {
+
+  /**
+   * No constraints: every dungeon satisfies them.
+   */
+  public static final DungeonConstraints NONE = new DungeonConstraints(0, 0, false,
+          Integer.MAX_VALUE);
+
+  private final int minStartEndDistance;
+  private final int minCaves;
+  private final boolean treasureBeforeExit;
+  private final int maxDeadEnds;
+
+  /**
+   * Constructor for the constraints of a dungeon.
+   *
+   * @param minStartEndDistance The fewest moves from the start to the end.
+   * @param minCaves            The fewest caves.
+   * @param treasureBeforeExit  Whether a treasure cave must be reachable without going through the
+   *                            end.
+   * @param maxDeadEnds         The most caves with a single door, {@link Integer#MAX_VALUE} for
+   *                            any number.
+   */
+  public DungeonConstraints(int minStartEndDistance, int minCaves, boolean treasureBeforeExit,
+                            int maxDeadEnds) {
+    if (minStartEndDistance < 0 || minCaves < 0 || maxDeadEnds < 0) {
+      throw new IllegalArgumentException("Constraints cannot be negative");
+    }
+    this.minStartEndDistance = minStartEndDistance;
+    this.minCaves = minCaves;
+    this.treasureBeforeExit = treasureBeforeExit;
+    this.maxDeadEnds = maxDeadEnds;
+  }
+
+  /**
+   * Check a dungeon against the constraints.
+   *
+   * @param features the features of the dungeon.
+   * @return true if the dungeon satisfies every constraint, false otherwise.
+   */
+  public boolean isSatisfiedBy(DungeonFeatures features) {
+    if (features == null) {
+      throw new IllegalArgumentException("Features cannot be null");
+    }
+    return features.getStartEndDistance() >= minStartEndDistance
+            && features.getCaveCount() >= minCaves
+            && (!treasureBeforeExit || features.getTreasureCavesBeforeExit() > 0)
+            && features.getDeadEndCount() <= maxDeadEnds;
+  }
+
+  /**
+   * Get the fewest moves from the start to the end.
+   *
+   * @return the minimum start to end distance.
+   */
+  public int getMinStartEndDistance() {
+    return minStartEndDistance;
+  }
+
+  /**
+   * Get the fewest caves.
+   *
+   * @return the minimum number of caves.
+   */
+  public int getMinCaves() {
+    return minCaves;
+  }
+
+  /**
+   * Get if a treasure cave must be reachable without going through the end.
+   *
+   * @return true if treasure is required before the exit, false otherwise.
+   */
+  public boolean isTreasureBeforeExit() {
+    return treasureBeforeExit;
+  }
+
+  /**
+   * Get the most caves with a single door.
+   *
+   * @return the maximum number of dead ends.
+   */
+  public int getMaxDeadEnds() {
+    return maxDeadEnds;
+  }
+
+  @Override
+  public String toString() {
+    return "start to end >= " + minStartEndDistance + ", caves >= " + minCaves
+            + (treasureBeforeExit ? ", treasure before the exit" : "")
+            + (maxDeadEnds == Integer.MAX_VALUE ? "" : ", dead ends <= " + maxDeadEnds);
+  }
+}
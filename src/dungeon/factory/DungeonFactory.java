@@ -0,0 +1,404 @@
+package dungeon.factory;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import dungeon.model.GameSnapshot;
+import dungeon.model.GameState;
+import dungeon.model.IGameState;
+
+/**
+ * Hands out new games while generating as few of them as possible on the caller's thread.
+ *
+ * <p>A game asked for by parameters and seed is looked up in two tiers before it is generated.
+ * The first is an in-memory LRU of freshly generated games, kept as snapshots so every caller
+ * restores a game of its own from bytes nobody changes. The snapshots pushed out of memory spill
+ * to files in a directory, the second tier, and are read back from there. The disk is only a
+ * cache: a file that cannot be written or read is generated again when it is asked for. Files are
+ * named after {@link GameState#GENERATION_VERSION} too, so those left by a build generating other
+ * games from a seed are never read.
+ *
+ * <p>A game asked for by parameters only can have any seed, so it comes from a queue of games
+ * generated ahead on a background pool. The pool keeps a number of games ready for each of the
+ * {@value #MAX_READY_PARAMETERS} parameter sets asked for most recently.
+ *
+ * <p>The factory can be used from many threads at once.
+ */
+public class DungeonFactory implements Closeable {
+
+  /**
+   * The number of parameter sets games are kept ready for.
+   */
+  public static final int MAX_READY_PARAMETERS = 16;
+
+  private final long maxMemoryBytes;
+  private final Path directory;
+  private final int readyPerParameters;
+  private final ExecutorService generators;
+  private final LinkedHashMap<Key, byte[]> memory;
+  private long memoryBytes;
+  private final Map<DungeonParameters, ReadyGames> ready;
+  private final LongAdder memoryHits;
+  private final LongAdder diskHits;
+  private final LongAdder readyHits;
+  private final LongAdder generated;
+
+  /**
+   * Constructor for a factory.
+   *
+   * @param maxMemoryBytes     The most bytes of snapshots to keep in memory.
+   * @param directory          The directory to spill snapshots to, or null to keep none on disk.
+   * @param readyPerParameters The number of games to keep ready for each parameter set.
+   * @param threads            The number of background threads generating ready games.
+   * @throws IOException if the directory cannot be created.
+   */
+  public DungeonFactory(long maxMemoryBytes, Path directory, int readyPerParameters, int threads)
+          throws IOException {
+    if (maxMemoryBytes < 0) {
+      throw new IllegalArgumentException("Memory size cannot be negative");
+    }
+    if (readyPerParameters < 0) {
+      throw new IllegalArgumentException("Ready games cannot be negative");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("Threads must be greater than 0");
+    }
+    if (directory != null) {
+      Files.createDirectories(directory);
+    }
+    this.maxMemoryBytes = maxMemoryBytes;
+    this.directory = directory;
+    this.readyPerParameters = readyPerParameters;
+    AtomicInteger threadCount = new AtomicInteger();
+    this.generators = Executors.newFixedThreadPool(threads, task -> {
+      Thread thread = new Thread(task, "dungeon-factory-" + threadCount.incrementAndGet());
+      //Sessions come first, ready games are only generated with the time left
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+    this.memory = new LinkedHashMap<>(16, 0.75f, true);
+    this.ready = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<DungeonParameters, ReadyGames> eldest) {
+        return size() > MAX_READY_PARAMETERS;
+      }
+    };
+    this.memoryHits = new LongAdder();
+    this.diskHits = new LongAdder();
+    this.readyHits = new LongAdder();
+    this.generated = new LongAdder();
+  }
+
+  /**
+   * Get a new game with the given parameters and seed. It is the same game
+   * {@link DungeonParameters#generate(long)} gives, but comes from memory or disk if it was
+   * generated before.
+   *
+   * @param parameters the parameters of the game.
+   * @param seed       the seed of the game.
+   * @return a game nobody else plays.
+   */
+  public IGameState newGame(DungeonParameters parameters, long seed) {
+    if (parameters == null) {
+      throw new IllegalArgumentException("Parameters cannot be null");
+    }
+    Key key = new Key(parameters, seed);
+    byte[] snapshot;
+    synchronized (memory) {
+      snapshot = memory.get(key);
+    }
+    if (snapshot != null) {
+      memoryHits.increment();
+      try {
+        return restore(snapshot);
+      } catch (IOException e) {
+        throw new IllegalStateException("A snapshot in memory cannot be read", e);
+      }
+    }
+
+    IGameState game = fromDisk(key);
+    if (game != null) {
+      diskHits.increment();
+      return game;
+    }
+
+    GameState generatedGame = parameters.generate(seed);
+    generated.increment();
+    keep(key, GameSnapshot.toBytes(generatedGame));
+    return generatedGame;
+  }
+
+  /**
+   * Get a new game with the given parameters and any seed. It is taken from the games kept ready
+   * if there is one, and the background pool then generates another.
+   *
+   * @param parameters the parameters of the game.
+   * @return a game nobody else plays.
+   */
+  public IGameState newGame(DungeonParameters parameters) {
+    IGameState game = takeReadyGame(parameters);
+    if (game == null) {
+      game = parameters.generate(ThreadLocalRandom.current().nextLong());
+      generated.increment();
+    }
+    return game;
+  }
+
+  /**
+   * Take one of the games kept ready with the given parameters, without ever generating one on
+   * the caller's thread. The background pool then generates another.
+   *
+   * @param parameters the parameters of the game.
+   * @return a game nobody else plays, or null if none is ready.
+   */
+  public IGameState takeReadyGame(DungeonParameters parameters) {
+    if (parameters == null) {
+      throw new IllegalArgumentException("Parameters cannot be null");
+    }
+    ReadyGames games = readyGames(parameters);
+    IGameState game = games.games.poll();
+    if (game != null) {
+      games.count.decrementAndGet();
+      readyHits.increment();
+    }
+    refill(parameters, games);
+    return game;
+  }
+
+  /**
+   * Start generating games ahead for a parameter set, before any is asked for.
+   *
+   * @param parameters the parameters of the games.
+   */
+  public void prepare(DungeonParameters parameters) {
+    if (parameters == null) {
+      throw new IllegalArgumentException("Parameters cannot be null");
+    }
+    refill(parameters, readyGames(parameters));
+  }
+
+  /**
+   * Get the number of games ready for a parameter set.
+   *
+   * @param parameters the parameters of the games.
+   * @return the number of games generated ahead and not handed out yet.
+   */
+  public int getReadyCount(DungeonParameters parameters) {
+    synchronized (ready) {
+      ReadyGames games = ready.get(parameters);
+      return games == null ? 0 : games.games.size();
+    }
+  }
+
+  /**
+   * Get the number of games restored from memory.
+   *
+   * @return the number of memory hits.
+   */
+  public long getMemoryHits() {
+    return memoryHits.sum();
+  }
+
+  /**
+   * Get the number of games restored from disk.
+   *
+   * @return the number of disk hits.
+   */
+  public long getDiskHits() {
+    return diskHits.sum();
+  }
+
+  /**
+   * Get the number of games handed out from the games kept ready.
+   *
+   * @return the number of ready hits.
+   */
+  public long getReadyHits() {
+    return readyHits.sum();
+  }
+
+  /**
+   * Get the number of games generated on the caller's thread.
+   *
+   * @return the number of games generated while asked for.
+   */
+  public long getGenerated() {
+    return generated.sum();
+  }
+
+  /**
+   * Stop generating games ahead. Games already cached can still be asked for.
+   */
+  @Override
+  public void close() {
+    generators.shutdownNow();
+  }
+
+  private ReadyGames readyGames(DungeonParameters parameters) {
+    synchronized (ready) {
+      return ready.computeIfAbsent(parameters, p -> new ReadyGames());
+    }
+  }
+
+  private void refill(DungeonParameters parameters, ReadyGames games) {
+    //The count holds the games queued and being generated, so no more are started than needed
+    for (int count = games.count.get(); count < readyPerParameters; count = games.count.get()) {
+      if (!games.count.compareAndSet(count, count + 1)) {
+        continue;
+      }
+      try {
+        generators.execute(() -> {
+          try {
+            games.games.add(parameters.generate(ThreadLocalRandom.current().nextLong()));
+          } catch (RuntimeException e) {
+            games.count.decrementAndGet();
+            throw e;
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        //Closed: the games are only generated when asked for
+        games.count.decrementAndGet();
+        return;
+      }
+    }
+  }
+
+  private void keep(Key key, byte[] snapshot) {
+    List<Map.Entry<Key, byte[]>> evicted = new ArrayList<>();
+    synchronized (memory) {
+      if (snapshot.length > maxMemoryBytes) {
+        evicted.add(Map.entry(key, snapshot));
+      } else if (memory.putIfAbsent(key, snapshot) == null) {
+        memoryBytes += snapshot.length;
+        Iterator<Map.Entry<Key, byte[]>> eldest = memory.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes) {
+          Map.Entry<Key, byte[]> entry = eldest.next();
+          evicted.add(Map.entry(entry.getKey(), entry.getValue()));
+          memoryBytes -= entry.getValue().length;
+          eldest.remove();
+        }
+      }
+    }
+    for (Map.Entry<Key, byte[]> entry : evicted) {
+      spill(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private void spill(Key key, byte[] snapshot) {
+    if (directory == null) {
+      return;
+    }
+    Path file = directory.resolve(key.fileName());
+    if (Files.exists(file)) {
+      return;
+    }
+    Path temporary = directory.resolve(key.fileName() + "." + Thread.currentThread().getId()
+            + ".tmp");
+    try {
+      Files.write(temporary, snapshot);
+      Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE,
+              StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      //Only a cache: the game is generated again when asked for
+      deleteQuietly(temporary);
+    }
+  }
+
+  private IGameState fromDisk(Key key) {
+    if (directory == null) {
+      return null;
+    }
+    Path file = directory.resolve(key.fileName());
+    byte[] snapshot;
+    try {
+      snapshot = Files.readAllBytes(file);
+    } catch (IOException e) {
+      //Never spilled, or not readable: either way it is generated
+      return null;
+    }
+    try {
+      IGameState game = restore(snapshot);
+      keep(key, snapshot);
+      return game;
+    } catch (IOException | RuntimeException e) {
+      //A damaged file is generated again and written anew when it leaves memory
+      deleteQuietly(file);
+      return null;
+    }
+  }
+
+  private static IGameState restore(byte[] snapshot) throws IOException {
+    return GameSnapshot.read(Channels.newChannel(new ByteArrayInputStream(snapshot)));
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      //Left behind, it is tried again next time
+    }
+  }
+
+  /**
+   * The games generated ahead for a parameter set.
+   */
+  private static final class ReadyGames {
+    private final Queue<IGameState> games = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger count = new AtomicInteger();
+  }
+
+  /**
+   * The parameters and seed of a game.
+   */
+  private static final class Key {
+    private final DungeonParameters parameters;
+    private final long seed;
+
+    private Key(DungeonParameters parameters, long seed) {
+      this.parameters = parameters;
+      this.seed = seed;
+    }
+
+    private String fileName() {
+      //A file written by a build generating other games from a seed is never read
+      return parameters + "-" + Long.toHexString(seed) + ".v" + GameState.GENERATION_VERSION
+              + ".snapshot";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return seed == that.seed && parameters.equals(that.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * parameters.hashCode() + Long.hashCode(seed);
+    }
+  }
+}
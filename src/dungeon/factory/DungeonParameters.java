@@ -0,0 +1,177 @@
+package dungeon.factory;
+
+import dungeon.model.GameState;
+import dungeon.model.IGenerationProgress;
+
+/**
+ * The attributes a dungeon is generated with, apart from its seed: height, width,
+ * interconnectivity, type, treasure percentage and number of monsters. Two parameter sets with
+ * the same attributes are equal, so they can be used as keys.
+ */
+public final class DungeonParameters {
+
+  private final int dungeonHeight;
+  private final int dungeonWidth;
+  private final int interConnectivity;
+  private final String dungeonType;
+  private final int treasurePercentage;
+  private final int monsterCount;
+
+  /**
+   * Constructor for the parameters of a dungeon.
+   *
+   * @param dungeonHeight      The height of the dungeon.
+   * @param dungeonWidth       The width of the dungeon.
+   * @param interConnectivity  The interconnectivity of the dungeon.
+   * @param dungeonType        The type of dungeon.
+   * @param treasurePercentage The percentage of treasure in the dungeon.
+   * @param monsterCount       The number of monsters in the dungeon.
+   */
+  public DungeonParameters(int dungeonHeight, int dungeonWidth, int interConnectivity,
+                           String dungeonType, int treasurePercentage, int monsterCount) {
+    if (dungeonHeight < 6 || dungeonHeight > GameState.MAX_DIMENSION) {
+      throw new IllegalArgumentException("Dungeon height must be between 6 and "
+              + GameState.MAX_DIMENSION);
+    }
+    if (dungeonWidth < 6 || dungeonWidth > GameState.MAX_DIMENSION) {
+      throw new IllegalArgumentException("Dungeon width must be between 6 and "
+              + GameState.MAX_DIMENSION);
+    }
+    if (interConnectivity < 0) {
+      throw new IllegalArgumentException("Interconnectivity must be between 0 and dungeon size");
+    }
+    if (dungeonType == null || !(dungeonType.equalsIgnoreCase("wrapping")
+            || dungeonType.equalsIgnoreCase("nonwrapping"))) {
+      throw new IllegalArgumentException("Dungeon type must be wrapping or nonwrapping");
+    }
+    if (treasurePercentage < 0 || treasurePercentage > 100) {
+      throw new IllegalArgumentException("Treasure percentage must be between 0 and 100");
+    }
+    if (monsterCount < 1) {
+      throw new IllegalArgumentException("Monster count must be greater than 0");
+    }
+    this.dungeonHeight = dungeonHeight;
+    this.dungeonWidth = dungeonWidth;
+    this.interConnectivity = interConnectivity;
+    this.dungeonType = dungeonType.toLowerCase();
+    this.treasurePercentage = treasurePercentage;
+    this.monsterCount = monsterCount;
+  }
+
+  /**
+   * Generate a new game with these parameters.
+   *
+   * @param seed the seed of the game.
+   * @return the game.
+   */
+  public GameState generate(long seed) {
+    return new GameState(dungeonHeight, dungeonWidth, interConnectivity, dungeonType,
+            treasurePercentage, monsterCount, seed);
+  }
+
+  /**
+   * Generate a new game with these parameters, telling the progress of the generation as it goes.
+   *
+   * @param seed     the seed of the game.
+   * @param progress follows the generation, and stops it by throwing.
+   * @return the game.
+   */
+  public GameState generate(long seed, IGenerationProgress progress) {
+    return new GameState(dungeonHeight, dungeonWidth, interConnectivity, dungeonType,
+            treasurePercentage, monsterCount, seed, progress);
+  }
+
+  /**
+   * Get the height of the dungeon.
+   *
+   * @return the number of rows.
+   */
+  public int getDungeonHeight() {
+    return dungeonHeight;
+  }
+
+  /**
+   * Get the width of the dungeon.
+   *
+   * @return the number of columns.
+   */
+  public int getDungeonWidth() {
+    return dungeonWidth;
+  }
+
+  /**
+   * Get the interconnectivity of the dungeon.
+   *
+   * @return the number of extra paths.
+   */
+  public int getInterConnectivity() {
+    return interConnectivity;
+  }
+
+  /**
+   * Get the type of the dungeon, in lower case.
+   *
+   * @return wrapping or nonwrapping.
+   */
+  public String getDungeonType() {
+    return dungeonType;
+  }
+
+  /**
+   * Get the percentage of caves with treasure.
+   *
+   * @return the treasure percentage.
+   */
+  public int getTreasurePercentage() {
+    return treasurePercentage;
+  }
+
+  /**
+   * Get the number of monsters.
+   *
+   * @return the number of monsters.
+   */
+  public int getMonsterCount() {
+    return monsterCount;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof DungeonParameters)) {
+      return false;
+    }
+    DungeonParameters that = (DungeonParameters) o;
+    return dungeonHeight == that.dungeonHeight && dungeonWidth == that.dungeonWidth
+            && interConnectivity == that.interConnectivity
+            && dungeonType.equals(that.dungeonType)
+            && treasurePercentage == that.treasurePercentage
+            && monsterCount == that.monsterCount;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = dungeonHeight;
+    result = 31 * result + dungeonWidth;
+    result = 31 * result + interConnectivity;
+    result = 31 * result + dungeonType.hashCode();
+    result = 31 * result + treasurePercentage;
+    result = 31 * result + monsterCount;
+    return result;
+  }
+
+  /**
+   * The parameters as height x width, interconnectivity, type, treasure and monsters, e.g.
+   * {@code 6x6-0-nonwrapping-20-5}. Only letters, digits and dashes are used, so it can be part of
+   * a file name.
+   *
+   * @return the parameters as a string.
+   */
+  @Override
+  public String toString() {
+    return dungeonHeight + "x" + dungeonWidth + "-" + interConnectivity + "-" + dungeonType + "-"
+            + treasurePercentage + "-" + monsterCount;
+  }
+}
@@ -0,0 +1,58 @@
+package dungeon.factory;
+
+import dungeon.model.DungeonFeatures;
+import dungeon.model.IGameState;
+
+/**
+ * A generated game together with the seed it was generated from and its features. The same game
+ * can be generated again from the seed with {@link DungeonParameters#generate(long)}.
+ */
+public final class SeededGame {
+
+  private final long seed;
+  private final IGameState game;
+  private final DungeonFeatures features;
+
+  /**
+   * Constructor for a seeded game.
+   *
+   * @param seed     the seed the game was generated from.
+   * @param game     the game.
+   * @param features the features of its dungeon.
+   */
+  public SeededGame(long seed, IGameState game, DungeonFeatures features) {
+    if (game == null || features == null) {
+      throw new IllegalArgumentException("Game and features cannot be null");
+    }
+    this.seed = seed;
+    this.game = game;
+    this.features = features;
+  }
+
+  /**
+   * Get the seed the game was generated from.
+   *
+   * @return the seed.
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Get the game.
+   *
+   * @return the game.
+   */
+  public IGameState getGame() {
+    return game;
+  }
+
+  /**
+   * Get the features of the dungeon of the game.
+   *
+   * @return the features.
+   */
+  public DungeonFeatures getFeatures() {
+    return features;
+  }
+}
@@ -0,0 +1,250 @@
+package dungeon.generation;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import dungeon.model.directions.Direction;
+
+/**
+ * Generates the doors of a dungeon one row at a time with Eller's algorithm, using memory
+ * proportional to the width only. Dungeons far too big for {@link dungeon.model.GameState} can
+ * be generated this way, straight to a {@link LayoutFile}.
+ *
+ * <p>Each row keeps the set of every location, the locations connected through the rows above.
+ * Neighbours in different sets are joined at random, then every set opens at least one door to
+ * the row below. The last row joins all the sets that are left, so the doors make a spanning tree
+ * like the one Kruskal's algorithm gives. In a wrapping dungeon the last row may also join sets
+ * through the doors to the first row, which is why the first row is given to the sink last.
+ *
+ * <p>The interconnectivity is added on the way: every path left out of the tree is picked with
+ * the probability that gives exactly that many extra paths, chosen uniformly, once all of them
+ * have been seen.
+ */
+public class EllerGenerator {
+
+  private static final byte NORTH = doorBit(Direction.NORTH);
+  private static final byte SOUTH = doorBit(Direction.SOUTH);
+  private static final byte EAST = doorBit(Direction.EAST);
+  private static final byte WEST = doorBit(Direction.WEST);
+
+  private final int numRow;
+  private final int numCol;
+  private final long interConnectivity;
+  private final boolean wrapping;
+  private final Random random;
+
+  private int[] parent;
+  private long candidatesLeft;
+  private long extrasLeft;
+
+  /**
+   * Constructor for the generator.
+   *
+   * @param numRow            the number of rows of the dungeon.
+   * @param numCol            the number of columns of the dungeon.
+   * @param interConnectivity the number of extra paths to add.
+   * @param dungeonType       wrapping or nonwrapping.
+   * @param random            the random number generator.
+   */
+  public EllerGenerator(int numRow, int numCol, long interConnectivity, String dungeonType,
+                        Random random) {
+    if (numRow < 6 || numCol < 6) {
+      throw new IllegalArgumentException("Dungeon height and width must be at least 6");
+    }
+    if (interConnectivity < 0) {
+      throw new IllegalArgumentException("Interconnectivity must be between 0 and dungeon size");
+    }
+    if (dungeonType == null || !(dungeonType.equalsIgnoreCase("wrapping")
+            || dungeonType.equalsIgnoreCase("nonwrapping"))) {
+      throw new IllegalArgumentException("Dungeon type must be wrapping or nonwrapping");
+    }
+    if (random == null) {
+      throw new IllegalArgumentException("Random must be specified");
+    }
+    this.numRow = numRow;
+    this.numCol = numCol;
+    this.interConnectivity = interConnectivity;
+    this.wrapping = dungeonType.equalsIgnoreCase("wrapping");
+    this.random = random;
+  }
+
+  /**
+   * Generate the dungeon, giving every row to the sink as soon as its doors are known.
+   *
+   * @param sink the sink for the rows.
+   * @throws IOException if the sink cannot store a row.
+   */
+  public void generate(IRowSink sink) throws IOException {
+    if (sink == null) {
+      throw new IllegalArgumentException("Sink cannot be null");
+    }
+    int width = numCol;
+    byte[] doors = new byte[width];
+    byte[] nextDoors = new byte[width];
+    byte[] firstRow = null;
+    int[] sets = new int[width];
+    int[] nextSets = new int[width];
+    int[] members = new int[width];
+    int[] chosen = new int[width];
+    boolean[] hasDown = new boolean[width];
+    boolean[] down = new boolean[width];
+    //For a wrapping dungeon, the set each location of the first row is in now
+    int[] firstRowSets = wrapping ? new int[width] : null;
+    parent = new int[width];
+
+    long paths = wrapping ? 2L * numRow * numCol
+            : (long) numRow * (numCol - 1) + (long) (numRow - 1) * numCol;
+    candidatesLeft = paths - ((long) numRow * numCol - 1);
+    extrasLeft = Math.min(interConnectivity, candidatesLeft);
+
+    Arrays.fill(sets, -1);
+    int setCount = 0;
+    for (int row = 0; row < numRow; row++) {
+      boolean last = row == numRow - 1;
+
+      //Locations with no door from above start sets of their own
+      for (int col = 0; col < width; col++) {
+        if (sets[col] < 0) {
+          sets[col] = setCount++;
+        }
+      }
+      for (int set = 0; set < setCount; set++) {
+        parent[set] = set;
+      }
+      if (row == 0 && wrapping) {
+        System.arraycopy(sets, 0, firstRowSets, 0, width);
+      }
+
+      //Join neighbours in the row, all of those in different sets on the last row
+      for (int col = 0; col < width; col++) {
+        if (last && wrapping) {
+          if (join(sets[col], firstRowSets[col], false) || selectExtra()) {
+            doors[col] |= SOUTH;
+            firstRow[col] |= NORTH;
+          }
+        }
+        if (col == width - 1 && !wrapping) {
+          break;
+        }
+        int east = col == width - 1 ? 0 : col + 1;
+        if (join(sets[col], sets[east], last) || selectExtra()) {
+          doors[col] |= EAST;
+          doors[east] |= WEST;
+        }
+      }
+
+      if (!last) {
+        //Every set goes down through at least one location, chosen uniformly if none did
+        for (int set = 0; set < setCount; set++) {
+          members[set] = 0;
+          hasDown[set] = false;
+        }
+        for (int col = 0; col < width; col++) {
+          int set = find(sets[col]);
+          members[set]++;
+          if (random.nextInt(members[set]) == 0) {
+            chosen[set] = col;
+          }
+          down[col] = random.nextBoolean();
+          hasDown[set] |= down[col];
+        }
+        for (int col = 0; col < width; col++) {
+          int set = find(sets[col]);
+          if (!hasDown[set] && chosen[set] == col) {
+            down[col] = true;
+          }
+          nextSets[col] = down[col] ? set : -1;
+          if (down[col] || selectExtra()) {
+            doors[col] |= SOUTH;
+            nextDoors[col] |= NORTH;
+          }
+        }
+      }
+
+      if (row == 0 && wrapping) {
+        //Its doors to the last row are not known yet
+        firstRow = doors.clone();
+      } else {
+        sink.writeRow(row, doors);
+      }
+      if (last) {
+        break;
+      }
+
+      //Number the sets of the next row from 0 again
+      int[] renumbered = members;
+      Arrays.fill(renumbered, 0, setCount, -1);
+      int nextSetCount = 0;
+      for (int col = 0; col < width; col++) {
+        if (nextSets[col] >= 0) {
+          if (renumbered[nextSets[col]] < 0) {
+            renumbered[nextSets[col]] = nextSetCount++;
+          }
+          nextSets[col] = renumbered[nextSets[col]];
+        }
+      }
+      if (wrapping) {
+        //Every set reaches the row below, so the sets of the first row are still all there
+        for (int col = 0; col < width; col++) {
+          firstRowSets[col] = renumbered[find(firstRowSets[col])];
+        }
+      }
+      setCount = nextSetCount;
+
+      int[] swapSets = sets;
+      sets = nextSets;
+      nextSets = swapSets;
+      byte[] swapDoors = doors;
+      doors = nextDoors;
+      nextDoors = swapDoors;
+      Arrays.fill(nextDoors, (byte) 0);
+    }
+
+    if (wrapping) {
+      sink.writeRow(0, firstRow);
+    }
+    parent = null;
+  }
+
+  /**
+   * Join two sets if they are different, always if forced and otherwise half of the time.
+   *
+   * @return true if they were joined, which means a door of the tree is opened between them.
+   */
+  private boolean join(int first, int second, boolean forced) {
+    int firstRoot = find(first);
+    int secondRoot = find(second);
+    if (firstRoot == secondRoot || !(forced || random.nextBoolean())) {
+      return false;
+    }
+    parent[secondRoot] = firstRoot;
+    return true;
+  }
+
+  private int find(int set) {
+    while (parent[set] != set) {
+      parent[set] = parent[parent[set]];
+      set = parent[set];
+    }
+    return set;
+  }
+
+  /**
+   * Decide whether a path left out of the tree becomes an extra path. Picking it with probability
+   * extras left / paths left gives exactly the wanted number, all subsets equally likely.
+   */
+  private boolean selectExtra() {
+    boolean selected = extrasLeft > 0
+            && (long) (random.nextDouble() * candidatesLeft) < extrasLeft;
+    candidatesLeft--;
+    if (selected) {
+      extrasLeft--;
+    }
+    return selected;
+  }
+
+  private static byte doorBit(Direction direction) {
+    return (byte) (1 << direction.ordinal());
+  }
+}
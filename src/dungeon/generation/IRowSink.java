@@ -0,0 +1,20 @@
+package dungeon.generation;
+
+import java.io.IOException;
+
+/**
+ * Takes the rows of a dungeon as a generator produces them, one door mask per location. A door
+ * mask has the bit {@code 1 << direction.ordinal()} set for every direction with a door.
+ */
+public interface IRowSink {
+
+  /**
+   * Take the doors of one row. Every row is given exactly once, but not necessarily in order.
+   *
+   * @param row   the row.
+   * @param doors the door mask of every location of the row; the generator reuses the array once
+   *              this returns.
+   * @throws IOException if the row cannot be stored.
+   */
+  void writeRow(int row, byte[] doors) throws IOException;
+}
@@ -0,0 +1,214 @@
+package dungeon.generation;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file holding the doors of a dungeon, written row by row by a generator and read back one row
+ * at a time, so neither side needs more memory than a row. Rows can be written in any order.
+ *
+ * <p>The file starts with a header: the magic number {@code DGNL}, the format version, the number
+ * of rows and columns and whether the dungeon wraps. Then come the rows, each
+ * {@code (columns + 1) / 2} bytes with the door masks of two locations in every byte, the first
+ * one in the low four bits.
+ */
+public final class LayoutFile implements IRowSink, Closeable {
+
+  /**
+   * The magic number at the start of every layout file.
+   */
+  public static final int MAGIC = 0x44474E4C;
+
+  /**
+   * The version of the layout format written by this class.
+   */
+  public static final short VERSION = 1;
+
+  private static final int HEADER_SIZE = 16;
+
+  private final FileChannel channel;
+  private final int numRow;
+  private final int numCol;
+  private final boolean wrapping;
+  private final ByteBuffer rowBuffer;
+
+  private LayoutFile(FileChannel channel, int numRow, int numCol, boolean wrapping) {
+    this.channel = channel;
+    this.numRow = numRow;
+    this.numCol = numCol;
+    this.wrapping = wrapping;
+    this.rowBuffer = ByteBuffer.allocate((numCol + 1) / 2);
+  }
+
+  /**
+   * Create a layout file for a dungeon, replacing any file already there.
+   *
+   * @param file     the file to create.
+   * @param numRow   the number of rows of the dungeon.
+   * @param numCol   the number of columns of the dungeon.
+   * @param wrapping whether the dungeon wraps.
+   * @return the layout file, open for writing rows.
+   * @throws IOException if the file cannot be created.
+   */
+  public static LayoutFile create(Path file, int numRow, int numCol, boolean wrapping)
+          throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("File cannot be null");
+    }
+    if (numRow < 1 || numCol < 1) {
+      throw new IllegalArgumentException("Dungeon height and width must be positive");
+    }
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putInt(MAGIC).putShort(VERSION).putInt(numRow).putInt(numCol)
+              .put((byte) (wrapping ? 1 : 0));
+      header.clear();
+      writeFully(channel, header, 0);
+      return new LayoutFile(channel, numRow, numCol, wrapping);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Open a layout file for reading its rows.
+   *
+   * @param file the file to open.
+   * @return the layout file.
+   * @throws IOException if the file cannot be read or is not a complete layout file.
+   */
+  public static LayoutFile open(Path file) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("File cannot be null");
+    }
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      readFully(channel, header, 0);
+      header.flip();
+      if (header.getInt() != MAGIC) {
+        throw new IOException("Not a dungeon layout file");
+      }
+      short version = header.getShort();
+      if (version != VERSION) {
+        throw new IOException("Unsupported layout version " + version);
+      }
+      int numRow = header.getInt();
+      int numCol = header.getInt();
+      boolean wrapping = header.get() != 0;
+      if (numRow < 1 || numCol < 1
+              || channel.size() != HEADER_SIZE + (long) numRow * ((numCol + 1) / 2)) {
+        throw new IOException("Corrupt layout file: size does not match " + numRow + "x"
+                + numCol);
+      }
+      return new LayoutFile(channel, numRow, numCol, wrapping);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Get the number of rows of the dungeon.
+   *
+   * @return the number of rows.
+   */
+  public int getNumRows() {
+    return numRow;
+  }
+
+  /**
+   * Get the number of columns of the dungeon.
+   *
+   * @return the number of columns.
+   */
+  public int getNumCols() {
+    return numCol;
+  }
+
+  /**
+   * Get whether the dungeon wraps.
+   *
+   * @return true if the dungeon wraps.
+   */
+  public boolean isWrapping() {
+    return wrapping;
+  }
+
+  @Override
+  public void writeRow(int row, byte[] doors) throws IOException {
+    checkRow(row, doors);
+    rowBuffer.clear();
+    for (int col = 0; col < numCol; col += 2) {
+      int high = col + 1 < numCol ? doors[col + 1] : 0;
+      rowBuffer.put((byte) ((doors[col] & 0xF) | (high & 0xF) << 4));
+    }
+    rowBuffer.flip();
+    writeFully(channel, rowBuffer, rowPosition(row));
+  }
+
+  /**
+   * Read the doors of one row.
+   *
+   * @param row   the row.
+   * @param doors the array to fill with the door mask of every location of the row.
+   * @throws IOException if the row cannot be read.
+   */
+  public void readRow(int row, byte[] doors) throws IOException {
+    checkRow(row, doors);
+    rowBuffer.clear();
+    readFully(channel, rowBuffer, rowPosition(row));
+    for (int col = 0; col < numCol; col += 2) {
+      byte packed = rowBuffer.get(col / 2);
+      doors[col] = (byte) (packed & 0xF);
+      if (col + 1 < numCol) {
+        doors[col + 1] = (byte) ((packed >> 4) & 0xF);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private void checkRow(int row, byte[] doors) {
+    if (row < 0 || row >= numRow) {
+      throw new IllegalArgumentException("Row must be between 0 and " + (numRow - 1));
+    }
+    if (doors == null || doors.length < numCol) {
+      throw new IllegalArgumentException("Doors must have a mask for every column");
+    }
+  }
+
+  private long rowPosition(int row) {
+    return HEADER_SIZE + (long) row * rowBuffer.capacity();
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+          throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+          throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        throw new EOFException("Layout file ends early");
+      }
+      position += read;
+    }
+  }
+}
@@ -0,0 +1,393 @@
+package dungeon.generation;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+import dungeon.model.directions.Direction;
+
+/**
+ * Generates the doors of a whole dungeon in parallel. The dungeon is cut into square tiles, the
+ * tiles are sorted out at the same time on a fork-join pool, and then the locations are joined in
+ * parallel rounds of Boruvka's algorithm.
+ *
+ * <p>Every path gets a weight hashed from the seed and its id, and the doors are the minimum
+ * spanning tree for those weights. Since the weights are all different that tree is unique, so
+ * the dungeon depends on the seed only: not on the number of threads, nor on the tile size. A tile
+ * can throw away most of its paths on its own because a path that is the heaviest on a cycle
+ * inside the tile is the heaviest on that cycle in the whole dungeon too, and so is never part of
+ * the tree. What is left of every tile, its own spanning tree and its paths to other tiles, is
+ * what Boruvka's rounds pick from.
+ *
+ * <p>The extra paths of the interconnectivity are then picked uniformly among the paths left out,
+ * with a random number generator seeded from the same seed.
+ *
+ * <p>The door masks returned are indexed by {@code row * numCol + col} and have the bit
+ * {@code 1 << direction.ordinal()} set for every direction with a door, the same as
+ * {@link dungeon.model.GameState#GameState(int, int, byte[], int, int, java.util.Random)} takes.
+ */
+public class TiledMazeGenerator {
+
+  /**
+   * The number of rows and columns of a tile unless another size is given.
+   */
+  public static final int DEFAULT_TILE_SIZE = 64;
+
+  private static final byte NORTH = doorBit(Direction.NORTH);
+  private static final byte SOUTH = doorBit(Direction.SOUTH);
+  private static final byte EAST = doorBit(Direction.EAST);
+  private static final byte WEST = doorBit(Direction.WEST);
+
+  private final int numRow;
+  private final int numCol;
+  private final long interConnectivity;
+  private final boolean wrapping;
+  private final long seed;
+  private final int tileSize;
+  private final int tileRows;
+  private final int tileCols;
+
+  /**
+   * Constructor for the generator with the default tile size.
+   *
+   * @param numRow            the number of rows of the dungeon.
+   * @param numCol            the number of columns of the dungeon.
+   * @param interConnectivity the number of extra paths to add.
+   * @param dungeonType       wrapping or nonwrapping.
+   * @param seed              the seed of the dungeon.
+   */
+  public TiledMazeGenerator(int numRow, int numCol, long interConnectivity, String dungeonType,
+                            long seed) {
+    this(numRow, numCol, interConnectivity, dungeonType, seed, DEFAULT_TILE_SIZE);
+  }
+
+  /**
+   * Constructor for the generator.
+   *
+   * @param numRow            the number of rows of the dungeon.
+   * @param numCol            the number of columns of the dungeon.
+   * @param interConnectivity the number of extra paths to add.
+   * @param dungeonType       wrapping or nonwrapping.
+   * @param seed              the seed of the dungeon.
+   * @param tileSize          the number of rows and columns of a tile.
+   */
+  public TiledMazeGenerator(int numRow, int numCol, long interConnectivity, String dungeonType,
+                            long seed, int tileSize) {
+    if (numRow < 6 || numCol < 6) {
+      throw new IllegalArgumentException("Dungeon height and width must be at least 6");
+    }
+    if ((long) numRow * numCol > Integer.MAX_VALUE / 2) {
+      //Every location has two path ids
+      throw new IllegalArgumentException("Dungeon has too many locations");
+    }
+    if (interConnectivity < 0) {
+      throw new IllegalArgumentException("Interconnectivity must be between 0 and dungeon size");
+    }
+    if (dungeonType == null || !(dungeonType.equalsIgnoreCase("wrapping")
+            || dungeonType.equalsIgnoreCase("nonwrapping"))) {
+      throw new IllegalArgumentException("Dungeon type must be wrapping or nonwrapping");
+    }
+    if (tileSize < 1) {
+      throw new IllegalArgumentException("Tile size must be greater than 0");
+    }
+    this.numRow = numRow;
+    this.numCol = numCol;
+    this.interConnectivity = interConnectivity;
+    this.wrapping = dungeonType.equalsIgnoreCase("wrapping");
+    this.seed = seed;
+    this.tileSize = tileSize;
+    this.tileRows = (numRow + tileSize - 1) / tileSize;
+    this.tileCols = (numCol + tileSize - 1) / tileSize;
+  }
+
+  /**
+   * Generate the dungeon on the common fork-join pool.
+   *
+   * @return the door mask of every location.
+   */
+  public byte[] generate() {
+    return generate(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Generate the dungeon on the given pool.
+   *
+   * @param pool the pool to build the tiles and find the stitches on.
+   * @return the door mask of every location.
+   */
+  public byte[] generate(ForkJoinPool pool) {
+    if (pool == null) {
+      throw new IllegalArgumentException("Pool cannot be null");
+    }
+    byte[] doors = new byte[numRow * numCol];
+    long[][] candidates = new long[tileRows * tileCols][];
+    inPool(pool, () -> IntStream.range(0, candidates.length).parallel()
+            .forEach(tile -> candidates[tile] = sortOutTile(tile)));
+    joinLocations(pool, candidates, doors);
+    addInterconnectivity(doors);
+    return doors;
+  }
+
+  /**
+   * Find the minimum spanning tree of the paths inside a tile, with Kruskal's algorithm. Only the
+   * paths of that tree can be in the tree of the whole dungeon.
+   *
+   * @return the weights of the paths of the tile's tree and of the paths to other tiles.
+   */
+  private long[] sortOutTile(int tile) {
+    int firstRow = (tile / tileCols) * tileSize;
+    int firstCol = (tile % tileCols) * tileSize;
+    int height = Math.min(tileSize, numRow - firstRow);
+    int width = Math.min(tileSize, numCol - firstCol);
+
+    long[] inside = new long[2 * height * width];
+    long[] candidates = new long[2 * height * width];
+    int insideCount = 0;
+    int count = 0;
+    for (int row = firstRow; row < firstRow + height; row++) {
+      for (int col = firstCol; col < firstCol + width; col++) {
+        int cellId = row * numCol + col;
+        for (int direction = 0; direction < 2; direction++) {
+          int pathId = 2 * cellId + direction;
+          int other = otherCell(pathId);
+          if (other < 0) {
+            continue;
+          }
+          if (tileOf(other) == tile) {
+            inside[insideCount++] = weigh(pathId);
+          } else {
+            candidates[count++] = weigh(pathId);
+          }
+        }
+      }
+    }
+
+    Arrays.sort(inside, 0, insideCount);
+    int[] parent = new int[height * width];
+    for (int i = 0; i < parent.length; i++) {
+      parent[i] = i;
+    }
+    for (int i = 0; i < insideCount; i++) {
+      int pathId = pathIdOf(inside[i]);
+      int first = localIndex(pathId >>> 1, firstRow, firstCol, width);
+      int second = localIndex(otherCell(pathId), firstRow, firstCol, width);
+      int firstRoot = find(parent, first);
+      int secondRoot = find(parent, second);
+      if (firstRoot != secondRoot) {
+        parent[secondRoot] = firstRoot;
+        candidates[count++] = inside[i];
+      }
+    }
+    return Arrays.copyOf(candidates, count);
+  }
+
+  /**
+   * Join the locations with Boruvka's algorithm: in every round each group of locations finds its
+   * lightest path to another group in parallel, then all those paths are opened. Paths inside a
+   * group are dropped from the candidates as the rounds go.
+   */
+  private void joinLocations(ForkJoinPool pool, long[][] candidates, byte[] doors) {
+    int cells = doors.length;
+    int[] parent = new int[cells];
+    int[] size = new int[cells];
+    for (int i = 0; i < cells; i++) {
+      parent[i] = i;
+      size[i] = 1;
+    }
+    AtomicLongArray lightest = new AtomicLongArray(cells);
+    for (int i = 0; i < cells; i++) {
+      lightest.set(i, Long.MAX_VALUE);
+    }
+    int groups = cells;
+    while (groups > 1) {
+      //The groups only change between the parallel parts, so reading them here is safe
+      inPool(pool, () -> IntStream.range(0, candidates.length).parallel().forEach(tile -> {
+        long[] paths = candidates[tile];
+        int kept = 0;
+        for (long weight : paths) {
+          int pathId = pathIdOf(weight);
+          int firstGroup = findWithoutCompression(parent, pathId >>> 1);
+          int secondGroup = findWithoutCompression(parent, otherCell(pathId));
+          if (firstGroup != secondGroup) {
+            keepLightest(lightest, firstGroup, weight);
+            keepLightest(lightest, secondGroup, weight);
+            paths[kept++] = weight;
+          }
+        }
+        candidates[tile] = kept == paths.length ? paths : Arrays.copyOf(paths, kept);
+      }));
+      for (int group = 0; group < cells; group++) {
+        long weight = lightest.get(group);
+        if (weight == Long.MAX_VALUE) {
+          continue;
+        }
+        lightest.set(group, Long.MAX_VALUE);
+        int pathId = pathIdOf(weight);
+        int firstGroup = find(parent, pathId >>> 1);
+        int secondGroup = find(parent, otherCell(pathId));
+        //Two groups can pick the same path
+        if (firstGroup != secondGroup) {
+          if (size[firstGroup] < size[secondGroup]) {
+            parent[firstGroup] = secondGroup;
+            size[secondGroup] += size[firstGroup];
+          } else {
+            parent[secondGroup] = firstGroup;
+            size[firstGroup] += size[secondGroup];
+          }
+          openPath(pathId, doors);
+          groups--;
+        }
+      }
+      //Point every location straight at its group, so the next round finds groups in one step.
+      //The groups do not change here, so every value written is an ancestor of the location.
+      inPool(pool, () -> IntStream.range(0, cells).parallel()
+              .forEach(cell -> parent[cell] = findWithoutCompression(parent, cell)));
+    }
+  }
+
+  /**
+   * Open exactly min(interconnectivity, paths left out) more paths, chosen uniformly. If more than
+   * half of them are opened, the ones to leave closed are chosen instead.
+   */
+  private void addInterconnectivity(byte[] doors) {
+    long paths = wrapping ? 2L * numRow * numCol
+            : (long) numRow * (numCol - 1) + (long) (numRow - 1) * numCol;
+    long leftOver = paths - ((long) numRow * numCol - 1);
+    long extras = Math.min(interConnectivity, leftOver);
+    if (extras == 0) {
+      return;
+    }
+    SplittableRandom random = new SplittableRandom(mix(seed ^ 0x5DEECE66DL));
+    long pathIds = 2L * numRow * numCol;
+    if (extras <= leftOver / 2) {
+      for (long opened = 0; opened < extras; ) {
+        int pathId = (int) random.nextLong(pathIds);
+        if (otherCell(pathId) >= 0 && !isOpen(pathId, doors)) {
+          openPath(pathId, doors);
+          opened++;
+        }
+      }
+    } else {
+      BitSet closed = new BitSet((int) pathIds);
+      for (long kept = 0; kept < leftOver - extras; ) {
+        int pathId = (int) random.nextLong(pathIds);
+        if (otherCell(pathId) >= 0 && !isOpen(pathId, doors) && !closed.get(pathId)) {
+          closed.set(pathId);
+          kept++;
+        }
+      }
+      for (int pathId = 0; pathId < pathIds; pathId++) {
+        if (otherCell(pathId) >= 0 && !isOpen(pathId, doors) && !closed.get(pathId)) {
+          openPath(pathId, doors);
+        }
+      }
+    }
+  }
+
+  /**
+   * Get the cell at the other end of a path. Path 2 * cellId leads east of the cell and path
+   * 2 * cellId + 1 leads south of it.
+   *
+   * @return the other cell, or -1 if the path leaves a non-wrapping dungeon.
+   */
+  private int otherCell(int pathId) {
+    int cellId = pathId >>> 1;
+    int row = cellId / numCol;
+    int col = cellId % numCol;
+    if ((pathId & 1) == 0) {
+      if (col == numCol - 1 && !wrapping) {
+        return -1;
+      }
+      return row * numCol + (col + 1) % numCol;
+    }
+    if (row == numRow - 1 && !wrapping) {
+      return -1;
+    }
+    return ((row + 1) % numRow) * numCol + col;
+  }
+
+  private void openPath(int pathId, byte[] doors) {
+    int cellId = pathId >>> 1;
+    int other = otherCell(pathId);
+    if ((pathId & 1) == 0) {
+      doors[cellId] |= EAST;
+      doors[other] |= WEST;
+    } else {
+      doors[cellId] |= SOUTH;
+      doors[other] |= NORTH;
+    }
+  }
+
+  private static boolean isOpen(int pathId, byte[] doors) {
+    return (doors[pathId >>> 1] & ((pathId & 1) == 0 ? EAST : SOUTH)) != 0;
+  }
+
+  private int tileOf(int cellId) {
+    return (cellId / numCol / tileSize) * tileCols + (cellId % numCol) / tileSize;
+  }
+
+  private int localIndex(int cellId, int firstRow, int firstCol, int width) {
+    return (cellId / numCol - firstRow) * width + (cellId % numCol - firstCol);
+  }
+
+  /**
+   * Weigh a path: a hash of the seed and the path in the high bits, the path id in the low bits
+   * so that no two paths weigh the same.
+   */
+  private long weigh(int pathId) {
+    long hash = mix(seed + pathId * 0x9E3779B97F4A7C15L);
+    return (hash >>> 33) << 32 | (pathId & 0xFFFFFFFFL);
+  }
+
+  private static int pathIdOf(long weight) {
+    return (int) weight;
+  }
+
+  private static void keepLightest(AtomicLongArray lightest, int group, long weight) {
+    long current = lightest.get(group);
+    while (weight < current && !lightest.compareAndSet(group, current, weight)) {
+      current = lightest.get(group);
+    }
+  }
+
+  private static int find(int[] parent, int i) {
+    while (parent[i] != i) {
+      parent[i] = parent[parent[i]];
+      i = parent[i];
+    }
+    return i;
+  }
+
+  private static int findWithoutCompression(int[] parent, int i) {
+    while (parent[i] != i) {
+      i = parent[i];
+    }
+    return i;
+  }
+
+  private static void inPool(ForkJoinPool pool, Runnable task) {
+    try {
+      pool.submit(task).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while generating the dungeon", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Generating the dungeon failed", e.getCause());
+    }
+  }
+
+  private static long mix(long z) {
+    //The finalizer of SplitMix64
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  private static byte doorBit(Direction direction) {
+    return (byte) (1 << direction.ordinal());
+  }
+}
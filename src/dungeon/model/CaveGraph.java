@@ -0,0 +1,534 @@
+package dungeon.model;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import dungeon.model.directions.Direction;
+
+/**
+ * The caves of a {@link Grid} and the corridors between them, every chain of tunnels between two
+ * caves being one edge. An edge leaves a cave through one of its doors and is stored with the cave
+ * it reaches, the direction of its last move into that cave, its length in moves and the corridor
+ * its tunnels belong to, so anything that only stops in caves can go from cave to cave in one
+ * step. Tunnels have two doors, so every tunnel is in exactly one corridor.
+ *
+ * <p>The graph only depends on the doors. It is built once they are in place, and never changes:
+ * the grid drops it when a door is opened and builds a new one when it is needed again. A graph
+ * can therefore be shared by grids with the same doors, such as the copies of a game, and
+ * {@link #of(Grid)} hands the same graph to every grid with the same doors while it is among the
+ * graphs used most recently, up to {@link #MAX_CACHED_BYTES} bytes in all, so games restored or
+ * generated again from one seed share it too.
+ *
+ * <p>The graph also keeps a table of where arrows land, by cave, direction and distance up to
+ * {@value #MAX_TABLED_DISTANCE}, filled as shots are asked for: the first shot from a cave
+ * through a door flies the arrow as far as it goes and every later one through that door is an
+ * array read. The table is the only thing in the graph that changes, and it can be filled from
+ * many threads at once.
+ */
+final class CaveGraph {
+
+  /**
+   * The longest shot kept in the arrow table, the longest a player can take.
+   */
+  static final int MAX_TABLED_DISTANCE = 5;
+
+  /**
+   * The most bytes, over all the graphs {@link #of(Grid)} keeps for grids with the same doors,
+   * their arrow tables included. It defaults to 64 MB and can be changed with the
+   * dungeon.caveGraphCacheMb system property; 0 keeps none.
+   */
+  static final long MAX_CACHED_BYTES =
+          Math.max(0, Integer.getInteger("dungeon.caveGraphCacheMb", 64)) * (1L << 20);
+
+  //Direction.values() returns a new array on every call
+  private static final Direction[] DIRECTIONS = Direction.values();
+  //In the arrow table, a shot not flown yet, and one that stops before its distance
+  private static final int NOT_FLOWN = 0;
+  private static final int STOPPED = -1;
+  private static final LinkedHashMap<Topology, CaveGraph> CACHE =
+          new LinkedHashMap<>(16, 0.75f, true);
+  //An array header on a 64-bit virtual machine
+  private static final int ARRAY_HEADER = 16;
+  private static long cachedBytes;
+
+  private final int[] caveIndex;
+  private final int[] caveCells;
+  private final int[] corridorOf;
+  private final int corridorCount;
+  private final int[] edgeTarget;
+  private final int[] edgeLength;
+  private final int[] edgeCorridor;
+  private final byte[] edgeArrival;
+  private final byte[] firstEndDoor;
+  private final int[] corridorEdges;
+  private volatile int[] landings;
+  //The bytes counted for the graph in the cache, 0 while it is not cached; guarded by CACHE
+  private long cachedSize;
+
+  /**
+   * Constructor for the cave graph of a grid, walking every corridor from both of its ends.
+   *
+   * @param grid the grid, with its doors in place
+   */
+  CaveGraph(Grid grid) {
+    int numCells = grid.getNumRows() * grid.getNumCols();
+    caveIndex = new int[numCells];
+    corridorOf = new int[numCells];
+    firstEndDoor = new byte[numCells];
+    Arrays.fill(corridorOf, -1);
+    int caves = 0;
+    for (int cellId = 0; cellId < numCells; cellId++) {
+      caveIndex[cellId] = grid.isCave(cellId) ? caves++ : -1;
+    }
+    caveCells = new int[caves];
+    for (int cellId = 0; cellId < numCells; cellId++) {
+      if (caveIndex[cellId] != -1) {
+        caveCells[caveIndex[cellId]] = cellId;
+      }
+    }
+
+    edgeTarget = new int[caves * DIRECTIONS.length];
+    edgeLength = new int[edgeTarget.length];
+    edgeCorridor = new int[edgeTarget.length];
+    edgeArrival = new byte[edgeTarget.length];
+    Arrays.fill(edgeTarget, -1);
+    //The edges leaving a corridor, by its first end then its other end
+    int[] exits = new int[2 * edgeTarget.length];
+    int corridors = 0;
+    for (int cave = 0; cave < caves; cave++) {
+      for (Direction direction : DIRECTIONS) {
+        if (!grid.hasDoor(caveCells[cave], direction)) {
+          continue;
+        }
+        int edge = cave * DIRECTIONS.length + direction.ordinal();
+        int cellId = grid.getAdjacentCell(caveCells[cave], direction);
+        Direction heading = direction;
+        int length = 1;
+        int corridor = -1;
+        //The first walk along a corridor goes to its first end
+        int end = 0;
+        if (caveIndex[cellId] == -1) {
+          //Walked from its other end already, or a new corridor
+          if (corridorOf[cellId] != -1) {
+            corridor = corridorOf[cellId];
+            end = 1;
+          } else {
+            corridor = corridors++;
+          }
+          exits[2 * corridor + end] = edge;
+        }
+        while (caveIndex[cellId] == -1) {
+          corridorOf[cellId] = corridor;
+          //A tunnel goes on through its door other than the one just come through
+          int otherDoor = grid.getDoors(cellId)
+                  & ~Grid.doorBit(Grid.getOppositeDirection(heading));
+          heading = DIRECTIONS[Integer.numberOfTrailingZeros(otherDoor)];
+          if (end == 0) {
+            firstEndDoor[cellId] = (byte) heading.ordinal();
+          }
+          cellId = grid.getAdjacentCell(cellId, heading);
+          length++;
+        }
+        edgeTarget[edge] = cellId;
+        edgeLength[edge] = length;
+        edgeCorridor[edge] = corridor;
+        edgeArrival[edge] = (byte) heading.ordinal();
+      }
+    }
+    corridorCount = corridors;
+    corridorEdges = Arrays.copyOf(exits, 2 * corridors);
+  }
+
+  /**
+   * Get the graph of a grid, the one already built for a grid with the same doors if it is still
+   * cached.
+   *
+   * @param grid the grid, with its doors in place
+   * @return its cave graph
+   */
+  static CaveGraph of(Grid grid) {
+    Topology topology = new Topology(grid);
+    synchronized (CACHE) {
+      CaveGraph graph = CACHE.get(topology);
+      if (graph != null) {
+        return graph;
+      }
+    }
+    //Built outside the lock, so two grids asking at once may both build it, and one is kept
+    CaveGraph graph = new CaveGraph(grid);
+    synchronized (CACHE) {
+      CaveGraph cached = CACHE.putIfAbsent(topology, graph);
+      if (cached != null) {
+        return cached;
+      }
+      graph.cachedSize = graph.byteSize();
+      cachedBytes += graph.cachedSize;
+      trimCache();
+      return graph;
+    }
+  }
+
+  /**
+   * Count the graph again in the cache once it has grown its arrow table.
+   */
+  private static void grown(CaveGraph graph) {
+    synchronized (CACHE) {
+      if (graph.cachedSize != 0) {
+        long size = graph.byteSize();
+        cachedBytes += size - graph.cachedSize;
+        graph.cachedSize = size;
+        trimCache();
+      }
+    }
+  }
+
+  //Call with the CACHE lock held
+  private static void trimCache() {
+    Iterator<CaveGraph> eldest = CACHE.values().iterator();
+    while (cachedBytes > MAX_CACHED_BYTES && eldest.hasNext()) {
+      CaveGraph graph = eldest.next();
+      cachedBytes -= graph.cachedSize;
+      graph.cachedSize = 0;
+      eldest.remove();
+    }
+  }
+
+  /**
+   * The bytes of the arrays of the graph, of its arrow table if it has one, and of the doors it
+   * is cached by, one byte per cell.
+   */
+  private long byteSize() {
+    long bytes = 4L * (caveIndex.length + caveCells.length + corridorOf.length
+            + edgeTarget.length + edgeLength.length + edgeCorridor.length + corridorEdges.length)
+            + edgeArrival.length + firstEndDoor.length + 10L * ARRAY_HEADER;
+    //The doors of the key, a byte per cell
+    bytes += caveIndex.length;
+    int[] table = landings;
+    return table == null ? bytes : bytes + 4L * table.length + ARRAY_HEADER;
+  }
+
+  /**
+   * Get the number of caves, the vertices of the graph.
+   *
+   * @return the number of caves
+   */
+  int getCaveCount() {
+    return caveCells.length;
+  }
+
+  /**
+   * Get the number of corridors, the edges going through at least one tunnel. Each is counted
+   * once, although it can be walked from both of its ends.
+   *
+   * @return the number of corridors
+   */
+  int getCorridorCount() {
+    return corridorCount;
+  }
+
+  /**
+   * Get the index of a cave among the caves, in cell id order.
+   *
+   * @param cellId the cell id of the location
+   * @return the index of the cave, or -1 if the location is a tunnel
+   */
+  int caveIndex(int cellId) {
+    return caveIndex[cellId];
+  }
+
+  /**
+   * Get the cell id of a cave.
+   *
+   * @param cave the index of the cave
+   * @return its cell id
+   */
+  int caveCell(int cave) {
+    return caveCells[cave];
+  }
+
+  /**
+   * Get the corridor a tunnel is in.
+   *
+   * @param cellId the cell id of the location
+   * @return the corridor, or -1 if the location is a cave
+   */
+  int corridorOf(int cellId) {
+    return corridorOf[cellId];
+  }
+
+  /**
+   * Get the cave reached by leaving a cave through a door and following the tunnels behind it.
+   *
+   * @param cave      the index of the cave left
+   * @param direction the door it is left through
+   * @return the cell id of the cave reached, which may be the cave left, or -1 if there is no
+   *         door that way
+   */
+  int getTarget(int cave, Direction direction) {
+    return edgeTarget[cave * DIRECTIONS.length + direction.ordinal()];
+  }
+
+  /**
+   * Get the number of moves from a cave to the cave reached through a door.
+   *
+   * @param cave      the index of the cave left
+   * @param direction the door it is left through
+   * @return the number of moves, 1 if the caves are next to each other
+   */
+  int getLength(int cave, Direction direction) {
+    return edgeLength[cave * DIRECTIONS.length + direction.ordinal()];
+  }
+
+  /**
+   * Get the corridor behind a door of a cave.
+   *
+   * @param cave      the index of the cave left
+   * @param direction the door it is left through
+   * @return the corridor, or -1 if the door opens on a cave
+   */
+  int getCorridor(int cave, Direction direction) {
+    return edgeCorridor[cave * DIRECTIONS.length + direction.ordinal()];
+  }
+
+  /**
+   * Get the direction of the last move into the cave reached through a door of a cave.
+   *
+   * @param cave      the index of the cave left
+   * @param direction the door it is left through
+   * @return the direction the cave reached is entered in
+   */
+  Direction getArrival(int cave, Direction direction) {
+    return DIRECTIONS[edgeArrival[cave * DIRECTIONS.length + direction.ordinal()]];
+  }
+
+  /**
+   * Get the cave an arrow shot from a tunnel reaches first, at the end of its corridor.
+   *
+   * @param cellId    the cell id of the tunnel
+   * @param direction the door of the tunnel the arrow goes through
+   * @return the cell id of the cave at that end of the corridor
+   */
+  int getExit(int cellId, Direction direction) {
+    return edgeTarget[exitEdge(cellId, direction)];
+  }
+
+  /**
+   * Get the direction an arrow shot from a tunnel enters the cave at the end of its corridor in.
+   *
+   * @param cellId    the cell id of the tunnel
+   * @param direction the door of the tunnel the arrow goes through
+   * @return the direction the cave is entered in
+   */
+  Direction getExitArrival(int cellId, Direction direction) {
+    return DIRECTIONS[edgeArrival[exitEdge(cellId, direction)]];
+  }
+
+  private int exitEdge(int cellId, Direction direction) {
+    int end = direction.ordinal() == firstEndDoor[cellId] ? 0 : 1;
+    return corridorEdges[2 * corridorOf[cellId] + end];
+  }
+
+  /**
+   * Get the cave an arrow shot from a cave lands in, flown on first use. It goes straight through
+   * caves and follows corridors wherever they turn, and stops early at a wall or where it has
+   * already been.
+   *
+   * @param cave      the index of the cave it is shot from
+   * @param direction the direction it is shot in
+   * @param distance  the number of caves it flies, from 1 to {@value #MAX_TABLED_DISTANCE}
+   * @return the cell id of the cave it lands in, or -1 if it stops before
+   */
+  int getLanding(int cave, Direction direction, int distance) {
+    if (distance < 1 || distance > MAX_TABLED_DISTANCE) {
+      throw new IllegalArgumentException("Distance must be between 1 and "
+              + MAX_TABLED_DISTANCE);
+    }
+    int[] table = landingTable();
+    int shot = (cave * DIRECTIONS.length + direction.ordinal()) * MAX_TABLED_DISTANCE;
+    if (table[shot + distance - 1] == NOT_FLOWN) {
+      fly(table, shot, cave, direction);
+    }
+    //Cells are kept one up, so that 0 is free for the shots not flown yet
+    int landing = table[shot + distance - 1];
+    return landing == STOPPED ? -1 : landing - 1;
+  }
+
+  private int[] landingTable() {
+    int[] table = landings;
+    if (table == null) {
+      boolean allocated = false;
+      synchronized (this) {
+        table = landings;
+        if (table == null) {
+          table = new int[caveCells.length * DIRECTIONS.length * MAX_TABLED_DISTANCE];
+          landings = table;
+          allocated = true;
+        }
+      }
+      if (allocated) {
+        grown(this);
+      }
+    }
+    return table;
+  }
+
+  /**
+   * Fly an arrow from a cave as far as the table goes and record every cave it enters. Threads
+   * flying the same shot at once write the same values, and an int is never seen half written,
+   * so the table needs no lock.
+   */
+  private void fly(int[] table, int shot, int cave, Direction direction) {
+    //The arrow enters at most one more cave than the table holds, so a list is quicker than a set
+    int[] cavesSeen = new int[MAX_TABLED_DISTANCE + 1];
+    int[] corridorsSeen = new int[MAX_TABLED_DISTANCE];
+    int caves = 0;
+    int corridors = 0;
+    cavesSeen[caves++] = cave;
+    int heading = direction.ordinal();
+    int distance = 0;
+    while (distance < MAX_TABLED_DISTANCE) {
+      int edge = cave * DIRECTIONS.length + heading;
+      if (edgeTarget[edge] == -1) {
+        //A wall
+        break;
+      }
+      int corridor = edgeCorridor[edge];
+      if (corridor != -1) {
+        if (contains(corridorsSeen, corridors, corridor)) {
+          break;
+        }
+        corridorsSeen[corridors++] = corridor;
+      }
+      cave = caveIndex[edgeTarget[edge]];
+      if (contains(cavesSeen, caves, cave)) {
+        break;
+      }
+      cavesSeen[caves++] = cave;
+      table[shot + distance++] = edgeTarget[edge] + 1;
+      heading = edgeArrival[edge];
+    }
+    while (distance < MAX_TABLED_DISTANCE) {
+      table[shot + distance++] = STOPPED;
+    }
+  }
+
+  private static boolean contains(int[] values, int length, int value) {
+    for (int i = 0; i < length; i++) {
+      if (values[i] == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Find the number of moves from a cave to every cave, with Dial's algorithm: the caves waiting
+   * are kept in buckets by distance, walked in order, which suits the short integer lengths of
+   * the edges.
+   *
+   * @param startCave  the index of the cave to start from
+   * @param closedCave the index of a cave reached but not gone through, or -1
+   * @return the distance of every cave by index, -1 for the caves not reached
+   */
+  int[] distancesFrom(int startCave, int closedCave) {
+    int caves = caveCells.length;
+    int[] distance = new int[caves];
+    Arrays.fill(distance, -1);
+    //A cave is in a bucket when a shorter way to it is found, so it can be in several at once
+    int[] bucketHead = new int[16];
+    Arrays.fill(bucketHead, -1);
+    int[] entryCave = new int[16];
+    int[] entryNext = new int[16];
+    int entries = 0;
+    int[] tentative = new int[caves];
+    Arrays.fill(tentative, Integer.MAX_VALUE);
+    tentative[startCave] = 0;
+    entryCave[0] = startCave;
+    entryNext[0] = -1;
+    bucketHead[0] = entries++;
+    int waiting = 1;
+    for (int bucket = 0; waiting > 0; bucket++) {
+      if (bucket == bucketHead.length) {
+        bucketHead = grow(bucketHead, bucket + 1);
+      }
+      for (int entry = bucketHead[bucket]; entry != -1; entry = entryNext[entry]) {
+        waiting--;
+        int cave = entryCave[entry];
+        if (distance[cave] != -1) {
+          continue;
+        }
+        distance[cave] = bucket;
+        if (cave == closedCave) {
+          continue;
+        }
+        for (int edge = cave * DIRECTIONS.length; edge < (cave + 1) * DIRECTIONS.length;
+             edge++) {
+          if (edgeTarget[edge] == -1) {
+            continue;
+          }
+          int target = caveIndex[edgeTarget[edge]];
+          int reached = bucket + edgeLength[edge];
+          if (distance[target] == -1 && reached < tentative[target]) {
+            tentative[target] = reached;
+            if (reached >= bucketHead.length) {
+              bucketHead = grow(bucketHead, reached + 1);
+            }
+            if (entries == entryCave.length) {
+              entryCave = Arrays.copyOf(entryCave, 2 * entries);
+              entryNext = Arrays.copyOf(entryNext, 2 * entries);
+            }
+            entryCave[entries] = target;
+            entryNext[entries] = bucketHead[reached];
+            bucketHead[reached] = entries++;
+            waiting++;
+          }
+        }
+      }
+    }
+    return distance;
+  }
+
+  private static int[] grow(int[] bucketHead, int minLength) {
+    int oldLength = bucketHead.length;
+    int[] grown = Arrays.copyOf(bucketHead, Math.max(minLength, 2 * oldLength));
+    Arrays.fill(grown, oldLength, grown.length, -1);
+    return grown;
+  }
+
+  /**
+   * The doors of a grid and its size, which are all the graph depends on.
+   */
+  private static final class Topology {
+
+    private final int numRows;
+    private final int numCols;
+    private final byte[] doors;
+    private final int hash;
+
+    private Topology(Grid grid) {
+      this.numRows = grid.getNumRows();
+      this.numCols = grid.getNumCols();
+      this.doors = grid.copyDoors();
+      this.hash = 31 * (31 * numRows + numCols) + Arrays.hashCode(doors);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Topology)) {
+        return false;
+      }
+      Topology that = (Topology) o;
+      return numRows == that.numRows && numCols == that.numCols
+              && Arrays.equals(doors, that.doors);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
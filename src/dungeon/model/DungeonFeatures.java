@@ -0,0 +1,208 @@
+package dungeon.model;
+
+import dungeon.model.treasure.TreasureType;
+
+/**
+ * The gameplay features of a generated dungeon, measured once from its cells: how many caves and
+ * dead ends it has, how far the end is from the start, how wide it is, and where its treasure and
+ * monsters are. They are measured with one scan of the cells, one search over the caves and two
+ * breadth first searches.
+ */
+public final class DungeonFeatures {
+
+  //TreasureType.values() returns a new array on every call
+  private static final TreasureType[] TREASURE_TYPES = TreasureType.values();
+
+  private final int caveCount;
+  private final int tunnelCount;
+  private final int deadEndCount;
+  private final int startEndDistance;
+  private final int diameter;
+  private final int treasureCaveCount;
+  private final int treasureCavesBeforeExit;
+  private final int monsterCount;
+  private final int[] treasureTotals;
+
+  private DungeonFeatures(int caveCount, int tunnelCount, int deadEndCount, int startEndDistance,
+                          int diameter, int treasureCaveCount, int treasureCavesBeforeExit,
+                          int monsterCount, int[] treasureTotals) {
+    this.caveCount = caveCount;
+    this.tunnelCount = tunnelCount;
+    this.deadEndCount = deadEndCount;
+    this.startEndDistance = startEndDistance;
+    this.diameter = diameter;
+    this.treasureCaveCount = treasureCaveCount;
+    this.treasureCavesBeforeExit = treasureCavesBeforeExit;
+    this.monsterCount = monsterCount;
+    this.treasureTotals = treasureTotals;
+  }
+
+  /**
+   * Measure the features of a game as it is now. A game already played may have less treasure
+   * and fewer monsters than when it was generated.
+   *
+   * @param game the game.
+   * @return the features of its dungeon.
+   */
+  public static DungeonFeatures of(GameState game) {
+    if (game == null) {
+      throw new IllegalArgumentException("Game cannot be null");
+    }
+    Grid grid = game.getGrid();
+    int numCells = grid.getNumRows() * grid.getNumCols();
+    int caves = 0;
+    int deadEnds = 0;
+    int treasureCaves = 0;
+    int monsters = 0;
+    int[] treasureTotals = new int[TREASURE_TYPES.length];
+    for (int cellId = 0; cellId < numCells; cellId++) {
+      for (TreasureType type : TREASURE_TYPES) {
+        treasureTotals[type.ordinal()] += grid.getTreasureCount(cellId, type);
+      }
+      if (grid.isCave(cellId)) {
+        caves++;
+        if (Integer.bitCount(grid.getDoors(cellId)) == 1) {
+          deadEnds++;
+        }
+        if (hasGems(grid, cellId)) {
+          treasureCaves++;
+        }
+      }
+      if (grid.containsMonster(cellId)) {
+        monsters++;
+      }
+    }
+
+    //The game is over on reaching the end, so nothing behind it counts. Treasure is only in
+    //caves, so the search goes from cave to cave.
+    CaveGraph graph = grid.getCaveGraph();
+    int endCave = graph.caveIndex(grid.getEndCellId());
+    int[] caveDistances = graph.distancesFrom(graph.caveIndex(grid.getStartCellId()), endCave);
+    int distance = caveDistances[endCave];
+    int treasureBeforeExit = 0;
+    for (int cave = 0; cave < caveDistances.length; cave++) {
+      if (cave != endCave && caveDistances[cave] != -1 && hasGems(grid, graph.caveCell(cave))) {
+        treasureBeforeExit++;
+      }
+    }
+
+    //Double sweep: the farthest cell from anywhere is an end of a longest shortest path in a tree
+    GridTraversal traversal = new GridTraversal(grid);
+    int farthest = farthestCell(traversal, 0);
+    int diameter = traversal.getLevel(farthestCell(traversal, farthest));
+    return new DungeonFeatures(caves, numCells - caves, deadEnds, distance, diameter,
+            treasureCaves, treasureBeforeExit, monsters, treasureTotals);
+  }
+
+  private static int farthestCell(GridTraversal traversal, int startCell) {
+    traversal.begin(startCell, Integer.MAX_VALUE);
+    int lastCell = startCell;
+    for (int cellId = traversal.next(); cellId != -1; cellId = traversal.next()) {
+      lastCell = cellId;
+    }
+    return lastCell;
+  }
+
+  private static boolean hasGems(Grid grid, int cellId) {
+    return grid.getTreasureCount(cellId, TreasureType.DIAMONDS) > 0
+            || grid.getTreasureCount(cellId, TreasureType.RUBIES) > 0
+            || grid.getTreasureCount(cellId, TreasureType.SAPPHIRES) > 0;
+  }
+
+  /**
+   * Get the number of caves, the locations with one, three or four doors.
+   *
+   * @return the number of caves.
+   */
+  public int getCaveCount() {
+    return caveCount;
+  }
+
+  /**
+   * Get the number of tunnels, the locations with two doors.
+   *
+   * @return the number of tunnels.
+   */
+  public int getTunnelCount() {
+    return tunnelCount;
+  }
+
+  /**
+   * Get the number of dead ends, the caves with one door.
+   *
+   * @return the number of dead ends.
+   */
+  public int getDeadEndCount() {
+    return deadEndCount;
+  }
+
+  /**
+   * Get the length of the shortest path from the start to the end.
+   *
+   * @return the number of moves from the start to the end.
+   */
+  public int getStartEndDistance() {
+    return startEndDistance;
+  }
+
+  /**
+   * Get the length of the longest shortest path between two locations, found by a double sweep:
+   * a search from any location finds the farthest one, and a search from there its distance to
+   * the farthest of all. It is exact when the dungeon is a tree, which it is without
+   * interconnectivity, and a close lower bound otherwise.
+   *
+   * @return the number of moves between the two locations farthest apart.
+   */
+  public int getDiameter() {
+    return diameter;
+  }
+
+  /**
+   * Get the number of caves with diamonds, rubies or sapphires.
+   *
+   * @return the number of treasure caves.
+   */
+  public int getTreasureCaveCount() {
+    return treasureCaveCount;
+  }
+
+  /**
+   * Get the number of treasure caves the player can reach from the start without going through
+   * the end, which ends the game.
+   *
+   * @return the number of treasure caves reachable before the exit.
+   */
+  public int getTreasureCavesBeforeExit() {
+    return treasureCavesBeforeExit;
+  }
+
+  /**
+   * Get the number of locations with a monster, dead or alive.
+   *
+   * @return the number of monsters.
+   */
+  public int getMonsterCount() {
+    return monsterCount;
+  }
+
+  /**
+   * Get the total of one type of treasure over the whole dungeon, arrows included.
+   *
+   * @param treasureType the type of treasure.
+   * @return the number of pieces of that treasure.
+   */
+  public int getTreasureTotal(TreasureType treasureType) {
+    if (treasureType == null) {
+      throw new IllegalArgumentException("Treasure type cannot be null");
+    }
+    return treasureTotals[treasureType.ordinal()];
+  }
+
+  @Override
+  public String toString() {
+    return "caves " + caveCount + ", tunnels " + tunnelCount + ", dead ends " + deadEndCount
+            + ", start to end " + startEndDistance + ", diameter " + diameter
+            + ", treasure caves " + treasureCaveCount
+            + " (" + treasureCavesBeforeExit + " before the exit), monsters " + monsterCount;
+  }
+}
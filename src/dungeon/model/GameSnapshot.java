@@ -0,0 +1,249 @@
+package dungeon.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import dungeon.model.character.Character;
+import dungeon.model.character.Player;
+import dungeon.model.location.ILocation;
+import dungeon.model.treasure.TreasureType;
+
+/**
+ * Saves a game in progress to a compact binary snapshot and restores it. The dungeon is written
+ * as its cell arrays, so restoring reads them back instead of generating the dungeon again.
+ *
+ * <p>A snapshot is, in order and big-endian:
+ * <ul>
+ *   <li>the magic number {@code DGNS} and the format version;</li>
+ *   <li>the state of the random number generator, or nothing if it is not a plain
+ *   {@link Random};</li>
+ *   <li>the grid: rows, columns, treasure percentage, start and end cells, then the door masks,
+ *   contents flags, diamonds, rubies, sapphires, arrows and monster health of every cell;</li>
+ *   <li>the player: name, health, current cell, treasures as (type, count) pairs and the cells
+ *   visited in order;</li>
+ *   <li>a CRC-32 of everything before it.</li>
+ * </ul>
+ */
+public final class GameSnapshot {
+
+  /**
+   * The magic number at the start of every snapshot.
+   */
+  public static final int MAGIC = 0x44474E53;
+
+  /**
+   * The version of the snapshot format written by this class.
+   */
+  public static final short VERSION = 1;
+
+  private static final int MAX_NAME_LENGTH = 1024;
+  private static final int MAX_RANDOM_LENGTH = 1024;
+
+  private GameSnapshot() {
+    //Only static methods
+  }
+
+  /**
+   * Save a game to a file. The snapshot is written to a temporary file next to it, which then
+   * replaces the file, so a crash while saving never leaves a half written snapshot behind.
+   *
+   * @param game The game to save.
+   * @param file The file to save to.
+   * @throws IOException if the file cannot be written.
+   */
+  public static void save(GameState game, Path file) throws IOException {
+    if (game == null || file == null) {
+      throw new IllegalArgumentException("Game and file cannot be null");
+    }
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      write(game, channel);
+      channel.force(true);
+    }
+    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Load a game from a file.
+   *
+   * @param file The file to load from.
+   * @return the game, ready to be played from where it was saved.
+   * @throws IOException if the file cannot be read or is not a valid snapshot.
+   */
+  public static GameState load(Path file) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("File cannot be null");
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return read(channel);
+    }
+  }
+
+  /**
+   * Write a snapshot of a game to a channel, from its current position.
+   *
+   * @param game    The game to save.
+   * @param channel The channel to write to.
+   * @throws IOException if the channel cannot be written.
+   */
+  public static void write(GameState game, WritableByteChannel channel) throws IOException {
+    if (game == null) {
+      throw new IllegalArgumentException("Game cannot be null");
+    }
+    SnapshotOutput out = new SnapshotOutput(channel);
+    out.writeInt(MAGIC);
+    out.writeShort(VERSION);
+
+    Grid grid = game.getGrid();
+    byte[] random = serializeRandom(grid.getRandom());
+    out.writeInt(random.length);
+    out.writeBytes(random);
+    grid.writeSnapshot(out);
+
+    Character player = game.getPlayer();
+    out.writeString(player.getName());
+    out.writeInt(player.getHealth());
+    out.writeInt(grid.cellIdOf(player.getCurrentLocation()));
+    Map<TreasureType, Integer> treasures = player.getTreasures();
+    out.writeByte(treasures.size());
+    for (Map.Entry<TreasureType, Integer> entry : treasures.entrySet()) {
+      out.writeByte(entry.getKey().ordinal());
+      out.writeInt(entry.getValue());
+    }
+    List<ILocation> visited = player.getLocationVisited();
+    out.writeInt(visited.size());
+    for (ILocation location : visited) {
+      out.writeInt(grid.cellIdOf(location));
+    }
+
+    out.writeInt((int) out.checksum());
+    out.flush();
+  }
+
+  /**
+   * Write a snapshot of a game to memory, to keep it or to compare it with another.
+   *
+   * @param game The game to save, a {@link GameState}.
+   * @return the snapshot.
+   */
+  public static byte[] toBytes(IGameState game) {
+    if (!(game instanceof GameState)) {
+      throw new IllegalArgumentException("Game must be a GameState");
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      write((GameState) game, Channels.newChannel(bytes));
+    } catch (IOException e) {
+      throw new IllegalStateException("A game cannot be written to memory", e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Read a snapshot of a game from a channel, from its current position.
+   *
+   * @param channel The channel to read from.
+   * @return the game, ready to be played from where it was saved.
+   * @throws IOException if the channel cannot be read or does not hold a valid snapshot.
+   */
+  public static GameState read(ReadableByteChannel channel) throws IOException {
+    SnapshotInput in = new SnapshotInput(channel);
+    int magic = in.readInt();
+    if (magic != MAGIC) {
+      throw new IOException("Not a dungeon snapshot");
+    }
+    short version = in.readShort();
+    if (version != VERSION) {
+      throw new IOException("Unsupported snapshot version " + version);
+    }
+
+    byte[] randomState = new byte[in.readLength(MAX_RANDOM_LENGTH)];
+    in.readBytes(randomState);
+    Random random = deserializeRandom(randomState);
+    Grid grid = new Grid(in, random);
+    int numCells = grid.getNumRows() * grid.getNumCols();
+
+    String name = in.readString(MAX_NAME_LENGTH);
+    int health = in.readInt();
+    ILocation currentLocation = grid.getLocation(readCell(in, numCells));
+    Map<TreasureType, Integer> treasures = new TreeMap<>();
+    int treasureCount = in.readByte();
+    TreasureType[] types = TreasureType.values();
+    for (int i = 0; i < treasureCount; i++) {
+      int type = in.readByte();
+      if (type < 0 || type >= types.length) {
+        throw new IOException("Corrupt snapshot: unknown treasure " + type);
+      }
+      treasures.put(types[type], in.readInt());
+    }
+    int visitedCount = in.readLength(Integer.MAX_VALUE);
+    List<ILocation> visited = new ArrayList<>();
+    for (int i = 0; i < visitedCount; i++) {
+      visited.add(grid.getLocation(readCell(in, numCells)));
+    }
+
+    long expected = in.checksum();
+    if (in.readInt() != (int) expected) {
+      throw new IOException("Corrupt snapshot: checksum does not match");
+    }
+
+    Player player;
+    try {
+      player = new Player(name, random, health, treasures, currentLocation, visited);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Corrupt snapshot: " + e.getMessage(), e);
+    }
+    return new GameState(grid, player);
+  }
+
+  private static int readCell(SnapshotInput in, int numCells) throws IOException {
+    int cellId = in.readInt();
+    if (cellId < 0 || cellId >= numCells) {
+      throw new IOException("Corrupt snapshot: cell " + cellId + " is outside the dungeon");
+    }
+    return cellId;
+  }
+
+  private static byte[] serializeRandom(Random random) throws IOException {
+    //Subclasses may keep state of their own, so only a plain Random can be restored exactly
+    if (random.getClass() != Random.class) {
+      return new byte[0];
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(random);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Random deserializeRandom(byte[] state) throws IOException {
+    if (state.length == 0) {
+      return new Random();
+    }
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(state))) {
+      in.setObjectInputFilter(ObjectInputFilter.Config.createFilter("java.util.Random;!*"));
+      return (Random) in.readObject();
+    } catch (ClassNotFoundException | ClassCastException e) {
+      throw new IOException("Corrupt snapshot: invalid random state", e);
+    }
+  }
+}
@@ -2,23 +2,52 @@ package dungeon.model;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
+import java.util.function.IntFunction;
 
+import dungeon.model.arrow.IArrowBehaviour;
 import dungeon.model.character.Character;
 import dungeon.model.character.Player;
 import dungeon.model.directions.Direction;
 import dungeon.model.location.ILocation;
-import dungeon.model.location.Location;
 import dungeon.model.treasure.TreasureType;
 
 /**
  * The GameState class is used to keep track of the state of the game.
  */
-public class GameState implements IGameState {
+public class GameState implements ICellGameState {
+
+  /**
+   * The maximum number of rows or columns in a dungeon. It defaults to 10000 and can be changed
+   * with the dungeon.maxDimension system property.
+   */
+  public static final int MAX_DIMENSION = Integer.getInteger("dungeon.maxDimension", 10000);
+
+  /**
+   * How many locations away the smell of a monster carries. The status reports monsters one and two
+   * locations away, so it is at least 2. It can be raised with the dungeon.smellRadius system
+   * property.
+   */
+  public static final int SMELL_RADIUS = Math.max(2, Integer.getInteger("dungeon.smellRadius", 2));
+
+  /**
+   * The version of the games generated from a seed. It changes whenever a seed gives another game
+   * than before, so that games and features stored by seed can tell they are out of date: version
+   * 2 places treasure, arrows and monsters with {@link Placement}.
+   */
+  public static final int GENERATION_VERSION = 2;
+
+  //values() returns a new array on every call
+  private static final TreasureType[] TREASURE_TYPES = TreasureType.values();
+  private static final Direction[] DIRECTIONS = Direction.values();
 
   private final Grid dungeon;
-  private final Character player;
+  private final Player player;
+  //Makes the cells the player moved to by cell id into views, when its locations are asked for
+  private final IntFunction<ILocation> cellLocations = this::locationOf;
+  private final GridView view;
+  //The status of the player's location is written into it on every turn
+  private final StringBuilder status = new StringBuilder();
 
   /**
    * Constructor for the GameState class.
@@ -32,11 +61,12 @@ public class GameState implements IGameState {
    */
   public GameState(int dungeonHeight, int dungeonWidth, int interConnectivity, String dungeonType,
                    int treasurePercentage, Random random) {
-    if (dungeonHeight < 6 || dungeonHeight > 100) {
-      throw new IllegalArgumentException("Dungeon width must be between 10 and 100");
+    if (dungeonHeight < 6 || dungeonHeight > MAX_DIMENSION) {
+      throw new IllegalArgumentException("Dungeon height must be between 6 and "
+              + MAX_DIMENSION);
     }
-    if (dungeonWidth < 6 || dungeonWidth > 100) {
-      throw new IllegalArgumentException("Dungeon width must be between 10 and 100");
+    if (dungeonWidth < 6 || dungeonWidth > MAX_DIMENSION) {
+      throw new IllegalArgumentException("Dungeon width must be between 6 and " + MAX_DIMENSION);
     }
     if (interConnectivity < 0) {
       throw new IllegalArgumentException("Interconnectivity must be between 0 and dungeon size");
@@ -58,6 +88,7 @@ public class GameState implements IGameState {
     //Create Player and assign start location
     player = new Player("Player", random);
     player.setCurrentLocation(dungeon.getPlayerStartLocation());
+    view = new GridView(dungeon);
   }
 
   /**
@@ -73,11 +104,12 @@ public class GameState implements IGameState {
    */
   public GameState(int dungeonHeight, int dungeonWidth, int interConnectivity, String dungeonType,
                    int treasurePercentage, int monsterCount, Random random) {
-    if (dungeonHeight < 6 || dungeonHeight > 100) {
-      throw new IllegalArgumentException("Dungeon width must be between 10 and 100");
+    if (dungeonHeight < 6 || dungeonHeight > MAX_DIMENSION) {
+      throw new IllegalArgumentException("Dungeon height must be between 6 and "
+              + MAX_DIMENSION);
     }
-    if (dungeonWidth < 6 || dungeonWidth > 100) {
-      throw new IllegalArgumentException("Dungeon width must be between 10 and 100");
+    if (dungeonWidth < 6 || dungeonWidth > MAX_DIMENSION) {
+      throw new IllegalArgumentException("Dungeon width must be between 6 and " + MAX_DIMENSION);
     }
     if (interConnectivity < 0) {
       throw new IllegalArgumentException("Interconnectivity must be between 0 and dungeon size");
@@ -102,6 +134,178 @@ public class GameState implements IGameState {
     //Create Player and assign start location
     player = new Player("Player", random);
     player.setCurrentLocation(dungeon.getPlayerStartLocation());
+    view = new GridView(dungeon);
+  }
+
+  /**
+   * Constructor for a game generated from a seed. Every phase of the generation draws from its own
+   * stream of {@link RandomStreams}, so the same seed gives the same game however many others are
+   * generated at the same time. The player draws from a random number generator seeded from the
+   * {@link RandomStreams.Phase#GAME} stream.
+   *
+   * @param dungeonHeight      The height of the dungeon.
+   * @param dungeonWidth       The width of the dungeon.
+   * @param interConnectivity  The interconnectivity of the dungeon.
+   * @param dungeonType        The type of dungeon.
+   * @param treasurePercentage The percentage of treasure in the dungeon.
+   * @param monsterCount       The number of monsters in the dungeon.
+   * @param seed               The seed of the game.
+   */
+  public GameState(int dungeonHeight, int dungeonWidth, int interConnectivity, String dungeonType,
+                   int treasurePercentage, int monsterCount, long seed) {
+    this(dungeonHeight, dungeonWidth, interConnectivity, dungeonType, treasurePercentage,
+            monsterCount, seed, (phase, done, total) -> { });
+  }
+
+  /**
+   * Constructor for a game generated from a seed, as
+   * {@link #GameState(int, int, int, String, int, int, long)}, telling the progress of every
+   * phase of the generation as it goes. The progress can stop the generation by throwing, for
+   * example a {@link java.util.concurrent.CancellationException}, which is then thrown from here.
+   *
+   * @param dungeonHeight      The height of the dungeon.
+   * @param dungeonWidth       The width of the dungeon.
+   * @param interConnectivity  The interconnectivity of the dungeon.
+   * @param dungeonType        The type of dungeon.
+   * @param treasurePercentage The percentage of treasure in the dungeon.
+   * @param monsterCount       The number of monsters in the dungeon.
+   * @param seed               The seed of the game.
+   * @param progress           Follows the generation, on the thread calling this constructor.
+   */
+  public GameState(int dungeonHeight, int dungeonWidth, int interConnectivity, String dungeonType,
+                   int treasurePercentage, int monsterCount, long seed,
+                   IGenerationProgress progress) {
+    this(new Grid(dungeonHeight, dungeonWidth, interConnectivity, dungeonType,
+            treasurePercentage, monsterCount, new RandomStreams(seed), Placement.DEFAULT,
+            progress));
+  }
+
+  /**
+   * Constructor for a game generated from a seed, as
+   * {@link #GameState(int, int, int, String, int, int, long)}, with its treasure, arrows and
+   * monsters placed by other distributions than the uniform ones, for example further from the
+   * start.
+   *
+   * @param dungeonHeight      The height of the dungeon.
+   * @param dungeonWidth       The width of the dungeon.
+   * @param interConnectivity  The interconnectivity of the dungeon.
+   * @param dungeonType        The type of dungeon.
+   * @param treasurePercentage The percentage of treasure in the dungeon.
+   * @param monsterCount       The number of monsters in the dungeon.
+   * @param seed               The seed of the game.
+   * @param placement          Where the treasure, arrows and monsters go.
+   */
+  public GameState(int dungeonHeight, int dungeonWidth, int interConnectivity, String dungeonType,
+                   int treasurePercentage, int monsterCount, long seed, Placement placement) {
+    this(new Grid(dungeonHeight, dungeonWidth, interConnectivity, dungeonType,
+            treasurePercentage, monsterCount, new RandomStreams(seed), placement,
+            (phase, done, total) -> { }));
+  }
+
+  /**
+   * Constructor for a game in a dungeon whose doors were generated elsewhere, with everything else
+   * generated from a seed as in
+   * {@link #GameState(int, int, int, String, int, int, long)}.
+   *
+   * @param dungeonHeight      The height of the dungeon.
+   * @param dungeonWidth       The width of the dungeon.
+   * @param doors              The door mask of every location, row * width + column, with the bit
+   *                           1 &lt;&lt; direction.ordinal() set for every door.
+   * @param treasurePercentage The percentage of treasure in the dungeon.
+   * @param monsterCount       The number of monsters in the dungeon.
+   * @param seed               The seed of the game.
+   */
+  public GameState(int dungeonHeight, int dungeonWidth, byte[] doors, int treasurePercentage,
+                   int monsterCount, long seed) {
+    this(new Grid(dungeonHeight, dungeonWidth, doors, treasurePercentage, monsterCount,
+            new RandomStreams(seed), Placement.DEFAULT, (phase, done, total) -> { }));
+  }
+
+  private GameState(Grid dungeon) {
+    this(dungeon, new Player("Player", dungeon.getRandom()));
+    player.setCurrentLocation(dungeon.getPlayerStartLocation());
+  }
+
+  /**
+   * Constructor for a game in a dungeon whose doors were generated elsewhere, for example by
+   * {@link dungeon.generation.TiledMazeGenerator}. Everything else is placed as in the other
+   * constructors.
+   *
+   * @param dungeonHeight      The height of the dungeon.
+   * @param dungeonWidth       The width of the dungeon.
+   * @param doors              The door mask of every location, row * width + column, with the bit
+   *                           1 &lt;&lt; direction.ordinal() set for every door.
+   * @param treasurePercentage The percentage of treasure in the dungeon.
+   * @param monsterCount       The number of monsters in the dungeon.
+   * @param random             The random function for the dungeon.
+   */
+  public GameState(int dungeonHeight, int dungeonWidth, byte[] doors, int treasurePercentage,
+                   int monsterCount, Random random) {
+    dungeon = new Grid(dungeonHeight, dungeonWidth, doors, treasurePercentage, monsterCount,
+            random);
+
+    //Create Player and assign start location
+    player = new Player("Player", random);
+    player.setCurrentLocation(dungeon.getPlayerStartLocation());
+    view = new GridView(dungeon);
+  }
+
+  /**
+   * Constructor for a game in progress, as restored by {@link GameSnapshot}.
+   *
+   * @param dungeon The dungeon of the game.
+   * @param player  The player, already in the dungeon.
+   */
+  GameState(Grid dungeon, Player player) {
+    if (dungeon == null || player == null) {
+      throw new IllegalArgumentException("Dungeon and player must be specified");
+    }
+    this.dungeon = dungeon;
+    this.player = player;
+    this.view = new GridView(dungeon);
+  }
+
+  /**
+   * Get the doors of the dungeon, as the doors constructors take them. A game generated from a
+   * seed is the same as the game with its doors and the same seed, whatever the treasure and
+   * monsters, so the doors of a seed can be generated once and given other treasure and monsters.
+   *
+   * @return the door mask of every location, row * width + column, with the bit
+   *         1 &lt;&lt; direction.ordinal() set for every door.
+   */
+  public byte[] getDoors() {
+    return dungeon.copyDoors();
+  }
+
+  /**
+   * Copy the game as it is now, to be played on without changing this one. The copy has its own
+   * dungeon and player and draws from the given random number generator, so copies given
+   * different generators can play out differently from the same point.
+   *
+   * @param random The random number generator of the copy.
+   * @return the copy.
+   */
+  public GameState copy(Random random) {
+    if (random == null) {
+      throw new IllegalArgumentException("Random must be specified");
+    }
+    Grid grid = new Grid(dungeon, random);
+    List<ILocation> visited = new ArrayList<>();
+    for (ILocation location : player.getLocationVisited()) {
+      visited.add(grid.getLocation(dungeon.cellIdOf(location)));
+    }
+    Player copy = new Player(player.getName(), random, player.getHealth(),
+            player.getTreasures(), grid.getLocation(getCurrentCell()), visited);
+    return new GameState(grid, copy);
+  }
+
+  /**
+   * Get the grid of the game, for saving it.
+   *
+   * @return the grid of the game.
+   */
+  Grid getGrid() {
+    return dungeon;
   }
 
   @Override
@@ -111,28 +315,28 @@ public class GameState implements IGameState {
 
   @Override
   public ILocation getPlayerStartLocation() {
-    return dungeon.getPlayerStartLocation();
+    return view.getStartLocation();
   }
 
   @Override
   public ILocation getPlayerEndLocation() {
-    return dungeon.getPlayerEndLocation();
+    return view.getEndLocation();
   }
 
   @Override
   public ILocation getPlayerCurrentLocation() {
-    return new Location(player.getCurrentLocation());
+    return view.getLocation(getCurrentCell());
   }
 
   @Override
   public String getPlayerCurrentLocationStatus() {
+    //Read by cell id into a builder kept from turn to turn, so only the text itself is created
+    int cellId = getCurrentCell();
+    StringBuilder sb = status;
+    sb.setLength(0);
 
-    List<Direction> doors = new ArrayList<>(
-            dungeon.getNeighbours(player.getCurrentLocation()).keySet());
-    StringBuilder sb = new StringBuilder();
-
-    int monstersOneLocationAway = getMonstersOneLocationAway();
-    int monstersTwoLocationsAway = getMonstersTwoLocationsAway();
+    int monstersOneLocationAway = dungeon.getMonstersAway(cellId, 1);
+    int monstersTwoLocationsAway = dungeon.getMonstersAway(cellId, 2);
 
     //If there are monsters one or two locations away, print them
     if (monstersOneLocationAway == 1 || (monstersOneLocationAway + monstersTwoLocationsAway) > 1) {
@@ -142,23 +346,36 @@ public class GameState implements IGameState {
     }
 
     //If there is a killed monster, print it
-    if (player.getCurrentLocation().getMonster() != null
-            && !player.getCurrentLocation().getMonster().isAlive()) {
+    if (dungeon.containsMonster(cellId) && dungeon.getMonsterHealth(cellId) <= 0) {
       sb.append("You see a dead monster here.").append("\n");
     }
 
-    sb.append(player);
+    player.appendStatus(sb, dungeon.isCave(cellId));
     if (player.getTreasures().containsKey(TreasureType.ARROWS)
             && player.getTreasures().get(TreasureType.ARROWS) <= 0) {
       sb.append("You are out of arrows. Explore to find more.").append("\n");
     }
-    if (player.getCurrentLocation().getTreasure() != null) {
-      if (player.getCurrentLocation().getTreasure().toString().length() > 0) {
-        sb.append("You find ").append(player.getCurrentLocation().getTreasure().toString())
-                .append("\n");
+    //The treasure there, as the location's treasure lists it
+    int found = 0;
+    for (TreasureType treasureType : TREASURE_TYPES) {
+      int count = dungeon.getTreasureCount(cellId, treasureType);
+      if (count > 0) {
+        sb.append(found++ == 0 ? "You find " : ", ").append(count).append(' ')
+                .append(treasureType);
       }
     }
-    sb.append("Doors lead to: ").append(doors).append("\n");
+    if (found > 0) {
+      sb.append("\n");
+    }
+    //The doors, as a list of their directions prints them
+    int doors = 0;
+    sb.append("Doors lead to: [");
+    for (Direction direction : DIRECTIONS) {
+      if (dungeon.hasDoor(cellId, direction)) {
+        sb.append(doors++ == 0 ? "" : ", ").append(direction);
+      }
+    }
+    sb.append("]").append("\n");
 
     sb.append("\n");
     return sb.toString();
@@ -166,20 +383,33 @@ public class GameState implements IGameState {
 
   @Override
   public List<Direction> getAvailableDirectionsFromPlayerPosition() {
-    Map<Direction, ILocation> neighbours = dungeon.getNeighbours(player.getCurrentLocation());
+    int cellId = getCurrentCell();
     List<Direction> list = new ArrayList<>();
-    list.addAll(neighbours.keySet());
+    for (Direction direction : Direction.values()) {
+      if (dungeon.hasDoor(cellId, direction)) {
+        list.add(direction);
+      }
+    }
     return list;
   }
 
   @Override
   public ILocation movePlayer(Direction direction) {
-    ILocation newLocation = dungeon.getNeighbours(player.getCurrentLocation()).get(direction);
-    if (newLocation == null) {
+    return dungeon.getLocation(movePlayerToCell(direction));
+  }
+
+  @Override
+  public int movePlayerToCell(Direction direction) {
+    int cellId = getCurrentCell();
+    if (direction == null || !dungeon.hasDoor(cellId, direction)) {
       throw new IllegalArgumentException("Cannot move in that direction");
     }
-    player.setCurrentLocation(newLocation);
-    return newLocation;
+    int newCell = dungeon.getAdjacentCell(cellId, direction);
+    //The player keeps the cell id, and a view of the cell once asked for it, never a copy that
+    //could go stale
+    player.moveToCell(newCell,
+            dungeon.hasLiveMonster(newCell) ? dungeon.getMonsterHealth(newCell) : 0, cellLocations);
+    return newCell;
   }
 
   @Override
@@ -192,7 +422,101 @@ public class GameState implements IGameState {
 
   @Override
   public void shootArrow(Direction direction, int distance) {
-    player.shootArrow(direction, distance);
+    //The player takes the arrow, and the dungeon flies it from cave to cave
+    player.takeArrow(direction);
+    dungeon.shootArrow(getCurrentCell(), direction, distance);
+  }
+
+  @Override
+  public void shootArrow(Direction direction, int distance, IArrowBehaviour behaviour) {
+    if (behaviour == null) {
+      throw new IllegalArgumentException("Behaviour cannot be null");
+    }
+    player.takeArrow(direction);
+    dungeon.shootArrow(getCurrentCell(), direction, distance, behaviour);
+  }
+
+  @Override
+  public ILocation getArrowLanding(Direction direction, int distance) {
+    int landing = getArrowLandingCell(direction, distance);
+    return landing == -1 ? null : view.getLocation(landing);
+  }
+
+  @Override
+  public int getArrowLandingCell(Direction direction, int distance) {
+    if (distance <= 0) {
+      throw new IllegalArgumentException("Distance must be greater than 0");
+    }
+    int cellId = getCurrentCell();
+    if (direction == null || !dungeon.hasDoor(cellId, direction)) {
+      throw new IllegalArgumentException("Direction is not valid");
+    }
+    return dungeon.arrowLanding(cellId, direction, distance);
+  }
+
+  @Override
+  public int getNumRows() {
+    return dungeon.getNumRows();
+  }
+
+  @Override
+  public int getNumCols() {
+    return dungeon.getNumCols();
+  }
+
+  @Override
+  public int getStartCell() {
+    return dungeon.getStartCellId();
+  }
+
+  @Override
+  public int getEndCell() {
+    return dungeon.getEndCellId();
+  }
+
+  @Override
+  public int getCurrentCell() {
+    int cellId = player.getCurrentCell();
+    return cellId != -1 ? cellId : dungeon.cellIdOf(player.getCurrentLocation());
+  }
+
+  @Override
+  public int getDoorMask(int cellId) {
+    return dungeon.getDoors(checkCell(cellId));
+  }
+
+  @Override
+  public int getNeighbourCell(int cellId, Direction direction) {
+    if (direction == null) {
+      throw new IllegalArgumentException("Direction cannot be null");
+    }
+    return dungeon.hasDoor(checkCell(cellId), direction)
+            ? dungeon.getAdjacentCell(cellId, direction) : -1;
+  }
+
+  @Override
+  public boolean isCave(int cellId) {
+    return dungeon.isCave(checkCell(cellId));
+  }
+
+  @Override
+  public int getTreasureCount(int cellId, TreasureType treasureType) {
+    if (treasureType == null) {
+      throw new IllegalArgumentException("Treasure type cannot be null");
+    }
+    return dungeon.getTreasureCount(checkCell(cellId), treasureType);
+  }
+
+  @Override
+  public int getMonsterHealth(int cellId) {
+    return dungeon.containsMonster(checkCell(cellId)) ? dungeon.getMonsterHealth(cellId) : 0;
+  }
+
+  private int checkCell(int cellId) {
+    if (cellId < 0 || cellId >= dungeon.getNumRows() * dungeon.getNumCols()) {
+      throw new IllegalArgumentException("Cell " + cellId + " is outside the dungeon");
+    }
+    return cellId;
   }
 
   @Override
@@ -200,16 +524,20 @@ public class GameState implements IGameState {
     return dungeon.getDungeonCopy();
   }
 
+  @Override
+  public IDungeonView getDungeonView() {
+    return view;
+  }
+
   @Override
   public boolean isGameOver() {
-    return (player.getCurrentLocation().equals(dungeon.getPlayerEndLocation())
-            || !player.isAlive());
+    return isPlayerAtEnd() || !player.isAlive();
   }
 
   @Override
   public String getGameOverStatus() {
     if (isGameOver()) {
-      if (player.isAlive() && player.getCurrentLocation().equals(dungeon.getPlayerEndLocation())) {
+      if (player.isAlive() && isPlayerAtEnd()) {
         return "You win! You made it to the end.\n";
       } else if (!player.isAlive()) {
         return "Chomp, chomp, chomp, you are eaten by an Otyugh!\nBetter luck next time.\n";
@@ -224,29 +552,11 @@ public class GameState implements IGameState {
   }
 
   //Private methods
-  private int getMonstersTwoLocationsAway() {
-    List<ILocation> locations = dungeon.getLocationsAway(
-            player.getCurrentLocation(), 2);
-    int monsters = 0;
-    for (ILocation location : locations) {
-      if (location.getMonster() != null && location.getMonster().isAlive()) {
-        monsters++;
-      }
-    }
-    return monsters;
+  private ILocation locationOf(int cellId) {
+    return dungeon.getLocation(cellId);
   }
 
-  private int getMonstersOneLocationAway() {
-    List<ILocation> locations = dungeon.getLocationsAway(
-            player.getCurrentLocation(), 1);
-    int monsters = 0;
-    for (ILocation location : locations) {
-      if (location.getMonster() != null && location.getMonster().isAlive()) {
-        monsters++;
-      }
-    }
-    return monsters;
+  private boolean isPlayerAtEnd() {
+    return getCurrentCell() == dungeon.getEndCellId();
   }
-
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,10 @@
+package dungeon.model;
+
+/**
+ * The phases of generating a dungeon, in the order they run. A dungeon generated over doors
+ * given to it skips the first three. The start and end are found before anything is placed, so
+ * treasure, arrows and monsters can be placed by their distance from the start.
+ */
+public enum GenerationPhase {
+  EDGES, SPANNING_TREE, INTERCONNECTIVITY, CAVES, START_AND_END, TREASURE, ARROWS, MONSTERS
+}
@@ -1,39 +1,84 @@
 package dungeon.model;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Random;
-import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.SplittableRandom;
+import java.util.function.IntUnaryOperator;
 
+import dungeon.model.RandomStreams.Phase;
+import dungeon.model.arrow.ArrowFlight;
+import dungeon.model.arrow.Arrows;
+import dungeon.model.arrow.IArrowBehaviour;
 import dungeon.model.directions.Direction;
 import dungeon.model.location.ILocation;
 import dungeon.model.location.Location;
+import dungeon.model.treasure.TreasureType;
 
 /**
  * A grid of locations which is a dungeon in the game. It is created randomly using the Kruskal's
  * algorithm for Minimum Spanning Tree. The inter-connectivity value adds those number of extra
  * paths in the dungeon randomly.
+ *
+ * <p>The grid is stored as one primitive array per attribute, indexed by the cell id
+ * {@code row * numCol + col}: a door bitmask, the treasure and arrow counts and the monster health.
+ * The {@link ILocation} objects handed out are lightweight views over a cell id.
+ *
+ * <p>The grid also keeps a smell field: for every cell, the number of living monsters at each
+ * distance up to {@link GameState#SMELL_RADIUS}. It is updated around a monster when it is placed
+ * or killed, so looking up the smell of a location does not need a search.
+ *
+ * <p>A grid generated from {@link RandomStreams} draws every phase from a stream of its own, and
+ * the treasure of every cave from a stream of the cave, so the same seed always gives the same
+ * grid. Its start and end are found first, and then its treasure, arrows and monsters are placed
+ * by {@link Placement} without ever drawing again, see {@link Sampling}. A grid given a
+ * {@link Random} draws everything from it, one phase after the other, as it always has: treasure
+ * by removing caves from a list, arrows by row and column, and monsters by drawing caves until
+ * enough are free, so the games of a {@link Random} seed stay the same.
  */
 class Grid {
-  private final Random random;
-  private final ILocation[][] maze;
-  private Set<SortedSet<ILocation>> potentialPaths;
-  private List<SortedSet> leftOverList;
+  private static final byte HAS_TREASURE = 1;
+  private static final byte HAS_MONSTER = 2;
+  private static final int MIN_TREASURE_QUANTITY = 1;
+  private static final int MAX_TREASURE_QUANTITY = 10;
+  //The long phases report every this many steps, a power of two
+  private static final int REPORT_INTERVAL = 1 << 14;
+  private static final IGenerationProgress NO_PROGRESS = (phase, done, total) -> { };
 
-  private List<List<ILocation>> kruskalLocationGroup;
+  private final Random random;
+  private final RandomStreams streams;
+  private final IGenerationProgress progress;
+  private final int numRow;
+  private final int numCol;
+  private final byte[] doors;
+  private final byte[] contents;
+  private final byte[] diamonds;
+  private final byte[] rubies;
+  private final byte[] sapphires;
+  private final int[] arrows;
+  private final short[] monsterHealth;
+
+  private long[] potentialPaths;
+  private long[] leftOverPaths;
+  private int leftOverCount;
+
+  private int[] componentParent;
+  private byte[] componentRank;
 
   private final int MIN_PATH_LENGTH = 5;
-  private List<ILocation> caveList;
+  private int[] caveList;
   private final double treasurePercentage;
-  private ILocation startLocation;
-  private ILocation endLocation;
+  private int startLocation;
+  private int endLocation;
+  private GridTraversal traversal;
+  private short[][] smell;
+  private CaveGraph caveGraph;
+  private int[] flightMarks;
+  private int flightEpoch;
+  private ArrowFlight arrowFlight;
 
   /**
    * Constructor for the Grid.
@@ -48,11 +93,16 @@ class Grid {
   protected Grid(int numRow, int numCol, int interConnectivity, String dungeonType,
                  double treasurePercentage, Random random) {
 
-    if (numRow < 6 || numRow > 100) {
-      throw new IllegalArgumentException("Dungeon width must be between 10 and 100");
+    if (numRow < 6 || numRow > GameState.MAX_DIMENSION) {
+      throw new IllegalArgumentException("Dungeon height must be between 6 and "
+              + GameState.MAX_DIMENSION);
+    }
+    if (numCol < 6 || numCol > GameState.MAX_DIMENSION) {
+      throw new IllegalArgumentException("Dungeon width must be between 6 and "
+              + GameState.MAX_DIMENSION);
     }
-    if (numCol < 6 || numCol > 100) {
-      throw new IllegalArgumentException("Dungeon width must be between 10 and 100");
+    if ((long) numRow * numCol > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Dungeon has too many locations");
     }
     if (interConnectivity < 0) {
       throw new IllegalArgumentException("Interconnectivity must be between 0 and dungeon size");
@@ -69,16 +119,25 @@ class Grid {
     }
 
     this.random = random;
-    maze = new ILocation[numRow][numCol];
+    this.streams = null;
+    this.progress = NO_PROGRESS;
+    this.numRow = numRow;
+    this.numCol = numCol;
     this.treasurePercentage = treasurePercentage;
 
     //Initialize data structures
-    potentialPaths = new HashSet<>();
-    kruskalLocationGroup = new ArrayList<>();
-    leftOverList = new ArrayList<>();
-    caveList = new ArrayList<>();
-    this.startLocation = null;
-    this.endLocation = null;
+    int numCells = numRow * numCol;
+    doors = new byte[numCells];
+    contents = new byte[numCells];
+    diamonds = new byte[numCells];
+    rubies = new byte[numCells];
+    sapphires = new byte[numCells];
+    arrows = new int[numCells];
+    monsterHealth = new short[numCells];
+    componentParent = new int[numCells];
+    componentRank = new byte[numCells];
+    this.startLocation = -1;
+    this.endLocation = -1;
 
     //Creating Dungeon
     initializeLocations(); //Initialize locations in the maze
@@ -112,12 +171,46 @@ class Grid {
    */
   protected Grid(int numRow, int numCol, int interConnectivity, String dungeonType,
                  double treasurePercentage, int monsterCount, Random random) {
+    this(numRow, numCol, interConnectivity, dungeonType, treasurePercentage, monsterCount, random,
+            null, null, NO_PROGRESS);
+  }
+
+  /**
+   * Constructor for the Grid, generated from a seed. The random number generator kept for the
+   * game is seeded from the {@link Phase#GAME} stream. The progress is reported as the grid is
+   * generated, and can stop the generation by throwing.
+   *
+   * @param numRow             the width of the grid
+   * @param numCol             the height of the grid
+   * @param interConnectivity  the number of extra paths to add to the grid
+   * @param dungeonType        the type of dungeon to create
+   * @param treasurePercentage the percentage of treasure in the grid
+   * @param monsterCount       the number of monsters in the dungeon
+   * @param streams            the random number streams of the dungeon
+   * @param placement          where the treasure, arrows and monsters go
+   * @param progress           follows the generation
+   */
+  protected Grid(int numRow, int numCol, int interConnectivity, String dungeonType,
+                 double treasurePercentage, int monsterCount, RandomStreams streams,
+                 Placement placement, IGenerationProgress progress) {
+    this(numRow, numCol, interConnectivity, dungeonType, treasurePercentage, monsterCount,
+            gameRandom(streams), streams, checkPlacement(placement), progress);
+  }
+
+  private Grid(int numRow, int numCol, int interConnectivity, String dungeonType,
+               double treasurePercentage, int monsterCount, Random random,
+               RandomStreams streams, Placement placement, IGenerationProgress progress) {
 
-    if (numRow < 6 || numRow > 100) {
-      throw new IllegalArgumentException("Dungeon width must be between 10 and 100");
+    if (numRow < 6 || numRow > GameState.MAX_DIMENSION) {
+      throw new IllegalArgumentException("Dungeon height must be between 6 and "
+              + GameState.MAX_DIMENSION);
     }
-    if (numCol < 6 || numCol > 100) {
-      throw new IllegalArgumentException("Dungeon width must be between 10 and 100");
+    if (numCol < 6 || numCol > GameState.MAX_DIMENSION) {
+      throw new IllegalArgumentException("Dungeon width must be between 6 and "
+              + GameState.MAX_DIMENSION);
+    }
+    if ((long) numRow * numCol > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Dungeon has too many locations");
     }
     if (interConnectivity < 0) {
       throw new IllegalArgumentException("Interconnectivity must be between 0 and dungeon size");
@@ -135,18 +228,30 @@ class Grid {
     if (random == null) {
       throw new IllegalArgumentException("Random must be specified");
     }
+    if (progress == null) {
+      throw new IllegalArgumentException("Progress must be specified");
+    }
 
     this.random = random;
-    maze = new ILocation[numRow][numCol];
+    this.streams = streams;
+    this.progress = progress;
+    this.numRow = numRow;
+    this.numCol = numCol;
     this.treasurePercentage = treasurePercentage;
 
     //Initialize data structures
-    potentialPaths = new HashSet<>();
-    kruskalLocationGroup = new ArrayList<>();
-    leftOverList = new ArrayList<>();
-    caveList = new ArrayList<>();
-    this.startLocation = null;
-    this.endLocation = null;
+    int numCells = numRow * numCol;
+    doors = new byte[numCells];
+    contents = new byte[numCells];
+    diamonds = new byte[numCells];
+    rubies = new byte[numCells];
+    sapphires = new byte[numCells];
+    arrows = new int[numCells];
+    monsterHealth = new short[numCells];
+    componentParent = new int[numCells];
+    componentRank = new byte[numCells];
+    this.startLocation = -1;
+    this.endLocation = -1;
 
     //Creating Dungeon
     initializeLocations(); //Initialize locations in the maze
@@ -162,337 +267,745 @@ class Grid {
 
     //Get Cave Locations
     caveList = getAllCavesInDungeon(); //Get the list of caves
-    assignTreasures(); //Assign treasure to the caves
-    assignArrows(); //Assign arrows to the caves
+    placeContents(monsterCount, placement);
+  }
 
-    determineStartAndEndLocation(); //Assign start and end locations
+  /**
+   * Constructor for a grid over doors generated elsewhere, such as by a parallel generator. The
+   * caves, treasure, arrows, start and end and monsters are placed the same way as in a grid
+   * generated here.
+   *
+   * @param numRow             the width of the grid
+   * @param numCol             the height of the grid
+   * @param doors              the door mask of every location, indexed by cell id
+   * @param treasurePercentage the percentage of treasure in the grid
+   * @param monsterCount       the number of monsters in the dungeon
+   * @param random             the random number generator
+   */
+  protected Grid(int numRow, int numCol, byte[] doors, double treasurePercentage,
+                 int monsterCount, Random random) {
+    this(numRow, numCol, doors, treasurePercentage, monsterCount, random, null, null,
+            NO_PROGRESS);
+  }
 
-    //Assign monsters to the dungeon
-    assignMonsters(monsterCount);
+  /**
+   * Constructor for a grid over doors generated elsewhere, with everything else generated from a
+   * seed. The random number generator kept for the game is seeded from the {@link Phase#GAME}
+   * stream. The progress is reported as the grid is generated, and can stop the generation by
+   * throwing.
+   *
+   * @param numRow             the width of the grid
+   * @param numCol             the height of the grid
+   * @param doors              the door mask of every location, indexed by cell id
+   * @param treasurePercentage the percentage of treasure in the grid
+   * @param monsterCount       the number of monsters in the dungeon
+   * @param streams            the random number streams of the dungeon
+   * @param placement          where the treasure, arrows and monsters go
+   * @param progress           follows the generation
+   */
+  protected Grid(int numRow, int numCol, byte[] doors, double treasurePercentage,
+                 int monsterCount, RandomStreams streams, Placement placement,
+                 IGenerationProgress progress) {
+    this(numRow, numCol, doors, treasurePercentage, monsterCount, gameRandom(streams), streams,
+            checkPlacement(placement), progress);
   }
 
-  private void initializeLocations() {
+  private Grid(int numRow, int numCol, byte[] doors, double treasurePercentage,
+               int monsterCount, Random random, RandomStreams streams, Placement placement,
+               IGenerationProgress progress) {
+
+    if (numRow < 6 || numRow > GameState.MAX_DIMENSION) {
+      throw new IllegalArgumentException("Dungeon height must be between 6 and "
+              + GameState.MAX_DIMENSION);
+    }
+    if (numCol < 6 || numCol > GameState.MAX_DIMENSION) {
+      throw new IllegalArgumentException("Dungeon width must be between 6 and "
+              + GameState.MAX_DIMENSION);
+    }
+    if ((long) numRow * numCol > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Dungeon has too many locations");
+    }
+    if (doors == null || doors.length != numRow * numCol) {
+      throw new IllegalArgumentException("Doors must have a mask for every location");
+    }
+    if (treasurePercentage < 0 || treasurePercentage > 100) {
+      throw new IllegalArgumentException("Treasure percentage must be between 0 and 100");
+    }
+    if (monsterCount < 1) {
+      throw new IllegalArgumentException("Monster count must be greater than 0");
+    }
+    if (random == null) {
+      throw new IllegalArgumentException("Random must be specified");
+    }
+    if (progress == null) {
+      throw new IllegalArgumentException("Progress must be specified");
+    }
 
-    for (int i = 0; i < maze.length; i++) {
-      for (int j = 0; j < maze[i].length; j++) {
-        maze[i][j] = new Location(i, j, random);
-        //Put the location in the kruskal group to join it later in the algorithm
-        putInKruskalLocationGrouping(maze[i][j]);
+    this.random = random;
+    this.streams = streams;
+    this.progress = progress;
+    this.numRow = numRow;
+    this.numCol = numCol;
+    this.treasurePercentage = treasurePercentage;
+
+    //Initialize data structures
+    int numCells = numRow * numCol;
+    this.doors = doors.clone();
+    contents = new byte[numCells];
+    diamonds = new byte[numCells];
+    rubies = new byte[numCells];
+    sapphires = new byte[numCells];
+    arrows = new int[numCells];
+    monsterHealth = new short[numCells];
+    this.startLocation = -1;
+    this.endLocation = -1;
+    checkDoors();
+
+    //Get Cave Locations
+    caveList = getAllCavesInDungeon(); //Get the list of caves
+    placeContents(monsterCount, placement);
+  }
+
+  /**
+   * Constructor restoring a grid written by {@link #writeSnapshot(SnapshotOutput)}. The cells are
+   * read as they were saved, so nothing is generated and the random number generator is only kept
+   * for the rest of the game.
+   *
+   * @param in     the snapshot to read from
+   * @param random the random number generator
+   * @throws IOException if the snapshot cannot be read or is not a valid grid
+   */
+  Grid(SnapshotInput in, Random random) throws IOException {
+    if (in == null || random == null) {
+      throw new IllegalArgumentException("Snapshot and random must be specified");
+    }
+    this.random = random;
+    this.streams = null;
+    this.progress = NO_PROGRESS;
+    this.numRow = in.readInt();
+    this.numCol = in.readInt();
+    if (numRow < 6 || numRow > GameState.MAX_DIMENSION || numCol < 6
+            || numCol > GameState.MAX_DIMENSION || (long) numRow * numCol > Integer.MAX_VALUE) {
+      throw new IOException("Corrupt snapshot: dungeon of " + numRow + "x" + numCol);
+    }
+    this.treasurePercentage = in.readDouble();
+    int numCells = numRow * numCol;
+    this.startLocation = in.readInt();
+    this.endLocation = in.readInt();
+    if (startLocation < 0 || startLocation >= numCells
+            || endLocation < 0 || endLocation >= numCells) {
+      throw new IOException("Corrupt snapshot: start or end is outside the dungeon");
+    }
+
+    doors = new byte[numCells];
+    contents = new byte[numCells];
+    diamonds = new byte[numCells];
+    rubies = new byte[numCells];
+    sapphires = new byte[numCells];
+    arrows = new int[numCells];
+    monsterHealth = new short[numCells];
+    in.readBytes(doors);
+    in.readBytes(contents);
+    in.readBytes(diamonds);
+    in.readBytes(rubies);
+    in.readBytes(sapphires);
+    in.readInts(arrows);
+    in.readShorts(monsterHealth);
+    for (byte door : doors) {
+      if ((door & ~0xF) != 0) {
+        throw new IOException("Corrupt snapshot: invalid doors " + door);
       }
     }
+
+    caveList = getAllCavesInDungeon();
+    for (int cellId = 0; cellId < numCells; cellId++) {
+      if (hasLiveMonster(cellId)) {
+        spreadSmell(cellId, 1);
+      }
+    }
+  }
+
+  /**
+   * Constructor copying a grid as it is now, to be played on with another random number
+   * generator. The copy shares nothing with the grid but the list of caves, which never changes.
+   *
+   * @param other  the grid to copy
+   * @param random the random number generator of the copy
+   */
+  Grid(Grid other, Random random) {
+    if (other == null || random == null) {
+      throw new IllegalArgumentException("Grid and random must be specified");
+    }
+    this.random = random;
+    this.streams = null;
+    this.progress = NO_PROGRESS;
+    this.numRow = other.numRow;
+    this.numCol = other.numCol;
+    this.treasurePercentage = other.treasurePercentage;
+    this.startLocation = other.startLocation;
+    this.endLocation = other.endLocation;
+    this.doors = other.doors.clone();
+    this.contents = other.contents.clone();
+    this.diamonds = other.diamonds.clone();
+    this.rubies = other.rubies.clone();
+    this.sapphires = other.sapphires.clone();
+    this.arrows = other.arrows.clone();
+    this.monsterHealth = other.monsterHealth.clone();
+    this.caveList = other.caveList;
+    //The graph never changes, so the copy can go on with the same one
+    this.caveGraph = other.caveGraph;
+    if (other.smell != null) {
+      smell = new short[other.smell.length][];
+      for (int i = 0; i < smell.length; i++) {
+        smell[i] = other.smell[i].clone();
+      }
+    }
+  }
+
+  /**
+   * Write the grid to a snapshot: its size, start and end, then every cell attribute array as it
+   * is stored.
+   *
+   * @param out the snapshot to write to
+   * @throws IOException if the snapshot cannot be written
+   */
+  void writeSnapshot(SnapshotOutput out) throws IOException {
+    out.writeInt(numRow);
+    out.writeInt(numCol);
+    out.writeDouble(treasurePercentage);
+    out.writeInt(startLocation);
+    out.writeInt(endLocation);
+    out.writeBytes(doors);
+    out.writeBytes(contents);
+    out.writeBytes(diamonds);
+    out.writeBytes(rubies);
+    out.writeBytes(sapphires);
+    out.writeInts(arrows);
+    out.writeShorts(monsterHealth);
+  }
+
+  /**
+   * Get a copy of the door masks of every cell, as the doors constructors take them.
+   *
+   * @return the door masks, indexed by cell id
+   */
+  byte[] copyDoors() {
+    return doors.clone();
+  }
+
+  /**
+   * Get the random number generator of the grid, which the game shares.
+   *
+   * @return the random number generator
+   */
+  Random getRandom() {
+    return random;
+  }
+
+  private static Placement checkPlacement(Placement placement) {
+    if (placement == null) {
+      throw new IllegalArgumentException("Placement must be specified");
+    }
+    return placement;
   }
 
-  private void putInKruskalLocationGrouping(ILocation location) {
-    List<ILocation> group = new ArrayList<>();
-    group.add(location);
-    kruskalLocationGroup.add(group);
+  private static Random gameRandom(RandomStreams streams) {
+    if (streams == null) {
+      throw new IllegalArgumentException("Random streams must be specified");
+    }
+    return new Random(streams.seed(Phase.GAME));
+  }
+
+  /**
+   * Get the draws of a phase: {@code nextInt(bound)} of the stream of the phase, or of the random
+   * number generator if the grid has no streams.
+   */
+  private IntUnaryOperator draws(Phase phase) {
+    if (streams == null) {
+      return random::nextInt;
+    }
+    return streams.stream(phase)::nextInt;
+  }
+
+  private IntUnaryOperator draws(Phase phase, int cellId) {
+    if (streams == null) {
+      return random::nextInt;
+    }
+    return streams.stream(phase, cellId)::nextInt;
+  }
+
+  private void initializeLocations() {
+    //Every location starts in its own kruskal group
+    for (int cellId = 0; cellId < componentParent.length; cellId++) {
+      componentParent[cellId] = cellId;
+    }
+  }
+
+  /**
+   * A path between two locations is packed into a single long: the smaller cell id in the high 32
+   * bits and the larger one in the low 32 bits.
+   */
+  private static long packPath(int firstCellId, int secondCellId) {
+    int low = Math.min(firstCellId, secondCellId);
+    int high = Math.max(firstCellId, secondCellId);
+    return ((long) low << 32) | high;
+  }
+
+  private static int getFirstCellId(long path) {
+    return (int) (path >>> 32);
+  }
+
+  private static int getSecondCellId(long path) {
+    return (int) path;
   }
 
   private void updatePotentialPaths() {
-    for (int i = 0; i < maze.length; i++) {
-      for (int j = 0; j < maze[i].length; j++) {
-        if (((i + 1) < maze.length)) {
-          SortedSet<ILocation> path = new TreeSet<>();
-          path.add(maze[i][j]);
-          path.add(maze[i + 1][j]);
-          potentialPaths.add(path);
+    potentialPaths = new long[(numRow - 1) * numCol + numRow * (numCol - 1)];
+    int count = 0;
+    progress.report(GenerationPhase.EDGES, 0, numRow);
+    for (int i = 0; i < numRow; i++) {
+      for (int j = 0; j < numCol; j++) {
+        int cellId = i * numCol + j;
+        if ((i + 1) < numRow) {
+          potentialPaths[count++] = packPath(cellId, cellId + numCol);
         }
-        if (((j + 1) < maze[i].length)) {
-          SortedSet<ILocation> path = new TreeSet<>();
-          path.add(maze[i][j]);
-          path.add(maze[i][j + 1]);
-          potentialPaths.add(path);
+        if ((j + 1) < numCol) {
+          potentialPaths[count++] = packPath(cellId, cellId + 1);
         }
       }
+      progress.report(GenerationPhase.EDGES, i + 1, numRow);
     }
   }
 
   private void updatePotentialPathsWrapping() {
-    for (int i = 0; i < maze.length; i++) {
-      for (int j = 0; j < maze[i].length; j++) {
-        if (((i - 1) >= 0)) {
-          SortedSet<ILocation> path = new TreeSet<>();
-          path.add(maze[i][j]);
-          path.add(maze[i - 1][j]);
-          potentialPaths.add(path);
-        } else {
-          SortedSet<ILocation> path = new TreeSet<>();
-          path.add(maze[i][j]);
-          path.add(maze[maze.length - 1][j]);
-          potentialPaths.add(path);
-        }
-        if (((i + 1) < maze.length)) {
-          SortedSet<ILocation> path = new TreeSet<>();
-          path.add(maze[i][j]);
-          path.add(maze[i + 1][j]);
-          potentialPaths.add(path);
-        } else {
-          SortedSet<ILocation> path = new TreeSet<>();
-          path.add(maze[i][j]);
-          path.add(maze[0][j]);
-          potentialPaths.add(path);
-        }
-        if (((j + 1) < maze[i].length)) {
-          SortedSet<ILocation> path = new TreeSet<>();
-          path.add(maze[i][j]);
-          path.add(maze[i][j + 1]);
-          potentialPaths.add(path);
-        } else {
-          SortedSet<ILocation> path = new TreeSet<>();
-          path.add(maze[i][j]);
-          path.add(maze[i][0]);
-          potentialPaths.add(path);
-
-        }
-        if (((j - 1) >= 0)) {
-          SortedSet<ILocation> path = new TreeSet<>();
-          path.add(maze[i][j]);
-          path.add(maze[i][j - 1]);
-          potentialPaths.add(path);
-        } else {
-          SortedSet<ILocation> path = new TreeSet<>();
-          path.add(maze[i][j]);
-          path.add(maze[i][maze[i].length - 1]);
-          potentialPaths.add(path);
-        }
+    //Every location adds only its south and east path, the north and west paths are added by the
+    //neighbouring location, so each path is listed exactly once.
+    potentialPaths = new long[2 * numRow * numCol];
+    int count = 0;
+    progress.report(GenerationPhase.EDGES, 0, numRow);
+    for (int i = 0; i < numRow; i++) {
+      for (int j = 0; j < numCol; j++) {
+        int cellId = i * numCol + j;
+        potentialPaths[count++] = packPath(cellId, ((i + 1) % numRow) * numCol + j);
+        potentialPaths[count++] = packPath(cellId, i * numCol + (j + 1) % numCol);
       }
+      progress.report(GenerationPhase.EDGES, i + 1, numRow);
     }
   }
 
   private void createDungeonUsingKruskal() {
-    List<SortedSet<ILocation>> list = new ArrayList<>();
-    list.addAll(potentialPaths);
-
-    while (list.size() > 0) {
-      ILocation firstLocation = null;
-      ILocation secondLocation = null;
-      int firstLocationIndex = -1;
-      int secondLocationIndex = -1;
-      int count = 0;
-      var pathIndex = random.nextInt(list.size());
-      var sortedLocationSet = list.get(pathIndex);
-      for (ILocation value : sortedLocationSet) {
-        if (count == 0) {
-          firstLocation = value;
-          count++;
-        }
-        secondLocation = value;
+    //Shuffle the paths once and visit them in that order, each half of the steps
+    long steps = 2L * potentialPaths.length;
+    progress.report(GenerationPhase.SPANNING_TREE, 0, steps);
+    IntUnaryOperator nextInt = draws(Phase.PATHS);
+    for (int i = potentialPaths.length - 1; i > 0; i--) {
+      swapPaths(potentialPaths, i, nextInt.applyAsInt(i + 1));
+      if ((i & (REPORT_INTERVAL - 1)) == 0) {
+        progress.report(GenerationPhase.SPANNING_TREE, potentialPaths.length - i, steps);
       }
+    }
 
-      list.remove(pathIndex);
-      for (int i = 0; i < kruskalLocationGroup.size(); i++) {
-        if (kruskalLocationGroup.get(i).contains(firstLocation)) {
-          firstLocationIndex = i;
-        }
-        if (kruskalLocationGroup.get(i).contains(secondLocation)) {
-          secondLocationIndex = i;
-        }
-
+    leftOverPaths = new long[potentialPaths.length];
+    leftOverCount = 0;
+    for (int i = 0; i < potentialPaths.length; i++) {
+      if ((i & (REPORT_INTERVAL - 1)) == 0) {
+        progress.report(GenerationPhase.SPANNING_TREE, potentialPaths.length + i, steps);
       }
-
-      if (firstLocationIndex != secondLocationIndex) {
-        joinLocation(firstLocation, secondLocation); // Make the locations neighbors of each other
-        kruskalLocationGroup.get(firstLocationIndex)
-                .addAll(kruskalLocationGroup.get(secondLocationIndex));
-        kruskalLocationGroup.remove(secondLocationIndex);
+      long path = potentialPaths[i];
+      int firstGroup = findKruskalGroup(getFirstCellId(path));
+      int secondGroup = findKruskalGroup(getSecondCellId(path));
+      if (firstGroup != secondGroup) {
+        joinLocation(path); // Make the locations neighbors of each other
+        unionKruskalGroups(firstGroup, secondGroup);
       } else { // Path added in the leftover list
-        leftOverList.add(sortedLocationSet);
-      }
-    }
-  }
-
-  private void joinLocation(ILocation firstLocation, ILocation secondLocation) {
-
-    for (int i = 0; i < maze.length; i++) {
-      for (int j = 0; j < maze[i].length; j++) {
-        if (firstLocation.equals(maze[i][j])) {
-          if (((i + 1) <= maze.length - 1)) {
-            if (maze[i + 1][j].equals(secondLocation)) {
-              firstLocation.joinLocationToSouthDirection(secondLocation);
-              secondLocation.joinLocationToNorthDirection(firstLocation);
-            }
-          } else if ((i + 1) > maze.length - 1) {
-            if (maze[0][j].equals(secondLocation)) {
-              firstLocation.joinLocationToSouthDirection(secondLocation);
-              secondLocation.joinLocationToNorthDirection(firstLocation);
-            }
-          }
-          if (((i - 1) >= 0)) {
-            if (maze[i - 1][j].equals(secondLocation)) {
-              firstLocation.joinLocationToNorthDirection(secondLocation);
-              secondLocation.joinLocationToSouthDirection(firstLocation);
-            }
-          } else if ((i - 1) < 0) {
-            if (maze[maze.length - 1][j].equals(secondLocation)) {
-              firstLocation.joinLocationToNorthDirection(secondLocation);
-              secondLocation.joinLocationToSouthDirection(firstLocation);
-            }
-          }
-          if (((j + 1) <= maze[i].length - 1)) {
-            if (maze[i][j + 1].equals(secondLocation)) {
-              firstLocation.joinLocationToEastDirection(secondLocation);
-              secondLocation.joinLocationToWestDirection(firstLocation);
-            }
-          } else if ((j + 1) > maze[i].length - 1) {
-            if (maze[i][0].equals(secondLocation)) {
-              firstLocation.joinLocationToEastDirection(secondLocation);
-              secondLocation.joinLocationToWestDirection(firstLocation);
-            }
-          }
-          if (((j - 1) >= 0)) {
-            if (maze[i][j - 1].equals(secondLocation)) {
-              firstLocation.joinLocationToWestDirection(secondLocation);
-              secondLocation.joinLocationToEastDirection(firstLocation);
-            }
-
-          } else if ((j - 1) < 0) {
-            if (maze[i][maze[i].length - 1].equals(secondLocation)) {
-              firstLocation.joinLocationToWestDirection(secondLocation);
-              secondLocation.joinLocationToEastDirection(firstLocation);
-            }
-          }
-        }
+        leftOverPaths[leftOverCount++] = path;
+      }
+    }
+    progress.report(GenerationPhase.SPANNING_TREE, steps, steps);
+    potentialPaths = null;
+    componentParent = null;
+    componentRank = null;
+  }
+
+  private static void swapPaths(long[] paths, int i, int j) {
+    long temp = paths[i];
+    paths[i] = paths[j];
+    paths[j] = temp;
+  }
+
+  private int findKruskalGroup(int cellId) {
+    int root = cellId;
+    while (componentParent[root] != root) {
+      root = componentParent[root];
+    }
+    //Path compression: point every location on the way directly at the root
+    while (componentParent[cellId] != root) {
+      int next = componentParent[cellId];
+      componentParent[cellId] = root;
+      cellId = next;
+    }
+    return root;
+  }
+
+  private void unionKruskalGroups(int firstRoot, int secondRoot) {
+    //Union by rank: hang the shallower tree under the deeper one
+    if (componentRank[firstRoot] < componentRank[secondRoot]) {
+      componentParent[firstRoot] = secondRoot;
+    } else if (componentRank[firstRoot] > componentRank[secondRoot]) {
+      componentParent[secondRoot] = firstRoot;
+    } else {
+      componentParent[secondRoot] = firstRoot;
+      componentRank[firstRoot]++;
+    }
+  }
+
+  private void joinLocation(long path) {
+    int firstCellId = getFirstCellId(path);
+    int secondCellId = getSecondCellId(path);
+
+    for (Direction direction : Direction.values()) {
+      if (getAdjacentCell(firstCellId, direction) == secondCellId) {
+        openDoor(firstCellId, direction);
+        openDoor(secondCellId, getOppositeDirection(direction));
+        return;
       }
     }
   }
 
   private void addInterconnectivity(int numAdditionalConnections) {
+    //Partial shuffle: only the leftover paths that get added are drawn
+    int count = Math.min(numAdditionalConnections, leftOverCount);
+    IntUnaryOperator nextInt = draws(Phase.INTERCONNECTIVITY);
+    for (int i = 0; i < count; i++) {
+      if ((i & (REPORT_INTERVAL - 1)) == 0) {
+        progress.report(GenerationPhase.INTERCONNECTIVITY, i, count);
+      }
+      swapPaths(leftOverPaths, i, i + nextInt.applyAsInt(leftOverCount - i));
+      joinLocation(leftOverPaths[i]);
+    }
+    progress.report(GenerationPhase.INTERCONNECTIVITY, count, count);
+    leftOverPaths = null;
+  }
 
-    ILocation firstLocation = null;
-    ILocation secondLocation = null;
-    SortedSet<ILocation> sortedLocationSet;
-    for (int i = 0; i < numAdditionalConnections; i++) {
-      if (leftOverList.size() == 0) {
-        break;
+  private void checkDoors() {
+    //Every door must have a door back, and every location must be reachable from the first
+    for (int cellId = 0; cellId < doors.length; cellId++) {
+      if ((doors[cellId] & ~0xF) != 0) {
+        throw new IllegalArgumentException("Invalid doors " + doors[cellId]);
       }
-      int randomIndex = random.nextInt(leftOverList.size());
-      sortedLocationSet = leftOverList.get(randomIndex);
-      int count = 0;
-      for (ILocation value : sortedLocationSet) {
-        if (count == 0) {
-          firstLocation = value;
-          count++;
+      for (Direction direction : Direction.values()) {
+        if (hasDoor(cellId, direction) && !hasDoor(getAdjacentCell(cellId, direction),
+                getOppositeDirection(direction))) {
+          throw new IllegalArgumentException("Door " + direction + " of " + getLocation(cellId)
+                  + " has no door back");
         }
-        secondLocation = value;
       }
-      joinLocation(firstLocation, secondLocation);
-      leftOverList.remove(randomIndex);
+    }
+    GridTraversal traversal = getTraversal();
+    traversal.begin(0, Integer.MAX_VALUE);
+    int reached = 0;
+    while (traversal.next() != -1) {
+      reached++;
+    }
+    if (reached != doors.length) {
+      throw new IllegalArgumentException("Every location must be reachable");
     }
   }
 
-  private List<ILocation> getAllCavesInDungeon() {
-    for (int i = 0; i < maze.length; i++) {
-      for (int j = 0; j < maze[i].length; j++) {
-        ILocation loc = maze[i][j];
-        if (loc.isCave()) {
-          caveList.add(loc);
-        }
+  private int[] getAllCavesInDungeon() {
+    progress.report(GenerationPhase.CAVES, 0, doors.length);
+    int caveCount = 0;
+    for (int cellId = 0; cellId < doors.length; cellId++) {
+      if (isCave(cellId)) {
+        caveCount++;
+      }
+    }
+    int[] caves = new int[caveCount];
+    caveCount = 0;
+    for (int cellId = 0; cellId < doors.length; cellId++) {
+      if (isCave(cellId)) {
+        caves[caveCount++] = cellId;
       }
     }
-    return caveList;
+    progress.report(GenerationPhase.CAVES, doors.length, doors.length);
+    return caves;
   }
 
   private void determineStartAndEndLocation() {
-    int randomIndex = random.nextInt(caveList.size());
-    startLocation = caveList.get(randomIndex);
+    progress.report(GenerationPhase.START_AND_END, 0, 1);
+    int randomIndex = draws(Phase.START).applyAsInt(caveList.length);
+    startLocation = caveList[randomIndex];
     endLocation = modifiedBreadthFirstSearchToFindEnd(startLocation, MIN_PATH_LENGTH);
+    progress.report(GenerationPhase.START_AND_END, 1, 1);
   }
 
   private void assignTreasures() {
-    List<ILocation> caveListCopy = new ArrayList<>(caveList);
-    int totalCaves = caveListCopy.size();
-    double numberOfTreasuresCaves = Math.ceil(totalCaves * (treasurePercentage / 100));
+    int[] caveListCopy = caveList.clone();
+    int remainingCaves = caveListCopy.length;
+    double numberOfTreasuresCaves = Math.ceil(remainingCaves * (treasurePercentage / 100));
+    long treasureCaves = (long) numberOfTreasuresCaves;
+    IntUnaryOperator nextInt = draws(Phase.TREASURE);
     for (double i = 0.0; i < numberOfTreasuresCaves; i++) {
-      int randomIndex = random.nextInt(caveListCopy.size());
-      caveListCopy.get(randomIndex).setTreasure();
-      caveListCopy.remove(randomIndex);
+      if (((long) i & (REPORT_INTERVAL - 1)) == 0) {
+        progress.report(GenerationPhase.TREASURE, (long) i, treasureCaves);
+      }
+      int randomIndex = nextInt.applyAsInt(remainingCaves);
+      setTreasure(caveListCopy[randomIndex]);
+      //Remove the cave from the copy, keeping the order of the remaining caves
+      System.arraycopy(caveListCopy, randomIndex + 1, caveListCopy, randomIndex,
+              remainingCaves - randomIndex - 1);
+      remainingCaves--;
     }
+    progress.report(GenerationPhase.TREASURE, treasureCaves, treasureCaves);
   }
 
   private void assignArrows() {
-    double numberOfTreasuresCaves = Math.ceil(maze.length * maze[0].length
-            * (treasurePercentage / 100));
+    double numberOfTreasuresCaves = Math.ceil(numRow * numCol * (treasurePercentage / 100));
+    long arrowCount = (long) numberOfTreasuresCaves;
+    IntUnaryOperator nextInt = draws(Phase.ARROWS);
     for (double i = 0.0; i < numberOfTreasuresCaves; i++) {
-      int randomRow = random.nextInt(maze.length);
-      int randomCol = random.nextInt(maze[0].length);
-      maze[randomRow][randomCol].addArrow();
+      if (((long) i & (REPORT_INTERVAL - 1)) == 0) {
+        progress.report(GenerationPhase.ARROWS, (long) i, arrowCount);
+      }
+      int randomRow = nextInt.applyAsInt(numRow);
+      int randomCol = nextInt.applyAsInt(numCol);
+      addArrow(randomRow * numCol + randomCol);
     }
+    progress.report(GenerationPhase.ARROWS, arrowCount, arrowCount);
   }
 
-  private void assignMonsters(int monsterCount) {
+  /**
+   * Place the treasure, arrows, start and end and monsters. A grid from a random number generator
+   * keeps the draws it has always made, and only so that a seed gives the dungeon it always gave:
+   * each treasure cave costs time proportional to the caves, and monsters are drawn again until
+   * they land in a free cave, which takes longer the fuller the caves are. A seeded grid never
+   * draws again, see {@link Sampling}.
+   */
+  private void placeContents(int monsterCount, Placement placement) {
+    if (placement == null) {
+      assignTreasures(); //Assign treasure to the caves
+      assignArrows(); //Assign arrows to the caves
+
+      determineStartAndEndLocation(); //Assign start and end locations
+
+      //Assign monsters to the dungeon
+      assignMonsters(monsterCount);
+      return;
+    }
+    determineStartAndEndLocation();
+    int[] distances = placement.isUniform() ? null : distancesFromStart();
+    placeTreasures(placement.getTreasure(), distances);
+    placeArrows(placement.getArrows(), distances);
+    placeMonsters(monsterCount, placement.getMonsterPlacement(), placement.getMonsters(),
+            distances);
+  }
+
+  private int[] distancesFromStart() {
+    int[] distances = new int[doors.length];
+    GridTraversal traversal = getTraversal();
+    traversal.begin(startLocation, Integer.MAX_VALUE);
+    for (int cellId = traversal.next(); cellId != -1; cellId = traversal.next()) {
+      distances[cellId] = traversal.getLevel(cellId);
+    }
+    return distances;
+  }
+
+  private int[] draw(int[] candidates, int length, int count,
+                     IPlacementDistribution distribution, int[] distances, Phase phase) {
+    SplittableRandom stream = streams.stream(phase);
+    if (distribution == Placement.UNIFORM) {
+      Sampling.partialShuffle(candidates, length, count, stream);
+      return candidates;
+    }
+    double[] weights = new double[length];
+    for (int i = 0; i < length; i++) {
+      weights[i] = checkWeight(distribution.weight(distances[candidates[i]]));
+    }
+    int[] chosen = Sampling.weightedReservoir(candidates, length, weights, count, stream);
+    if (chosen.length < count) {
+      throw new IllegalArgumentException("The placement gives a weight to " + chosen.length
+              + " locations but " + count + " are needed");
+    }
+    return chosen;
+  }
+
+  private static double checkWeight(double weight) {
+    if (!(weight >= 0) || Double.isInfinite(weight)) {
+      throw new IllegalArgumentException("Weights must be finite and not negative");
+    }
+    return weight;
+  }
+
+  private void placeTreasures(IPlacementDistribution distribution, int[] distances) {
+    int treasureCaves = (int) Math.ceil(caveList.length * (treasurePercentage / 100));
+    progress.report(GenerationPhase.TREASURE, 0, treasureCaves);
+    int[] chosen = draw(caveList.clone(), caveList.length, treasureCaves, distribution, distances,
+            Phase.TREASURE);
+    for (int i = 0; i < treasureCaves; i++) {
+      if ((i & (REPORT_INTERVAL - 1)) == 0) {
+        progress.report(GenerationPhase.TREASURE, i, treasureCaves);
+      }
+      setTreasure(chosen[i]);
+    }
+    progress.report(GenerationPhase.TREASURE, treasureCaves, treasureCaves);
+  }
+
+  private void placeArrows(IPlacementDistribution distribution, int[] distances) {
+    long arrowCount = (long) Math.ceil(numRow * numCol * (treasurePercentage / 100));
+    progress.report(GenerationPhase.ARROWS, 0, arrowCount);
+    SplittableRandom stream = streams.stream(Phase.ARROWS);
+    Sampling.AliasTable table = null;
+    if (distribution != Placement.UNIFORM) {
+      double[] weights = new double[doors.length];
+      for (int cellId = 0; cellId < doors.length; cellId++) {
+        weights[cellId] = checkWeight(distribution.weight(distances[cellId]));
+      }
+      table = new Sampling.AliasTable(weights);
+    }
+    for (long i = 0; i < arrowCount; i++) {
+      if ((i & (REPORT_INTERVAL - 1)) == 0) {
+        progress.report(GenerationPhase.ARROWS, i, arrowCount);
+      }
+      addArrow(table == null ? stream.nextInt(doors.length) : table.sample(stream));
+    }
+    progress.report(GenerationPhase.ARROWS, arrowCount, arrowCount);
+  }
+
+  private void placeMonsters(int monsterCount, MonsterPlacement strategy,
+                             IPlacementDistribution distribution, int[] distances) {
+    //The other monsters go anywhere but the start and the end
+    int[] candidates = caveList.clone();
+    int length = candidates.length;
+    for (int i = length - 1; i >= 0; i--) {
+      if (candidates[i] == startLocation || candidates[i] == endLocation) {
+        candidates[i] = candidates[--length];
+      }
+    }
+    int others = Math.max(Math.min(monstersAllowed(monsterCount) - 1, length), 0);
+    //The monster in the end is placed whatever the count
+    long total = others + 1;
+    progress.report(GenerationPhase.MONSTERS, 0, total);
+
     //Set a monster in the End Location
-    endLocation.setMonster();
+    setMonster(endLocation);
 
-    List<ILocation> caveListCopy = new ArrayList<>(caveList);
-    int maxMonsterCount = monsterCount;
-    if (monsterCount > (caveListCopy.size() - 1)) {
-      maxMonsterCount = (caveListCopy.size() - 1);
-      System.out.println("Warning: Monster count is greater than the number of caves. "
-              + "Setting monster count to " + maxMonsterCount);
+    int[] chosen;
+    switch (strategy) {
+      case SPREAD:
+        chosen = new MonsterLayout(this).spread(Arrays.copyOf(candidates, length), others,
+                new int[] {startLocation, endLocation}, streams.stream(Phase.MONSTERS));
+        break;
+      case CHOKEPOINTS:
+        chosen = chokepointMonsters(Arrays.copyOf(candidates, length), others);
+        break;
+      default:
+        chosen = draw(candidates, length, others, distribution, distances, Phase.MONSTERS);
     }
+    for (int i = 0; i < others; i++) {
+      if (((i + 1) & (REPORT_INTERVAL - 1)) == 0) {
+        progress.report(GenerationPhase.MONSTERS, i + 1, total);
+      }
+      setMonster(chosen[i]);
+    }
+    progress.report(GenerationPhase.MONSTERS, total, total);
+  }
 
-    while (maxMonsterCount > 1) {
-      int randomIndex = random.nextInt(caveListCopy.size());
-      ILocation randomLocation = caveListCopy.get(randomIndex);
-      if (randomLocation.equals(startLocation) || randomLocation.equals(endLocation)
-              || randomLocation.getMonster() != null) {
-        continue;
-      } else {
-        randomLocation.setMonster();
-        maxMonsterCount--;
+  private int[] chokepointMonsters(int[] candidates, int count) {
+    MonsterLayout layout = new MonsterLayout(this);
+    int[] chokepoints = layout.chokepoints(startLocation, endLocation);
+    int[] chosen = new int[count];
+    int onTheWay = Math.min(count, chokepoints.length);
+    //Evenly spaced along the way when there are more chokepoints than monsters
+    for (int i = 0; i < onTheWay; i++) {
+      chosen[i] = chokepoints[(int) ((long) i * chokepoints.length / onTheWay)];
+    }
+    if (onTheWay == count) {
+      return chosen;
+    }
+    //Every chokepoint has a monster, the rest keep away from them and from the start and end
+    int[] sources = Arrays.copyOf(chokepoints, onTheWay + 2);
+    sources[onTheWay] = startLocation;
+    sources[onTheWay + 1] = endLocation;
+    boolean[] taken = new boolean[doors.length];
+    for (int chokepoint : chokepoints) {
+      taken[chokepoint] = true;
+    }
+    int remaining = 0;
+    for (int cave : candidates) {
+      if (!taken[cave]) {
+        candidates[remaining++] = cave;
       }
     }
+    int[] rest = layout.spread(Arrays.copyOf(candidates, remaining), count - onTheWay, sources,
+            streams.stream(Phase.MONSTERS));
+    System.arraycopy(rest, 0, chosen, onTheWay, rest.length);
+    return chosen;
   }
 
-  private ILocation modifiedBreadthFirstSearchToFindEnd(ILocation startLocation,
-                                                        int minPathLength) {
-    Set<ILocation> visited = new HashSet<>();
-    Integer level = 0;
-    Queue<Map<ILocation, Integer>> objects = new LinkedList<>();
-    Map<ILocation, Integer> map = new HashMap<>();
-    map.put(startLocation, level);
-    objects.add(map);
-    ILocation currentLocation = startLocation;
+  /**
+   * The number of monsters that fit, one less than the caves. The count is clamped quietly: a
+   * grid can be generated on a background thread or a server, where nobody reads the standard
+   * output, and {@link DungeonFeatures#getMonsterCount()} gives the count it got.
+   */
+  private int monstersAllowed(int monsterCount) {
+    return Math.min(monsterCount, caveList.length - 1);
+  }
 
+  private void assignMonsters(int monsterCount) {
+    int maxMonsterCount = monstersAllowed(monsterCount);
+    long total = Math.max(maxMonsterCount, 1);
+    progress.report(GenerationPhase.MONSTERS, 0, total);
 
-    while (!objects.isEmpty()) {
+    //Set a monster in the End Location
+    setMonster(endLocation);
 
-      Map<ILocation, Integer> current = objects.remove();
-      for (ILocation location : current.keySet()) {
-        currentLocation = location;
+    IntUnaryOperator nextInt = draws(Phase.MONSTERS);
+    for (long attempt = 1; maxMonsterCount > 1; attempt++) {
+      if ((attempt & (REPORT_INTERVAL - 1)) == 0) {
+        progress.report(GenerationPhase.MONSTERS, total - maxMonsterCount + 1, total);
+      }
+      int randomIndex = nextInt.applyAsInt(caveList.length);
+      int randomLocation = caveList[randomIndex];
+      if (randomLocation == startLocation || randomLocation == endLocation
+              || containsMonster(randomLocation)) {
+        continue;
+      } else {
+        setMonster(randomLocation);
+        maxMonsterCount--;
       }
-      int currentLevel = current.get(currentLocation);
+    }
+    progress.report(GenerationPhase.MONSTERS, total, total);
+  }
 
+  private int modifiedBreadthFirstSearchToFindEnd(int startCell, int minPathLength) {
+    GridTraversal traversal = getTraversal();
+    traversal.begin(startCell, Integer.MAX_VALUE);
+    int lastCell = startCell;
+    for (int cellId = traversal.next(); cellId != -1; cellId = traversal.next()) {
       // if we have found the end location, return it
-      if (currentLocation.isCave()
-              && current.get(currentLocation) >= minPathLength
-              && !visited.contains(currentLocation)) {
-        return currentLocation;
-      }
-      visited.add(currentLocation);
-
-      // add all the adjacent locations to the queue
-      for (ILocation value : currentLocation.getNeighbours().values()) {
-        if (value != null) {
-          if (!visited.contains(value)) {
-            Map<ILocation, Integer> newMap = new HashMap<>();
-            newMap.put(value, currentLevel + 1);
-            objects.add(newMap);
-          }
-        }
+      if (isCave(cellId) && traversal.getLevel(cellId) >= minPathLength) {
+        return cellId;
       }
-
+      lastCell = cellId;
     }
-    return currentLocation;
+    return lastCell;
   }
 
   //Getters
   protected ILocation getPlayerStartLocation() {
-    return new Location(startLocation);
+    return getLocation(startLocation);
   }
 
   protected ILocation getPlayerEndLocation() {
-    return new Location(endLocation);
+    return getLocation(endLocation);
+  }
+
+  protected int getStartCellId() {
+    return startLocation;
+  }
+
+  protected int getEndCellId() {
+    return endLocation;
   }
 
   protected Map<Direction, ILocation> getNeighbours(ILocation location) {
@@ -500,54 +1013,393 @@ class Grid {
   }
 
   protected ILocation[][] getDungeonCopy() {
-    ILocation[][] dungeonCopy = new ILocation[maze.length][maze[0].length];
-    for (int i = 0; i < maze.length; i++) {
-      for (int j = 0; j < maze[i].length; j++) {
-        dungeonCopy[i][j] = new Location(maze[i][j]);
+    ILocation[][] dungeonCopy = new ILocation[numRow][numCol];
+    for (int i = 0; i < numRow; i++) {
+      for (int j = 0; j < numCol; j++) {
+        dungeonCopy[i][j] = new Location(getLocation(i * numCol + j));
       }
     }
     return dungeonCopy;
   }
 
   protected List<ILocation> getLocationsAway(ILocation startLocation, int minPathLength) {
-
     List<ILocation> locationsAway = new ArrayList<>();
+    GridTraversal traversal = getTraversal();
+    traversal.begin(cellIdOf(startLocation), minPathLength);
+    for (int cellId = traversal.next(); cellId != -1; cellId = traversal.next()) {
+      // if we have found the location at the desired distance, add it to the list.
+      if (traversal.getLevel(cellId) == minPathLength) {
+        locationsAway.add(getLocation(cellId));
+      }
+    }
+    return locationsAway;
+  }
 
-    Set<ILocation> visited = new HashSet<>();
-    Integer level = 0;
-    Queue<Map<ILocation, Integer>> objects = new LinkedList<>();
-    Map<ILocation, Integer> map = new HashMap<>();
-    map.put(startLocation, level);
-    objects.add(map);
-    ILocation currentLocation = startLocation;
+  /**
+   * Count the living monsters at exactly the given distance from a location. Unlike
+   * {@link #getLocationsAway(ILocation, int)} this does not create any objects.
+   */
+  protected int countMonstersAway(ILocation startLocation, int distance) {
+    int monsters = 0;
+    GridTraversal traversal = getTraversal();
+    traversal.begin(cellIdOf(startLocation), distance);
+    for (int cellId = traversal.next(); cellId != -1; cellId = traversal.next()) {
+      if (traversal.getLevel(cellId) == distance && hasLiveMonster(cellId)) {
+        monsters++;
+      }
+    }
+    return monsters;
+  }
 
+  /**
+   * Get the graph of the caves and the corridors between them, looked up or built on first use
+   * after the last door was opened.
+   *
+   * @return the cave graph
+   */
+  CaveGraph getCaveGraph() {
+    if (caveGraph == null) {
+      caveGraph = CaveGraph.of(this);
+    }
+    return caveGraph;
+  }
 
-    while (true) {
+  /**
+   * Fly an arrow shot from a location, over the cave graph, and hit the living monster of the
+   * cave it lands in.
+   *
+   * @param fromCell  the cell id of the location it is shot from
+   * @param direction the direction it is shot in, through a door of that location
+   * @param distance  the number of caves it flies
+   */
+  protected void shootArrow(int fromCell, Direction direction, int distance) {
+    int landing = arrowLanding(fromCell, direction, distance);
+    if (landing != -1) {
+      hitMonster(landing);
+    }
+  }
+
+  /**
+   * Fly an arrow that behaves in its own way, one location at a time. The standard arrow flies
+   * over the cave graph as {@link #shootArrow(int, Direction, int)} does.
+   *
+   * @param fromCell  the cell id of the location it is shot from
+   * @param direction the direction it is shot in, through a door of that location
+   * @param distance  the number of caves it flies
+   * @param behaviour what it does in the caves it flies through
+   */
+  protected void shootArrow(int fromCell, Direction direction, int distance,
+                            IArrowBehaviour behaviour) {
+    if (behaviour == Arrows.STANDARD) {
+      shootArrow(fromCell, direction, distance);
+      return;
+    }
+    if (arrowFlight == null) {
+      arrowFlight = new ArrowFlight(new GridTerrain(this), numRow * numCol);
+    }
+    arrowFlight.fly(fromCell, direction, distance, behaviour);
+  }
+
+  /**
+   * Find the cave an arrow shot from a location lands in, without shooting it. The arrow goes
+   * straight through caves and follows the corridors wherever they turn, and every cave it enters
+   * counts towards the distance. It stops early at a wall or where it has already been, as
+   * {@link dungeon.model.character.Player} flies it one location at a time. Shots of up to
+   * {@value CaveGraph#MAX_TABLED_DISTANCE} caves are read from the arrow table of the graph.
+   *
+   * @param fromCell  the cell id of the location it is shot from
+   * @param direction the direction it is shot in, through a door of that location
+   * @param distance  the number of caves it flies
+   * @return the cell id of the cave it lands in, or -1 if it stops before
+   */
+  int arrowLanding(int fromCell, Direction direction, int distance) {
+    if (distance <= 0) {
+      return -1;
+    }
+    CaveGraph graph = getCaveGraph();
+    int cave = graph.caveIndex(fromCell);
+    Direction heading = direction;
+    int startCorridor = -1;
+    if (cave == -1) {
+      //From a tunnel, along its corridor to the cave at its end
+      int exit = graph.getExit(fromCell, direction);
+      if (--distance == 0) {
+        return exit;
+      }
+      startCorridor = graph.corridorOf(fromCell);
+      heading = graph.getExitArrival(fromCell, direction);
+      cave = graph.caveIndex(exit);
+    }
+    if (distance <= CaveGraph.MAX_TABLED_DISTANCE) {
+      //The table flies from the cave alone, without marking the corridor behind it, and lands
+      //the same: the arrow can go back into that corridor, even at once when it loops, but only
+      //through a door that leads it out again into this cave, where the table stops it as
+      //flyArrow stops it at the corridor
+      return graph.getLanding(cave, heading, distance);
+    }
+    return flyArrow(graph, cave, startCorridor, heading, distance);
+  }
+
+  private int flyArrow(CaveGraph graph, int cave, int startCorridor, Direction heading,
+                       int distance) {
+    int caves = graph.getCaveCount();
+    if (flightMarks == null) {
+      flightMarks = new int[caves + graph.getCorridorCount()];
+      flightEpoch = 0;
+    }
+    if (flightEpoch == Integer.MAX_VALUE) {
+      Arrays.fill(flightMarks, 0);
+      flightEpoch = 0;
+    }
+    //Caves are marked at their index and corridors after them
+    int epoch = ++flightEpoch;
+    flightMarks[cave] = epoch;
+    if (startCorridor != -1) {
+      flightMarks[caves + startCorridor] = epoch;
+    }
 
-      Map<ILocation, Integer> current = objects.remove();
-      for (ILocation location : current.keySet()) {
-        currentLocation = location;
+    while (true) {
+      int target = graph.getTarget(cave, heading);
+      if (target == -1) {
+        //A wall, the arrow falls in the cave
+        return -1;
       }
-      int currentLevel = current.get(currentLocation);
-      if (currentLevel > minPathLength) {
-        return locationsAway;
+      int corridor = graph.getCorridor(cave, heading);
+      if (corridor != -1) {
+        if (flightMarks[caves + corridor] == epoch) {
+          return -1;
+        }
+        flightMarks[caves + corridor] = epoch;
       }
-      // if we have found the location at the desired distance, add it to the list.
-      if (currentLevel == minPathLength) {
-        locationsAway.add(currentLocation);
-      }
-      visited.add(currentLocation);
-
-      // add all the adjacent locations to the queue
-      for (ILocation value : currentLocation.getNeighbours().values()) {
-        if (value != null) {
-          if (!visited.contains(value)) {
-            Map<ILocation, Integer> newMap = new HashMap<>();
-            newMap.put(value, currentLevel + 1);
-            objects.add(newMap);
-          }
+      Direction arrival = graph.getArrival(cave, heading);
+      cave = graph.caveIndex(target);
+      if (flightMarks[cave] == epoch) {
+        return -1;
+      }
+      flightMarks[cave] = epoch;
+      if (--distance == 0) {
+        return target;
+      }
+      heading = arrival;
+    }
+  }
+
+  private void hitMonster(int cellId) {
+    if (hasLiveMonster(cellId)) {
+      decrementMonsterHealth(cellId);
+    }
+  }
+
+  private GridTraversal getTraversal() {
+    //Created on first use and reused by every search after that
+    if (traversal == null) {
+      traversal = new GridTraversal(this);
+    }
+    return traversal;
+  }
+
+  //Cell storage, used by the location, treasure and monster views
+  protected int getNumRows() {
+    return numRow;
+  }
+
+  protected int getNumCols() {
+    return numCol;
+  }
+
+  protected ILocation getLocation(int cellId) {
+    //Locations are views over the cell arrays, cheap enough to create on every call
+    return new GridLocation(this, cellId);
+  }
+
+  protected int cellIdOf(ILocation location) {
+    return location.getRowCoordinate() * numCol + location.getColCoordinate();
+  }
+
+  protected static int doorBit(Direction direction) {
+    return 1 << direction.ordinal();
+  }
+
+  protected static Direction getOppositeDirection(Direction direction) {
+    switch (direction) {
+      case NORTH:
+        return Direction.SOUTH;
+      case SOUTH:
+        return Direction.NORTH;
+      case EAST:
+        return Direction.WEST;
+      default:
+        return Direction.EAST;
+    }
+  }
+
+  /**
+   * Get the cell next to the given cell in the given direction, wrapping around the edges. Whether
+   * there is a door between the two is a separate question, see {@link #hasDoor(int, Direction)}.
+   */
+  protected int getAdjacentCell(int cellId, Direction direction) {
+    int row = cellId / numCol;
+    int col = cellId % numCol;
+    switch (direction) {
+      case NORTH:
+        return ((row - 1 + numRow) % numRow) * numCol + col;
+      case SOUTH:
+        return ((row + 1) % numRow) * numCol + col;
+      case EAST:
+        return row * numCol + (col + 1) % numCol;
+      default:
+        return row * numCol + (col - 1 + numCol) % numCol;
+    }
+  }
+
+  protected int getDoors(int cellId) {
+    return doors[cellId];
+  }
+
+  protected boolean hasDoor(int cellId, Direction direction) {
+    return (doors[cellId] & doorBit(direction)) != 0;
+  }
+
+  protected void openDoor(int cellId, Direction direction) {
+    doors[cellId] |= doorBit(direction);
+    //A door can turn a tunnel into a cave or a cave into a tunnel, so the graph is built again
+    caveGraph = null;
+    flightMarks = null;
+    if (smell != null) {
+      //A new door changes distances everywhere, so the smell is recomputed from scratch
+      smell = null;
+      for (int monsterCell = 0; monsterCell < doors.length; monsterCell++) {
+        if (hasLiveMonster(monsterCell)) {
+          spreadSmell(monsterCell, 1);
         }
       }
     }
   }
+
+  protected boolean isCave(int cellId) {
+    return doors[cellId] != 0 && Integer.bitCount(doors[cellId]) != 2;
+  }
+
+  protected boolean hasTreasure(int cellId) {
+    return (contents[cellId] & HAS_TREASURE) != 0;
+  }
+
+  protected void setTreasure(int cellId) {
+    if (isCave(cellId) && !hasTreasure(cellId)) {
+      initializeTreasure(cellId);
+    }
+  }
+
+  protected void initializeTreasure(int cellId) {
+    contents[cellId] |= HAS_TREASURE;
+    IntUnaryOperator nextInt = draws(Phase.TREASURE_AMOUNTS, cellId);
+    rubies[cellId] = (byte) (nextInt.applyAsInt(MAX_TREASURE_QUANTITY) + MIN_TREASURE_QUANTITY);
+    diamonds[cellId] = (byte) (nextInt.applyAsInt(MAX_TREASURE_QUANTITY) + MIN_TREASURE_QUANTITY);
+    sapphires[cellId] = (byte) (nextInt.applyAsInt(MAX_TREASURE_QUANTITY)
+            + MIN_TREASURE_QUANTITY);
+  }
+
+  protected void addArrow(int cellId) {
+    contents[cellId] |= HAS_TREASURE;
+    arrows[cellId]++;
+  }
+
+  protected int getTreasureCount(int cellId, TreasureType treasureType) {
+    switch (treasureType) {
+      case DIAMONDS:
+        return diamonds[cellId];
+      case RUBIES:
+        return rubies[cellId];
+      case SAPPHIRES:
+        return sapphires[cellId];
+      default:
+        return arrows[cellId];
+    }
+  }
+
+  protected void removeTreasure(int cellId, TreasureType treasureType) {
+    if (getTreasureCount(cellId, treasureType) <= 0) {
+      return;
+    }
+    switch (treasureType) {
+      case DIAMONDS:
+        diamonds[cellId]--;
+        break;
+      case RUBIES:
+        rubies[cellId]--;
+        break;
+      case SAPPHIRES:
+        sapphires[cellId]--;
+        break;
+      default:
+        arrows[cellId]--;
+    }
+  }
+
+  protected boolean containsMonster(int cellId) {
+    return (contents[cellId] & HAS_MONSTER) != 0;
+  }
+
+  protected void setMonster(int cellId) {
+    boolean wasAlive = hasLiveMonster(cellId);
+    contents[cellId] |= HAS_MONSTER;
+    monsterHealth[cellId] = GridMonster.MAX_HEALTH;
+    if (!wasAlive) {
+      spreadSmell(cellId, 1);
+    }
+  }
+
+  protected boolean hasLiveMonster(int cellId) {
+    return containsMonster(cellId) && monsterHealth[cellId] > 0;
+  }
+
+  protected int getMonsterHealth(int cellId) {
+    return monsterHealth[cellId];
+  }
+
+  protected void decrementMonsterHealth(int cellId) {
+    boolean wasAlive = hasLiveMonster(cellId);
+    monsterHealth[cellId] -= GridMonster.HEALTH_LOST_PER_HIT;
+    if (wasAlive && !hasLiveMonster(cellId)) {
+      spreadSmell(cellId, -1);
+    }
+  }
+
+  /**
+   * Get the number of living monsters at exactly the given distance from a location, from the
+   * smell field.
+   */
+  protected int getMonstersAway(ILocation location, int distance) {
+    return getMonstersAway(cellIdOf(location), distance);
+  }
+
+  /**
+   * Get the number of living monsters at exactly the given distance from a cell, from the smell
+   * field.
+   */
+  protected int getMonstersAway(int cellId, int distance) {
+    if (distance < 1 || distance > GameState.SMELL_RADIUS) {
+      throw new IllegalArgumentException("Distance must be between 1 and "
+              + GameState.SMELL_RADIUS);
+    }
+    if (smell == null) {
+      return 0;
+    }
+    return smell[distance - 1][cellId];
+  }
+
+  private void spreadSmell(int monsterCell, int change) {
+    //Distances are symmetric, so the cells a monster is d away from are the cells d away from it
+    if (smell == null) {
+      smell = new short[GameState.SMELL_RADIUS][doors.length];
+    }
+    GridTraversal traversal = getTraversal();
+    traversal.begin(monsterCell, GameState.SMELL_RADIUS);
+    for (int cellId = traversal.next(); cellId != -1; cellId = traversal.next()) {
+      int level = traversal.getLevel(cellId);
+      if (level > 0) {
+        smell[level - 1][cellId] += change;
+      }
+    }
+  }
 }
@@ -0,0 +1,213 @@
+package dungeon.model;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import dungeon.model.character.Character;
+import dungeon.model.directions.Direction;
+import dungeon.model.location.ILocation;
+import dungeon.model.treasure.ITreasure;
+import dungeon.model.treasure.TreasureType;
+
+/**
+ * A location in the dungeon backed by a cell of a {@link Grid}. It holds no state of its own, so
+ * any number of these can be created for the same cell and all of them see the same doors,
+ * treasure and monster.
+ *
+ * <p>A read-only location sees the cell as it changes but cannot change it: the methods that would
+ * throw {@link UnsupportedOperationException}, and its neighbours, treasure and monster are
+ * read-only as well.
+ */
+class GridLocation implements ILocation {
+
+  private final Grid grid;
+  private final int cellId;
+  private final boolean readOnly;
+
+  /**
+   * Constructor for a location view.
+   *
+   * @param grid   The grid the cell belongs to.
+   * @param cellId The id of the cell, row * number of columns + column.
+   */
+  GridLocation(Grid grid, int cellId) {
+    this(grid, cellId, false);
+  }
+
+  /**
+   * Constructor for a location view that may be read-only.
+   *
+   * @param grid     The grid the cell belongs to.
+   * @param cellId   The id of the cell, row * number of columns + column.
+   * @param readOnly Whether the view refuses to change the cell.
+   */
+  GridLocation(Grid grid, int cellId, boolean readOnly) {
+    this.grid = grid;
+    this.cellId = cellId;
+    this.readOnly = readOnly;
+  }
+
+  /**
+   * Get the id of the cell this location is a view of.
+   *
+   * @return the cell id.
+   */
+  int getCellId() {
+    return cellId;
+  }
+
+  @Override
+  public String getName() {
+    return toString();
+  }
+
+  @Override
+  public int getRowCoordinate() {
+    return cellId / grid.getNumCols();
+  }
+
+  @Override
+  public int getColCoordinate() {
+    return cellId % grid.getNumCols();
+  }
+
+  @Override
+  public Map<Direction, ILocation> getNeighbours() {
+    Map<Direction, ILocation> neighbours = new EnumMap<>(Direction.class);
+    for (Direction direction : Direction.values()) {
+      if (grid.hasDoor(cellId, direction)) {
+        neighbours.put(direction, new GridLocation(grid, grid.getAdjacentCell(cellId, direction),
+                readOnly));
+      }
+    }
+    return neighbours;
+  }
+
+  @Override
+  public boolean isCave() {
+    return grid.isCave(cellId);
+  }
+
+  @Override
+  public void joinLocationToNorthDirection(ILocation loc) {
+    joinLocation(Direction.NORTH, loc);
+  }
+
+  @Override
+  public void joinLocationToSouthDirection(ILocation loc) {
+    joinLocation(Direction.SOUTH, loc);
+  }
+
+  @Override
+  public void joinLocationToEastDirection(ILocation loc) {
+    joinLocation(Direction.EAST, loc);
+  }
+
+  @Override
+  public void joinLocationToWestDirection(ILocation loc) {
+    joinLocation(Direction.WEST, loc);
+  }
+
+  private void joinLocation(Direction direction, ILocation loc) {
+    checkWritable();
+    if (loc == null) {
+      throw new IllegalArgumentException("Location cannot be null");
+    }
+    if (grid.cellIdOf(loc) != grid.getAdjacentCell(cellId, direction)) {
+      throw new IllegalArgumentException("Location is not adjacent in the " + direction
+              + " direction");
+    }
+    grid.openDoor(cellId, direction);
+  }
+
+  @Override
+  public void setTreasure() {
+    checkWritable();
+    grid.setTreasure(cellId);
+  }
+
+  @Override
+  public void addArrow() {
+    checkWritable();
+    grid.addArrow(cellId);
+  }
+
+  @Override
+  public ITreasure removeTreasure(TreasureType type) {
+    checkWritable();
+    if (type == null) {
+      throw new IllegalArgumentException("Treasure type cannot be null");
+    }
+    if (!grid.hasTreasure(cellId)) {
+      return null;
+    }
+    grid.removeTreasure(cellId, type);
+    return getTreasure();
+  }
+
+  @Override
+  public ITreasure getTreasure() {
+    return grid.hasTreasure(cellId) ? new GridTreasure(grid, cellId, readOnly) : null;
+  }
+
+  @Override
+  public Character getMonster() {
+    return grid.containsMonster(cellId) ? new GridMonster(grid, cellId, readOnly) : null;
+  }
+
+  @Override
+  public void setMonster() {
+    checkWritable();
+    grid.setMonster(cellId);
+  }
+
+  @Override
+  public boolean hasMonster() {
+    return grid.hasLiveMonster(cellId);
+  }
+
+  @Override
+  public int compareTo(ILocation o) {
+    return this.toString().compareTo(o.toString());
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == null) {
+      return false;
+    }
+    if (!(obj instanceof ILocation)) {
+      return false;
+    }
+    //By coordinates only, not by grid, as ILocation says: a Location at the same place is equal
+    //too, so the grid could not be compared without breaking symmetry
+    final ILocation other = (ILocation) obj;
+    return getRowCoordinate() == other.getRowCoordinate()
+            && getColCoordinate() == other.getColCoordinate();
+  }
+
+  @Override
+  public int hashCode() {
+    //Same as Location, since a view and a copy of the same cell are equal
+    int hash = 3;
+    hash = 53 * hash + (31 * (31 + getRowCoordinate()) + getColCoordinate());
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("(%d, %d)", getRowCoordinate(), getColCoordinate());
+  }
+
+  @Override
+  public String printLocationInfo() {
+    return String.format("(%d, %d), monster: %s, treasure: %s, neighbours: %s",
+            getRowCoordinate(), getColCoordinate(), getMonster(), getTreasure(), getNeighbours());
+  }
+
+  private void checkWritable() {
+    if (readOnly) {
+      throw new UnsupportedOperationException("The location is read-only");
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package dungeon.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import dungeon.model.character.Character;
+import dungeon.model.directions.Direction;
+import dungeon.model.location.ILocation;
+import dungeon.model.treasure.TreasureType;
+
+/**
+ * The monster in a cell of a {@link Grid}. Its health lives in the grid; this is only a view of
+ * it.
+ */
+class GridMonster implements Character {
+
+  static final short MAX_HEALTH = 100;
+  static final short HEALTH_LOST_PER_HIT = 50;
+  private final Grid grid;
+  private final int cellId;
+  private final boolean readOnly;
+
+  /**
+   * Constructor for a monster view.
+   *
+   * @param grid   The grid the cell belongs to.
+   * @param cellId The id of the cell the monster is in.
+   */
+  GridMonster(Grid grid, int cellId) {
+    this(grid, cellId, false);
+  }
+
+  /**
+   * Constructor for a monster view that may be read-only.
+   *
+   * @param grid     The grid the cell belongs to.
+   * @param cellId   The id of the cell the monster is in.
+   * @param readOnly Whether the view refuses to change the monster.
+   */
+  GridMonster(Grid grid, int cellId, boolean readOnly) {
+    this.grid = grid;
+    this.cellId = cellId;
+    this.readOnly = readOnly;
+  }
+
+  @Override
+  public String getName() {
+    return "Otyugh";
+  }
+
+  @Override
+  public void pickTreasureFromCurrentLocation(TreasureType treasureType) {
+    //A monsters cannot pick up treasure
+  }
+
+  @Override
+  public Map<TreasureType, Integer> getTreasures() {
+    return null;
+  }
+
+  @Override
+  public void setCurrentLocation(ILocation location) {
+    //A monster never leaves its cell
+  }
+
+  @Override
+  public ILocation getCurrentLocation() {
+    return new GridLocation(grid, cellId, readOnly);
+  }
+
+  @Override
+  public List<ILocation> getLocationVisited() {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public String printTravelStatus() {
+    return "";
+  }
+
+  @Override
+  public int getHealth() {
+    return grid.getMonsterHealth(cellId);
+  }
+
+  @Override
+  public void decrementHealth() {
+    checkWritable();
+    grid.decrementMonsterHealth(cellId);
+  }
+
+  @Override
+  public boolean isAlive() {
+    return getHealth() > 0;
+  }
+
+  @Override
+  public void shootArrow(Direction direction, int distance) {
+    //A monster cannot shoot arrows
+  }
+
+  @Override
+  public String toString() {
+    return getName() + " with health " + getHealth();
+  }
+
+  private void checkWritable() {
+    if (readOnly) {
+      throw new UnsupportedOperationException("The monster is read-only");
+    }
+  }
+}
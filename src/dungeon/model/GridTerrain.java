@@ -0,0 +1,42 @@
+package dungeon.model;
+
+import dungeon.model.arrow.IArrowTerrain;
+import dungeon.model.directions.Direction;
+
+/**
+ * The cells of a {@link Grid} as the terrain of its arrows, numbered by cell id. It reads the grid
+ * as it is, so it never needs rebuilding.
+ */
+final class GridTerrain implements IArrowTerrain {
+
+  private final Grid grid;
+
+  /**
+   * Constructor for the terrain of a grid.
+   *
+   * @param grid the grid
+   */
+  GridTerrain(Grid grid) {
+    this.grid = grid;
+  }
+
+  @Override
+  public boolean isCave(int location) {
+    return grid.isCave(location);
+  }
+
+  @Override
+  public int getNeighbour(int location, Direction direction) {
+    return grid.hasDoor(location, direction) ? grid.getAdjacentCell(location, direction) : -1;
+  }
+
+  @Override
+  public boolean hasLiveMonster(int location) {
+    return grid.hasLiveMonster(location);
+  }
+
+  @Override
+  public void hitMonster(int location) {
+    grid.decrementMonsterHealth(location);
+  }
+}
@@ -0,0 +1,129 @@
+package dungeon.model;
+
+import java.util.Arrays;
+
+import dungeon.model.directions.Direction;
+
+/**
+ * A reusable breadth first search over the cells of a {@link Grid}. The queue, the visited marks
+ * and the levels are int arrays sized to the grid and allocated once, so a search does not create
+ * any garbage. Starting a new search bumps the epoch instead of clearing the visited marks: a cell
+ * is visited only when its mark equals the current epoch.
+ *
+ * <p>A search is run by calling {@link #begin(int, int)} and then {@link #next()} until it returns
+ * -1. Cells come out in breadth first order, each exactly once, with neighbours discovered in the
+ * order of {@link Direction}. Only one search can be in progress at a time.
+ */
+class GridTraversal {
+
+  //Direction.values() returns a new array on every call
+  private static final Direction[] DIRECTIONS = Direction.values();
+  private final Grid grid;
+  private final int[] queue;
+  private final int[] visitedEpoch;
+  private final int[] level;
+  private int epoch;
+  private int head;
+  private int size;
+  private int maxLevel;
+  private int closedCell;
+
+  /**
+   * Constructor for the traversal workspace of a grid.
+   *
+   * @param grid The grid to search.
+   */
+  GridTraversal(Grid grid) {
+    if (grid == null) {
+      throw new IllegalArgumentException("Grid cannot be null");
+    }
+    int numCells = grid.getNumRows() * grid.getNumCols();
+    this.grid = grid;
+    this.queue = new int[numCells];
+    this.visitedEpoch = new int[numCells];
+    this.level = new int[numCells];
+    this.epoch = 0;
+  }
+
+  /**
+   * Start a new search from the given cell. Cells further than the given level are not visited.
+   *
+   * @param startCell The cell to start from, which is returned first at level 0.
+   * @param maxLevel  The furthest level to visit.
+   */
+  void begin(int startCell, int maxLevel) {
+    begin(startCell, maxLevel, -1);
+  }
+
+  /**
+   * Start a new search from the given cell that does not go through the closed cell. The closed
+   * cell is still returned when it is reached, but the cells only reachable through it are not.
+   *
+   * @param startCell  The cell to start from, which is returned first at level 0.
+   * @param maxLevel   The furthest level to visit.
+   * @param closedCell The cell not to go through, or -1 to go through every cell.
+   */
+  void begin(int startCell, int maxLevel, int closedCell) {
+    if (maxLevel < 0) {
+      throw new IllegalArgumentException("Maximum level cannot be negative");
+    }
+    if (epoch == Integer.MAX_VALUE) {
+      //Only happens after billions of searches, start the marks over
+      Arrays.fill(visitedEpoch, 0);
+      epoch = 0;
+    }
+    epoch++;
+    head = 0;
+    size = 0;
+    this.maxLevel = maxLevel;
+    this.closedCell = closedCell;
+    enqueue(startCell, 0);
+  }
+
+  /**
+   * Get the next cell of the search and queue its unvisited neighbours.
+   *
+   * @return the next cell, or -1 when every reachable cell up to the maximum level was returned.
+   */
+  int next() {
+    if (size == 0) {
+      return -1;
+    }
+    int cellId = queue[head];
+    head = (head + 1) % queue.length;
+    size--;
+
+    int nextLevel = level[cellId] + 1;
+    if (nextLevel <= maxLevel && cellId != closedCell) {
+      for (Direction direction : DIRECTIONS) {
+        if (grid.hasDoor(cellId, direction)) {
+          int neighbour = grid.getAdjacentCell(cellId, direction);
+          if (visitedEpoch[neighbour] != epoch) {
+            enqueue(neighbour, nextLevel);
+          }
+        }
+      }
+    }
+    return cellId;
+  }
+
+  /**
+   * Get the level at which a cell was reached in the current search, its distance from the start.
+   *
+   * @param cellId A cell returned by {@link #next()} since the last {@link #begin(int, int)}.
+   * @return the level of the cell.
+   */
+  int getLevel(int cellId) {
+    if (visitedEpoch[cellId] != epoch) {
+      throw new IllegalStateException("Cell was not reached by the current search");
+    }
+    return level[cellId];
+  }
+
+  private void enqueue(int cellId, int cellLevel) {
+    visitedEpoch[cellId] = epoch;
+    level[cellId] = cellLevel;
+    queue[(head + size) % queue.length] = cellId;
+    size++;
+  }
+}
@@ -0,0 +1,86 @@
+package dungeon.model;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import dungeon.model.treasure.ITreasure;
+import dungeon.model.treasure.TreasureType;
+
+/**
+ * The treasure in a cell of a {@link Grid}. The counts live in the grid; this is only a view of
+ * them.
+ */
+class GridTreasure implements ITreasure {
+
+  private final Grid grid;
+  private final int cellId;
+  private final boolean readOnly;
+
+  /**
+   * Constructor for a treasure view.
+   *
+   * @param grid   The grid the cell belongs to.
+   * @param cellId The id of the cell holding the treasure.
+   */
+  GridTreasure(Grid grid, int cellId) {
+    this(grid, cellId, false);
+  }
+
+  /**
+   * Constructor for a treasure view that may be read-only.
+   *
+   * @param grid     The grid the cell belongs to.
+   * @param cellId   The id of the cell holding the treasure.
+   * @param readOnly Whether the view refuses to change the treasure.
+   */
+  GridTreasure(Grid grid, int cellId, boolean readOnly) {
+    this.grid = grid;
+    this.cellId = cellId;
+    this.readOnly = readOnly;
+  }
+
+  @Override
+  public void initializeTreasure() {
+    checkWritable();
+    grid.initializeTreasure(cellId);
+  }
+
+  @Override
+  public void addArrow() {
+    checkWritable();
+    grid.addArrow(cellId);
+  }
+
+  @Override
+  public void removeTreasure(TreasureType treasureType) {
+    checkWritable();
+    grid.removeTreasure(cellId, treasureType);
+  }
+
+  @Override
+  public Map<TreasureType, Integer> getTreasure() {
+    Map<TreasureType, Integer> treasury = new EnumMap<>(TreasureType.class);
+    for (TreasureType treasureType : TreasureType.values()) {
+      int count = grid.getTreasureCount(cellId, treasureType);
+      if (count > 0) {
+        treasury.put(treasureType, count);
+      }
+    }
+    return treasury;
+  }
+
+  @Override
+  public String toString() {
+    Map<TreasureType, Integer> treasury = getTreasure();
+    return treasury.keySet().stream()
+            .map(key -> treasury.get(key) + " " + key)
+            .collect(Collectors.joining(", "));
+  }
+
+  private void checkWritable() {
+    if (readOnly) {
+      throw new UnsupportedOperationException("The treasure is read-only");
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package dungeon.model;
+
+import dungeon.model.location.ILocation;
+
+/**
+ * The read-only view of a {@link Grid}, handing out read-only {@link GridLocation}s.
+ */
+class GridView implements IDungeonView {
+
+  private final Grid grid;
+
+  /**
+   * Constructor for a grid view.
+   *
+   * @param grid The grid to view.
+   */
+  GridView(Grid grid) {
+    if (grid == null) {
+      throw new IllegalArgumentException("Grid cannot be null");
+    }
+    this.grid = grid;
+  }
+
+  @Override
+  public int getNumRows() {
+    return grid.getNumRows();
+  }
+
+  @Override
+  public int getNumCols() {
+    return grid.getNumCols();
+  }
+
+  @Override
+  public ILocation getLocation(int row, int col) {
+    if (row < 0 || row >= grid.getNumRows() || col < 0 || col >= grid.getNumCols()) {
+      throw new IllegalArgumentException("Location is outside the dungeon");
+    }
+    return getLocation(row * grid.getNumCols() + col);
+  }
+
+  @Override
+  public ILocation getStartLocation() {
+    return getLocation(grid.getStartCellId());
+  }
+
+  @Override
+  public ILocation getEndLocation() {
+    return getLocation(grid.getEndCellId());
+  }
+
+  /**
+   * Get the read-only location of a cell.
+   *
+   * @param cellId The id of the cell.
+   * @return the read-only location.
+   */
+  ILocation getLocation(int cellId) {
+    return new GridLocation(grid, cellId, true);
+  }
+}
@@ -0,0 +1,107 @@
+package dungeon.model;
+
+import dungeon.model.directions.Direction;
+import dungeon.model.treasure.TreasureType;
+
+/**
+ * The game state by cell id, for callers that look at the dungeon on every turn, such as bots,
+ * renderers and the server. A cell id is row * number of columns + column, the same for the life
+ * of the game, so ids can be compared, hashed and stored as plain ints. None of these methods
+ * creates a location, a map or a list.
+ */
+public interface ICellGameState extends IGameState {
+
+  /**
+   * Get the number of rows of the dungeon.
+   *
+   * @return the number of rows.
+   */
+  int getNumRows();
+
+  /**
+   * Get the number of columns of the dungeon.
+   *
+   * @return the number of columns.
+   */
+  int getNumCols();
+
+  /**
+   * Get the cell the player started in.
+   *
+   * @return the cell id of the start.
+   */
+  int getStartCell();
+
+  /**
+   * Get the cell the player has to reach.
+   *
+   * @return the cell id of the end.
+   */
+  int getEndCell();
+
+  /**
+   * Get the cell the player is in.
+   *
+   * @return the cell id of the player.
+   */
+  int getCurrentCell();
+
+  /**
+   * Get the doors of a cell.
+   *
+   * @param cellId the cell id.
+   * @return the door mask, with the bit 1 &lt;&lt; direction.ordinal() set for every door.
+   */
+  int getDoorMask(int cellId);
+
+  /**
+   * Get the cell through a door.
+   *
+   * @param cellId    the cell id.
+   * @param direction the door.
+   * @return the cell id through the door, or -1 if there is no door that way.
+   */
+  int getNeighbourCell(int cellId, Direction direction);
+
+  /**
+   * Tell whether a cell is a cave, with one, three or four doors, or a tunnel.
+   *
+   * @param cellId the cell id.
+   * @return true if it is a cave.
+   */
+  boolean isCave(int cellId);
+
+  /**
+   * Get the number of pieces of a treasure in a cell, arrows included.
+   *
+   * @param cellId       the cell id.
+   * @param treasureType the treasure.
+   * @return the number of pieces.
+   */
+  int getTreasureCount(int cellId, TreasureType treasureType);
+
+  /**
+   * Get the health of the monster of a cell.
+   *
+   * @param cellId the cell id.
+   * @return its health, 0 if it is dead or there is none.
+   */
+  int getMonsterHealth(int cellId);
+
+  /**
+   * Move the player through a door, as {@link #movePlayer(Direction)} does.
+   *
+   * @param direction the door.
+   * @return the cell id the player is in now.
+   */
+  int movePlayerToCell(Direction direction);
+
+  /**
+   * Find where an arrow shot now would land, as {@link #getArrowLanding(Direction, int)} does.
+   *
+   * @param direction the direction to shoot.
+   * @param distance  the distance to shoot (number of caves).
+   * @return the cell id the arrow would land in, or -1 if it would stop before.
+   */
+  int getArrowLandingCell(Direction direction, int distance);
+}
@@ -0,0 +1,49 @@
+package dungeon.model;
+
+import dungeon.model.location.ILocation;
+
+/**
+ * A read-only view of the dungeon of a game. The locations it hands out are views over the
+ * dungeon itself rather than copies, so they always show its current state and cost next to
+ * nothing to get, but every method that would change the dungeon throws
+ * {@link UnsupportedOperationException}.
+ */
+public interface IDungeonView {
+
+  /**
+   * Get the number of rows of the dungeon.
+   *
+   * @return the number of rows.
+   */
+  int getNumRows();
+
+  /**
+   * Get the number of columns of the dungeon.
+   *
+   * @return the number of columns.
+   */
+  int getNumCols();
+
+  /**
+   * Get a location of the dungeon.
+   *
+   * @param row the row of the location.
+   * @param col the column of the location.
+   * @return the read-only location.
+   */
+  ILocation getLocation(int row, int col);
+
+  /**
+   * Get the location the player starts in.
+   *
+   * @return the read-only start location.
+   */
+  ILocation getStartLocation();
+
+  /**
+   * Get the location the player has to reach.
+   *
+   * @return the read-only end location.
+   */
+  ILocation getEndLocation();
+}
@@ -2,6 +2,8 @@ package dungeon.model;
 
 import java.util.List;
 
+import dungeon.model.arrow.Arrows;
+import dungeon.model.arrow.IArrowBehaviour;
 import dungeon.model.character.Character;
 import dungeon.model.directions.Direction;
 import dungeon.model.location.ILocation;
@@ -20,21 +22,21 @@ public interface IGameState {
   Character getPlayer();
 
   /**
-   * Get the start location of the player.
+   * Get the start location of the player, as a read-only view of the dungeon.
    *
    * @return the start location of the player.
    */
   ILocation getPlayerStartLocation();
 
   /**
-   * Get the end location of the player.
+   * Get the end location of the player, as a read-only view of the dungeon.
    *
    * @return the end location of the player.
    */
   ILocation getPlayerEndLocation();
 
   /**
-   * Get the player's current location.
+   * Get the player's current location, as a read-only view of the dungeon.
    * @return the player's current location.
    */
   ILocation getPlayerCurrentLocation();
@@ -75,12 +77,38 @@ public interface IGameState {
   void shootArrow(Direction direction, int distance);
 
   /**
-   * Get the copy of the game dungeon.
+   * Shoot an arrow that behaves in its own way, such as one of the variants in {@link Arrows}.
+   * @param direction the direction to shoot.
+   * @param distance the distance to shoot (number of caves).
+   * @param behaviour what the arrow does in the caves it flies through.
+   */
+  void shootArrow(Direction direction, int distance, IArrowBehaviour behaviour);
+
+  /**
+   * Find where an arrow shot now would land, without shooting it. It is cheap enough to try
+   * every shot before choosing one.
+   * @param direction the direction to shoot.
+   * @param distance the distance to shoot (number of caves).
+   * @return the cave the arrow would land in, or null if it would stop before.
+   */
+  ILocation getArrowLanding(Direction direction, int distance);
+
+  /**
+   * Get the copy of the game dungeon. Every call copies every location; use
+   * {@link #getDungeonView()} to look at the dungeon without copying it.
    *
    * @return the copy of the game dungeon.
    */
   ILocation[][] getDungeon();
 
+  /**
+   * Get a read-only view of the game dungeon. It is not a copy, so it shows every change made as
+   * the game goes on.
+   *
+   * @return the view of the game dungeon.
+   */
+  IDungeonView getDungeonView();
+
   /**
    * Get if the game is over or not.
    *
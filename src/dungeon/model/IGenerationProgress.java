@@ -0,0 +1,23 @@
+package dungeon.model;
+
+/**
+ * Follows the generation of a dungeon. It is told about every phase when it starts and when it
+ * ends, and regularly in between for the phases that take long on big dungeons, always on the
+ * thread generating the dungeon.
+ *
+ * <p>Throwing from {@link #report(GenerationPhase, long, long)} stops the generation: the
+ * exception is thrown out of the constructor generating the dungeon. This is how a generation is
+ * cancelled.
+ */
+@FunctionalInterface
+public interface IGenerationProgress {
+
+  /**
+   * Report how far a phase is.
+   *
+   * @param phase the phase.
+   * @param done  the steps of the phase done so far.
+   * @param total the steps of the phase, which does not change while the phase runs.
+   */
+  void report(GenerationPhase phase, long done, long total);
+}
@@ -0,0 +1,20 @@
+package dungeon.model;
+
+/**
+ * How likely a location is to get treasure, arrows or a monster when a dungeon is generated from
+ * a seed, from how far it is from the start. The chance of a location is its weight divided by
+ * the weights of all the locations the thing can go in. A location of weight 0 never gets it.
+ *
+ * <p>{@link Placement} has the distributions most dungeons need.
+ */
+@FunctionalInterface
+public interface IPlacementDistribution {
+
+  /**
+   * Get the weight of a location.
+   *
+   * @param distance the number of moves from the start to the location.
+   * @return the weight of the location, finite and not negative.
+   */
+  double weight(int distance);
+}
@@ -0,0 +1,217 @@
+package dungeon.model;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import dungeon.model.directions.Direction;
+
+/**
+ * The graph searches behind {@link MonsterPlacement#SPREAD} and
+ * {@link MonsterPlacement#CHOKEPOINTS}. Both run over the doors of a {@link Grid} with int arrays
+ * sized to it, and neither recurses, so they are safe on the largest dungeons.
+ */
+final class MonsterLayout {
+
+  //Direction.values() returns a new array on every call
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private final Grid grid;
+  private final int numRows;
+  private final int numCols;
+  private final int numCells;
+  private final int[] distance;
+  private final int[] queue;
+
+  /**
+   * Constructor for the searches over a grid.
+   *
+   * @param grid the grid, with its doors in place
+   */
+  MonsterLayout(Grid grid) {
+    this.grid = grid;
+    this.numRows = grid.getNumRows();
+    this.numCols = grid.getNumCols();
+    this.numCells = numRows * numCols;
+    this.distance = new int[numCells];
+    this.queue = new int[numCells];
+  }
+
+  /**
+   * Choose caves far from the sources and from each other, by farthest-point dispersion. The
+   * distance of every cell to the closest source or chosen cave is kept up to date by a search
+   * from every chosen cave that stops where another one is as close, and the candidates are kept
+   * in buckets by distance, moved down only when found in a bucket higher than their distance.
+   *
+   * @param candidates the caves that can be chosen, in no particular order
+   * @param count      the number of caves to choose, at most the number of candidates
+   * @param sources    the cells to keep away from, at least one
+   * @param random     breaks the ties between caves as far from everything
+   * @return the caves chosen, furthest first
+   */
+  int[] spread(int[] candidates, int count, int[] sources, SplittableRandom random) {
+    if (count > candidates.length || sources.length == 0) {
+      throw new IllegalArgumentException("Cannot choose " + count + " of " + candidates.length
+              + " caves");
+    }
+    int[] chosen = new int[count];
+    if (count == 0) {
+      return chosen;
+    }
+    Arrays.fill(distance, Integer.MAX_VALUE);
+    int head = 0;
+    int tail = 0;
+    for (int source : sources) {
+      if (distance[source] != 0) {
+        distance[source] = 0;
+        queue[tail++] = source;
+      }
+    }
+    int maxDistance = relax(head, tail);
+
+    //Candidates in random order, so a bucket gives its ties out at random
+    int[] order = candidates.clone();
+    Sampling.partialShuffle(order, order.length, order.length, random);
+    int[] bucketHead = new int[maxDistance + 1];
+    Arrays.fill(bucketHead, -1);
+    int[] nextInBucket = new int[numCells];
+    for (int i = order.length - 1; i >= 0; i--) {
+      int cave = order[i];
+      nextInBucket[cave] = bucketHead[distance[cave]];
+      bucketHead[distance[cave]] = cave;
+    }
+
+    int bucket = maxDistance;
+    int placed = 0;
+    while (placed < count) {
+      while (bucketHead[bucket] == -1) {
+        bucket--;
+      }
+      int cave = bucketHead[bucket];
+      bucketHead[bucket] = nextInBucket[cave];
+      if (distance[cave] == 0) {
+        //Already chosen, or a source
+        continue;
+      }
+      if (distance[cave] < bucket) {
+        //Closer to a cave chosen since it was put there
+        nextInBucket[cave] = bucketHead[distance[cave]];
+        bucketHead[distance[cave]] = cave;
+        continue;
+      }
+      chosen[placed++] = cave;
+      distance[cave] = 0;
+      queue[0] = cave;
+      relax(0, 1);
+    }
+    return chosen;
+  }
+
+  /**
+   * Lower the distances from the cells in the queue, which are already set, visiting only the
+   * cells the queue is closer to than anything before.
+   *
+   * @return the largest distance set
+   */
+  private int relax(int head, int tail) {
+    int maxDistance = 0;
+    while (head < tail) {
+      int cellId = queue[head++];
+      int next = distance[cellId] + 1;
+      maxDistance = Math.max(maxDistance, next - 1);
+      int doors = grid.getDoors(cellId);
+      int row = cellId / numCols;
+      int col = cellId - row * numCols;
+      for (int ordinal = 0; doors != 0; ordinal++, doors >>>= 1) {
+        if ((doors & 1) != 0) {
+          int neighbour = adjacentCell(row, col, DIRECTIONS[ordinal]);
+          if (next < distance[neighbour]) {
+            distance[neighbour] = next;
+            queue[tail++] = neighbour;
+          }
+        }
+      }
+    }
+    return maxDistance;
+  }
+
+  /**
+   * The cell through a door, as {@link Grid#getAdjacentCell(int, Direction)} but without dividing,
+   * since the searches here do it for every door they go through.
+   */
+  private int adjacentCell(int row, int col, Direction direction) {
+    switch (direction) {
+      case NORTH:
+        return (row == 0 ? numRows - 1 : row - 1) * numCols + col;
+      case SOUTH:
+        return (row == numRows - 1 ? 0 : row + 1) * numCols + col;
+      case EAST:
+        return row * numCols + (col == numCols - 1 ? 0 : col + 1);
+      default:
+        return row * numCols + (col == 0 ? numCols - 1 : col - 1);
+    }
+  }
+
+  /**
+   * Find the caves every path from the start to the end goes through, by one depth first search
+   * from the start computing Tarjan's low links. A cell on the tree path to the end separates the
+   * end from the start when its child on that path cannot reach above it without it.
+   *
+   * @param start the start cell
+   * @param end   the end cell
+   * @return the caves between the start and the end that cannot be avoided, from the end back to
+   *         the start, neither of them included
+   */
+  int[] chokepoints(int start, int end) {
+    //discovery is 1 + the order of discovery, 0 for cells not found yet
+    int[] discovery = distance;
+    Arrays.fill(discovery, 0);
+    int[] low = new int[numCells];
+    int[] parent = new int[numCells];
+    byte[] nextDirection = new byte[numCells];
+    //The depth first search stack
+    int[] stack = queue;
+    int size = 0;
+    int time = 0;
+
+    discovery[start] = ++time;
+    low[start] = time;
+    parent[start] = -1;
+    stack[size++] = start;
+    while (size > 0) {
+      int cellId = stack[size - 1];
+      if (nextDirection[cellId] < DIRECTIONS.length) {
+        Direction direction = DIRECTIONS[nextDirection[cellId]++];
+        if (!grid.hasDoor(cellId, direction)) {
+          continue;
+        }
+        int neighbour = grid.getAdjacentCell(cellId, direction);
+        if (discovery[neighbour] == 0) {
+          discovery[neighbour] = ++time;
+          low[neighbour] = time;
+          parent[neighbour] = cellId;
+          stack[size++] = neighbour;
+        } else if (neighbour != parent[cellId]) {
+          low[cellId] = Math.min(low[cellId], discovery[neighbour]);
+        }
+      } else {
+        size--;
+        if (parent[cellId] != -1) {
+          low[parent[cellId]] = Math.min(low[parent[cellId]], low[cellId]);
+        }
+      }
+    }
+
+    int count = 0;
+    int[] found = new int[16];
+    for (int child = end; parent[child] != -1 && parent[child] != start; child = parent[child]) {
+      int cellId = parent[child];
+      if (low[child] >= discovery[cellId] && grid.isCave(cellId)) {
+        if (count == found.length) {
+          found = Arrays.copyOf(found, 2 * count);
+        }
+        found[count++] = cellId;
+      }
+    }
+    return Arrays.copyOf(found, count);
+  }
+}
@@ -0,0 +1,28 @@
+package dungeon.model;
+
+/**
+ * How the monsters of a dungeon generated from a seed are spread over its caves, apart from the
+ * one always in the end cave. The start cave never gets a monster, whatever the strategy.
+ */
+public enum MonsterPlacement {
+
+  /**
+   * Every monster is drawn on its own from the monster distribution of the {@link Placement}, so
+   * monsters can cluster or leave whole regions empty.
+   */
+  DRAWN,
+
+  /**
+   * Farthest-point dispersion: every monster goes in the cave furthest, in moves, from the start
+   * and from every monster placed before it, ties going to a random one of them. The distances
+   * are kept in one field, updated from every new monster only where it is the closest.
+   */
+  SPREAD,
+
+  /**
+   * The monsters first go in the caves the player cannot go around on the way from the start to
+   * the end, spread evenly along the way, then anywhere as with {@link #SPREAD}. Those caves are
+   * found in one pass of Tarjan's articulation point search.
+   */
+  CHOKEPOINTS
+}
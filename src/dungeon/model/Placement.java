@@ -0,0 +1,153 @@
+package dungeon.model;
+
+/**
+ * Where the treasure, arrows and monsters of a dungeon generated from a seed go: one
+ * {@link IPlacementDistribution} for each of them, and how the monsters are spread. The monster
+ * in the end cave and the empty start cave do not depend on it.
+ *
+ * <p>Uniform placement draws only as many times as there are things to place. Any other
+ * distribution first finds how far every location is from the start, then draws the treasure and
+ * monsters in one pass over the caves and every arrow from an alias table, so placement never
+ * takes more than a few passes over the dungeon however many things are placed.
+ */
+public final class Placement {
+
+  /**
+   * Every location is as likely as any other.
+   */
+  public static final IPlacementDistribution UNIFORM = distance -> 1;
+
+  /**
+   * Everything placed uniformly, as dungeons are by default.
+   */
+  public static final Placement DEFAULT = new Placement(UNIFORM, UNIFORM, UNIFORM);
+
+  private final IPlacementDistribution treasure;
+  private final IPlacementDistribution arrows;
+  private final IPlacementDistribution monsters;
+  private final MonsterPlacement monsterPlacement;
+
+  /**
+   * Constructor for a placement drawing every monster from its distribution.
+   *
+   * @param treasure the distribution of the caves with treasure.
+   * @param arrows   the distribution of the arrows, over every location.
+   * @param monsters the distribution of the monsters other than the one in the end cave.
+   */
+  public Placement(IPlacementDistribution treasure, IPlacementDistribution arrows,
+                   IPlacementDistribution monsters) {
+    this(treasure, arrows, monsters, MonsterPlacement.DRAWN);
+  }
+
+  /**
+   * Constructor for a placement with treasure and arrows drawn from their distributions and the
+   * monsters placed by a strategy.
+   *
+   * @param treasure         the distribution of the caves with treasure.
+   * @param arrows           the distribution of the arrows, over every location.
+   * @param monsterPlacement how the monsters are spread.
+   */
+  public Placement(IPlacementDistribution treasure, IPlacementDistribution arrows,
+                   MonsterPlacement monsterPlacement) {
+    this(treasure, arrows, UNIFORM, monsterPlacement);
+  }
+
+  private Placement(IPlacementDistribution treasure, IPlacementDistribution arrows,
+                    IPlacementDistribution monsters, MonsterPlacement monsterPlacement) {
+    if (treasure == null || arrows == null || monsters == null) {
+      throw new IllegalArgumentException("Distributions cannot be null");
+    }
+    if (monsterPlacement == null) {
+      throw new IllegalArgumentException("Monster placement cannot be null");
+    }
+    this.treasure = treasure;
+    this.arrows = arrows;
+    this.monsters = monsters;
+    this.monsterPlacement = monsterPlacement;
+  }
+
+  /**
+   * A distribution weighting a location by a power of its distance from the start: (distance +
+   * 1) to the exponent. A positive exponent favours the locations far from the start, and a
+   * negative one those close to it.
+   *
+   * @param exponent the exponent.
+   * @return the distribution.
+   */
+  public static IPlacementDistribution byDistance(double exponent) {
+    if (Double.isNaN(exponent) || Double.isInfinite(exponent)) {
+      throw new IllegalArgumentException("Exponent must be finite");
+    }
+    return distance -> Math.pow(distance + 1, exponent);
+  }
+
+  /**
+   * A distribution given as a loot table: the weight of the locations at every distance from the
+   * start, the last weight going to every location further away.
+   *
+   * @param weights the weight of the locations at distance 0, 1, 2 and so on.
+   * @return the distribution.
+   */
+  public static IPlacementDistribution lootTable(double... weights) {
+    if (weights == null || weights.length == 0) {
+      throw new IllegalArgumentException("Loot table cannot be empty");
+    }
+    double[] table = weights.clone();
+    boolean positive = false;
+    for (double weight : table) {
+      if (!(weight >= 0) || Double.isInfinite(weight)) {
+        throw new IllegalArgumentException("Weights must be finite and not negative");
+      }
+      positive |= weight > 0;
+    }
+    if (!positive) {
+      throw new IllegalArgumentException("At least one weight must be positive");
+    }
+    return distance -> table[Math.min(distance, table.length - 1)];
+  }
+
+  /**
+   * Get the distribution of the caves with treasure.
+   *
+   * @return the distribution.
+   */
+  public IPlacementDistribution getTreasure() {
+    return treasure;
+  }
+
+  /**
+   * Get the distribution of the arrows.
+   *
+   * @return the distribution.
+   */
+  public IPlacementDistribution getArrows() {
+    return arrows;
+  }
+
+  /**
+   * Get the distribution of the monsters, only used when they are {@link MonsterPlacement#DRAWN}.
+   *
+   * @return the distribution.
+   */
+  public IPlacementDistribution getMonsters() {
+    return monsters;
+  }
+
+  /**
+   * Get how the monsters are spread.
+   *
+   * @return the strategy placing the monsters.
+   */
+  public MonsterPlacement getMonsterPlacement() {
+    return monsterPlacement;
+  }
+
+  /**
+   * Tell whether every distribution is {@link #UNIFORM}, so distances are not needed.
+   *
+   * @return true if everything is placed uniformly.
+   */
+  boolean isUniform() {
+    return treasure == UNIFORM && arrows == UNIFORM && monsters == UNIFORM;
+  }
+}
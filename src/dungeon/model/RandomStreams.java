@@ -0,0 +1,90 @@
+package dungeon.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * A tree of random number streams derived from one seed, for generating a dungeon. Every phase of
+ * the generation has a stream of its own, and so does every location within a phase, so what a
+ * phase draws does not depend on what the other phases drew before it nor on the order the
+ * locations are visited in.
+ *
+ * <p>Nothing is shared between two dungeons, not even between two generated from the same seed,
+ * so a dungeon is the same whether it is generated alone or at the same time as many others on a
+ * thread pool.
+ */
+public final class RandomStreams {
+
+  /**
+   * The phases of generating a dungeon. The stream of a phase is derived from its position here,
+   * so new phases go at the end.
+   */
+  public enum Phase {
+    PATHS, INTERCONNECTIVITY, TREASURE, TREASURE_AMOUNTS, ARROWS, START, MONSTERS, GAME
+  }
+
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  private final long seed;
+
+  /**
+   * Constructor for the streams of a dungeon.
+   *
+   * @param seed the seed of the dungeon.
+   */
+  public RandomStreams(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Get the seed the streams are derived from.
+   *
+   * @return the seed of the dungeon.
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Get the seed of the stream of a phase.
+   *
+   * @param phase the phase.
+   * @return the seed of its stream.
+   */
+  public long seed(Phase phase) {
+    if (phase == null) {
+      throw new IllegalArgumentException("Phase cannot be null");
+    }
+    return mix(seed + (phase.ordinal() + 1) * GOLDEN_GAMMA);
+  }
+
+  /**
+   * Get a new stream for a phase. Every call starts the stream over.
+   *
+   * @param phase the phase.
+   * @return the stream of the phase.
+   */
+  public SplittableRandom stream(Phase phase) {
+    return new SplittableRandom(seed(phase));
+  }
+
+  /**
+   * Get a new stream for one location in a phase. Every call starts the stream over.
+   *
+   * @param phase  the phase.
+   * @param cellId the cell id of the location, {@code row * columns + column}.
+   * @return the stream of the location in the phase.
+   */
+  public SplittableRandom stream(Phase phase, int cellId) {
+    if (cellId < 0) {
+      throw new IllegalArgumentException("Cell id cannot be negative");
+    }
+    return new SplittableRandom(mix(seed(phase) + (cellId + 1L) * GOLDEN_GAMMA));
+  }
+
+  private static long mix(long z) {
+    //The finalizer of SplitMix64
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
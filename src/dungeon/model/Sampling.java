@@ -0,0 +1,190 @@
+package dungeon.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Samplers placing k things among n locations in time bounded by k, or by n for weighted draws,
+ * whatever k is: no draw is ever rejected and drawn again.
+ *
+ * <p>Uniform draws without replacement shuffle the first k items of the candidates with a partial
+ * Fisher-Yates shuffle. Weighted draws without replacement keep the k best keys of a reservoir,
+ * the key of an item being {@code log(u) / weight} (Efraimidis and Spirakis), so items of weight 0
+ * are never drawn. Weighted draws with replacement use an {@link AliasTable}.
+ */
+final class Sampling {
+
+  private Sampling() {
+  }
+
+  /**
+   * Shuffle the first items of an array so that they are a uniform sample of the first length
+   * items, without replacement.
+   *
+   * @param items  the candidates, shuffled in place
+   * @param length the number of candidates at the start of the array
+   * @param count  the number of items to draw, at most length
+   * @param random the stream to draw from
+   */
+  static void partialShuffle(int[] items, int length, int count, SplittableRandom random) {
+    if (count < 0 || count > length || length > items.length) {
+      throw new IllegalArgumentException("Cannot draw " + count + " of " + length + " items");
+    }
+    for (int i = 0; i < count; i++) {
+      int j = i + random.nextInt(length - i);
+      int item = items[i];
+      items[i] = items[j];
+      items[j] = item;
+    }
+  }
+
+  /**
+   * Draw items without replacement, each with a probability proportional to its weight, in one
+   * pass over the candidates.
+   *
+   * @param items   the candidates
+   * @param length  the number of candidates at the start of the array
+   * @param weights the weight of every candidate, by position
+   * @param count   the number of items to draw
+   * @param random  the stream to draw from
+   * @return the items drawn, fewer than count if fewer candidates have a positive weight
+   */
+  static int[] weightedReservoir(int[] items, int length, double[] weights, int count,
+                                 SplittableRandom random) {
+    if (count < 0 || length > items.length || length > weights.length) {
+      throw new IllegalArgumentException("Cannot draw " + count + " of " + length + " items");
+    }
+    //A min-heap of the best keys seen so far, the worst of them at the root
+    double[] keys = new double[Math.min(count, length)];
+    int[] chosen = new int[keys.length];
+    int size = 0;
+    for (int i = 0; i < length; i++) {
+      double weight = weights[i];
+      if (!(weight > 0)) {
+        continue;
+      }
+      //nextDouble() can be 0, whose log would be infinite
+      double key = Math.log(1.0 - random.nextDouble()) / weight;
+      if (size < keys.length) {
+        siftUp(keys, chosen, size++, key, items[i]);
+      } else if (size > 0 && key > keys[0]) {
+        siftDown(keys, chosen, size, key, items[i]);
+      }
+    }
+    if (size == chosen.length) {
+      return chosen;
+    }
+    int[] fewer = new int[size];
+    System.arraycopy(chosen, 0, fewer, 0, size);
+    return fewer;
+  }
+
+  private static void siftUp(double[] keys, int[] chosen, int index, double key, int item) {
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (keys[parent] <= key) {
+        break;
+      }
+      keys[index] = keys[parent];
+      chosen[index] = chosen[parent];
+      index = parent;
+    }
+    keys[index] = key;
+    chosen[index] = item;
+  }
+
+  private static void siftDown(double[] keys, int[] chosen, int size, double key, int item) {
+    //Replaces the root
+    int index = 0;
+    while (true) {
+      int child = 2 * index + 1;
+      if (child >= size) {
+        break;
+      }
+      if (child + 1 < size && keys[child + 1] < keys[child]) {
+        child++;
+      }
+      if (key <= keys[child]) {
+        break;
+      }
+      keys[index] = keys[child];
+      chosen[index] = chosen[child];
+      index = child;
+    }
+    keys[index] = key;
+    chosen[index] = item;
+  }
+
+  /**
+   * A table drawing an index with a probability proportional to its weight in constant time, by
+   * Vose's alias method. Building it takes time proportional to the number of weights.
+   */
+  static final class AliasTable {
+
+    private final double[] probability;
+    private final int[] alias;
+
+    /**
+     * Constructor for the table of some weights.
+     *
+     * @param weights the weight of every index, not negative and not all 0
+     */
+    AliasTable(double[] weights) {
+      int n = weights.length;
+      double total = 0;
+      for (double weight : weights) {
+        if (!(weight >= 0) || Double.isInfinite(weight)) {
+          throw new IllegalArgumentException("Weights must be finite and not negative");
+        }
+        total += weight;
+      }
+      if (!(total > 0)) {
+        throw new IllegalArgumentException("At least one weight must be positive");
+      }
+      probability = new double[n];
+      alias = new int[n];
+      //Small and large indices share one array, small from the start and large from the end
+      int[] work = new int[n];
+      int small = 0;
+      int large = n;
+      double[] scaled = new double[n];
+      for (int i = 0; i < n; i++) {
+        scaled[i] = weights[i] * n / total;
+        if (scaled[i] < 1) {
+          work[small++] = i;
+        } else {
+          work[--large] = i;
+        }
+      }
+      while (small > 0 && large < n) {
+        int less = work[--small];
+        int more = work[large++];
+        probability[less] = scaled[less];
+        alias[less] = more;
+        scaled[more] = scaled[more] + scaled[less] - 1;
+        if (scaled[more] < 1) {
+          work[small++] = more;
+        } else {
+          work[--large] = more;
+        }
+      }
+      //What is left is 1 but for rounding
+      while (small > 0) {
+        probability[work[--small]] = 1;
+      }
+      while (large < n) {
+        probability[work[large++]] = 1;
+      }
+    }
+
+    /**
+     * Draw an index.
+     *
+     * @param random the stream to draw from
+     * @return the index drawn
+     */
+    int sample(SplittableRandom random) {
+      int column = random.nextInt(probability.length);
+      return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package dungeon.model;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the values written by a {@link SnapshotOutput} from a channel through a fixed buffer. A
+ * CRC-32 of everything read is kept so it can be compared with the one at the end.
+ */
+class SnapshotInput {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private final ReadableByteChannel channel;
+  private final ByteBuffer buffer;
+  private final CRC32 crc;
+  private int checked;
+
+  /**
+   * Constructor for a snapshot input.
+   *
+   * @param channel The channel to read from, from its current position.
+   */
+  SnapshotInput(ReadableByteChannel channel) {
+    if (channel == null) {
+      throw new IllegalArgumentException("Channel cannot be null");
+    }
+    this.channel = channel;
+    this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    this.buffer.flip();
+    this.crc = new CRC32();
+    this.checked = 0;
+  }
+
+  byte readByte() throws IOException {
+    ensure(Byte.BYTES);
+    return buffer.get();
+  }
+
+  short readShort() throws IOException {
+    ensure(Short.BYTES);
+    return buffer.getShort();
+  }
+
+  int readInt() throws IOException {
+    ensure(Integer.BYTES);
+    return buffer.getInt();
+  }
+
+  double readDouble() throws IOException {
+    ensure(Double.BYTES);
+    return buffer.getDouble();
+  }
+
+  void readBytes(byte[] values) throws IOException {
+    for (int offset = 0; offset < values.length; ) {
+      ensure(Byte.BYTES);
+      int count = Math.min(buffer.remaining(), values.length - offset);
+      buffer.get(values, offset, count);
+      offset += count;
+    }
+  }
+
+  void readShorts(short[] values) throws IOException {
+    for (int offset = 0; offset < values.length; ) {
+      ensure(Short.BYTES);
+      int count = Math.min(buffer.remaining() / Short.BYTES, values.length - offset);
+      buffer.asShortBuffer().get(values, offset, count);
+      buffer.position(buffer.position() + count * Short.BYTES);
+      offset += count;
+    }
+  }
+
+  void readInts(int[] values) throws IOException {
+    for (int offset = 0; offset < values.length; ) {
+      ensure(Integer.BYTES);
+      int count = Math.min(buffer.remaining() / Integer.BYTES, values.length - offset);
+      buffer.asIntBuffer().get(values, offset, count);
+      buffer.position(buffer.position() + count * Integer.BYTES);
+      offset += count;
+    }
+  }
+
+  String readString(int maxLength) throws IOException {
+    byte[] bytes = new byte[readLength(maxLength)];
+    readBytes(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Read a length written with writeInt, checking it before anything is allocated for it.
+   *
+   * @param maxLength The largest length that makes sense at this point of the snapshot.
+   * @return the length.
+   * @throws IOException if the length is negative or too large.
+   */
+  int readLength(int maxLength) throws IOException {
+    int length = readInt();
+    if (length < 0 || length > maxLength) {
+      throw new IOException("Corrupt snapshot: length " + length + " is not between 0 and "
+              + maxLength);
+    }
+    return length;
+  }
+
+  /**
+   * Get the CRC-32 of everything read so far.
+   *
+   * @return the checksum.
+   */
+  long checksum() {
+    updateChecksum();
+    return crc.getValue();
+  }
+
+  private void ensure(int bytes) throws IOException {
+    if (buffer.remaining() >= bytes) {
+      return;
+    }
+    updateChecksum();
+    buffer.compact();
+    while (buffer.position() < bytes) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException("Snapshot ends early");
+      }
+    }
+    buffer.flip();
+    checked = 0;
+  }
+
+  private void updateChecksum() {
+    ByteBuffer unchecked = buffer.duplicate();
+    unchecked.position(checked).limit(buffer.position());
+    crc.update(unchecked);
+    checked = buffer.position();
+  }
+}
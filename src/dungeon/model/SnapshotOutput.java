@@ -0,0 +1,133 @@
+package dungeon.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Writes the values of a snapshot to a channel through a fixed buffer, so a snapshot of any size
+ * is streamed without being held in memory. Values are big-endian. A CRC-32 of everything written
+ * is kept so it can be appended at the end.
+ */
+class SnapshotOutput {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private final WritableByteChannel channel;
+  private final ByteBuffer buffer;
+  private final CRC32 crc;
+  private int checked;
+
+  /**
+   * Constructor for a snapshot output.
+   *
+   * @param channel The channel to write to, from its current position.
+   */
+  SnapshotOutput(WritableByteChannel channel) {
+    if (channel == null) {
+      throw new IllegalArgumentException("Channel cannot be null");
+    }
+    this.channel = channel;
+    this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    this.crc = new CRC32();
+    this.checked = 0;
+  }
+
+  void writeByte(int value) throws IOException {
+    ensure(Byte.BYTES);
+    buffer.put((byte) value);
+  }
+
+  void writeShort(int value) throws IOException {
+    ensure(Short.BYTES);
+    buffer.putShort((short) value);
+  }
+
+  void writeInt(int value) throws IOException {
+    ensure(Integer.BYTES);
+    buffer.putInt(value);
+  }
+
+  void writeDouble(double value) throws IOException {
+    ensure(Double.BYTES);
+    buffer.putDouble(value);
+  }
+
+  void writeBytes(byte[] values) throws IOException {
+    writeBytes(values, values.length);
+  }
+
+  void writeBytes(byte[] values, int length) throws IOException {
+    for (int offset = 0; offset < length; ) {
+      ensure(Byte.BYTES);
+      int count = Math.min(buffer.remaining(), length - offset);
+      buffer.put(values, offset, count);
+      offset += count;
+    }
+  }
+
+  void writeShorts(short[] values) throws IOException {
+    for (int offset = 0; offset < values.length; ) {
+      ensure(Short.BYTES);
+      int count = Math.min(buffer.remaining() / Short.BYTES, values.length - offset);
+      buffer.asShortBuffer().put(values, offset, count);
+      buffer.position(buffer.position() + count * Short.BYTES);
+      offset += count;
+    }
+  }
+
+  void writeInts(int[] values) throws IOException {
+    for (int offset = 0; offset < values.length; ) {
+      ensure(Integer.BYTES);
+      int count = Math.min(buffer.remaining() / Integer.BYTES, values.length - offset);
+      buffer.asIntBuffer().put(values, offset, count);
+      buffer.position(buffer.position() + count * Integer.BYTES);
+      offset += count;
+    }
+  }
+
+  void writeString(String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeInt(bytes.length);
+    writeBytes(bytes);
+  }
+
+  /**
+   * Get the CRC-32 of everything written so far.
+   *
+   * @return the checksum.
+   */
+  long checksum() {
+    updateChecksum();
+    return crc.getValue();
+  }
+
+  /**
+   * Write out everything still in the buffer.
+   *
+   * @throws IOException if the channel cannot be written.
+   */
+  void flush() throws IOException {
+    updateChecksum();
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+    checked = 0;
+  }
+
+  private void ensure(int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      flush();
+    }
+  }
+
+  private void updateChecksum() {
+    ByteBuffer unchecked = buffer.duplicate();
+    unchecked.position(checked).limit(buffer.position());
+    crc.update(unchecked);
+    checked = buffer.position();
+  }
+}
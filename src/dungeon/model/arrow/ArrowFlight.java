@@ -0,0 +1,154 @@
+package dungeon.model.arrow;
+
+import java.util.Arrays;
+
+import dungeon.model.directions.Direction;
+
+/**
+ * Flies arrows over a terrain, one location at a time. The flight is a loop over a small state
+ * machine rather than a recursion, so a corridor of any length cannot overflow the stack, and the
+ * locations already flown through are marked with the number of the flight in one int array kept
+ * from flight to flight, so a step allocates nothing beyond what the terrain does: nothing over
+ * a grid, a map entry for every new location over a {@link LocationTerrain}.
+ *
+ * <p>An arrow leaves its location through a door, and in every location it enters:
+ * <ul>
+ *   <li>stops if it has been there before in this flight;</li>
+ *   <li>in a tunnel, goes on through the door other than the one it came in through;</li>
+ *   <li>in a cave, counts one cave off its distance and lets its {@link IArrowBehaviour} act,
+ *   then goes on straight ahead, or where the behaviour turns it at a wall.</li>
+ * </ul>
+ *
+ * <p>A flight is not thread safe: every thread flies its own.
+ */
+public final class ArrowFlight {
+
+  //Direction.values() returns a new array on every call
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private final IArrowTerrain terrain;
+  private int[] marks;
+  private int epoch;
+
+  /**
+   * The states of an arrow between two steps.
+   */
+  private enum State {
+    LEAVING, IN_CAVE, IN_TUNNEL, STOPPED
+  }
+
+  /**
+   * Constructor for the flights over a terrain.
+   *
+   * @param terrain   the locations the arrows fly through.
+   * @param locations the number of locations, or a guess if it is not known; the marks grow as
+   *                  higher numbers are reached.
+   */
+  public ArrowFlight(IArrowTerrain terrain, int locations) {
+    if (terrain == null) {
+      throw new IllegalArgumentException("Terrain cannot be null");
+    }
+    if (locations < 0) {
+      throw new IllegalArgumentException("Locations cannot be negative");
+    }
+    this.terrain = terrain;
+    this.marks = new int[Math.max(1, locations)];
+  }
+
+  /**
+   * Fly an arrow.
+   *
+   * @param from      the location it is shot from.
+   * @param direction the door it leaves through.
+   * @param distance  the number of caves it flies; 0 shoots it nowhere, and a negative distance
+   *                  flies it until it has to stop.
+   * @param behaviour what it does in the caves it flies through.
+   * @return the cave the behaviour stopped it in, or -1 if it stopped anywhere else.
+   */
+  public int fly(int from, Direction direction, int distance, IArrowBehaviour behaviour) {
+    if (direction == null || behaviour == null) {
+      throw new IllegalArgumentException("Direction and behaviour cannot be null");
+    }
+    if (epoch == Integer.MAX_VALUE) {
+      Arrays.fill(marks, 0);
+      epoch = 0;
+    }
+    epoch++;
+    mark(from);
+
+    int location = from;
+    Direction heading = direction;
+    int remaining = distance;
+    int landing = -1;
+    State state = State.LEAVING;
+    while (state != State.STOPPED) {
+      switch (state) {
+        case LEAVING:
+          int next = remaining == 0 ? -1 : terrain.getNeighbour(location, heading);
+          if (next == -1 || isMarked(next)) {
+            state = State.STOPPED;
+            break;
+          }
+          mark(next);
+          location = next;
+          state = terrain.isCave(location) ? State.IN_CAVE : State.IN_TUNNEL;
+          break;
+        case IN_CAVE:
+          if (behaviour.enterCave(terrain, location, --remaining)) {
+            landing = location;
+            state = State.STOPPED;
+          } else if (terrain.getNeighbour(location, heading) != -1) {
+            state = State.LEAVING;
+          } else {
+            heading = behaviour.hitWall(terrain, location, heading);
+            state = heading == null ? State.STOPPED : State.LEAVING;
+          }
+          break;
+        case IN_TUNNEL:
+          heading = otherDoor(location, heading);
+          state = heading == null ? State.STOPPED : State.LEAVING;
+          break;
+        default:
+          throw new IllegalStateException("Unknown state " + state);
+      }
+    }
+    return landing;
+  }
+
+  /**
+   * The door of a tunnel other than the one an arrow heading that way came in through.
+   */
+  private Direction otherDoor(int tunnel, Direction heading) {
+    Direction back = opposite(heading);
+    for (Direction direction : DIRECTIONS) {
+      if (direction != back && terrain.getNeighbour(tunnel, direction) != -1) {
+        return direction;
+      }
+    }
+    return null;
+  }
+
+  private static Direction opposite(Direction direction) {
+    switch (direction) {
+      case NORTH:
+        return Direction.SOUTH;
+      case SOUTH:
+        return Direction.NORTH;
+      case EAST:
+        return Direction.WEST;
+      default:
+        return Direction.EAST;
+    }
+  }
+
+  private boolean isMarked(int location) {
+    return location < marks.length && marks[location] == epoch;
+  }
+
+  private void mark(int location) {
+    if (location >= marks.length) {
+      marks = Arrays.copyOf(marks, Math.max(location + 1, 2 * marks.length));
+    }
+    marks[location] = epoch;
+  }
+}
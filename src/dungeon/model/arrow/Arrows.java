@@ -0,0 +1,80 @@
+package dungeon.model.arrow;
+
+import dungeon.model.directions.Direction;
+
+/**
+ * The arrow behaviours of the game and its variants.
+ */
+public final class Arrows {
+
+  /**
+   * The arrow of the game: it flies straight through caves, falls in a cave with no door ahead,
+   * and hurts the monster of the cave it stops in when its distance runs out.
+   */
+  public static final IArrowBehaviour STANDARD = new Standard();
+
+  /**
+   * An arrow that hurts the monster of every cave it flies through, not only the last one.
+   */
+  public static final IArrowBehaviour PIERCING = new Standard() {
+    @Override
+    public boolean enterCave(IArrowTerrain terrain, int cave, int remaining) {
+      if (terrain.hasLiveMonster(cave)) {
+        terrain.hitMonster(cave);
+      }
+      return remaining == 0;
+    }
+  };
+
+  /**
+   * An arrow that glances off a wall instead of falling: it turns right if the cave has a door
+   * there, or else left, and falls only in a dead end.
+   */
+  public static final IArrowBehaviour RICOCHET = new Standard() {
+    @Override
+    public Direction hitWall(IArrowTerrain terrain, int cave, Direction heading) {
+      //A quarter turn right, then left, the half turn being the way back
+      Direction right = clockwise(heading);
+      if (terrain.getNeighbour(cave, right) != -1) {
+        return right;
+      }
+      Direction left = clockwise(clockwise(right));
+      return terrain.getNeighbour(cave, left) != -1 ? left : null;
+    }
+  };
+
+  private static final Direction[] CLOCKWISE = {
+      Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST};
+
+  private Arrows() {
+    //Only constants
+  }
+
+  private static Direction clockwise(Direction direction) {
+    for (int i = 0; i < CLOCKWISE.length; i++) {
+      if (CLOCKWISE[i] == direction) {
+        return CLOCKWISE[(i + 1) % CLOCKWISE.length];
+      }
+    }
+    throw new IllegalArgumentException("Unknown direction " + direction);
+  }
+
+  private static class Standard implements IArrowBehaviour {
+
+    @Override
+    public boolean enterCave(IArrowTerrain terrain, int cave, int remaining) {
+      if (remaining != 0) {
+        return false;
+      }
+      if (terrain.hasLiveMonster(cave)) {
+        terrain.hitMonster(cave);
+      }
+      return true;
+    }
+
+    @Override
+    public Direction hitWall(IArrowTerrain terrain, int cave, Direction heading) {
+      return null;
+    }
+  }
+}
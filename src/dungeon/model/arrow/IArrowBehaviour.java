@@ -0,0 +1,34 @@
+package dungeon.model.arrow;
+
+import dungeon.model.directions.Direction;
+
+/**
+ * What an arrow does in the caves it flies through. The rest of the flight is the same for every
+ * arrow: it follows tunnels wherever they turn, and stops where it has already been.
+ *
+ * <p>{@link Arrows} has the arrows of the game and some variants.
+ */
+public interface IArrowBehaviour {
+
+  /**
+   * Act in a cave the arrow has just entered, once it counts towards the distance.
+   *
+   * @param terrain   the locations the arrow flies through.
+   * @param cave      the cave entered.
+   * @param remaining the number of caves the arrow can still enter after this one, 0 when this
+   *                  is the last one. It is negative for a shot with a negative distance, which
+   *                  flies until it has to stop.
+   * @return true if the arrow stops in this cave.
+   */
+  boolean enterCave(IArrowTerrain terrain, int cave, int remaining);
+
+  /**
+   * Turn in a cave with no door straight ahead, where the arrow would hit the wall.
+   *
+   * @param terrain the locations the arrow flies through.
+   * @param cave    the cave the arrow is in.
+   * @param heading the direction it entered the cave in.
+   * @return the direction of a door of the cave to go on through, or null to stop in the cave.
+   */
+  Direction hitWall(IArrowTerrain terrain, int cave, Direction heading);
+}
@@ -0,0 +1,44 @@
+package dungeon.model.arrow;
+
+import dungeon.model.directions.Direction;
+
+/**
+ * The locations an arrow flies through, as {@link ArrowFlight} sees them: numbered from 0, with
+ * doors between them and maybe a monster in them. A dungeon is the terrain of its own arrows, with
+ * its cell ids as the numbers.
+ */
+public interface IArrowTerrain {
+
+  /**
+   * Tell whether a location is a cave, which counts towards the distance of an arrow, or a
+   * tunnel, which the arrow follows.
+   *
+   * @param location the number of the location.
+   * @return true if it is a cave.
+   */
+  boolean isCave(int location);
+
+  /**
+   * Get the location through a door.
+   *
+   * @param location  the number of the location.
+   * @param direction the door.
+   * @return the number of the location through the door, or -1 if there is no door that way.
+   */
+  int getNeighbour(int location, Direction direction);
+
+  /**
+   * Tell whether a location has a monster still alive.
+   *
+   * @param location the number of the location.
+   * @return true if an arrow can hurt a monster there.
+   */
+  boolean hasLiveMonster(int location);
+
+  /**
+   * Hurt the monster of a location with an arrow.
+   *
+   * @param location the number of the location, with a live monster.
+   */
+  void hitMonster(int location);
+}
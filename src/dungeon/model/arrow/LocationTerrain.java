@@ -0,0 +1,87 @@
+package dungeon.model.arrow;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import dungeon.model.directions.Direction;
+import dungeon.model.location.ILocation;
+
+/**
+ * The terrain of linked {@link ILocation} objects, for the arrows of a player that only knows its
+ * locations. The locations are numbered as arrows reach them, and two locations at the same
+ * coordinates are the same location, as {@link ILocation#equals(Object)} says. Numbering a
+ * location takes a map entry, so unlike a grid's terrain, every location an arrow reaches here
+ * allocates; a terrain can be cleared and numbered again, keeping the room it has grown.
+ */
+public final class LocationTerrain implements IArrowTerrain {
+
+  private final List<ILocation> locations;
+  private final Map<ILocation, Integer> numbers;
+
+  /**
+   * Constructor for a terrain with no location numbered yet.
+   */
+  public LocationTerrain() {
+    this.locations = new ArrayList<>();
+    this.numbers = new HashMap<>();
+  }
+
+  /**
+   * Get the number of a location, numbering it if it has none yet.
+   *
+   * @param location the location.
+   * @return its number.
+   */
+  public int numberOf(ILocation location) {
+    if (location == null) {
+      throw new IllegalArgumentException("Location cannot be null");
+    }
+    Integer number = numbers.get(location);
+    if (number == null) {
+      number = locations.size();
+      locations.add(location);
+      numbers.put(location, number);
+    }
+    return number;
+  }
+
+  /**
+   * Forget every location numbered so far, to number the locations of another flight from 0.
+   */
+  public void clear() {
+    locations.clear();
+    numbers.clear();
+  }
+
+  /**
+   * Get the number of locations numbered so far.
+   *
+   * @return the number of locations.
+   */
+  public int size() {
+    return locations.size();
+  }
+
+  @Override
+  public boolean isCave(int location) {
+    return locations.get(location).isCave();
+  }
+
+  @Override
+  public int getNeighbour(int location, Direction direction) {
+    ILocation neighbour = locations.get(location).getNeighbours().get(direction);
+    return neighbour == null ? -1 : numberOf(neighbour);
+  }
+
+  @Override
+  public boolean hasLiveMonster(int location) {
+    return locations.get(location).hasMonster();
+  }
+
+  @Override
+  public void hitMonster(int location) {
+    locations.get(location).getMonster().decrementHealth();
+  }
+}
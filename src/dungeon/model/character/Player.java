@@ -1,14 +1,18 @@
 package dungeon.model.character;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
-import java.util.Set;
 import java.util.TreeMap;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
+import dungeon.model.arrow.ArrowFlight;
+import dungeon.model.arrow.Arrows;
+import dungeon.model.arrow.IArrowBehaviour;
+import dungeon.model.arrow.LocationTerrain;
 import dungeon.model.directions.Direction;
 import dungeon.model.location.ILocation;
 import dungeon.model.treasure.ITreasure;
@@ -20,15 +24,30 @@ import static dungeon.model.treasure.TreasureType.ARROWS;
  * The player class implements the Character interface. It contains information about the player
  * such as the player's name, the player's treasures, the player's current location, and the
  * location the player has visited.
+ *
+ * <p>A game can also move the player by cell id. The cells are kept as ints and only made into
+ * locations when the player's locations are asked for.
  */
 public class Player implements Character {
 
+  //TreasureType.values() returns a new array on every call
+  private static final TreasureType[] TREASURE_TYPES = TreasureType.values();
+
   private final String name;
   private Map<TreasureType, Integer> treasures;
   private ILocation currentLocation;
   private List<ILocation> locationVisited;
   private int health;
   private final Random random;
+  //Kept from shot to shot, and made on the first one
+  private LocationTerrain arrowTerrain;
+  private ArrowFlight arrowFlight;
+  //The cell moved to by cell id, -1 after a move by location, and the cells not made into
+  //locations yet
+  private int currentCell;
+  private int[] cellsMoved;
+  private int cellsPending;
+  private IntFunction<ILocation> cellLocations;
 
   /**
    * Constructor for the player class.
@@ -50,6 +69,33 @@ public class Player implements Character {
     this.locationVisited = new ArrayList<>();
     this.health = 100;
     this.treasures.put(TreasureType.ARROWS, 3);
+    this.currentCell = -1;
+    this.cellsMoved = new int[16];
+    this.cellsPending = 0;
+  }
+
+  /**
+   * Constructor restoring a player in the middle of a game, for example from a saved game. The
+   * player is put back in its location without meeting the monster there again.
+   *
+   * @param name            the name of the player
+   * @param random          the random number generator of the game
+   * @param health          the health of the player
+   * @param treasures       the treasures the player has, including arrows
+   * @param currentLocation the location of the player
+   * @param locationVisited the locations the player has visited, in order
+   */
+  public Player(String name, Random random, int health, Map<TreasureType, Integer> treasures,
+                ILocation currentLocation, List<ILocation> locationVisited) {
+    this(name, random);
+    if (treasures == null || currentLocation == null || locationVisited == null) {
+      throw new IllegalArgumentException("Treasures and locations cannot be null");
+    }
+    this.health = health;
+    this.treasures.clear();
+    this.treasures.putAll(treasures);
+    this.currentLocation = currentLocation;
+    this.locationVisited.addAll(locationVisited);
   }
 
   @Override
@@ -62,13 +108,50 @@ public class Player implements Character {
     if (location == null) {
       throw new IllegalArgumentException("Location cannot be null");
     }
+    catchUp();
     locationVisited.add(location);
     this.currentLocation = location;
+    this.currentCell = -1;
     determinePLayerSurvives(location);
   }
 
+  /**
+   * Move the player to a location known by its cell id, meeting its monster as
+   * {@link #setCurrentLocation(ILocation)} does, without creating the location. The location is
+   * created when the player's locations are asked for.
+   *
+   * @param cellId        the cell id of the location.
+   * @param monsterHealth the health of the monster there, 0 if there is none.
+   * @param locations     creates the location of a cell id.
+   */
+  public void moveToCell(int cellId, int monsterHealth, IntFunction<ILocation> locations) {
+    if (cellId < 0 || locations == null) {
+      throw new IllegalArgumentException("Cell id cannot be negative and locations cannot be null");
+    }
+    if (cellLocations != null && cellLocations != locations) {
+      catchUp();
+    }
+    if (cellsPending == cellsMoved.length) {
+      cellsMoved = Arrays.copyOf(cellsMoved, 2 * cellsMoved.length);
+    }
+    cellsMoved[cellsPending++] = cellId;
+    cellLocations = locations;
+    currentCell = cellId;
+    meetMonster(monsterHealth);
+  }
+
+  /**
+   * Get the cell the player was last moved to by {@link #moveToCell(int, int, IntFunction)}.
+   *
+   * @return the cell id, or -1 if the player was last moved by location.
+   */
+  public int getCurrentCell() {
+    return currentCell;
+  }
+
   @Override
   public ILocation getCurrentLocation() {
+    catchUp();
     return this.currentLocation;
   }
 
@@ -92,6 +175,7 @@ public class Player implements Character {
     if (treasureType == null) {
       throw new IllegalArgumentException("Treasure type cannot be null");
     }
+    catchUp();
     if (this.currentLocation == null) {
       throw new IllegalStateException("Player is not in a location");
     }
@@ -119,26 +203,63 @@ public class Player implements Character {
 
   @Override
   public void shootArrow(Direction direction, int distance) {
+    shootArrow(direction, distance, Arrows.STANDARD);
+  }
+
+  /**
+   * Shoot an arrow that behaves in its own way in the caves it flies through.
+   *
+   * @param direction the direction to shoot the arrow.
+   * @param distance  the number of caves the arrow flies.
+   * @param behaviour what the arrow does in the caves.
+   * @throws IllegalStateException    if the player has no arrows left.
+   * @throws IllegalArgumentException if there is no door in that direction.
+   */
+  public void shootArrow(Direction direction, int distance, IArrowBehaviour behaviour) {
+    if (behaviour == null) {
+      throw new IllegalArgumentException("Behaviour cannot be null");
+    }
+    takeArrow(direction);
+
+    if (arrowFlight == null) {
+      arrowTerrain = new LocationTerrain();
+      arrowFlight = new ArrowFlight(arrowTerrain, 16);
+    }
+    //Numbered afresh for every shot, since the player may have moved to another dungeon, and
+    //cleared after it, so the terrain does not keep the locations
+    try {
+      int from = arrowTerrain.numberOf(currentLocation);
+      arrowFlight.fly(from, direction, distance, behaviour);
+    } finally {
+      arrowTerrain.clear();
+    }
+  }
+
+  /**
+   * Take an arrow out of the quiver to shoot in the given direction, without flying it, for a
+   * dungeon that flies its arrows itself. The checks are those of
+   * {@link #shootArrow(Direction, int)}.
+   *
+   * @param direction the direction to shoot the arrow.
+   * @throws IllegalStateException    if the player has no arrows left.
+   * @throws IllegalArgumentException if there is no door in that direction.
+   */
+  public void takeArrow(Direction direction) {
     if (this.treasures.get(TreasureType.ARROWS) <= 0) {
       throw new IllegalStateException("No arrows remaining");
     }
+    catchUp();
     if (!currentLocation.getNeighbours().containsKey(direction)) {
       throw new IllegalArgumentException("Direction is not valid");
     }
 
     this.treasures.put(ARROWS,
             (this.treasures.get(ARROWS) != null) ? this.treasures.get(ARROWS) - 1 : 0);
-
-    //Shoot arrow
-    Set<ILocation> visited = new HashSet<>();
-    visited.add(currentLocation);
-
-    this.dfsShootArrowHelper(currentLocation.getNeighbours().get(direction),
-            distance, direction, visited);
   }
 
   @Override
   public String printTravelStatus() {
+    catchUp();
     StringBuilder sb = new StringBuilder();
     String commaSepTreasureValue = this.treasures.keySet().stream()
             .map(key -> (this.treasures.get(key) > 0) ? this.treasures.get(key) + " " + key : "")
@@ -152,21 +273,51 @@ public class Player implements Character {
 
   @Override
   public List<ILocation> getLocationVisited() {
+    catchUp();
     return this.locationVisited;
   }
 
   @Override
   public String toString() {
-    String commaSepValue = this.treasures.keySet().stream()
-            .map(key -> (this.treasures.get(key) > 0) ? this.treasures.get(key) + " " + key : ""
-            ).collect(Collectors.joining(", "));
-    String s = (currentLocation.isCave()) ? "You are in a cave" : "You are in a tunnel";
-    if (commaSepValue.length() > 0) {
-      s += " and you have " + commaSepValue + ".\n";
-    } else {
-      s += ".\n";
+    catchUp();
+    StringBuilder sb = new StringBuilder();
+    appendStatus(sb, currentLocation.isCave());
+    return sb.toString();
+  }
+
+  /**
+   * Append what {@link #toString()} says, for a game that knows whether the player is in a cave
+   * without asking its location. Nothing but the text is created.
+   *
+   * @param sb     the text to append to.
+   * @param inCave whether the player is in a cave.
+   */
+  public void appendStatus(StringBuilder sb, boolean inCave) {
+    if (sb == null) {
+      throw new IllegalArgumentException("String builder cannot be null");
     }
-    return s;
+    int end = sb.append(inCave ? "You are in a cave" : "You are in a tunnel").length();
+    sb.append(" and you have ");
+    int start = sb.length();
+    //Every treasure the player has counts, even none of it, as an empty item of the list
+    boolean first = true;
+    for (TreasureType treasureType : TREASURE_TYPES) {
+      Integer count = treasures.get(treasureType);
+      if (count == null) {
+        continue;
+      }
+      if (!first) {
+        sb.append(", ");
+      }
+      first = false;
+      if (count > 0) {
+        sb.append(count.intValue()).append(' ').append(treasureType);
+      }
+    }
+    if (sb.length() == start) {
+      sb.setLength(end);
+    }
+    sb.append(".\n");
   }
 
   private void determinePLayerSurvives(ILocation location) {
@@ -174,47 +325,30 @@ public class Player implements Character {
       throw new IllegalArgumentException("Location cannot be null");
     }
     if (location.hasMonster()) {
-      if (location.getMonster().getHealth() == 100) { // If monster not injured, player dies
-        this.decrementHealth();
-      } else if (location.getMonster().getHealth() == 50) {
-        int randomNumber = random.nextInt(2);
-        if (randomNumber == 0) { // If monster injured, player dies 50% chance
-          this.decrementHealth();
-        }
-      }
+      meetMonster(location.getMonster().getHealth());
     }
   }
 
-  private void dfsShootArrowHelper(ILocation location, int distance, Direction direction,
-                                   Set<ILocation> visited) {
-    if (distance == 0) {
-      return;
-    }
-    visited.add(location);
-    if (location.isCave()) {
-      distance--;
-      if (distance == 0 && location.hasMonster()) { // Monster condition
-        location.getMonster().decrementHealth();
-        return;
-      }
-      if (location.getNeighbours().containsKey(direction)) { // Cave with opposite direction
-        if (!visited.contains(location.getNeighbours().get(direction))) { // If not visited
-          dfsShootArrowHelper(location.getNeighbours().get(direction), distance, direction,
-                  visited);
-        }
-      } else { // Cave with no opposite direction
-        return;
+  private void meetMonster(int monsterHealth) {
+    if (monsterHealth == 100) { // If monster not injured, player dies
+      this.decrementHealth();
+    } else if (monsterHealth == 50) {
+      int randomNumber = random.nextInt(2);
+      if (randomNumber == 0) { // If monster injured, player dies 50% chance
+        this.decrementHealth();
       }
     }
+  }
 
-    if (!location.isCave()) { // Tunnel condition
-      for (Direction neighborDirection : location.getNeighbours().keySet()) {
-        if (!visited.contains(location.getNeighbours().get(neighborDirection))) {
-          dfsShootArrowHelper(location.getNeighbours().get(neighborDirection), distance,
-                  neighborDirection, visited);
-        }
-      }
+  /**
+   * Make the cells the player was moved to by cell id into locations.
+   */
+  private void catchUp() {
+    for (int i = 0; i < cellsPending; i++) {
+      currentLocation = cellLocations.apply(cellsMoved[i]);
+      locationVisited.add(currentLocation);
     }
+    cellsPending = 0;
   }
 
 }
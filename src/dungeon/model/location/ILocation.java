@@ -9,7 +9,10 @@ import dungeon.model.treasure.TreasureType;
 
 /**
  * Interface for a location in the dungeon. It has a name, a row and a column coordinate, neighbors,
- * and a map of different kinds of treasures.
+ * and a map of different kinds of treasures. Two locations are equal when they have the same
+ * coordinates, whichever implementation they come from and whichever dungeon they are in: a
+ * location equals the one at the same place in a copy of its dungeon, or in any other dungeon.
+ * Sets and maps of locations should hold the locations of one dungeon only.
  */
 public interface ILocation extends Comparable<ILocation> {
 
@@ -162,12 +162,12 @@ public class Location implements ILocation {
     if (obj == null) {
       return false;
     }
-    if (obj.getClass() != this.getClass()) {
+    if (!(obj instanceof ILocation)) {
       return false;
     }
-    final Location other = (Location) obj;
-    return (this.coordinates[0] == other.coordinates[0])
-            && (this.coordinates[1] == other.coordinates[1]);
+    final ILocation other = (ILocation) obj;
+    return (this.coordinates[0] == other.getRowCoordinate())
+            && (this.coordinates[1] == other.getColCoordinate());
   }
 
   @Override
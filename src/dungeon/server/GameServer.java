@@ -0,0 +1,345 @@
+package dungeon.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import dungeon.model.IGameState;
+
+/**
+ * A server hosting many games in one process. It listens on the loopback interface, and every TCP
+ * connection gets a game of its own, played with the same line commands as on the console.
+ * Sessions are kept in a concurrent registry, end when the player is idle for too long, and are
+ * closed gracefully when the server shuts down.
+ *
+ * <p>Games come from an {@link IGameSource}, which may take its time: the connection waits for
+ * its game without holding the thread accepting connections or a session thread, and counts
+ * towards the maximum number of sessions while it waits. The games still coming when the server
+ * shuts down are cancelled.
+ *
+ * <p>Each session blocks a thread of the session executor while it waits for input. The default
+ * executor creates at most one thread per allowed session and lets idle threads die. Every thread
+ * reserves a stack of -Xss (1 MB by default on 64-bit platforms), committed as it is used, so the
+ * maximum number of sessions bounds the threads and their stacks. On a JDK with virtual threads,
+ * {@code Executors.newVirtualThreadPerTaskExecutor()} can be passed instead to host far more
+ * sessions than platform threads allow.
+ */
+public class GameServer {
+
+  private final int port;
+  private final IGameSource games;
+  private final ExecutorService sessionExecutor;
+  private final int maxSessions;
+  private final Duration idleTimeout;
+  private final Map<Long, GameSession> sessions;
+  private final Set<CompletableFuture<IGameState>> pendingGames;
+  private final AtomicLong nextSessionId;
+  private ServerSocket serverSocket;
+  private Thread acceptThread;
+  private volatile boolean shuttingDown;
+
+  /**
+   * Constructor for a server with the default session executor.
+   *
+   * @param port        The port to listen on, 0 for any free port.
+   * @param games       Creates a new game for every session.
+   * @param maxSessions The maximum number of sessions at the same time.
+   * @param idleTimeout How long a player can wait before sending a command.
+   */
+  public GameServer(int port, Supplier<IGameState> games, int maxSessions, Duration idleTimeout) {
+    this(port, games, newSessionExecutor(maxSessions), maxSessions, idleTimeout);
+  }
+
+  /**
+   * Constructor for a server with the default session executor, getting its games from a source
+   * that may create them on other threads.
+   *
+   * @param port        The port to listen on, 0 for any free port.
+   * @param games       Starts creating a new game for every session.
+   * @param maxSessions The maximum number of sessions at the same time.
+   * @param idleTimeout How long a player can wait before sending a command.
+   */
+  public GameServer(int port, IGameSource games, int maxSessions, Duration idleTimeout) {
+    this(port, games, newSessionExecutor(maxSessions), maxSessions, idleTimeout);
+  }
+
+  /**
+   * Constructor for a server running its sessions on the given executor. The server shuts the
+   * executor down when it shuts down.
+   *
+   * @param port            The port to listen on, 0 for any free port.
+   * @param games           Creates a new game for every session.
+   * @param sessionExecutor Runs the sessions, one task per session.
+   * @param maxSessions     The maximum number of sessions at the same time.
+   * @param idleTimeout     How long a player can wait before sending a command.
+   */
+  public GameServer(int port, Supplier<IGameState> games, ExecutorService sessionExecutor,
+                    int maxSessions, Duration idleTimeout) {
+    this(port, fromSupplier(games), sessionExecutor, maxSessions, idleTimeout);
+  }
+
+  /**
+   * Constructor for a server running its sessions on the given executor, getting its games from
+   * a source that may create them on other threads. The server shuts the executor down when it
+   * shuts down.
+   *
+   * @param port            The port to listen on, 0 for any free port.
+   * @param games           Starts creating a new game for every session.
+   * @param sessionExecutor Runs the sessions, one task per session.
+   * @param maxSessions     The maximum number of sessions at the same time.
+   * @param idleTimeout     How long a player can wait before sending a command.
+   */
+  public GameServer(int port, IGameSource games, ExecutorService sessionExecutor,
+                    int maxSessions, Duration idleTimeout) {
+    if (port < 0 || port > 65535) {
+      throw new IllegalArgumentException("Port must be between 0 and 65535");
+    }
+    if (games == null || sessionExecutor == null || idleTimeout == null) {
+      throw new IllegalArgumentException("Games, executor and idle timeout cannot be null");
+    }
+    if (maxSessions < 1) {
+      throw new IllegalArgumentException("Maximum sessions must be greater than 0");
+    }
+    if (idleTimeout.isNegative() || idleTimeout.isZero()
+            || idleTimeout.toMillis() > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Idle timeout must be positive and at most "
+              + Integer.MAX_VALUE + " ms");
+    }
+    this.port = port;
+    this.games = games;
+    this.sessionExecutor = sessionExecutor;
+    this.maxSessions = maxSessions;
+    this.idleTimeout = idleTimeout;
+    this.sessions = new ConcurrentHashMap<>();
+    this.pendingGames = ConcurrentHashMap.newKeySet();
+    this.nextSessionId = new AtomicLong();
+    this.shuttingDown = false;
+  }
+
+  /**
+   * Start listening for connections on a background thread.
+   *
+   * @throws IOException if the port cannot be opened.
+   */
+  public synchronized void start() throws IOException {
+    if (serverSocket != null) {
+      throw new IllegalStateException("Server is already started");
+    }
+    serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+    acceptThread = new Thread(this::acceptConnections, "dungeon-server-accept");
+    acceptThread.start();
+  }
+
+  /**
+   * Get the port the server listens on.
+   *
+   * @return the port, which is the one chosen by the system if the server was created with 0.
+   */
+  public synchronized int getPort() {
+    if (serverSocket == null) {
+      throw new IllegalStateException("Server is not started");
+    }
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Get the number of sessions in progress.
+   *
+   * @return the number of sessions.
+   */
+  public int getSessionCount() {
+    return sessions.size();
+  }
+
+  /**
+   * Get the number of connections waiting for their game.
+   *
+   * @return the number of games still coming.
+   */
+  public int getPendingCount() {
+    return pendingGames.size();
+  }
+
+  /**
+   * Stop accepting connections, cancel the games still coming, and let the games in progress
+   * finish for up to the grace period. The sessions still running after that are told the server
+   * is closing and disconnected.
+   *
+   * @param grace How long to wait for games in progress.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public void shutdown(Duration grace) throws InterruptedException {
+    if (grace == null || grace.isNegative()) {
+      throw new IllegalArgumentException("Grace period cannot be null or negative");
+    }
+    shuttingDown = true;
+    synchronized (this) {
+      if (serverSocket != null) {
+        try {
+          serverSocket.close();
+        } catch (IOException e) {
+          //Already closed
+        }
+      }
+    }
+    if (acceptThread != null) {
+      acceptThread.join();
+    }
+    for (CompletableFuture<IGameState> game : pendingGames) {
+      game.cancel(false);
+    }
+
+    sessionExecutor.shutdown();
+    if (!sessionExecutor.awaitTermination(grace.toMillis(), TimeUnit.MILLISECONDS)) {
+      for (GameSession session : sessions.values()) {
+        session.close("\nThe server is shutting down. Goodbye!\n");
+      }
+      sessionExecutor.shutdownNow();
+      sessionExecutor.awaitTermination(grace.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Remove a session from the registry once it has ended.
+   *
+   * @param session The session that ended.
+   */
+  void removeSession(GameSession session) {
+    sessions.remove(session.getId());
+  }
+
+  private void acceptConnections() {
+    while (!shuttingDown) {
+      Socket socket;
+      try {
+        socket = serverSocket.accept();
+      } catch (SocketException e) {
+        //The server socket was closed by shutdown
+        return;
+      } catch (IOException e) {
+        continue;
+      }
+      startSession(socket);
+    }
+  }
+
+  private void startSession(Socket socket) {
+    if (shuttingDown || sessions.size() + pendingGames.size() >= maxSessions) {
+      refuse(socket, "The server is full. Try again later.\n");
+      return;
+    }
+    CompletableFuture<IGameState> game;
+    try {
+      game = games.newGame();
+    } catch (RuntimeException e) {
+      game = CompletableFuture.failedFuture(e);
+    }
+    if (game == null) {
+      refuse(socket, "The game could not be started.\n");
+      return;
+    }
+    pendingGames.add(game);
+    CompletableFuture<IGameState> pending = game;
+    //Runs at once if the game is ready, otherwise on the thread completing it
+    game.whenComplete((model, failure) -> {
+      if (failure != null) {
+        pendingGames.remove(pending);
+        refuse(socket, shuttingDown ? "The server is shutting down.\n"
+                : "The game could not be started.\n");
+      } else {
+        runSession(socket, model, pending);
+      }
+    });
+  }
+
+  private void runSession(Socket socket, IGameState model, CompletableFuture<IGameState> pending) {
+    GameSession session = null;
+    try {
+      socket.setSoTimeout((int) idleTimeout.toMillis());
+      session = new GameSession(nextSessionId.incrementAndGet(), socket, model, this);
+      //Registered before it stops pending, so it always counts towards the maximum
+      sessions.put(session.getId(), session);
+      pendingGames.remove(pending);
+      sessionExecutor.execute(session);
+    } catch (RejectedExecutionException e) {
+      sessions.remove(session.getId());
+      refuse(socket, shuttingDown ? "The server is shutting down.\n"
+              : "The server is full. Try again later.\n");
+    } catch (IOException | IllegalArgumentException e) {
+      //The connection broke or the game could not be used
+      pendingGames.remove(pending);
+      refuse(socket, "The game could not be started.\n");
+    }
+  }
+
+  private static void refuse(Socket socket, String message) {
+    try (socket) {
+      OutputStream out = socket.getOutputStream();
+      out.write(message.getBytes(StandardCharsets.UTF_8));
+      out.flush();
+    } catch (IOException e) {
+      //The client is gone
+    }
+  }
+
+  private static IGameSource fromSupplier(Supplier<IGameState> games) {
+    if (games == null) {
+      return null;
+    }
+    return () -> {
+      try {
+        return CompletableFuture.completedFuture(games.get());
+      } catch (RuntimeException e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    };
+  }
+
+  private static ExecutorService newSessionExecutor(int maxSessions) {
+    if (maxSessions < 1) {
+      throw new IllegalArgumentException("Maximum sessions must be greater than 0");
+    }
+    //No queue: the registry admits at most maxSessions, so a thread is free or about to be
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(0, maxSessions, 30, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), runnable -> {
+              Thread thread = new Thread(runnable, "dungeon-session");
+              thread.setDaemon(true);
+              return thread;
+            }, GameServer::handOver);
+    return executor;
+  }
+
+  /**
+   * Hand a session to a thread of the default executor that is finishing another one. A session
+   * leaves the registry just before its thread is free again, so a session admitted in between
+   * waits for that thread instead of being refused. Only a shut down executor refuses it.
+   */
+  private static void handOver(Runnable session, ThreadPoolExecutor executor) {
+    try {
+      while (!executor.isShutdown()) {
+        if (executor.getQueue().offer(session, 10, TimeUnit.MILLISECONDS)) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    throw new RejectedExecutionException("The session executor is shut down");
+  }
+}
@@ -0,0 +1,136 @@
+package dungeon.server;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+import dungeon.controller.Controller;
+import dungeon.controller.IController;
+import dungeon.model.IGameState;
+
+/**
+ * One game played over a TCP connection. The socket streams are the input and output of a
+ * {@link Controller} for a game of its own, so the player sees exactly what they would see on a
+ * console.
+ */
+class GameSession implements Runnable {
+
+  private final long id;
+  private final Socket socket;
+  private final IGameState model;
+  private final GameServer server;
+  private final Writer output;
+  private volatile boolean timedOut;
+  private volatile boolean closing;
+
+  /**
+   * Constructor for a session.
+   *
+   * @param id     The id of the session in the server's registry.
+   * @param socket The connection to the player, with its idle timeout already set.
+   * @param model  The game to play.
+   * @param server The server to leave when the session ends.
+   * @throws IOException if the socket streams cannot be opened.
+   */
+  GameSession(long id, Socket socket, IGameState model, GameServer server) throws IOException {
+    if (socket == null || model == null || server == null) {
+      throw new IllegalArgumentException("Socket, model and server cannot be null");
+    }
+    this.id = id;
+    this.socket = socket;
+    this.model = model;
+    this.server = server;
+    this.output = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+            StandardCharsets.UTF_8));
+    this.timedOut = false;
+    this.closing = false;
+  }
+
+  /**
+   * Get the id of the session.
+   *
+   * @return the id of the session.
+   */
+  long getId() {
+    return id;
+  }
+
+  @Override
+  public void run() {
+    try {
+      Readable input = new SessionInput(new InputStreamReader(socket.getInputStream(),
+              StandardCharsets.UTF_8));
+      IController controller = new Controller(input, output, model);
+      controller.playGame();
+    } catch (NoSuchElementException e) {
+      //The input ended before the game did: the player left, went idle or the server is closing
+      if (timedOut) {
+        sendQuietly("\nYou have been idle for too long. Goodbye!\n");
+      }
+    } catch (IOException | IllegalStateException e) {
+      //The connection broke, there is nobody left to tell
+    } finally {
+      //Left before closing, so a player seeing the connection end can start the next session
+      server.removeSession(this);
+      close(null);
+    }
+  }
+
+  /**
+   * End the session, sending anything not yet sent and telling the player why if a message is
+   * given. A game blocked waiting for input stops as soon as the socket is closed.
+   *
+   * @param message The message for the player, or null for none.
+   */
+  void close(String message) {
+    closing = true;
+    sendQuietly(message == null ? "" : message);
+    try {
+      socket.close();
+    } catch (IOException e) {
+      //Already closed
+    }
+  }
+
+  private void sendQuietly(String message) {
+    //The writer locks itself, so this is safe while the session thread is writing
+    try {
+      output.write(message);
+      output.flush();
+    } catch (IOException e) {
+      //The player is gone
+    }
+  }
+
+  /**
+   * The input of the session. It sends whatever the controller wrote before blocking for the next
+   * command, and remembers whether the read timed out, which the scanner of the controller would
+   * otherwise report as the end of the input.
+   */
+  private class SessionInput implements Readable {
+    private final Reader reader;
+
+    private SessionInput(Reader reader) {
+      this.reader = reader;
+    }
+
+    @Override
+    public int read(CharBuffer buffer) throws IOException {
+      output.flush();
+      try {
+        return reader.read(buffer);
+      } catch (SocketTimeoutException e) {
+        timedOut = !closing;
+        throw e;
+      }
+    }
+  }
+}
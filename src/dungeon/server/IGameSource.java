@@ -0,0 +1,22 @@
+package dungeon.server;
+
+import java.util.concurrent.CompletableFuture;
+
+import dungeon.model.IGameState;
+
+/**
+ * Gives the server a new game for every session. The server asks on the thread accepting
+ * connections, so a source that needs time to create a game returns at once and completes the
+ * future later, from another thread.
+ */
+@FunctionalInterface
+public interface IGameSource {
+
+  /**
+   * Start creating a new game. The server cancels the future if it shuts down before the game is
+   * ready.
+   *
+   * @return the game to come, or a future completed exceptionally if none can be created.
+   */
+  CompletableFuture<IGameState> newGame();
+}
@@ -0,0 +1,110 @@
+package dungeon.simulation;
+
+/**
+ * An estimate of a value from samples, with the interval the value lies in at a 95% confidence.
+ */
+public final class ConfidenceInterval {
+
+  /**
+   * The number of standard deviations a 95% confidence interval spans on each side.
+   */
+  public static final double Z_95 = 1.959964;
+
+  private final double estimate;
+  private final double low;
+  private final double high;
+
+  /**
+   * Constructor for an estimate and its interval.
+   *
+   * @param estimate the estimate.
+   * @param low      the lowest value in the interval.
+   * @param high     the highest value in the interval.
+   */
+  public ConfidenceInterval(double estimate, double low, double high) {
+    if (!(low <= estimate && estimate <= high)) {
+      throw new IllegalArgumentException("Estimate must be inside its interval");
+    }
+    this.estimate = estimate;
+    this.low = low;
+    this.high = high;
+  }
+
+  /**
+   * Get the interval of a proportion from its successes out of a number of trials, by the Wilson
+   * score, which stays inside 0 and 1 and is still meaningful with no success or no failure.
+   *
+   * @param successes the number of successes.
+   * @param trials    the number of trials, more than 0.
+   * @return the proportion of successes and its interval.
+   */
+  public static ConfidenceInterval ofProportion(long successes, long trials) {
+    if (trials <= 0 || successes < 0 || successes > trials) {
+      throw new IllegalArgumentException("Successes must be between 0 and trials, trials > 0");
+    }
+    double proportion = (double) successes / trials;
+    double z2 = Z_95 * Z_95;
+    double denominator = 1 + z2 / trials;
+    double center = (proportion + z2 / (2.0 * trials)) / denominator;
+    double margin = Z_95 / denominator * Math.sqrt(proportion * (1 - proportion) / trials
+            + z2 / (4.0 * trials * trials));
+    //Rounding can put the bounds a hair outside 0 and 1, or past the proportion itself
+    return new ConfidenceInterval(proportion, Math.max(0, Math.min(proportion, center - margin)),
+            Math.min(1, Math.max(proportion, center + margin)));
+  }
+
+  /**
+   * Get the interval of a mean from the count, sum and sum of squares of the samples, by the
+   * normal approximation.
+   *
+   * @param count      the number of samples, more than 0.
+   * @param sum        the sum of the samples.
+   * @param sumSquares the sum of the squares of the samples.
+   * @return the mean and its interval.
+   */
+  public static ConfidenceInterval ofMean(long count, double sum, double sumSquares) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("Count must be greater than 0");
+    }
+    double mean = sum / count;
+    if (count == 1) {
+      //One sample says nothing of the spread
+      return new ConfidenceInterval(mean, mean, mean);
+    }
+    double variance = Math.max(0, (sumSquares - sum * mean) / (count - 1));
+    double margin = Z_95 * Math.sqrt(variance / count);
+    return new ConfidenceInterval(mean, mean - margin, mean + margin);
+  }
+
+  /**
+   * Get the estimate.
+   *
+   * @return the estimate.
+   */
+  public double getEstimate() {
+    return estimate;
+  }
+
+  /**
+   * Get the lowest value in the interval.
+   *
+   * @return the low end.
+   */
+  public double getLow() {
+    return low;
+  }
+
+  /**
+   * Get the highest value in the interval.
+   *
+   * @return the high end.
+   */
+  public double getHigh() {
+    return high;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%.3f [%.3f, %.3f]", estimate, low, high);
+  }
+}
@@ -0,0 +1,89 @@
+package dungeon.simulation;
+
+/**
+ * How hard a dungeon is, estimated from rollouts played by bots from its start: the probability
+ * of winning, and the turns and arrows a win takes, each with its 95% confidence interval.
+ */
+public final class DifficultyEstimate {
+
+  private final long rollouts;
+  private final long wins;
+  private final ConfidenceInterval winProbability;
+  private final ConfidenceInterval turnsToWin;
+  private final ConfidenceInterval arrowsToWin;
+
+  /**
+   * Constructor for an estimate.
+   *
+   * @param rollouts       the number of rollouts played.
+   * @param wins           the number of rollouts won.
+   * @param winProbability the probability of winning.
+   * @param turnsToWin     the turns a won rollout takes, or null if none was won.
+   * @param arrowsToWin    the arrows a won rollout shoots, or null if none was won.
+   */
+  public DifficultyEstimate(long rollouts, long wins, ConfidenceInterval winProbability,
+                            ConfidenceInterval turnsToWin, ConfidenceInterval arrowsToWin) {
+    if (rollouts <= 0 || wins < 0 || wins > rollouts) {
+      throw new IllegalArgumentException("Wins must be between 0 and rollouts, rollouts > 0");
+    }
+    if (winProbability == null || (wins > 0) != (turnsToWin != null && arrowsToWin != null)) {
+      throw new IllegalArgumentException("Intervals of a win must be given if and only if won");
+    }
+    this.rollouts = rollouts;
+    this.wins = wins;
+    this.winProbability = winProbability;
+    this.turnsToWin = turnsToWin;
+    this.arrowsToWin = arrowsToWin;
+  }
+
+  /**
+   * Get the number of rollouts played, fewer than asked for if the time budget ran out.
+   *
+   * @return the number of rollouts.
+   */
+  public long getRollouts() {
+    return rollouts;
+  }
+
+  /**
+   * Get the number of rollouts won.
+   *
+   * @return the number of wins.
+   */
+  public long getWins() {
+    return wins;
+  }
+
+  /**
+   * Get the probability of reaching the end alive.
+   *
+   * @return the win probability and its interval.
+   */
+  public ConfidenceInterval getWinProbability() {
+    return winProbability;
+  }
+
+  /**
+   * Get the expected number of turns to win.
+   *
+   * @return the mean turns of the won rollouts and its interval, or null if none was won.
+   */
+  public ConfidenceInterval getTurnsToWin() {
+    return turnsToWin;
+  }
+
+  /**
+   * Get the expected number of arrows needed to win.
+   *
+   * @return the mean arrows shot in the won rollouts and its interval, or null if none was won.
+   */
+  public ConfidenceInterval getArrowsToWin() {
+    return arrowsToWin;
+  }
+
+  @Override
+  public String toString() {
+    return "rollouts " + rollouts + ", win probability " + winProbability
+            + (wins == 0 ? "" : ", turns to win " + turnsToWin + ", arrows to win " + arrowsToWin);
+  }
+}
@@ -0,0 +1,124 @@
+package dungeon.simulation;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import dungeon.model.GameState;
+
+/**
+ * Estimates how hard a dungeon is before anybody plays it, by Monte Carlo: bots play many
+ * rollouts from its start, each on a copy of the game with a random number generator of its own,
+ * so the fights with wounded monsters go either way. The moves and shots are the game's own, so
+ * a rollout dies, kills and wins exactly as a player would.
+ *
+ * <p>Rollouts run in parallel on a fork-join pool and stop when the time budget runs out, so an
+ * estimate can gate a dungeon before it reaches players. Every rollout has its own seed, derived
+ * from the seed of the estimate and the number of the rollout.
+ */
+public class DifficultyEstimator {
+
+  private final Supplier<IBot> bots;
+  private final int maxTurns;
+
+  /**
+   * Constructor for an estimator.
+   *
+   * @param bots     creates the bot for each rollout.
+   * @param maxTurns the number of turns after which a rollout is abandoned, and counted lost.
+   */
+  public DifficultyEstimator(Supplier<IBot> bots, int maxTurns) {
+    if (bots == null) {
+      throw new IllegalArgumentException("Bots cannot be null");
+    }
+    if (maxTurns <= 0) {
+      throw new IllegalArgumentException("Maximum turns must be greater than 0");
+    }
+    this.bots = bots;
+    this.maxTurns = maxTurns;
+  }
+
+  /**
+   * Estimate the difficulty of a game from where it is. The game itself is not changed.
+   *
+   * @param game        the game.
+   * @param rollouts    the most rollouts to play.
+   * @param seed        the seed of the rollouts.
+   * @param budget      how long to play rollouts for; the rollouts in progress when it runs out
+   *                    are finished.
+   * @param parallelism the number of threads to play on.
+   * @return the estimate, from at least one rollout.
+   * @throws InterruptedException if interrupted while waiting for the rollouts.
+   */
+  public DifficultyEstimate estimate(GameState game, long rollouts, long seed, Duration budget,
+                                     int parallelism) throws InterruptedException {
+    if (game == null || budget == null) {
+      throw new IllegalArgumentException("Game and budget cannot be null");
+    }
+    if (rollouts <= 0 || parallelism <= 0) {
+      throw new IllegalArgumentException("Rollouts and parallelism must be positive");
+    }
+    if (budget.isNegative()) {
+      throw new IllegalArgumentException("Budget cannot be negative");
+    }
+    long deadline = System.nanoTime() + budget.toNanos();
+    Totals totals = new Totals();
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.submit(() -> LongStream.range(0, rollouts).parallel().forEach(rollout -> {
+        //The first rollout is always played, so there is an estimate
+        if (rollout > 0 && System.nanoTime() - deadline >= 0) {
+          return;
+        }
+        long rolloutSeed = Simulator.gameSeed(seed, rollout);
+        //Copying only reads the game, so every thread copies it at the same time
+        GameState copy = game.copy(new Random(rolloutSeed));
+        totals.add(Simulator.playOut(copy, bots.get(), new Random(~rolloutSeed), maxTurns));
+      })).get();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("A rollout failed", e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+    return totals.toEstimate();
+  }
+
+  /**
+   * The totals of the rollouts, added from many threads.
+   */
+  private static final class Totals {
+    private final LongAdder rollouts = new LongAdder();
+    private final LongAdder wins = new LongAdder();
+    private final LongAdder turns = new LongAdder();
+    private final LongAdder turnsSquared = new LongAdder();
+    private final LongAdder arrows = new LongAdder();
+    private final LongAdder arrowsSquared = new LongAdder();
+
+    private void add(GameResult result) {
+      rollouts.increment();
+      if (result.isWon()) {
+        wins.increment();
+        turns.add(result.getTurns());
+        turnsSquared.add((long) result.getTurns() * result.getTurns());
+        arrows.add(result.getArrowsUsed());
+        arrowsSquared.add((long) result.getArrowsUsed() * result.getArrowsUsed());
+      }
+    }
+
+    private DifficultyEstimate toEstimate() {
+      long played = rollouts.sum();
+      long won = wins.sum();
+      ConfidenceInterval winProbability = ConfidenceInterval.ofProportion(won, played);
+      if (won == 0) {
+        return new DifficultyEstimate(played, won, winProbability, null, null);
+      }
+      return new DifficultyEstimate(played, won, winProbability,
+              ConfidenceInterval.ofMean(won, turns.sum(), turnsSquared.sum()),
+              ConfidenceInterval.ofMean(won, arrows.sum(), arrowsSquared.sum()));
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package dungeon.simulation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import dungeon.factory.DungeonParameters;
+import dungeon.model.GameState;
+
+/**
+ * Finds the interconnectivity, treasure percentage and number of monsters giving a target win rate
+ * for a dungeon size, instead of tuning them by hand.
+ *
+ * <p>A parameter set is measured by bots playing rollouts of the dungeons of a fixed range of
+ * seeds, in parallel. The doors of a seed only depend on its interconnectivity, so they are
+ * generated once per interconnectivity and reused with every treasure percentage and number of
+ * monsters. The same seeds and rollout seeds are used for every parameter set, so two sets are
+ * compared on the same dungeons and the same luck.
+ *
+ * <p>For every interconnectivity and treasure percentage among the candidates, the number of
+ * monsters is found by bisection: more monsters never make a dungeon easier. The parameter set
+ * whose win rate is closest to the target wins.
+ */
+public class DifficultyTuner {
+
+  private final Supplier<IBot> bots;
+  private final int maxTurns;
+  private final int seeds;
+  private final int rolloutsPerSeed;
+
+  /**
+   * Constructor for a tuner.
+   *
+   * @param bots            creates the bot for each rollout.
+   * @param maxTurns        the number of turns after which a rollout is abandoned, and lost.
+   * @param seeds           the number of dungeons every parameter set is measured on.
+   * @param rolloutsPerSeed the number of rollouts played in every dungeon.
+   */
+  public DifficultyTuner(Supplier<IBot> bots, int maxTurns, int seeds, int rolloutsPerSeed) {
+    if (bots == null) {
+      throw new IllegalArgumentException("Bots cannot be null");
+    }
+    if (maxTurns <= 0 || seeds <= 0 || rolloutsPerSeed <= 0) {
+      throw new IllegalArgumentException("Turns, seeds and rollouts must be positive");
+    }
+    this.bots = bots;
+    this.maxTurns = maxTurns;
+    this.seeds = seeds;
+    this.rolloutsPerSeed = rolloutsPerSeed;
+  }
+
+  /**
+   * Find the parameters closest to a target win rate.
+   *
+   * @param dungeonHeight        the height of the dungeon.
+   * @param dungeonWidth         the width of the dungeon.
+   * @param dungeonType          wrapping or nonwrapping.
+   * @param targetWinRate        the win rate wanted, between 0 and 1.
+   * @param interConnectivities  the interconnectivities to try.
+   * @param treasurePercentages  the treasure percentages to try.
+   * @param maxMonsters          the most monsters to try, fewer if the dungeons have fewer caves.
+   * @param firstSeed            the first seed of the dungeons measured.
+   * @param parallelism          the number of threads to play on.
+   * @return the parameters found and the win rate measured with them.
+   * @throws InterruptedException if interrupted while waiting for the rollouts.
+   */
+  public TuningResult tune(int dungeonHeight, int dungeonWidth, String dungeonType,
+                           double targetWinRate, int[] interConnectivities,
+                           int[] treasurePercentages, int maxMonsters, long firstSeed,
+                           int parallelism) throws InterruptedException {
+    if (targetWinRate < 0 || targetWinRate > 1) {
+      throw new IllegalArgumentException("Target win rate must be between 0 and 1");
+    }
+    if (interConnectivities == null || interConnectivities.length == 0
+            || treasurePercentages == null || treasurePercentages.length == 0) {
+      throw new IllegalArgumentException("There must be candidates to try");
+    }
+    if (maxMonsters < 1 || parallelism <= 0) {
+      throw new IllegalArgumentException("Monsters and parallelism must be positive");
+    }
+    //Checks the size, type and candidates before anything is generated
+    for (int interConnectivity : interConnectivities) {
+      for (int treasurePercentage : treasurePercentages) {
+        new DungeonParameters(dungeonHeight, dungeonWidth, interConnectivity, dungeonType,
+                treasurePercentage, 1);
+      }
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      TuningResult best = null;
+      int evaluations = 0;
+      for (int interConnectivity : interConnectivities) {
+        byte[][] topologies = inPool(pool, () -> IntStream.range(0, seeds).parallel()
+                .mapToObj(seed -> new GameState(dungeonHeight, dungeonWidth, interConnectivity,
+                        dungeonType, 0, 1, firstSeed + seed).getDoors())
+                .toArray(byte[][]::new));
+        //A game has at most one monster less than caves, the start being kept free
+        int monsters = Math.min(maxMonsters, fewestCaves(topologies) - 1);
+
+        for (int treasurePercentage : treasurePercentages) {
+          Map<Integer, ConfidenceInterval> measured = new HashMap<>();
+          //The fewest monsters not above the target, or the most if none is
+          int low = 1;
+          int high = Math.max(1, monsters);
+          while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (measure(pool, measured, topologies, dungeonHeight, dungeonWidth, firstSeed,
+                    treasurePercentage, middle).getEstimate() <= targetWinRate) {
+              high = middle;
+            } else {
+              low = middle + 1;
+            }
+          }
+          //Either side of the target may be closer
+          for (int monsterCount = Math.max(1, low - 1); monsterCount <= low; monsterCount++) {
+            ConfidenceInterval winRate = measure(pool, measured, topologies, dungeonHeight,
+                    dungeonWidth, firstSeed, treasurePercentage, monsterCount);
+            if (best == null || Math.abs(winRate.getEstimate() - targetWinRate)
+                    < Math.abs(best.getWinRate().getEstimate() - targetWinRate)) {
+              best = new TuningResult(new DungeonParameters(dungeonHeight, dungeonWidth,
+                      interConnectivity, dungeonType, treasurePercentage, monsterCount),
+                      firstSeed, seeds, winRate, 1);
+            }
+          }
+          evaluations += measured.size();
+        }
+      }
+      return new TuningResult(best.getParameters(), firstSeed, seeds, best.getWinRate(),
+              evaluations);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private ConfidenceInterval measure(ForkJoinPool pool, Map<Integer, ConfidenceInterval> measured,
+                                     byte[][] topologies, int dungeonHeight, int dungeonWidth,
+                                     long firstSeed, int treasurePercentage, int monsterCount)
+          throws InterruptedException {
+    ConfidenceInterval winRate = measured.get(monsterCount);
+    if (winRate != null) {
+      return winRate;
+    }
+    LongAdder wins = new LongAdder();
+    inPool(pool, () -> {
+      IntStream.range(0, topologies.length).parallel().forEach(seed -> {
+        GameState game = new GameState(dungeonHeight, dungeonWidth, topologies[seed],
+                treasurePercentage, monsterCount, firstSeed + seed);
+        for (int rollout = 0; rollout < rolloutsPerSeed; rollout++) {
+          long rolloutSeed = Simulator.gameSeed(firstSeed + seed, rollout);
+          GameResult result = Simulator.playOut(game.copy(new Random(rolloutSeed)), bots.get(),
+                  new Random(~rolloutSeed), maxTurns);
+          if (result.isWon()) {
+            wins.increment();
+          }
+        }
+      });
+      return null;
+    });
+    winRate = ConfidenceInterval.ofProportion(wins.sum(), (long) seeds * rolloutsPerSeed);
+    measured.put(monsterCount, winRate);
+    return winRate;
+  }
+
+  private static int fewestCaves(byte[][] topologies) {
+    int fewest = Integer.MAX_VALUE;
+    for (byte[] doors : topologies) {
+      int caves = 0;
+      for (byte door : doors) {
+        if (Integer.bitCount(door) != 2) {
+          caves++;
+        }
+      }
+      fewest = Math.min(fewest, caves);
+    }
+    return fewest;
+  }
+
+  private static <T> T inPool(ForkJoinPool pool, Callable<T> task) throws InterruptedException {
+    try {
+      return pool.submit(task).get();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("A rollout failed", e.getCause());
+    }
+  }
+}
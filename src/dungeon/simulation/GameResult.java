@@ -0,0 +1,89 @@
+package dungeon.simulation;
+
+/**
+ * The outcome of one simulated game.
+ */
+public class GameResult {
+
+  private final boolean won;
+  private final boolean eaten;
+  private final int turns;
+  private final int arrowsUsed;
+  private final int treasureCollected;
+
+  /**
+   * Constructor for a game result.
+   *
+   * @param won               whether the player reached the end alive.
+   * @param eaten             whether the player was eaten by an Otyugh.
+   * @param turns             the number of commands played.
+   * @param arrowsUsed        the number of arrows shot.
+   * @param treasureCollected the number of diamonds, rubies and sapphires picked up.
+   */
+  public GameResult(boolean won, boolean eaten, int turns, int arrowsUsed,
+                    int treasureCollected) {
+    if (won && eaten) {
+      throw new IllegalArgumentException("A game cannot be both won and lost");
+    }
+    if (turns < 0 || arrowsUsed < 0 || treasureCollected < 0) {
+      throw new IllegalArgumentException("Counts cannot be negative");
+    }
+    this.won = won;
+    this.eaten = eaten;
+    this.turns = turns;
+    this.arrowsUsed = arrowsUsed;
+    this.treasureCollected = treasureCollected;
+  }
+
+  /**
+   * Get if the player reached the end alive.
+   *
+   * @return true if the game was won, false otherwise.
+   */
+  public boolean isWon() {
+    return won;
+  }
+
+  /**
+   * Get if the player was eaten by an Otyugh.
+   *
+   * @return true if the player died, false otherwise.
+   */
+  public boolean isEaten() {
+    return eaten;
+  }
+
+  /**
+   * Get the number of commands played.
+   *
+   * @return the number of turns.
+   */
+  public int getTurns() {
+    return turns;
+  }
+
+  /**
+   * Get the number of arrows shot.
+   *
+   * @return the number of arrows used.
+   */
+  public int getArrowsUsed() {
+    return arrowsUsed;
+  }
+
+  /**
+   * Get the number of diamonds, rubies and sapphires picked up.
+   *
+   * @return the treasure collected.
+   */
+  public int getTreasureCollected() {
+    return treasureCollected;
+  }
+
+  @Override
+  public String toString() {
+    String outcome = won ? "won" : eaten ? "eaten" : "unfinished";
+    return String.format("%s after %d turns, %d arrows used, %d treasure collected", outcome,
+            turns, arrowsUsed, treasureCollected);
+  }
+}
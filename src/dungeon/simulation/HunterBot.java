@@ -0,0 +1,40 @@
+package dungeon.simulation;
+
+import java.util.List;
+import java.util.Random;
+
+import dungeon.controller.commands.ICommand;
+import dungeon.controller.commands.Shoot;
+import dungeon.model.IGameState;
+import dungeon.model.directions.Direction;
+import dungeon.model.treasure.TreasureType;
+
+/**
+ * A bot that plays like {@link RandomBot}, but shoots through a random door when it smells a
+ * monster close by and still has arrows.
+ */
+public class HunterBot implements IBot {
+
+  private final IBot walker;
+
+  /**
+   * Constructor for the hunter bot.
+   */
+  public HunterBot() {
+    this.walker = new RandomBot();
+  }
+
+  @Override
+  public ICommand nextCommand(IGameState model, Random random) {
+    if (model == null || random == null) {
+      throw new IllegalArgumentException("Model and random cannot be null");
+    }
+    Integer arrows = model.getPlayer().getTreasures().get(TreasureType.ARROWS);
+    if (arrows != null && arrows > 0
+            && model.getPlayerCurrentLocationStatus().startsWith("You smell something terrible")) {
+      List<Direction> doors = model.getAvailableDirectionsFromPlayerPosition();
+      return new Shoot(doors.get(random.nextInt(doors.size())), 1);
+    }
+    return walker.nextCommand(model, random);
+  }
+}
@@ -0,0 +1,22 @@
+package dungeon.simulation;
+
+import java.util.Random;
+
+import dungeon.controller.commands.ICommand;
+import dungeon.model.IGameState;
+
+/**
+ * A strategy that plays the game without a person, one command at a time. A bot is used for a
+ * single game, so it can keep state between commands.
+ */
+public interface IBot {
+
+  /**
+   * Choose the next command for the player of the game.
+   *
+   * @param model  the game being played.
+   * @param random the random function the bot should use for its choices.
+   * @return the command to play, or null to quit the game.
+   */
+  ICommand nextCommand(IGameState model, Random random);
+}
@@ -0,0 +1,63 @@
+package dungeon.simulation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import dungeon.controller.commands.ICommand;
+import dungeon.controller.commands.Move;
+import dungeon.controller.commands.Pick;
+import dungeon.model.ICellGameState;
+import dungeon.model.IGameState;
+import dungeon.model.directions.Direction;
+import dungeon.model.treasure.ITreasure;
+import dungeon.model.treasure.TreasureType;
+
+/**
+ * A bot that picks up everything it finds and otherwise walks through a random door.
+ */
+public class RandomBot implements IBot {
+
+  //values() returns a new array on every call
+  private static final TreasureType[] TREASURE_TYPES = TreasureType.values();
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  @Override
+  public ICommand nextCommand(IGameState model, Random random) {
+    if (model == null || random == null) {
+      throw new IllegalArgumentException("Model and random cannot be null");
+    }
+    if (model instanceof ICellGameState) {
+      return nextCommand((ICellGameState) model, random);
+    }
+    ITreasure treasure = model.getPlayer().getCurrentLocation().getTreasure();
+    if (treasure != null) {
+      for (Map.Entry<TreasureType, Integer> entry : treasure.getTreasure().entrySet()) {
+        if (entry.getValue() > 0) {
+          return new Pick(entry.getKey());
+        }
+      }
+    }
+    List<Direction> doors = model.getAvailableDirectionsFromPlayerPosition();
+    return new Move(doors.get(random.nextInt(doors.size())));
+  }
+
+  /**
+   * The same choice by cell id, without creating a location, treasure or list.
+   */
+  private ICommand nextCommand(ICellGameState model, Random random) {
+    int cellId = model.getCurrentCell();
+    for (TreasureType treasureType : TREASURE_TYPES) {
+      if (model.getTreasureCount(cellId, treasureType) > 0) {
+        return new Pick(treasureType);
+      }
+    }
+    //The doors in the order of the directions, as the list of available directions has them
+    int doors = model.getDoorMask(cellId);
+    int door = random.nextInt(Integer.bitCount(doors));
+    for (int i = 0; i < door; i++) {
+      doors &= doors - 1;
+    }
+    return new Move(DIRECTIONS[Integer.numberOfTrailingZeros(doors)]);
+  }
+}
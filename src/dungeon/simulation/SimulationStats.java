@@ -0,0 +1,125 @@
+package dungeon.simulation;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totals over many simulated games. Games can be added from many threads at once; while a run is
+ * in progress the totals read are a recent, not necessarily consistent, view.
+ */
+public class SimulationStats {
+
+  private final LongAdder games;
+  private final LongAdder wins;
+  private final LongAdder deaths;
+  private final LongAdder turns;
+  private final LongAdder arrowsUsed;
+  private final LongAdder treasureCollected;
+
+  /**
+   * Constructor for empty totals.
+   */
+  public SimulationStats() {
+    this.games = new LongAdder();
+    this.wins = new LongAdder();
+    this.deaths = new LongAdder();
+    this.turns = new LongAdder();
+    this.arrowsUsed = new LongAdder();
+    this.treasureCollected = new LongAdder();
+  }
+
+  /**
+   * Add the result of a game to the totals.
+   *
+   * @param result the result to add.
+   */
+  public void add(GameResult result) {
+    if (result == null) {
+      throw new IllegalArgumentException("Result cannot be null");
+    }
+    if (result.isWon()) {
+      wins.increment();
+    }
+    if (result.isEaten()) {
+      deaths.increment();
+    }
+    turns.add(result.getTurns());
+    arrowsUsed.add(result.getArrowsUsed());
+    treasureCollected.add(result.getTreasureCollected());
+    //Counted last, so a reader never sees more games than their results
+    games.increment();
+  }
+
+  /**
+   * Get the number of games played.
+   *
+   * @return the number of games.
+   */
+  public long getGames() {
+    return games.sum();
+  }
+
+  /**
+   * Get the number of games won.
+   *
+   * @return the number of wins.
+   */
+  public long getWins() {
+    return wins.sum();
+  }
+
+  /**
+   * Get the number of games where the player was eaten by an Otyugh.
+   *
+   * @return the number of deaths.
+   */
+  public long getDeaths() {
+    return deaths.sum();
+  }
+
+  /**
+   * Get the total number of turns over all games.
+   *
+   * @return the number of turns.
+   */
+  public long getTurns() {
+    return turns.sum();
+  }
+
+  /**
+   * Get the total number of arrows shot over all games.
+   *
+   * @return the number of arrows used.
+   */
+  public long getArrowsUsed() {
+    return arrowsUsed.sum();
+  }
+
+  /**
+   * Get the total treasure picked up over all games.
+   *
+   * @return the treasure collected.
+   */
+  public long getTreasureCollected() {
+    return treasureCollected.sum();
+  }
+
+  /**
+   * Get the fraction of games won.
+   *
+   * @return the win rate between 0 and 1, 0 if no game was played.
+   */
+  public double getWinRate() {
+    long played = getGames();
+    return played == 0 ? 0 : (double) getWins() / played;
+  }
+
+  @Override
+  public String toString() {
+    long played = Math.max(1, getGames());
+    return String.format("games %d, won %.2f%%, eaten %.2f%%, per game: %.2f turns, "
+                    + "%.2f arrows used, %.2f treasure collected", getGames(),
+            100.0 * getWins() / played, 100.0 * getDeaths() / played,
+            (double) getTurns() / played, (double) getArrowsUsed() / played,
+            (double) getTreasureCollected() / played);
+  }
+}
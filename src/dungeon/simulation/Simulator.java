@@ -0,0 +1,168 @@
+package dungeon.simulation;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import dungeon.controller.commands.ICommand;
+import dungeon.controller.commands.Shoot;
+import dungeon.model.GameState;
+import dungeon.model.IGameState;
+import dungeon.model.treasure.TreasureType;
+
+/**
+ * Plays many games without a person, each driven by a bot through the same commands the
+ * controller uses. Games run in parallel on a fork-join pool. Every game has its own seed, derived
+ * from the seed of the run and the number of the game, so a run gives the same totals whatever the
+ * number of threads.
+ */
+public class Simulator {
+
+  private final int dungeonHeight;
+  private final int dungeonWidth;
+  private final int interConnectivity;
+  private final String dungeonType;
+  private final int treasurePercentage;
+  private final int monsterCount;
+  private final Supplier<IBot> bots;
+  private final int maxTurns;
+
+  /**
+   * Constructor for a simulator. The dungeon attributes are the same as for {@link GameState}.
+   *
+   * @param dungeonHeight      the height of every dungeon.
+   * @param dungeonWidth       the width of every dungeon.
+   * @param interConnectivity  the interconnectivity of every dungeon.
+   * @param dungeonType        wrapping or nonwrapping.
+   * @param treasurePercentage the percentage of caves with treasure.
+   * @param monsterCount       the number of monsters in every dungeon.
+   * @param bots               creates the bot for each game.
+   * @param maxTurns           the number of turns after which a game is abandoned.
+   */
+  public Simulator(int dungeonHeight, int dungeonWidth, int interConnectivity,
+                   String dungeonType, int treasurePercentage, int monsterCount,
+                   Supplier<IBot> bots, int maxTurns) {
+    if (bots == null) {
+      throw new IllegalArgumentException("Bots cannot be null");
+    }
+    if (maxTurns <= 0) {
+      throw new IllegalArgumentException("Maximum turns must be greater than 0");
+    }
+    this.dungeonHeight = dungeonHeight;
+    this.dungeonWidth = dungeonWidth;
+    this.interConnectivity = interConnectivity;
+    this.dungeonType = dungeonType;
+    this.treasurePercentage = treasurePercentage;
+    this.monsterCount = monsterCount;
+    this.bots = bots;
+    this.maxTurns = maxTurns;
+  }
+
+  /**
+   * Play a number of games in parallel. The progress listener is called with the totals so far
+   * every time another batch of games is done; it is called from the worker threads, but never by
+   * two of them at once.
+   *
+   * @param games       the number of games to play.
+   * @param seed        the seed of the run.
+   * @param parallelism the number of threads to play on.
+   * @param reportEvery the number of games between two progress reports.
+   * @param progress    the progress listener, or null for none.
+   * @return the totals of all the games.
+   * @throws InterruptedException if interrupted while waiting for the games.
+   */
+  public SimulationStats run(long games, long seed, int parallelism, long reportEvery,
+                             Consumer<SimulationStats> progress) throws InterruptedException {
+    if (games < 0) {
+      throw new IllegalArgumentException("Number of games cannot be negative");
+    }
+    if (parallelism <= 0 || reportEvery <= 0) {
+      throw new IllegalArgumentException("Parallelism and report interval must be positive");
+    }
+    SimulationStats stats = new SimulationStats();
+    AtomicLong finished = new AtomicLong();
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.submit(() -> LongStream.range(0, games).parallel().forEach(game -> {
+        stats.add(play(gameSeed(seed, game)));
+        if (progress != null && finished.incrementAndGet() % reportEvery == 0) {
+          synchronized (progress) {
+            progress.accept(stats);
+          }
+        }
+      })).get();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("A simulated game failed", e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+    return stats;
+  }
+
+  /**
+   * Play one game with its own seed.
+   *
+   * @param gameSeed the seed of the dungeon and of the bot.
+   * @return the result of the game.
+   */
+  public GameResult play(long gameSeed) {
+    IGameState model = new GameState(dungeonHeight, dungeonWidth, interConnectivity,
+            dungeonType, treasurePercentage, monsterCount, gameSeed);
+    return playOut(model, bots.get(), new Random(~gameSeed), maxTurns);
+  }
+
+  /**
+   * Let a bot play a game until it is over, the bot gives up or the turns run out.
+   *
+   * @param model     the game, played from where it is.
+   * @param bot       the bot.
+   * @param botRandom the random number generator of the bot.
+   * @param maxTurns  the number of turns after which the game is abandoned.
+   * @return the result of the game.
+   */
+  static GameResult playOut(IGameState model, IBot bot, Random botRandom, int maxTurns) {
+    int turns = 0;
+    int arrowsUsed = 0;
+    while (!model.isGameOver() && turns < maxTurns) {
+      ICommand command = bot.nextCommand(model, botRandom);
+      if (command == null) {
+        break;
+      }
+      turns++;
+      try {
+        command.playGame(model);
+        if (command instanceof Shoot) {
+          arrowsUsed++;
+        }
+      } catch (IllegalArgumentException | IllegalStateException e) {
+        //Same as the controller, a command that cannot be done only wastes the turn
+      }
+    }
+
+    int treasureCollected = 0;
+    for (Map.Entry<TreasureType, Integer> entry : model.getPlayer().getTreasures().entrySet()) {
+      if (entry.getKey() != TreasureType.ARROWS) {
+        treasureCollected += entry.getValue();
+      }
+    }
+    boolean eaten = !model.getPlayer().isAlive();
+    return new GameResult(model.isGameOver() && !eaten, eaten, turns, arrowsUsed,
+            treasureCollected);
+  }
+
+  /**
+   * Spread consecutive game numbers over the whole range of seeds.
+   *
+   * @param seed the seed of the run.
+   * @param game the number of the game.
+   * @return the seed of the game.
+   */
+  static long gameSeed(long seed, long game) {
+    return seed + game * 0x9E3779B97F4A7C15L;
+  }
+}
@@ -0,0 +1,92 @@
+package dungeon.simulation;
+
+import dungeon.factory.DungeonParameters;
+
+/**
+ * The parameters a tuning found closest to its target win rate, with the seeds they were measured
+ * on and the win rate measured.
+ */
+public final class TuningResult {
+
+  private final DungeonParameters parameters;
+  private final long firstSeed;
+  private final int seedCount;
+  private final ConfidenceInterval winRate;
+  private final int evaluations;
+
+  /**
+   * Constructor for the result of a tuning.
+   *
+   * @param parameters  the parameters found.
+   * @param firstSeed   the first seed they were measured on.
+   * @param seedCount   the number of consecutive seeds they were measured on.
+   * @param winRate     the win rate measured on those seeds.
+   * @param evaluations the number of parameter sets measured during the tuning.
+   */
+  public TuningResult(DungeonParameters parameters, long firstSeed, int seedCount,
+                      ConfidenceInterval winRate, int evaluations) {
+    if (parameters == null || winRate == null) {
+      throw new IllegalArgumentException("Parameters and win rate cannot be null");
+    }
+    if (seedCount <= 0 || evaluations <= 0) {
+      throw new IllegalArgumentException("Seeds and evaluations must be positive");
+    }
+    this.parameters = parameters;
+    this.firstSeed = firstSeed;
+    this.seedCount = seedCount;
+    this.winRate = winRate;
+    this.evaluations = evaluations;
+  }
+
+  /**
+   * Get the parameters found.
+   *
+   * @return the parameters.
+   */
+  public DungeonParameters getParameters() {
+    return parameters;
+  }
+
+  /**
+   * Get the first seed the parameters were measured on.
+   *
+   * @return the first seed.
+   */
+  public long getFirstSeed() {
+    return firstSeed;
+  }
+
+  /**
+   * Get the number of consecutive seeds the parameters were measured on. The dungeons of these
+   * seeds are {@code getParameters().generate(seed)}.
+   *
+   * @return the number of seeds.
+   */
+  public int getSeedCount() {
+    return seedCount;
+  }
+
+  /**
+   * Get the win rate measured with the parameters.
+   *
+   * @return the win rate and its interval.
+   */
+  public ConfidenceInterval getWinRate() {
+    return winRate;
+  }
+
+  /**
+   * Get the number of parameter sets measured during the tuning.
+   *
+   * @return the number of evaluations.
+   */
+  public int getEvaluations() {
+    return evaluations;
+  }
+
+  @Override
+  public String toString() {
+    return parameters + " on seeds " + firstSeed + " to " + (firstSeed + seedCount - 1)
+            + ", win rate " + winRate + " after " + evaluations + " evaluations";
+  }
+}
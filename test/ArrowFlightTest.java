@@ -0,0 +1,187 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import dungeon.model.GameSnapshot;
+import dungeon.model.GameState;
+import dungeon.model.arrow.Arrows;
+import dungeon.model.arrow.IArrowBehaviour;
+import dungeon.model.arrow.IArrowTerrain;
+import dungeon.model.character.Player;
+import dungeon.model.directions.Direction;
+import dungeon.model.location.ILocation;
+import dungeon.model.location.Location;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the arrow flight and the arrow behaviours.
+ */
+public class ArrowFlightTest {
+
+  private final Random random = new Random(7);
+
+  @Test
+  public void testLongCorridorDoesNotOverflowTheStack() {
+    int length = 200000;
+    ILocation[] corridor = new ILocation[length];
+    for (int col = 0; col < length; col++) {
+      corridor[col] = new Location(0, col, random);
+      if (col > 0) {
+        joinEast(corridor[col - 1], corridor[col]);
+      }
+    }
+    corridor[length - 1].setMonster();
+    Player player = player(corridor[0]);
+    player.shootArrow(Direction.EAST, 1);
+    assertEquals(50, corridor[length - 1].getMonster().getHealth());
+  }
+
+  @Test
+  public void testStandardHitsOnlyTheLastCave() {
+    ILocation[] caves = comb(7);
+    Player player = player(caves[1]);
+    player.shootArrow(Direction.EAST, 3);
+    assertEquals(100, caves[2].getMonster().getHealth());
+    assertEquals(100, caves[3].getMonster().getHealth());
+    assertEquals(50, caves[4].getMonster().getHealth());
+  }
+
+  @Test
+  public void testPiercingHitsEveryCave() {
+    ILocation[] caves = comb(7);
+    Player player = player(caves[1]);
+    player.shootArrow(Direction.EAST, 3, Arrows.PIERCING);
+    assertEquals(50, caves[2].getMonster().getHealth());
+    assertEquals(50, caves[3].getMonster().getHealth());
+    assertEquals(50, caves[4].getMonster().getHealth());
+    assertEquals(100, caves[5].getMonster().getHealth());
+  }
+
+  @Test
+  public void testPlayerShootsAgainInAnotherDungeon() {
+    ILocation[] first = comb(7);
+    ILocation[] second = comb(7);
+    Player player = player(first[1]);
+    player.shootArrow(Direction.EAST, 3);
+    player.setCurrentLocation(second[1]);
+    player.shootArrow(Direction.EAST, 2);
+    assertEquals(50, first[4].getMonster().getHealth());
+    assertEquals(100, second[2].getMonster().getHealth());
+    assertEquals(50, second[3].getMonster().getHealth());
+    assertEquals(100, second[4].getMonster().getHealth());
+  }
+
+  @Test
+  public void testRicochetTurnsAtAWall() {
+    ILocation start = new Location(1, 0, random);
+    ILocation corner = new Location(1, 1, random);
+    ILocation north = new Location(0, 1, random);
+    ILocation south = new Location(2, 1, random);
+    joinEast(start, corner);
+    joinSouth(north, corner);
+    joinSouth(corner, south);
+    south.setMonster();
+    north.setMonster();
+
+    player(start).shootArrow(Direction.EAST, 2);
+    assertEquals(100, south.getMonster().getHealth());
+    player(start).shootArrow(Direction.EAST, 2, Arrows.RICOCHET);
+    //Right of east is south
+    assertEquals(50, south.getMonster().getHealth());
+    assertEquals(100, north.getMonster().getHealth());
+  }
+
+  @Test
+  public void testCustomBehaviourFliesLikeTheCaveGraph() {
+    //The same as the standard arrow, but not it, so the dungeon flies it location by location
+    IArrowBehaviour standard = new IArrowBehaviour() {
+      @Override
+      public boolean enterCave(IArrowTerrain terrain, int cave, int remaining) {
+        return Arrows.STANDARD.enterCave(terrain, cave, remaining);
+      }
+
+      @Override
+      public Direction hitWall(IArrowTerrain terrain, int cave, Direction heading) {
+        return Arrows.STANDARD.hitWall(terrain, cave, heading);
+      }
+    };
+    for (int seed = 0; seed < 12; seed++) {
+      GameState game = new GameState(12, 12, seed % 5, seed % 2 == 0 ? "wrapping" : "nonwrapping",
+              20, 50, seed);
+      Random walk = new Random(seed);
+      for (int step = 0; step < 20; step++) {
+        for (Direction direction : game.getAvailableDirectionsFromPlayerPosition()) {
+          for (int distance = 1; distance <= 7; distance++) {
+            GameState graph = game.copy(new Random(seed));
+            graph.shootArrow(direction, distance);
+            GameState flown = game.copy(new Random(seed));
+            flown.shootArrow(direction, distance, standard);
+            assertArrayEquals(GameSnapshot.toBytes(graph), GameSnapshot.toBytes(flown));
+          }
+        }
+        List<Direction> directions = game.getAvailableDirectionsFromPlayerPosition();
+        game.movePlayer(directions.get(walk.nextInt(directions.size())));
+      }
+    }
+  }
+
+  @Test
+  public void testPiercingInADungeon() {
+    GameState game = new GameState(15, 15, 10, "wrapping", 20, 1000000, 3);
+    boolean differs = false;
+    for (Direction direction : game.getAvailableDirectionsFromPlayerPosition()) {
+      GameState standard = game.copy(new Random(1));
+      standard.shootArrow(direction, 5);
+      GameState piercing = game.copy(new Random(1));
+      piercing.shootArrow(direction, 5, Arrows.PIERCING);
+      differs |= !Arrays.equals(GameSnapshot.toBytes(standard), GameSnapshot.toBytes(piercing));
+    }
+    assertTrue(differs);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullBehaviour() {
+    GameState game = new GameState(8, 8, 0, "nonwrapping", 20, 3, 4);
+    game.shootArrow(game.getAvailableDirectionsFromPlayerPosition().get(0), 1, null);
+  }
+
+  /**
+   * A row of caves from (0, 0), each with a dead end to its south and a monster from the third
+   * on.
+   */
+  private ILocation[] comb(int length) {
+    ILocation[] caves = new ILocation[length];
+    for (int col = 0; col < length; col++) {
+      caves[col] = new Location(0, col, random);
+      joinSouth(caves[col], new Location(1, col, random));
+      if (col >= 2) {
+        caves[col].setMonster();
+      }
+      if (col > 0) {
+        joinEast(caves[col - 1], caves[col]);
+      }
+    }
+    return caves;
+  }
+
+  private Player player(ILocation location) {
+    Player player = new Player("Archer", random);
+    player.setCurrentLocation(location);
+    return player;
+  }
+
+  private static void joinEast(ILocation west, ILocation east) {
+    west.joinLocationToEastDirection(east);
+    east.joinLocationToWestDirection(west);
+  }
+
+  private static void joinSouth(ILocation north, ILocation south) {
+    north.joinLocationToSouthDirection(south);
+    south.joinLocationToNorthDirection(north);
+  }
+}
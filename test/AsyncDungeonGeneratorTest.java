@@ -0,0 +1,153 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import dungeon.factory.AsyncDungeonGenerator;
+import dungeon.factory.DungeonParameters;
+import dungeon.model.GameSnapshot;
+import dungeon.model.GenerationPhase;
+import dungeon.model.IGameState;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests generating games asynchronously, with progress, cancellation and time budgets.
+ */
+public class AsyncDungeonGeneratorTest {
+
+  private DungeonParameters parameters;
+  private ExecutorService executor;
+  private AsyncDungeonGenerator generator;
+
+  @Before
+  public void setUp() {
+    parameters = new DungeonParameters(20, 20, 5, "wrapping", 30, 6);
+    executor = Executors.newSingleThreadExecutor();
+    generator = new AsyncDungeonGenerator(executor);
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    executor.shutdownNow();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullExecutor() {
+    new AsyncDungeonGenerator(null);
+  }
+
+  @Test
+  public void testSameGameAsGeneratedDirectly() throws Exception {
+    IGameState game = generator.generate(parameters, 99, null, null).get(10, TimeUnit.SECONDS);
+    assertArrayEquals(GameSnapshot.toBytes(parameters.generate(99)), GameSnapshot.toBytes(game));
+  }
+
+  @Test
+  public void testPhasesReportedInOrder() throws Exception {
+    List<GenerationPhase> phases = Collections.synchronizedList(new ArrayList<>());
+    List<Boolean> finished = Collections.synchronizedList(new ArrayList<>());
+    generator.generate(parameters, 99, Duration.ofSeconds(10), (phase, done, total) -> {
+      assertTrue(done >= 0 && done <= total);
+      if (phases.isEmpty() || phases.get(phases.size() - 1) != phase) {
+        phases.add(phase);
+        finished.add(false);
+      }
+      finished.set(finished.size() - 1, done == total);
+    }).get(10, TimeUnit.SECONDS);
+    assertEquals(List.of(GenerationPhase.values()), phases);
+    assertFalse(finished.contains(false));
+  }
+
+  @Test
+  public void testCancelledBeforeStarting() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute(() -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    List<GenerationPhase> phases = Collections.synchronizedList(new ArrayList<>());
+    CompletableFuture<IGameState> game = generator.generate(parameters, 99, null,
+            (phase, done, total) -> phases.add(phase));
+    game.cancel(false);
+    release.countDown();
+    //Wait for the generation task to have run
+    executor.submit(() -> { }).get(10, TimeUnit.SECONDS);
+    assertTrue(game.isCancelled());
+    assertTrue(phases.isEmpty());
+  }
+
+  @Test
+  public void testCancelledWhileGenerating() throws Exception {
+    List<GenerationPhase> phases = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch cancelled = new CountDownLatch(1);
+    CompletableFuture<IGameState> game = generator.generate(parameters, 99, null,
+            (phase, done, total) -> {
+              phases.add(phase);
+              if (phase == GenerationPhase.SPANNING_TREE) {
+                //Hold the generation until it is cancelled
+                started.countDown();
+                try {
+                  cancelled.await();
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+              }
+            });
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    game.cancel(false);
+    cancelled.countDown();
+    executor.submit(() -> { }).get(10, TimeUnit.SECONDS);
+    assertTrue(game.isCancelled());
+    assertFalse(phases.contains(GenerationPhase.MONSTERS));
+  }
+
+  @Test
+  public void testBudgetRunsOut() throws Exception {
+    DungeonParameters big = new DungeonParameters(1000, 1000, 0, "nonwrapping", 20, 50);
+    List<GenerationPhase> phases = Collections.synchronizedList(new ArrayList<>());
+    CompletableFuture<IGameState> game = generator.generate(big, 99, Duration.ofMillis(1),
+            (phase, done, total) -> phases.add(phase));
+    try {
+      game.get(10, TimeUnit.SECONDS);
+      fail("The generation should have run out of time");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TimeoutException);
+    }
+    executor.submit(() -> { }).get(10, TimeUnit.SECONDS);
+    assertFalse(phases.contains(GenerationPhase.MONSTERS));
+  }
+
+  @Test
+  public void testRejectedGeneration() throws Exception {
+    executor.shutdown();
+    CompletableFuture<IGameState> game = generator.generate(parameters, 99, null, null);
+    try {
+      game.get(10, TimeUnit.SECONDS);
+      fail("The generation should have been rejected");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+  }
+}
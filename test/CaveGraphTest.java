@@ -0,0 +1,187 @@
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import dungeon.model.DungeonFeatures;
+import dungeon.model.GameSnapshot;
+import dungeon.model.GameState;
+import dungeon.model.IDungeonView;
+import dungeon.model.character.Player;
+import dungeon.model.directions.Direction;
+import dungeon.model.location.ILocation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests flying arrows over the cave graph against the player flying them one location at a time.
+ */
+public class CaveGraphTest {
+
+  @Test
+  public void testArrowsMatchTheLocationByLocationFlight() {
+    String[] types = {"wrapping", "nonwrapping"};
+    for (int seed = 0; seed < 24; seed++) {
+      GameState game = new GameState(12, 15, seed % 6, types[seed % 2], 30, 40, seed);
+      Random walk = new Random(seed);
+      for (int step = 0; step < 30; step++) {
+        for (Direction direction : game.getAvailableDirectionsFromPlayerPosition()) {
+          for (int distance = 1; distance <= 7; distance++) {
+            GameState legacy = game.copy(new Random(seed));
+            ((Player) legacy.getPlayer()).shootArrow(direction, distance);
+            GameState graph = game.copy(new Random(seed));
+            graph.shootArrow(direction, distance);
+            assertArrayEquals("seed " + seed + ", step " + step + ", " + direction + " " + distance,
+                    GameSnapshot.toBytes(legacy), GameSnapshot.toBytes(graph));
+          }
+        }
+        List<Direction> directions = game.getAvailableDirectionsFromPlayerPosition();
+        game.movePlayer(directions.get(walk.nextInt(directions.size())));
+      }
+    }
+  }
+
+  @Test
+  public void testArrowsHitTwiceFromTheSameCave() {
+    GameState game = new GameState(20, 20, 8, "wrapping", 20, 100, 3);
+    for (Direction direction : game.getAvailableDirectionsFromPlayerPosition()) {
+      GameState legacy = game.copy(new Random(1));
+      GameState graph = game.copy(new Random(1));
+      for (int shot = 0; shot < 3; shot++) {
+        ((Player) legacy.getPlayer()).shootArrow(direction, 1);
+        graph.shootArrow(direction, 1);
+      }
+      assertArrayEquals(GameSnapshot.toBytes(legacy), GameSnapshot.toBytes(graph));
+    }
+  }
+
+  @Test
+  public void testCopiesShareTheFlight() {
+    GameState game = new GameState(10, 10, 4, "nonwrapping", 20, 30, 11);
+    Direction direction = game.getAvailableDirectionsFromPlayerPosition().get(0);
+    game.shootArrow(direction, 1);
+    GameState copy = game.copy(new Random(2));
+    GameState again = game.copy(new Random(2));
+    copy.shootArrow(direction, 1);
+    ((Player) again.getPlayer()).shootArrow(direction, 1);
+    assertArrayEquals(GameSnapshot.toBytes(again), GameSnapshot.toBytes(copy));
+  }
+
+  @Test
+  public void testLandingsMatchTheShots() {
+    for (int seed = 0; seed < 16; seed++) {
+      //A monster in every cave but the start, so every landing shows
+      GameState game = new GameState(10, 12, seed % 4, seed % 2 == 0 ? "wrapping" : "nonwrapping",
+              20, 1000000, seed);
+      Random walk = new Random(seed);
+      for (int step = 0; step < 25; step++) {
+        for (Direction direction : game.getAvailableDirectionsFromPlayerPosition()) {
+          for (int distance = 1; distance <= 7; distance++) {
+            ILocation landing = game.getArrowLanding(direction, distance);
+            GameState shot = game.copy(new Random(seed));
+            ((Player) shot.getPlayer()).shootArrow(direction, distance);
+            ILocation hit = hitLocation(game, shot);
+            if (hit == null) {
+              assertTrue(landing == null || landing.getMonster() == null
+                      || landing.getMonster().getHealth() == 0);
+            } else {
+              assertEquals(key(hit), key(landing));
+            }
+          }
+        }
+        List<Direction> directions = game.getAvailableDirectionsFromPlayerPosition();
+        game.movePlayer(directions.get(walk.nextInt(directions.size())));
+      }
+    }
+  }
+
+  @Test
+  public void testLandingsAreTheSameInEveryGameOfASeed() {
+    GameState first = new GameState(14, 14, 6, "wrapping", 20, 10, 21);
+    GameState second = new GameState(14, 14, 6, "wrapping", 50, 3, 21);
+    for (Direction direction : first.getAvailableDirectionsFromPlayerPosition()) {
+      for (int distance = 1; distance <= 5; distance++) {
+        ILocation one = first.getArrowLanding(direction, distance);
+        ILocation two = second.getArrowLanding(direction, distance);
+        assertEquals(one == null ? null : key(one), two == null ? null : key(two));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testLandingThroughAWall() {
+    GameState game = new GameState(8, 8, 0, "nonwrapping", 20, 3, 4);
+    for (Direction direction : Direction.values()) {
+      if (!game.getAvailableDirectionsFromPlayerPosition().contains(direction)) {
+        game.getArrowLanding(direction, 1);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testLandingAtNoDistance() {
+    GameState game = new GameState(8, 8, 0, "nonwrapping", 20, 3, 4);
+    game.getArrowLanding(game.getAvailableDirectionsFromPlayerPosition().get(0), 0);
+  }
+
+  @Test
+  public void testFeaturesFromTheCaves() {
+    for (int seed = 0; seed < 20; seed++) {
+      GameState game = new GameState(15, 18, seed % 5, seed % 2 == 0 ? "wrapping" : "nonwrapping",
+              60, 5, seed);
+      DungeonFeatures features = DungeonFeatures.of(game);
+      assertEquals(movesToEnd(game), features.getStartEndDistance());
+      assertTrue(features.getTreasureCavesBeforeExit() <= features.getTreasureCaveCount());
+    }
+  }
+
+  private static int movesToEnd(GameState game) {
+    ILocation start = game.getPlayerStartLocation();
+    ILocation end = game.getPlayerEndLocation();
+    Map<String, Integer> distances = new HashMap<>();
+    ArrayDeque<ILocation> queue = new ArrayDeque<>();
+    distances.put(key(start), 0);
+    queue.add(start);
+    while (!queue.isEmpty()) {
+      ILocation location = queue.poll();
+      int distance = distances.get(key(location));
+      if (key(location).equals(key(end))) {
+        return distance;
+      }
+      for (ILocation neighbour : location.getNeighbours().values()) {
+        if (!distances.containsKey(key(neighbour))) {
+          distances.put(key(neighbour), distance + 1);
+          queue.add(neighbour);
+        }
+      }
+    }
+    return -1;
+  }
+
+  private static ILocation hitLocation(GameState before, GameState after) {
+    IDungeonView beforeView = before.getDungeonView();
+    IDungeonView afterView = after.getDungeonView();
+    ILocation hit = null;
+    for (int row = 0; row < beforeView.getNumRows(); row++) {
+      for (int col = 0; col < beforeView.getNumCols(); col++) {
+        ILocation location = beforeView.getLocation(row, col);
+        if (location.hasMonster() && location.getMonster().getHealth()
+                != afterView.getLocation(row, col).getMonster().getHealth()) {
+          assertNull(hit);
+          hit = location;
+        }
+      }
+    }
+    return hit;
+  }
+
+  private static String key(ILocation location) {
+    return location.getRowCoordinate() + "," + location.getColCoordinate();
+  }
+}
@@ -0,0 +1,136 @@
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import dungeon.model.GameSnapshot;
+import dungeon.model.GameState;
+import dungeon.model.ICellGameState;
+import dungeon.model.IDungeonView;
+import dungeon.model.character.Character;
+import dungeon.model.directions.Direction;
+import dungeon.model.location.ILocation;
+import dungeon.model.treasure.TreasureType;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the game state by cell id against the game state by location.
+ */
+public class CellGameStateTest {
+
+  @Test
+  public void testCellsMatchTheLocations() {
+    ICellGameState game = new GameState(9, 11, 6, "wrapping", 40, 12, 5);
+    IDungeonView view = game.getDungeonView();
+    assertEquals(9, game.getNumRows());
+    assertEquals(11, game.getNumCols());
+    assertEquals(cellOf(game, view.getStartLocation()), game.getStartCell());
+    assertEquals(cellOf(game, view.getEndLocation()), game.getEndCell());
+    assertEquals(game.getStartCell(), game.getCurrentCell());
+    for (int row = 0; row < game.getNumRows(); row++) {
+      for (int col = 0; col < game.getNumCols(); col++) {
+        ILocation location = view.getLocation(row, col);
+        int cellId = row * game.getNumCols() + col;
+        assertEquals(location.isCave(), game.isCave(cellId));
+        Map<Direction, ILocation> neighbours = location.getNeighbours();
+        int doors = 0;
+        for (Direction direction : Direction.values()) {
+          ILocation neighbour = neighbours.get(direction);
+          if (neighbour == null) {
+            assertEquals(-1, game.getNeighbourCell(cellId, direction));
+          } else {
+            doors |= 1 << direction.ordinal();
+            assertEquals(cellOf(game, neighbour), game.getNeighbourCell(cellId, direction));
+          }
+        }
+        assertEquals(doors, game.getDoorMask(cellId));
+        for (TreasureType type : TreasureType.values()) {
+          Integer count = location.getTreasure() == null ? null
+                  : location.getTreasure().getTreasure().get(type);
+          assertEquals(count == null ? 0 : (int) count, game.getTreasureCount(cellId, type));
+        }
+        assertEquals(location.getMonster() == null ? 0 : location.getMonster().getHealth(),
+                game.getMonsterHealth(cellId));
+      }
+    }
+  }
+
+  @Test
+  public void testMovingByCellMatchesMovingByLocation() {
+    GameState game = new GameState(12, 12, 4, "nonwrapping", 30, 6, 8);
+    Random walk = new Random(3);
+    for (int step = 0; step < 60; step++) {
+      List<Direction> directions = game.getAvailableDirectionsFromPlayerPosition();
+      Direction direction = directions.get(walk.nextInt(directions.size()));
+      GameState byLocation = game.copy(new Random(step));
+      ILocation location = byLocation.movePlayer(direction);
+      int cellId = game.movePlayerToCell(direction);
+      assertEquals(cellOf(game, location), cellId);
+      assertEquals(cellId, game.getCurrentCell());
+      assertArrayEquals(GameSnapshot.toBytes(byLocation),
+              GameSnapshot.toBytes(game.copy(new Random(step))));
+    }
+  }
+
+  @Test
+  public void testPlayerSeesTheCellsMovedTo() {
+    GameState byCell = new GameState(12, 12, 4, "wrapping", 30, 6, 5);
+    GameState byLocation = byCell.copy(new Random(9));
+    byCell = byCell.copy(new Random(9));
+    Character player = byCell.getPlayer();
+    Character walker = byLocation.getPlayer();
+    Random walk = new Random(4);
+    for (int step = 0; step < 40 && !byCell.isGameOver(); step++) {
+      List<Direction> directions = byCell.getAvailableDirectionsFromPlayerPosition();
+      Direction direction = directions.get(walk.nextInt(directions.size()));
+      walker.setCurrentLocation(walker.getCurrentLocation().getNeighbours().get(direction));
+      byCell.movePlayerToCell(direction);
+      if (step % 7 == 0) {
+        assertEquals(byCell.getCurrentCell(), cellOf(byCell, player.getCurrentLocation()));
+      }
+    }
+    assertEquals(byLocation.printPlayerTravelStatus(), byCell.printPlayerTravelStatus());
+    assertEquals(walker.isAlive(), player.isAlive());
+  }
+
+  @Test
+  public void testArrowLandingCell() {
+    GameState game = new GameState(10, 10, 5, "wrapping", 20, 8, 2);
+    for (Direction direction : game.getAvailableDirectionsFromPlayerPosition()) {
+      for (int distance = 1; distance <= 5; distance++) {
+        ILocation landing = game.getArrowLanding(direction, distance);
+        assertEquals(landing == null ? -1 : cellOf(game, landing),
+                game.getArrowLandingCell(direction, distance));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMoveThroughAWall() {
+    GameState game = new GameState(8, 8, 0, "nonwrapping", 20, 3, 4);
+    for (Direction direction : Direction.values()) {
+      if (game.getNeighbourCell(game.getCurrentCell(), direction) == -1) {
+        game.movePlayerToCell(direction);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCellOutsideTheDungeon() {
+    GameState game = new GameState(8, 8, 0, "nonwrapping", 20, 3, 4);
+    game.getDoorMask(64);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeCell() {
+    GameState game = new GameState(8, 8, 0, "nonwrapping", 20, 3, 4);
+    game.getMonsterHealth(-1);
+  }
+
+  private static int cellOf(ICellGameState game, ILocation location) {
+    return location.getRowCoordinate() * game.getNumCols() + location.getColCoordinate();
+  }
+}
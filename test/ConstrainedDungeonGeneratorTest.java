@@ -0,0 +1,181 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import dungeon.factory.ConstrainedDungeonGenerator;
+import dungeon.factory.DungeonConstraints;
+import dungeon.factory.DungeonParameters;
+import dungeon.factory.SeededGame;
+import dungeon.model.DungeonFeatures;
+import dungeon.model.GameSnapshot;
+import dungeon.model.GameState;
+import dungeon.model.IDungeonView;
+import dungeon.model.location.ILocation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the features of a dungeon and racing seeds for a dungeon satisfying constraints.
+ */
+public class ConstrainedDungeonGeneratorTest {
+
+  private DungeonParameters parameters;
+  private DungeonConstraints constraints;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    parameters = new DungeonParameters(12, 12, 2, "nonwrapping", 30, 4);
+    constraints = new DungeonConstraints(7, 60, true, 45);
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    executor.shutdownNow();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testFeaturesMatchTheDungeon() {
+    GameState game = new GameState(15, 20, 4, "wrapping", 40, 6, 3);
+    DungeonFeatures features = DungeonFeatures.of(game);
+    IDungeonView view = game.getDungeonView();
+    int caves = 0;
+    int deadEnds = 0;
+    int monsters = 0;
+    for (int row = 0; row < view.getNumRows(); row++) {
+      for (int col = 0; col < view.getNumCols(); col++) {
+        ILocation location = view.getLocation(row, col);
+        if (location.isCave()) {
+          caves++;
+          deadEnds += location.getNeighbours().size() == 1 ? 1 : 0;
+        }
+        monsters += location.hasMonster() ? 1 : 0;
+      }
+    }
+    assertEquals(caves, features.getCaveCount());
+    assertEquals(15 * 20 - caves, features.getTunnelCount());
+    assertEquals(deadEnds, features.getDeadEndCount());
+    assertEquals(monsters, features.getMonsterCount());
+    assertEquals(distance(view.getStartLocation(), view.getEndLocation()),
+            features.getStartEndDistance());
+    assertTrue(features.getStartEndDistance() >= 5);
+    assertTrue(features.getTreasureCavesBeforeExit() <= features.getTreasureCaveCount());
+  }
+
+  @Test
+  public void testDiameterOfTree() {
+    GameState game = new GameState(8, 9, 0, "nonwrapping", 20, 2, 5);
+    IDungeonView view = game.getDungeonView();
+    int diameter = 0;
+    for (int row = 0; row < view.getNumRows(); row++) {
+      for (int col = 0; col < view.getNumCols(); col++) {
+        for (int otherRow = 0; otherRow < view.getNumRows(); otherRow++) {
+          for (int otherCol = 0; otherCol < view.getNumCols(); otherCol++) {
+            diameter = Math.max(diameter, distance(view.getLocation(row, col),
+                    view.getLocation(otherRow, otherCol)));
+          }
+        }
+      }
+    }
+    assertEquals(diameter, DungeonFeatures.of(game).getDiameter());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeConstraint() {
+    new DungeonConstraints(-1, 0, false, 0);
+  }
+
+  @Test
+  public void testConstraintsChecked() {
+    DungeonFeatures features = DungeonFeatures.of(parameters.generate(1));
+    assertTrue(DungeonConstraints.NONE.isSatisfiedBy(features));
+    assertFalse(new DungeonConstraints(features.getStartEndDistance() + 1, 0, false,
+            Integer.MAX_VALUE).isSatisfiedBy(features));
+    assertFalse(new DungeonConstraints(0, features.getCaveCount() + 1, false,
+            Integer.MAX_VALUE).isSatisfiedBy(features));
+    assertTrue(new DungeonConstraints(0, 0, false, features.getDeadEndCount())
+            .isSatisfiedBy(features));
+  }
+
+  @Test
+  public void testOneRacerFindsFirstSatisfyingSeed() throws Exception {
+    long expected = 100;
+    while (!constraints.isSatisfiedBy(DungeonFeatures.of(parameters.generate(expected)))) {
+      expected++;
+    }
+    SeededGame found = new ConstrainedDungeonGenerator(executor, 1)
+            .generate(parameters, constraints, 100, 1000, null).get(10, TimeUnit.SECONDS);
+    assertEquals(expected, found.getSeed());
+    assertArrayEquals(GameSnapshot.toBytes(parameters.generate(expected)),
+            GameSnapshot.toBytes(found.getGame()));
+  }
+
+  @Test
+  public void testRaceWinnerSatisfiesConstraints() throws Exception {
+    SeededGame found = new ConstrainedDungeonGenerator(executor, 4)
+            .generate(parameters, constraints, 100, 1000, null).get(10, TimeUnit.SECONDS);
+    assertTrue(constraints.isSatisfiedBy(found.getFeatures()));
+    assertTrue(constraints.isSatisfiedBy(DungeonFeatures.of(parameters.generate(
+            found.getSeed()))));
+    assertTrue(found.getSeed() >= 100 && found.getSeed() < 1100);
+  }
+
+  @Test
+  public void testNoCandidateSatisfies() throws Exception {
+    DungeonConstraints impossible = new DungeonConstraints(0, 145, false, Integer.MAX_VALUE);
+    try {
+      new ConstrainedDungeonGenerator(executor, 4).generate(parameters, impossible, 0, 20, null)
+              .get(10, TimeUnit.SECONDS);
+      fail("No dungeon has more caves than locations");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+  }
+
+  @Test
+  public void testCancelStopsRacers() throws Exception {
+    DungeonConstraints impossible = new DungeonConstraints(0, 145, false, Integer.MAX_VALUE);
+    CompletableFuture<SeededGame> found = new ConstrainedDungeonGenerator(executor, 4)
+            .generate(parameters, impossible, 0, Integer.MAX_VALUE, null);
+    found.cancel(false);
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    assertTrue(found.isCancelled());
+  }
+
+  private static int distance(ILocation from, ILocation to) {
+    Map<ILocation, Integer> distances = new HashMap<>();
+    Queue<ILocation> queue = new ArrayDeque<>();
+    distances.put(from, 0);
+    queue.add(from);
+    while (!queue.isEmpty()) {
+      ILocation location = queue.remove();
+      if (location.equals(to)) {
+        return distances.get(location);
+      }
+      for (ILocation neighbour : location.getNeighbours().values()) {
+        if (!distances.containsKey(neighbour)) {
+          distances.put(neighbour, distances.get(location) + 1);
+          queue.add(neighbour);
+        }
+      }
+    }
+    return -1;
+  }
+}
@@ -21,7 +21,7 @@ public class ControllerTest {
   @Before
   public void setUp() {
     Random rand = new Random();
-    rand.setSeed(50);
+    rand.setSeed(1463);
     model = new GameState(6, 6, 0,
             "nonwrapping", 20, 5, rand);
   }
@@ -104,17 +104,19 @@ public class ControllerTest {
 
   @Test
   public void testShootToKillAndEnterSameCave() {
-    StringReader in = new StringReader("S north 1 S north 1 M north M west Q");
+    StringReader in = new StringReader("S north 1 S north 1 M north M east Q");
     Appendable out = new StringBuffer();
     IController controller = new Controller(in, out, model);
     controller.playGame();
-    // Sees a dead monster when player moves west before quiting
+    // Sees a dead monster when player moves east before quiting
     assertTrue(out.toString().contains("You see a dead monster here."));
   }
 
   @Test
   public void testShootOneArrowEntersItAndDies() {
-    StringReader in = new StringReader("S north 1 M north M west M west Q");
+    // The injured monster has a 50% chance of eating the player on each visit, with this seed
+    // the player escapes twice and is eaten on the third visit
+    StringReader in = new StringReader("S north 1 M north M east M west M east M west M east Q");
     Appendable out = new StringBuffer();
     IController controller = new Controller(in, out, model);
     controller.playGame();
@@ -125,8 +127,8 @@ public class ControllerTest {
   @Test
   public void testGettingKilledAtEndLocation() {
 
-    StringReader in = new StringReader("M north P arrows S west 1 S west 1 M west "
-            + "M west P arrows S north 1 S north 1 M north M west Q");
+    StringReader in = new StringReader("P arrows M north S east 1 S east 1 M east "
+            + "M east M east M north Q");
     Appendable out = new StringBuffer();
     IController controller = new Controller(in, out, model);
     controller.playGame();
@@ -174,12 +176,12 @@ public class ControllerTest {
   @Test
   public void testWinGame() {
     Random rand = new Random();
-    rand.setSeed(50);
+    rand.setSeed(1463);
     model = new GameState(6, 6, 0,
             "nonwrapping", 100, 5, rand);
 
-    StringReader in = new StringReader("M west m west m west s south 1"
-            + " s south 1 m south m south");
+    StringReader in = new StringReader("M east m north m east m north s north 1"
+            + " s north 1 m north");
     Appendable out = new StringBuffer();
     IController controller = new Controller(in, out, model);
     controller.playGame();
@@ -190,11 +192,11 @@ public class ControllerTest {
   @Test
   public void testLessPungentSmell() {
     Random rand = new Random();
-    rand.setSeed(50);
+    rand.setSeed(1463);
     model = new GameState(6, 6, 0,
             "nonwrapping", 100, 5, rand);
 
-    StringReader in = new StringReader("M west m west m south Q");
+    StringReader in = new StringReader("M east m north Q");
     Appendable out = new StringBuffer();
     IController controller = new Controller(in, out, model);
     controller.playGame();
@@ -204,11 +206,11 @@ public class ControllerTest {
   @Test
   public void testMorePungentSmell() {
     Random rand = new Random();
-    rand.setSeed(50);
+    rand.setSeed(1463);
     model = new GameState(6, 6, 0,
             "nonwrapping", 100, 5, rand);
 
-    StringReader in = new StringReader("M west m west m north Q");
+    StringReader in = new StringReader("M east m north m east Q");
     Appendable out = new StringBuffer();
     IController controller = new Controller(in, out, model);
     controller.playGame();
@@ -218,11 +220,11 @@ public class ControllerTest {
   @Test
   public void testOutOfArrowsMessage() {
     Random rand = new Random();
-    rand.setSeed(50);
+    rand.setSeed(1463);
     model = new GameState(6, 6, 0,
             "nonwrapping", 100, 5, rand);
 
-    StringReader in = new StringReader("S east 1 S east 1 S east 1 M west Q");
+    StringReader in = new StringReader("S east 1 S east 1 S east 1 M east Q");
     Appendable out = new StringBuffer();
     IController controller = new Controller(in, out, model);
     controller.playGame();
@@ -249,7 +251,7 @@ public class ControllerTest {
 
   @Test
   public void testMoveEast() {
-    StringReader in = new StringReader("S north 1 S north 1 M north M west M east Q");
+    StringReader in = new StringReader("S north 1 S north 1 M north M east Q");
     Appendable out = new StringBuffer();
     IController controller = new Controller(in, out, model);
     controller.playGame();
@@ -258,7 +260,7 @@ public class ControllerTest {
 
   @Test
   public void testMoveWest() {
-    StringReader in = new StringReader("M north M west Q");
+    StringReader in = new StringReader("S north 1 S north 1 M north M east M west Q");
     Appendable out = new StringBuffer();
     IController controller = new Controller(in, out, model);
     controller.playGame();
@@ -268,12 +270,12 @@ public class ControllerTest {
   @Test
   public void testMoveInWrappingDungeonWestEast() {
     Random rand = new Random();
-    rand.setSeed(50);
+    rand.setSeed(1463);
     model = new GameState(6, 6, 100,
             "wrapping", 100, 5, rand);
 
-    // As per the model created, the player starting position is (4,5) which is the right
-    // edge of the dungeon. The player makes a wrap move to the right, which is (4,0).
+    // As per the model created, the player starting position is (4,2) and every door is open,
+    // so the player can keep moving east until it wraps around to the left edge.
 
     StringReader in = new StringReader("M east Q");
     Appendable out = new StringBuffer();
@@ -285,14 +287,13 @@ public class ControllerTest {
   @Test
   public void testMoveInWrappingDungeonNorthSouth() {
     Random rand = new Random();
-    rand.setSeed(50);
+    rand.setSeed(1463);
     model = new GameState(6, 6, 100,
             "wrapping", 100, 5, rand);
 
-    // As per the model created, the player starting position is (4,5) which is the right
-    // edge of the dungeon. The player makes a wrap move to the right, which is (4,0). Then the
-    // player goes south to (5,0). After this, the player makes a wrap move to the south,
-    // which goes to (0,0).
+    // As per the model created, the player starting position is (4,2). The player moves east
+    // to (4,3), then south to (5,3). After this, the player makes a wrap move to the south,
+    // which goes to (0,3).
 
     StringReader in = new StringReader("M east M South M South Q");
     Appendable out = new StringBuffer();
@@ -304,21 +305,21 @@ public class ControllerTest {
   @Test
   public void testTreasureInformation() {
     Random rand = new Random();
-    rand.setSeed(50);
+    rand.setSeed(1463);
     model = new GameState(6, 6, 0,
             "nonwrapping", 100, 5, rand);
 
-    StringReader in = new StringReader("M west m west Q");
+    StringReader in = new StringReader("M east m north m east Q");
     Appendable out = new StringBuffer();
     IController controller = new Controller(in, out, model);
     controller.playGame();
-    assertTrue(out.toString().contains("You find 9 Diamonds, 3 Sapphires, 9 Rubies"));
+    assertTrue(out.toString().contains("You find 4 Diamonds, 9 Rubies, 6 Sapphires"));
   }
 
   @Test
   public void testPickInvalidTreasure() {
     Random rand = new Random();
-    rand.setSeed(50);
+    rand.setSeed(1463);
     model = new GameState(6, 6, 0,
             "nonwrapping", 100, 5, rand);
 
@@ -332,11 +333,11 @@ public class ControllerTest {
   @Test
   public void testPickUpNonExistingTreasure() {
     Random rand = new Random();
-    rand.setSeed(50);
+    rand.setSeed(1463);
     model = new GameState(6, 6, 0,
             "nonwrapping", 100, 5, rand);
 
-    StringReader in = new StringReader("P arrows Q");
+    StringReader in = new StringReader("M east m north m east P arrows Q");
     Appendable out = new StringBuffer();
     IController controller = new Controller(in, out, model);
     controller.playGame();
@@ -346,7 +347,7 @@ public class ControllerTest {
   @Test
   public void testShootInvalidDirection() {
     Random rand = new Random();
-    rand.setSeed(50);
+    rand.setSeed(1463);
     model = new GameState(6, 6, 0,
             "nonwrapping", 100, 5, rand);
 
@@ -360,7 +361,7 @@ public class ControllerTest {
   @Test
   public void testShootWrongDirection() {
     Random rand = new Random();
-    rand.setSeed(50);
+    rand.setSeed(1463);
     model = new GameState(6, 6, 0,
             "nonwrapping", 100, 5, rand);
 
@@ -374,7 +375,7 @@ public class ControllerTest {
   @Test
   public void testMoveInvalidDirection() {
     Random rand = new Random();
-    rand.setSeed(50);
+    rand.setSeed(1463);
     model = new GameState(6, 6, 0,
             "nonwrapping", 100, 5, rand);
 
@@ -0,0 +1,88 @@
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Random;
+
+import dungeon.model.GameSnapshot;
+import dungeon.model.GameState;
+import dungeon.model.directions.Direction;
+import dungeon.simulation.ConfidenceInterval;
+import dungeon.simulation.DifficultyEstimate;
+import dungeon.simulation.DifficultyEstimator;
+import dungeon.simulation.HunterBot;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests copying games and estimating their difficulty from rollouts.
+ */
+public class DifficultyEstimatorTest {
+
+  private final GameState game = new GameState(12, 12, 3, "wrapping", 40, 4, 7);
+  private final DifficultyEstimator estimator = new DifficultyEstimator(HunterBot::new, 1000);
+
+  @Test
+  public void testCopyIsIndependent() {
+    byte[] before = GameSnapshot.toBytes(game);
+    GameState copy = game.copy(new Random(1));
+    assertEquals(game.getPlayerCurrentLocation(), copy.getPlayerCurrentLocation());
+    assertEquals(game.getPlayerEndLocation(), copy.getPlayerEndLocation());
+    Direction direction = copy.getAvailableDirectionsFromPlayerPosition().get(0);
+    copy.movePlayer(direction);
+    assertNotEquals(game.getPlayerCurrentLocation(), copy.getPlayerCurrentLocation());
+    assertEquals(2, copy.getPlayer().getLocationVisited().size());
+    assertEquals(1, game.getPlayer().getLocationVisited().size());
+    assertArrayEquals(before, GameSnapshot.toBytes(game));
+  }
+
+  @Test
+  public void testSameSeedSameEstimate() throws InterruptedException {
+    byte[] before = GameSnapshot.toBytes(game);
+    DifficultyEstimate first = estimator.estimate(game, 200, 3, Duration.ofMinutes(1), 4);
+    DifficultyEstimate second = estimator.estimate(game, 200, 3, Duration.ofMinutes(1), 1);
+    assertEquals(200, first.getRollouts());
+    assertEquals(first.getWins(), second.getWins());
+    assertEquals(first.getTurnsToWin().getEstimate(), second.getTurnsToWin().getEstimate(),
+            1e-9);
+    assertEquals(first.getArrowsToWin().getEstimate(), second.getArrowsToWin().getEstimate(),
+            1e-9);
+    assertArrayEquals(before, GameSnapshot.toBytes(game));
+  }
+
+  @Test
+  public void testEstimateInsideItsInterval() throws InterruptedException {
+    DifficultyEstimate estimate = estimator.estimate(game, 300, 5, Duration.ofMinutes(1), 4);
+    ConfidenceInterval win = estimate.getWinProbability();
+    assertTrue(0 < win.getLow() && win.getLow() < win.getEstimate());
+    assertTrue(win.getEstimate() < win.getHigh() && win.getHigh() < 1);
+    assertEquals((double) estimate.getWins() / estimate.getRollouts(), win.getEstimate(), 1e-9);
+    ConfidenceInterval turns = estimate.getTurnsToWin();
+    assertTrue(turns.getLow() < turns.getEstimate() && turns.getEstimate() < turns.getHigh());
+  }
+
+  @Test
+  public void testBudgetStopsRollouts() throws InterruptedException {
+    DifficultyEstimate estimate = estimator.estimate(game, 1_000_000, 5, Duration.ZERO, 4);
+    assertEquals(1, estimate.getRollouts());
+  }
+
+  @Test
+  public void testIntervals() {
+    ConfidenceInterval none = ConfidenceInterval.ofProportion(0, 10);
+    assertEquals(0, none.getLow(), 0);
+    assertTrue(none.getHigh() > 0.2 && none.getHigh() < 0.4);
+    ConfidenceInterval all = ConfidenceInterval.ofProportion(10, 10);
+    assertEquals(1, all.getHigh(), 0);
+    ConfidenceInterval mean = ConfidenceInterval.ofMean(4, 2 + 4 + 4 + 6, 4 + 16 + 16 + 36);
+    assertEquals(4, mean.getEstimate(), 1e-9);
+    assertEquals(4 - ConfidenceInterval.Z_95 * Math.sqrt(8.0 / 3 / 4), mean.getLow(), 1e-9);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidRollouts() throws InterruptedException {
+    estimator.estimate(game, 0, 5, Duration.ofSeconds(1), 4);
+  }
+}
@@ -0,0 +1,94 @@
+import org.junit.Test;
+
+import java.time.Duration;
+
+import dungeon.factory.DungeonParameters;
+import dungeon.model.GameSnapshot;
+import dungeon.model.GameState;
+import dungeon.simulation.DifficultyEstimator;
+import dungeon.simulation.DifficultyTuner;
+import dungeon.simulation.HunterBot;
+import dungeon.simulation.TuningResult;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests tuning the generation parameters to a target win rate.
+ */
+public class DifficultyTunerTest {
+
+  private static final int[] INTERCONNECTIVITIES = {0, 4};
+  private static final int[] TREASURE_PERCENTAGES = {20, 80};
+
+  private final DifficultyTuner tuner = new DifficultyTuner(HunterBot::new, 1000, 8, 2);
+
+  @Test
+  public void testGameFromDoorsIsTheSeededGame() {
+    GameState seeded = new GameState(10, 12, 5, "wrapping", 60, 6, 42);
+    GameState fromDoors = new GameState(10, 12, new GameState(10, 12, 5, "wrapping", 0, 1, 42)
+            .getDoors(), 60, 6, 42);
+    assertArrayEquals(GameSnapshot.toBytes(seeded), GameSnapshot.toBytes(fromDoors));
+  }
+
+  @Test
+  public void testResultIsAmongCandidates() throws InterruptedException {
+    TuningResult result = tune(0.5);
+    DungeonParameters parameters = result.getParameters();
+    assertEquals(8, parameters.getDungeonHeight());
+    assertEquals(8, parameters.getDungeonWidth());
+    assertEquals("nonwrapping", parameters.getDungeonType());
+    assertTrue(parameters.getInterConnectivity() == 0 || parameters.getInterConnectivity() == 4);
+    assertTrue(parameters.getTreasurePercentage() == 20
+            || parameters.getTreasurePercentage() == 80);
+    assertTrue(parameters.getMonsterCount() >= 1 && parameters.getMonsterCount() <= 20);
+    assertEquals(3, result.getFirstSeed());
+    assertEquals(8, result.getSeedCount());
+    assertTrue(result.getEvaluations() > 0);
+  }
+
+  @Test
+  public void testSameArgumentsSameResult() throws InterruptedException {
+    TuningResult first = tune(0.5);
+    TuningResult second = new DifficultyTuner(HunterBot::new, 1000, 8, 2).tune(8, 8, "nonwrapping",
+            0.5, INTERCONNECTIVITIES, TREASURE_PERCENTAGES, 20, 3, 1);
+    assertEquals(first.getParameters(), second.getParameters());
+    assertEquals(first.getWinRate().getEstimate(), second.getWinRate().getEstimate(), 0);
+  }
+
+  @Test
+  public void testEasierTargetFewerMonsters() throws InterruptedException {
+    int hard = tune(0.1).getParameters().getMonsterCount();
+    int easy = tune(0.9).getParameters().getMonsterCount();
+    assertTrue(easy + " monsters for easy, " + hard + " for hard", easy <= hard);
+  }
+
+  @Test
+  public void testWinRateIsReproducible() throws InterruptedException {
+    TuningResult result = tune(0.5);
+    DifficultyEstimator estimator = new DifficultyEstimator(HunterBot::new, 1000);
+    long wins = 0;
+    for (long seed = result.getFirstSeed();
+         seed < result.getFirstSeed() + result.getSeedCount(); seed++) {
+      wins += estimator.estimate(result.getParameters().generate(seed), 2, seed,
+              Duration.ofMinutes(1), 1).getWins();
+    }
+    assertEquals(wins / 16.0, result.getWinRate().getEstimate(), 1e-9);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTargetAboveOne() throws InterruptedException {
+    tune(1.5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoCandidates() throws InterruptedException {
+    tuner.tune(8, 8, "nonwrapping", 0.5, new int[0], TREASURE_PERCENTAGES, 20, 3, 2);
+  }
+
+  private TuningResult tune(double target) throws InterruptedException {
+    return tuner.tune(8, 8, "nonwrapping", target, INTERCONNECTIVITIES, TREASURE_PERCENTAGES, 20,
+            3, 4);
+  }
+}
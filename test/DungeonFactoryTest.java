@@ -0,0 +1,178 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import dungeon.factory.DungeonFactory;
+import dungeon.factory.DungeonParameters;
+import dungeon.model.GameSnapshot;
+import dungeon.model.IGameState;
+import dungeon.model.directions.Direction;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the dungeon factory: its memory and disk tiers and the games it keeps ready.
+ */
+public class DungeonFactoryTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private DungeonParameters parameters;
+  private DungeonFactory factory;
+
+  @Before
+  public void setUp() throws IOException {
+    parameters = new DungeonParameters(12, 12, 3, "Wrapping", 40, 4);
+    factory = new DungeonFactory(1 << 20, null, 0, 1);
+  }
+
+  @After
+  public void tearDown() {
+    factory.close();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidParameters() {
+    new DungeonParameters(12, 12, 3, "spiral", 40, 4);
+  }
+
+  @Test
+  public void testParametersAreKeys() {
+    assertEquals(parameters, new DungeonParameters(12, 12, 3, "wrapping", 40, 4));
+    assertEquals(parameters.hashCode(),
+            new DungeonParameters(12, 12, 3, "wrapping", 40, 4).hashCode());
+    assertNotEquals(parameters, new DungeonParameters(12, 12, 3, "wrapping", 40, 5));
+    assertEquals("12x12-3-wrapping-40-4", parameters.toString());
+  }
+
+  @Test
+  public void testSameGameFromMemory() throws IOException {
+    IGameState first = factory.newGame(parameters, 5);
+    IGameState second = factory.newGame(parameters, 5);
+    assertEquals(1, factory.getGenerated());
+    assertEquals(1, factory.getMemoryHits());
+    assertNotSame(first, second);
+    assertArrayEquals(GameSnapshot.toBytes(parameters.generate(5)), GameSnapshot.toBytes(second));
+  }
+
+  @Test
+  public void testGamesFromMemoryAreIndependent() throws IOException {
+    byte[] expected = GameSnapshot.toBytes(factory.newGame(parameters, 5));
+    IGameState played = factory.newGame(parameters, 5);
+    for (Direction direction : Direction.values()) {
+      if (played.getAvailableDirectionsFromPlayerPosition().contains(direction)) {
+        played.movePlayer(direction);
+        break;
+      }
+    }
+    assertArrayEquals(expected, GameSnapshot.toBytes(factory.newGame(parameters, 5)));
+  }
+
+  @Test
+  public void testSpillsToDisk() throws IOException {
+    Path directory = folder.getRoot().toPath().resolve("dungeons");
+    factory.close();
+    //Too small to keep anything in memory
+    factory = new DungeonFactory(1, directory, 0, 1);
+    byte[] expected = GameSnapshot.toBytes(factory.newGame(parameters, 5));
+    factory.newGame(parameters, 6);
+    assertEquals(2, countFiles(directory));
+
+    DungeonFactory restarted = new DungeonFactory(1 << 20, directory, 0, 1);
+    try {
+      assertArrayEquals(expected, GameSnapshot.toBytes(restarted.newGame(parameters, 5)));
+      assertEquals(1, restarted.getDiskHits());
+      assertEquals(0, restarted.getGenerated());
+      //Read from disk once, then kept in memory
+      restarted.newGame(parameters, 5);
+      assertEquals(1, restarted.getMemoryHits());
+    } finally {
+      restarted.close();
+    }
+  }
+
+  @Test
+  public void testFileFromAnOlderVersionIsAMiss() throws IOException {
+    Path directory = folder.getRoot().toPath().resolve("dungeons");
+    Files.createDirectories(directory);
+    //Another game, where builds before the generation version and of version 1 kept seed 5
+    byte[] outdated = GameSnapshot.toBytes(parameters.generate(6));
+    Files.write(directory.resolve(parameters + "-5.snapshot"), outdated);
+    Files.write(directory.resolve(parameters + "-5.v1.snapshot"), outdated);
+    factory.close();
+    factory = new DungeonFactory(1 << 20, directory, 0, 1);
+
+    assertArrayEquals(GameSnapshot.toBytes(parameters.generate(5)),
+            GameSnapshot.toBytes(factory.newGame(parameters, 5)));
+    assertEquals(0, factory.getDiskHits());
+    assertEquals(1, factory.getGenerated());
+  }
+
+  @Test
+  public void testDamagedFileIsGeneratedAgain() throws IOException {
+    Path directory = folder.getRoot().toPath().resolve("dungeons");
+    factory.close();
+    factory = new DungeonFactory(1, directory, 0, 1);
+    byte[] expected = GameSnapshot.toBytes(factory.newGame(parameters, 5));
+    try (Stream<Path> files = Files.list(directory)) {
+      Path file = files.findFirst().orElseThrow();
+      Files.write(file, new byte[] {1, 2, 3});
+    }
+
+    assertArrayEquals(expected, GameSnapshot.toBytes(factory.newGame(parameters, 5)));
+    assertEquals(0, factory.getDiskHits());
+    assertEquals(2, factory.getGenerated());
+  }
+
+  @Test
+  public void testReadyGames() throws IOException, InterruptedException {
+    factory.close();
+    factory = new DungeonFactory(1 << 20, null, 3, 2);
+    factory.prepare(parameters);
+    waitForReadyGames(3);
+
+    IGameState first = factory.newGame(parameters);
+    IGameState second = factory.newGame(parameters);
+    assertEquals(2, factory.getReadyHits());
+    assertEquals(0, factory.getGenerated());
+    assertNotSame(first, second);
+    //Refilled in the background
+    waitForReadyGames(3);
+  }
+
+  @Test
+  public void testGeneratesWhenNothingIsReady() {
+    factory.close();
+    IGameState game = factory.newGame(parameters);
+    assertEquals(1, factory.getGenerated());
+    assertEquals(0, factory.getReadyHits());
+    assertTrue(game.getPlayerEndLocation().hasMonster());
+  }
+
+  private void waitForReadyGames(int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (factory.getReadyCount(parameters) < count) {
+      assertTrue("Games not ready in time", System.currentTimeMillis() < deadline);
+      Thread.sleep(5);
+    }
+    assertEquals(count, factory.getReadyCount(parameters));
+  }
+
+  private static long countFiles(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+}
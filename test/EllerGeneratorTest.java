@@ -0,0 +1,183 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+
+import dungeon.generation.EllerGenerator;
+import dungeon.generation.LayoutFile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the row-streaming dungeon generator and the layout file.
+ */
+public class EllerGeneratorTest {
+
+  private static final int NORTH = 1;
+  private static final int SOUTH = 2;
+  private static final int EAST = 4;
+  private static final int WEST = 8;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooSmall() {
+    new EllerGenerator(5, 10, 0, "nonwrapping", new Random(1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidType() {
+    new EllerGenerator(10, 10, 0, "spiral", new Random(1));
+  }
+
+  @Test
+  public void testNonWrappingIsSpanningTree() throws IOException {
+    for (int seed = 0; seed < 20; seed++) {
+      byte[][] doors = generate(6 + seed, 30 - seed, 0, "nonwrapping", seed);
+      checkDungeon(doors, false, 0);
+    }
+  }
+
+  @Test
+  public void testWrappingIsSpanningTree() throws IOException {
+    for (int seed = 0; seed < 20; seed++) {
+      byte[][] doors = generate(6 + seed, 30 - seed, 0, "wrapping", seed);
+      checkDungeon(doors, true, 0);
+    }
+  }
+
+  @Test
+  public void testWrappingUsesWrappedPaths() throws IOException {
+    byte[][] doors = generate(40, 40, 0, "wrapping", 3);
+    boolean vertical = false;
+    boolean horizontal = false;
+    for (int col = 0; col < 40; col++) {
+      vertical |= (doors[0][col] & NORTH) != 0;
+    }
+    for (int row = 0; row < 40; row++) {
+      horizontal |= (doors[row][0] & WEST) != 0;
+    }
+    assertTrue(vertical);
+    assertTrue(horizontal);
+  }
+
+  @Test
+  public void testInterconnectivity() throws IOException {
+    checkDungeon(generate(10, 12, 8, "nonwrapping", 5), false, 8);
+    checkDungeon(generate(10, 12, 30, "wrapping", 5), true, 30);
+  }
+
+  @Test
+  public void testInterconnectivityGreaterThanPaths() throws IOException {
+    //Every path is open: 10 * 11 + 9 * 12 paths, of which 119 are in the tree
+    checkDungeon(generate(10, 12, 1000, "nonwrapping", 5), false, 10 * 11 + 9 * 12 - 119);
+    checkDungeon(generate(10, 12, 1000, "wrapping", 5), true, 2 * 10 * 12 - 119);
+  }
+
+  @Test
+  public void testSameSeedSameDungeon() throws IOException {
+    assertArrayEquals(generate(20, 25, 10, "wrapping", 9), generate(20, 25, 10, "wrapping", 9));
+  }
+
+  @Test
+  public void testLayoutFileRoundTrip() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("dungeon.layout");
+    try (LayoutFile layout = LayoutFile.create(file, 15, 17, true)) {
+      new EllerGenerator(15, 17, 12, "wrapping", new Random(11)).generate(layout);
+    }
+    byte[][] expected = generate(15, 17, 12, "wrapping", 11);
+    try (LayoutFile layout = LayoutFile.open(file)) {
+      assertEquals(15, layout.getNumRows());
+      assertEquals(17, layout.getNumCols());
+      assertTrue(layout.isWrapping());
+      byte[] row = new byte[17];
+      for (int i = 0; i < 15; i++) {
+        layout.readRow(i, row);
+        assertArrayEquals(expected[i], row);
+      }
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testIncompleteLayoutFile() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("dungeon.layout");
+    try (LayoutFile layout = LayoutFile.create(file, 10, 10, false)) {
+      layout.writeRow(0, new byte[10]);
+    }
+    LayoutFile.open(file);
+  }
+
+  @Test(expected = IOException.class)
+  public void testNotALayoutFile() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("dungeon.layout");
+    Files.write(file, new byte[64]);
+    LayoutFile.open(file);
+  }
+
+  private byte[][] generate(int rows, int cols, long interConnectivity, String type, long seed)
+          throws IOException {
+    byte[][] doors = new byte[rows][];
+    new EllerGenerator(rows, cols, interConnectivity, type, new Random(seed))
+            .generate((row, rowDoors) -> {
+              assertNull("Row " + row + " given twice", doors[row]);
+              doors[row] = Arrays.copyOf(rowDoors, rowDoors.length);
+            });
+    return doors;
+  }
+
+  /**
+   * Check that the doors are symmetric, stay inside a non-wrapping dungeon, connect every
+   * location and are a spanning tree plus the given number of extra paths.
+   */
+  private void checkDungeon(byte[][] doors, boolean wrapping, int extras) {
+    int rows = doors.length;
+    int cols = doors[0].length;
+    long paths = 0;
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < cols; col++) {
+        int south = (row + 1) % rows;
+        int east = (col + 1) % cols;
+        assertEquals((doors[row][col] & SOUTH) != 0, (doors[south][col] & NORTH) != 0);
+        assertEquals((doors[row][col] & EAST) != 0, (doors[row][east] & WEST) != 0);
+        if (!wrapping) {
+          assertTrue(row < rows - 1 || (doors[row][col] & SOUTH) == 0);
+          assertTrue(col < cols - 1 || (doors[row][col] & EAST) == 0);
+        }
+        paths += Integer.bitCount(doors[row][col]);
+      }
+    }
+    assertEquals((long) rows * cols - 1 + extras, paths / 2);
+
+    boolean[] visited = new boolean[rows * cols];
+    Deque<Integer> queue = new ArrayDeque<>();
+    queue.add(0);
+    visited[0] = true;
+    int reached = 0;
+    while (!queue.isEmpty()) {
+      int cell = queue.remove();
+      reached++;
+      int row = cell / cols;
+      int col = cell % cols;
+      int[] neighbours = {((row + rows - 1) % rows) * cols + col, ((row + 1) % rows) * cols + col,
+          row * cols + (col + 1) % cols, row * cols + (col + cols - 1) % cols};
+      for (int direction = 0; direction < 4; direction++) {
+        if ((doors[row][col] & (1 << direction)) != 0 && !visited[neighbours[direction]]) {
+          visited[neighbours[direction]] = true;
+          queue.add(neighbours[direction]);
+        }
+      }
+    }
+    assertEquals(rows * cols, reached);
+  }
+}
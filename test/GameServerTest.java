@@ -0,0 +1,188 @@
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import dungeon.model.GameState;
+import dungeon.model.IGameState;
+import dungeon.server.GameServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the game server by playing over real connections.
+ */
+public class GameServerTest {
+
+  private GameServer server;
+
+  @After
+  public void tearDown() throws InterruptedException {
+    if (server != null) {
+      server.shutdown(Duration.ofMillis(100));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMaxSessions() {
+    new GameServer(0, this::newGame, 0, Duration.ofSeconds(1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidIdleTimeout() {
+    new GameServer(0, this::newGame, 1, Duration.ZERO);
+  }
+
+  @Test
+  public void testWinGameOverConnection() throws IOException, InterruptedException {
+    startServer(10, Duration.ofSeconds(5));
+    try (Socket socket = connect()) {
+      send(socket, "M east\nm north\nm east\nm north\ns north 1\ns north 1\nm north\n");
+      String output = readAll(socket);
+      assertTrue(output.startsWith("Welcome to the dungeon!"));
+      assertTrue(output.contains("You win! You made it to the end."));
+    }
+    waitForSessions(0);
+  }
+
+  @Test
+  public void testEverySessionHasItsOwnGame() throws IOException, InterruptedException {
+    startServer(10, Duration.ofSeconds(5));
+    try (Socket first = connect(); Socket second = connect()) {
+      //Both players start in the same place of their own dungeon, so both can move east
+      send(first, "M east\nQ\n");
+      send(second, "M east\nQ\n");
+      assertTrue(readAll(first).contains("Moving EAST"));
+      assertTrue(readAll(second).contains("Moving EAST"));
+    }
+    waitForSessions(0);
+  }
+
+  @Test
+  public void testIdleSessionTimesOut() throws IOException, InterruptedException {
+    startServer(10, Duration.ofMillis(200));
+    try (Socket socket = connect()) {
+      String output = readAll(socket);
+      assertTrue(output.contains("Move, Pickup, or Shoot (M-P-S-Q)?"));
+      assertTrue(output.endsWith("You have been idle for too long. Goodbye!\n"));
+    }
+    waitForSessions(0);
+  }
+
+  @Test
+  public void testServerFull() throws IOException, InterruptedException {
+    startServer(1, Duration.ofSeconds(5));
+    try (Socket first = connect()) {
+      waitForSessions(1);
+      try (Socket second = connect()) {
+        assertEquals("The server is full. Try again later.\n", readAll(second));
+      }
+      send(first, "Q\n");
+      assertTrue(readAll(first).contains("Goodbye!"));
+    }
+  }
+
+  @Test
+  public void testSessionsOneAfterAnotherWhenFull() throws IOException, InterruptedException {
+    startServer(1, Duration.ofSeconds(5));
+    for (int session = 0; session < 50; session++) {
+      try (Socket socket = connect()) {
+        send(socket, "Q\n");
+        assertTrue(readAll(socket).contains("Move, Pickup, or Shoot (M-P-S-Q)?"));
+      }
+    }
+  }
+
+  @Test
+  public void testShutdownClosesSessions() throws IOException, InterruptedException {
+    startServer(10, Duration.ofSeconds(5));
+    try (Socket socket = connect()) {
+      waitForSessions(1);
+      server.shutdown(Duration.ofMillis(100));
+      assertTrue(readAll(socket).endsWith("The server is shutting down. Goodbye!\n"));
+    }
+    assertEquals(0, server.getSessionCount());
+  }
+
+  @Test
+  public void testWaitingForGameBlocksNobody() throws IOException, InterruptedException {
+    AtomicInteger calls = new AtomicInteger();
+    CompletableFuture<IGameState> never = new CompletableFuture<>();
+    server = new GameServer(0, () -> calls.incrementAndGet() == 1 ? never
+            : CompletableFuture.completedFuture(newGame()), 10, Duration.ofSeconds(5));
+    server.start();
+    try (Socket waiting = connect()) {
+      for (int i = 0; i < 500 && server.getPendingCount() != 1; i++) {
+        Thread.sleep(10);
+      }
+      assertEquals(1, server.getPendingCount());
+      try (Socket playing = connect()) {
+        send(playing, "M east\nQ\n");
+        assertTrue(readAll(playing).contains("Moving EAST"));
+      }
+      server.shutdown(Duration.ofMillis(100));
+      assertEquals("The server is shutting down.\n", readAll(waiting));
+      assertTrue(never.isCancelled());
+    }
+    assertEquals(0, server.getPendingCount());
+  }
+
+  @Test
+  public void testFailedGameIsRefused() throws IOException {
+    server = new GameServer(0, () -> CompletableFuture.failedFuture(
+            new IllegalStateException("No dungeon")), 10, Duration.ofSeconds(5));
+    server.start();
+    try (Socket socket = connect()) {
+      assertEquals("The game could not be started.\n", readAll(socket));
+    }
+  }
+
+  private GameState newGame() {
+    return new GameState(6, 6, 0, "nonwrapping", 100, 5, new Random(1463));
+  }
+
+  private void startServer(int maxSessions, Duration idleTimeout) throws IOException {
+    server = new GameServer(0, this::newGame, maxSessions, idleTimeout);
+    server.start();
+  }
+
+  private Socket connect() throws IOException {
+    Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+    socket.setSoTimeout(5000);
+    return socket;
+  }
+
+  private void send(Socket socket, String input) throws IOException {
+    OutputStream out = socket.getOutputStream();
+    out.write(input.getBytes(StandardCharsets.UTF_8));
+    out.flush();
+  }
+
+  private String readAll(Socket socket) throws IOException {
+    InputStream in = socket.getInputStream();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+      bytes.write(buffer, 0, read);
+    }
+    return bytes.toString(StandardCharsets.UTF_8);
+  }
+
+  private void waitForSessions(int count) throws InterruptedException {
+    for (int i = 0; i < 500 && server.getSessionCount() != count; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(count, server.getSessionCount());
+  }
+}
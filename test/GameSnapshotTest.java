@@ -0,0 +1,137 @@
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import dungeon.model.GameSnapshot;
+import dungeon.model.GameState;
+import dungeon.model.IDungeonView;
+import dungeon.model.directions.Direction;
+import dungeon.model.location.ILocation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests saving games to snapshots and restoring them.
+ */
+public class GameSnapshotTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private GameState model;
+  private Path file;
+
+  @Before
+  public void setUp() throws IOException {
+    model = new GameState(6, 6, 0, "nonwrapping", 100, 5, new Random(1463));
+    file = folder.getRoot().toPath().resolve("game.snapshot");
+  }
+
+  @Test
+  public void testRestoredGameIsTheSame() throws IOException {
+    model.movePlayer(Direction.EAST);
+    model.pickTreasureFromCurrentLocation(model.getPlayerCurrentLocation().getTreasure()
+            .getTreasure().keySet().iterator().next());
+    model.movePlayer(Direction.NORTH);
+    GameSnapshot.save(model, file);
+    GameState restored = GameSnapshot.load(file);
+
+    assertEquals(describe(model), describe(restored));
+    assertEquals(model.getPlayerStartLocation(), restored.getPlayerStartLocation());
+    assertEquals(model.getPlayerEndLocation(), restored.getPlayerEndLocation());
+    assertEquals(model.getPlayerCurrentLocation(), restored.getPlayerCurrentLocation());
+    assertEquals(model.getPlayerCurrentLocationStatus(),
+            restored.getPlayerCurrentLocationStatus());
+    assertEquals(model.printPlayerTravelStatus(), restored.printPlayerTravelStatus());
+    assertEquals(model.getPlayer().getTreasures(), restored.getPlayer().getTreasures());
+  }
+
+  @Test
+  public void testRestoredGamePlaysTheSame() throws IOException {
+    model.movePlayer(Direction.EAST);
+    model.movePlayer(Direction.NORTH);
+    model.movePlayer(Direction.EAST);
+    model.movePlayer(Direction.NORTH);
+    model.shootArrow(Direction.NORTH, 1);
+    GameSnapshot.save(model, file);
+    GameState restored = GameSnapshot.load(file);
+
+    //Walking in on the injured monster draws from the random number generator
+    model.movePlayer(Direction.NORTH);
+    restored.movePlayer(Direction.NORTH);
+    assertEquals(model.getPlayer().isAlive(), restored.getPlayer().isAlive());
+    assertEquals(model.isGameOver(), restored.isGameOver());
+    assertEquals(model.getGameOverStatus(), restored.getGameOverStatus());
+    assertEquals(describe(model), describe(restored));
+  }
+
+  @Test
+  public void testLargeWrappingGame() throws IOException {
+    model = new GameState(100, 100, 30, "wrapping", 50, 40, new Random(7));
+    GameSnapshot.save(model, file);
+    GameState restored = GameSnapshot.load(file);
+
+    assertEquals(describe(model), describe(restored));
+    assertEquals(model.getPlayerCurrentLocationStatus(),
+            restored.getPlayerCurrentLocationStatus());
+  }
+
+  @Test(expected = IOException.class)
+  public void testNotASnapshot() throws IOException {
+    Files.write(file, "Move, Pickup, or Shoot".getBytes());
+    GameSnapshot.load(file);
+  }
+
+  @Test(expected = IOException.class)
+  public void testCorruptSnapshot() throws IOException {
+    GameSnapshot.save(model, file);
+    byte[] bytes = Files.readAllBytes(file);
+    bytes[bytes.length / 2] ^= 1;
+    Files.write(file, bytes);
+    GameSnapshot.load(file);
+  }
+
+  @Test(expected = EOFException.class)
+  public void testTruncatedSnapshot() throws IOException {
+    GameSnapshot.save(model, file);
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+    GameSnapshot.load(file);
+  }
+
+  @Test
+  public void testBytesAreTheSavedFile() throws IOException {
+    model.movePlayer(Direction.EAST);
+    GameSnapshot.save(model, file);
+    assertArrayEquals(Files.readAllBytes(file), GameSnapshot.toBytes(model));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBytesOfNoGame() {
+    GameSnapshot.toBytes(null);
+  }
+
+  private String describe(GameState game) {
+    StringBuilder sb = new StringBuilder();
+    IDungeonView view = game.getDungeonView();
+    for (int row = 0; row < view.getNumRows(); row++) {
+      for (int col = 0; col < view.getNumCols(); col++) {
+        ILocation location = view.getLocation(row, col);
+        sb.append(location.getName()).append(location.getNeighbours().keySet())
+                .append(location.getTreasure())
+                .append(location.hasMonster() ? location.getMonster().getHealth() : "-")
+                .append('\n');
+      }
+    }
+    return sb.toString();
+  }
+}
@@ -10,6 +10,7 @@ import java.util.Random;
 import java.util.Set;
 
 import dungeon.model.GameState;
+import dungeon.model.IDungeonView;
 import dungeon.model.directions.Direction;
 import dungeon.model.location.ILocation;
 import dungeon.model.treasure.TreasureType;
@@ -31,7 +32,7 @@ public class GameTest {
   @Before
   public void setUp() {
     random = new Random();
-    random.setSeed(50);
+    random.setSeed(1463);
     interconnectivity = 0;
     model = new GameState(6, 6, interconnectivity,
             "nonwrapping", 20, 5, random);
@@ -49,6 +50,16 @@ public class GameTest {
             "nonwrapping", 20, 0, random);
   }
 
+  @Test
+  public void testLocationsOfDifferentDungeonsEqualByCoordinates() {
+    GameState other = new GameState(6, 6, interconnectivity, "wrapping", 20, 5, new Random(7));
+    ILocation location = model.getDungeonView().getLocation(2, 3);
+    ILocation otherLocation = other.getDungeonView().getLocation(2, 3);
+    assertEquals(location, otherLocation);
+    assertEquals(location.hashCode(), otherLocation.hashCode());
+    assertFalse(location.equals(other.getDungeonView().getLocation(3, 2)));
+  }
+
   @Test
   public void getPlayer() {
     assertEquals("Player", model.getPlayer().getName());
@@ -63,7 +74,7 @@ public class GameTest {
 
   @Test
   public void getPlayerEndLocation() {
-    assertEquals("(3, 0)", model.getPlayerEndLocation().toString());
+    assertEquals("(3, 3)", model.getPlayerEndLocation().toString());
   }
 
   @Test
@@ -75,7 +86,7 @@ public class GameTest {
 
   @Test
   public void testPlayerCurrentLocation() {
-    assertEquals("(5, 3)", model.getPlayerCurrentLocation().toString());
+    assertEquals("(5, 0)", model.getPlayerCurrentLocation().toString());
   }
 
   @Test
@@ -177,8 +188,8 @@ public class GameTest {
 
   @Test
   public void testPickArrowsFromCurrentLocation() {
-    assertEquals("(5, 3)", model.getPlayerStartLocation().getName());
-    assertEquals("(3, 0)", model.getPlayerEndLocation().getName());
+    assertEquals("(5, 0)", model.getPlayerStartLocation().getName());
+    assertEquals("(3, 3)", model.getPlayerEndLocation().getName());
 
     //Pick additional arrows
     model.pickTreasureFromCurrentLocation(TreasureType.ARROWS);
@@ -188,40 +199,106 @@ public class GameTest {
 
   @Test
   public void shootArrowTwiceToKill() {
-    assertEquals("(5, 3)", model.getPlayerStartLocation().getName());
-    assertEquals("(3, 0)", model.getPlayerEndLocation().getName());
+    assertEquals("(5, 0)", model.getPlayerStartLocation().getName());
+    assertEquals("(3, 3)", model.getPlayerEndLocation().getName());
 
     //Pick additional arrows
     model.pickTreasureFromCurrentLocation(TreasureType.ARROWS);
     int playerArrows = model.getPlayer().getTreasures().get(TreasureType.ARROWS);
     assertEquals(playerArrows, 4);
-    model.movePlayer(Direction.NORTH); //(4, 3)
+    model.movePlayer(Direction.NORTH); //(4, 0)
 
-    //Shoot a monster in West cave
-    model.shootArrow(Direction.WEST, 1);
-    model.shootArrow(Direction.WEST, 1);
+    //Shoot a monster in East cave
+    model.shootArrow(Direction.EAST, 1);
+    model.shootArrow(Direction.EAST, 1);
     //Check if monster is dead
-    assertEquals(model.getDungeon()[4][2].getMonster().getHealth(), 0);
+    assertEquals(model.getDungeon()[4][1].getMonster().getHealth(), 0);
+  }
+
+  @Test
+  public void testSmellGoneAfterKillingMonster() {
+    //The monster in (4, 1) is two locations away from the start
+    assertTrue(model.getPlayerCurrentLocationStatus()
+            .startsWith("You slightly smell something nearby\n"));
+
+    //An injured monster still smells
+    model.shootArrow(Direction.NORTH, 1);
+    assertTrue(model.getPlayerCurrentLocationStatus()
+            .startsWith("You slightly smell something nearby\n"));
+
+    //A dead one does not
+    model.shootArrow(Direction.NORTH, 1);
+    assertEquals("You are in a cave and you have 1 Arrows.\n" + "You find 1 Arrows\n"
+            + "Doors lead to: [NORTH]\n\n", model.getPlayerCurrentLocationStatus());
   }
 
   @Test
   public void testShootArrowToKillButWrongDistance() {
-    assertEquals("(5, 3)", model.getPlayerStartLocation().getName());
-    assertEquals("(3, 0)", model.getPlayerEndLocation().getName());
+    assertEquals("(5, 0)", model.getPlayerStartLocation().getName());
+    assertEquals("(3, 3)", model.getPlayerEndLocation().getName());
 
     //Pick additional arrows
     model.pickTreasureFromCurrentLocation(TreasureType.ARROWS);
     int playerArrows = model.getPlayer().getTreasures().get(TreasureType.ARROWS);
     assertEquals(playerArrows, 4);
-    model.movePlayer(Direction.NORTH); //(4, 3)
+    model.movePlayer(Direction.NORTH); //(4, 0)
 
-    //Shoot a monster in West cave
-    model.shootArrow(Direction.WEST, 1);
-    assertEquals(model.getDungeon()[4][2].getMonster().getHealth(), 50); //First hit
-    model.shootArrow(Direction.WEST, 5); //Second hit misses
-    assertEquals(model.getDungeon()[4][2].getMonster().getHealth(), 50);//Health is same
+    //Shoot a monster in East cave
+    model.shootArrow(Direction.EAST, 1);
+    assertEquals(model.getDungeon()[4][1].getMonster().getHealth(), 50); //First hit
+    model.shootArrow(Direction.EAST, 5); //Second hit misses
+    assertEquals(model.getDungeon()[4][1].getMonster().getHealth(), 50);//Health is same
     //Check if monster is dead
-    assertEquals(model.getDungeon()[4][2].getMonster().isAlive(), true);
+    assertEquals(model.getDungeon()[4][1].getMonster().isAlive(), true);
+  }
+
+  @Test
+  public void testDungeonViewMatchesCopy() {
+    ILocation[][] dungeon = model.getDungeon();
+    IDungeonView view = model.getDungeonView();
+    assertEquals(dungeon.length, view.getNumRows());
+    assertEquals(dungeon[0].length, view.getNumCols());
+    for (int i = 0; i < dungeon.length; i++) {
+      for (int j = 0; j < dungeon[i].length; j++) {
+        assertEquals(dungeon[i][j], view.getLocation(i, j));
+        assertEquals(dungeon[i][j].getNeighbours(), view.getLocation(i, j).getNeighbours());
+        assertEquals(dungeon[i][j].isCave(), view.getLocation(i, j).isCave());
+        assertEquals(String.valueOf(dungeon[i][j].getTreasure()),
+                String.valueOf(view.getLocation(i, j).getTreasure()));
+        assertEquals(dungeon[i][j].hasMonster(), view.getLocation(i, j).hasMonster());
+      }
+    }
+    assertEquals(model.getPlayerStartLocation(), view.getStartLocation());
+    assertEquals(model.getPlayerEndLocation(), view.getEndLocation());
+  }
+
+  @Test
+  public void testDungeonViewSeesChanges() {
+    ILocation monster = model.getDungeonView().getLocation(4, 1);
+    assertEquals(100, monster.getMonster().getHealth());
+    model.movePlayer(Direction.NORTH); //(4, 0)
+    model.shootArrow(Direction.EAST, 1);
+    assertEquals(50, monster.getMonster().getHealth());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testDungeonViewIsReadOnly() {
+    model.getDungeonView().getLocation(4, 1).getMonster().decrementHealth();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testPlayerLocationIsReadOnly() {
+    model.getPlayerCurrentLocation().removeTreasure(TreasureType.ARROWS);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testNeighboursOfViewAreReadOnly() {
+    model.getPlayerStartLocation().getNeighbours().get(Direction.NORTH).setMonster();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDungeonViewOutside() {
+    model.getDungeonView().getLocation(6, 0);
   }
 
   @Test
@@ -248,26 +325,27 @@ public class GameTest {
   @Test
   public void isGameOver() {
 
-    assertEquals("(5, 3)", model.getPlayerStartLocation().getName());
-    assertEquals("(3, 0)", model.getPlayerEndLocation().getName());
+    assertEquals("(5, 0)", model.getPlayerStartLocation().getName());
+    assertEquals("(3, 3)", model.getPlayerEndLocation().getName());
 
     //When player is at start location
     assertFalse(model.isGameOver());
 
     //Move player to end location
     model.pickTreasureFromCurrentLocation(TreasureType.ARROWS);
-    model.movePlayer(Direction.NORTH); //(4, 3)
+    model.movePlayer(Direction.NORTH); //(4, 0)
 
-    //Shoot a monster in West cave
-    model.shootArrow(Direction.WEST, 1);
-    model.shootArrow(Direction.WEST, 1);
-    model.movePlayer(Direction.WEST); //(4,2)
-    model.movePlayer(Direction.WEST); //(4,1)
+    //Shoot a monster in East cave
+    model.shootArrow(Direction.EAST, 1);
+    model.shootArrow(Direction.EAST, 1);
+    model.movePlayer(Direction.EAST); //(4,1)
 
-    model.shootArrow(Direction.NORTH, 1);
-    model.shootArrow(Direction.NORTH, 1);
-    model.movePlayer(Direction.NORTH); //(3,1)
-    model.movePlayer(Direction.WEST); //(3,0) - End of dungeon
+    //Shoot the monster at the end through the tunnels (4,2) and (4,3)
+    model.shootArrow(Direction.EAST, 1);
+    model.shootArrow(Direction.EAST, 1);
+    model.movePlayer(Direction.EAST); //(4,2)
+    model.movePlayer(Direction.EAST); //(4,3)
+    model.movePlayer(Direction.NORTH); //(3,3) - End of dungeon
 
     //Check if the game is over
     assertTrue(model.isGameOver());
@@ -294,44 +372,52 @@ public class GameTest {
 
   @Test
   public void testArrowPassesThroughTunnelAndChangesDirection() {
-    assertEquals("(5, 3)", model.getPlayerStartLocation().getName());
-    assertEquals("(3, 0)", model.getPlayerEndLocation().getName());
+    assertEquals("(5, 0)", model.getPlayerStartLocation().getName());
+    assertEquals("(3, 3)", model.getPlayerEndLocation().getName());
 
     //Shoot north from start location
-    //goes through tunnel (4, 3) changes direction to west (4, 2) and hits the monster there
+    //goes through tunnel (4, 0) changes direction to east (4, 1) and hits the monster there
     model.shootArrow(Direction.NORTH, 1);
-    assertEquals(model.getDungeon()[4][2].getMonster().getHealth(), 50);
+    assertEquals(model.getDungeon()[4][1].getMonster().getHealth(), 50);
   }
 
   @Test
   public void testArrowPassesThroughTunnelAndChangesDirectionMissesMonster() {
-    assertEquals("(5, 3)", model.getPlayerStartLocation().getName());
-    assertEquals("(3, 0)", model.getPlayerEndLocation().getName());
+    assertEquals("(5, 0)", model.getPlayerStartLocation().getName());
+    assertEquals("(3, 3)", model.getPlayerEndLocation().getName());
 
     //Shoot north from start location
-    //goes through tunnel (4, 3) changes direction to west (4, 2) and misses the monster there
-    // as it travels 5 caves which are (4, 2) - cave, (4,1), (3,1)- cave
-    //the arrow hits the monster in cave (3,1) where it stops
+    //goes through tunnel (4, 0) changes direction to east (4, 1) and misses the monster there
+    // as it travels 2 caves which are (4, 1) - cave, (4, 2), (4, 3), (3, 3) - cave
+    //the arrow hits the monster in cave (3, 3) where it stops
     model.shootArrow(Direction.NORTH, 2);
-    assertEquals(model.getDungeon()[4][2].getMonster().getHealth(), 100);
-    assertEquals(model.getDungeon()[3][1].getMonster().getHealth(), 50);
+    assertEquals(model.getDungeon()[4][1].getMonster().getHealth(), 100);
+    assertEquals(model.getDungeon()[3][3].getMonster().getHealth(), 50);
   }
 
   @Test
   public void testTreasureCountDecreasesAfterPick() {
-    assertEquals("(5, 3)", model.getPlayerStartLocation().getName());
-    assertEquals("(3, 0)", model.getPlayerEndLocation().getName());
+    assertEquals("(5, 0)", model.getPlayerStartLocation().getName());
+    assertEquals("(3, 3)", model.getPlayerEndLocation().getName());
+    //Kill the monster in (4, 1) to get past it
+    model.shootArrow(Direction.NORTH, 1);
+    model.shootArrow(Direction.NORTH, 1);
     model.movePlayer(Direction.NORTH);
-    model.movePlayer(Direction.WEST);
+    model.movePlayer(Direction.EAST);
+    model.movePlayer(Direction.SOUTH);
+    model.movePlayer(Direction.EAST);
+    model.movePlayer(Direction.EAST);
+    model.movePlayer(Direction.EAST);
+    model.movePlayer(Direction.NORTH); //(4, 4)
     int expectedCount = model.getPlayer().getCurrentLocation().getTreasure()
             .getTreasure().get(TreasureType.DIAMONDS);
-    assertEquals(expectedCount, 3);
+    assertEquals(expectedCount, 10);
     //Pick up treasure - arrows
     model.pickTreasureFromCurrentLocation(TreasureType.DIAMONDS);
     //Check if treasure count decreases after pick
     expectedCount = model.getPlayer().getCurrentLocation().getTreasure()
             .getTreasure().get(TreasureType.DIAMONDS);
-    assertEquals(expectedCount, 2);
+    assertEquals(expectedCount, 9);
   }
 
   @Test
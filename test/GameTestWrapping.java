@@ -31,7 +31,7 @@ public class GameTestWrapping {
   @Before
   public void setUp() {
     random = new Random();
-    random.setSeed(50);
+    random.setSeed(798);
     interconnectivity = 0;
     model = new GameState(6, 6, interconnectivity,
             "wrapping", 20, 5, random);
@@ -62,9 +62,9 @@ public class GameTestWrapping {
     assertFalse(model.isGameOver());
 
     //Move player to end location
-    model.movePlayer(Direction.EAST);
-    model.movePlayer(Direction.EAST);
-    model.movePlayer(Direction.NORTH);
+    model.movePlayer(Direction.SOUTH);
+    model.movePlayer(Direction.SOUTH);
+    model.movePlayer(Direction.SOUTH);
     model.movePlayer(Direction.EAST);
 
     //Shoot arrow at end location to kill monster at end location
@@ -82,7 +82,7 @@ public class GameTestWrapping {
 
   @Test
   public void getAvailableDirectionsFromPlayerPosition() {
-    assertEquals("[EAST, NORTH, SOUTH]",
+    assertEquals("[NORTH, SOUTH, EAST]",
             model.getAvailableDirectionsFromPlayerPosition().toString());
     assertEquals(3, model.getAvailableDirectionsFromPlayerPosition().size());
   }
@@ -94,7 +94,7 @@ public class GameTestWrapping {
 
   @Test
   public void getPlayerEndLocation() {
-    assertEquals("(4, 4)", model.getPlayerEndLocation().toString());
+    assertEquals("(2, 2)", model.getPlayerEndLocation().toString());
   }
 
   @Test
@@ -111,15 +111,9 @@ public class GameTestWrapping {
     model.movePlayer(Direction.SOUTH); // goes to (0, 0)
     assertEquals("(0, 0)", model.getPlayer().getCurrentLocation().toString());
 
-    // Wrapping move right - left
-    model.movePlayer(Direction.NORTH); // goes to (5, 0)
-    model.movePlayer(Direction.NORTH); // goes to (4, 0)
-    model.movePlayer(Direction.EAST); //goes to (4, 1)
-    model.movePlayer(Direction.NORTH); // goes to (3, 1)
-    model.movePlayer(Direction.WEST); // goes to (3, 0)
-    model.movePlayer(Direction.NORTH); // goes to (2, 0)
-    model.movePlayer(Direction.WEST); // wrapping move - goes to (2, 5)
-    assertEquals("(2, 5)", model.getPlayer().getCurrentLocation().toString());
+    // Wrapping move left - right
+    model.movePlayer(Direction.WEST); // wrapping move - goes to (0, 5)
+    assertEquals("(0, 5)", model.getPlayer().getCurrentLocation().toString());
   }
 
   @Test
@@ -267,13 +261,9 @@ public class GameTestWrapping {
     model.pickTreasureFromCurrentLocation(TreasureType.ARROWS);
     int count = model.getPlayer().getTreasures().get(TreasureType.ARROWS);
     assertEquals(count, 4);
-    model.movePlayer(Direction.NORTH);
-    model.movePlayer(Direction.EAST);
-    model.movePlayer(Direction.NORTH);
-    model.movePlayer(Direction.WEST);
-    model.movePlayer(Direction.NORTH);
-    model.movePlayer(Direction.WEST);
-    model.movePlayer(Direction.WEST);
+    model.movePlayer(Direction.SOUTH);
+    model.movePlayer(Direction.SOUTH);
+    model.movePlayer(Direction.SOUTH);
     //Pick up the treasure - Diamonds
     model.pickTreasureFromCurrentLocation(TreasureType.DIAMONDS);
     model.pickTreasureFromCurrentLocation(TreasureType.DIAMONDS);
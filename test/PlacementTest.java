@@ -0,0 +1,308 @@
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+
+import dungeon.model.DungeonFeatures;
+import dungeon.model.GameState;
+import dungeon.model.IDungeonView;
+import dungeon.model.MonsterPlacement;
+import dungeon.model.Placement;
+import dungeon.model.location.ILocation;
+import dungeon.model.treasure.ITreasure;
+import dungeon.model.treasure.TreasureType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests placing treasure, arrows and monsters in dungeons generated from a seed.
+ */
+public class PlacementTest {
+
+  @Test
+  public void testMonstersUpToTheCaves() {
+    GameState game = new GameState(60, 60, 0, "nonwrapping", 20, 1000000, 5);
+    IDungeonView view = game.getDungeonView();
+    DungeonFeatures features = DungeonFeatures.of(game);
+    assertEquals(features.getCaveCount() - 1, features.getMonsterCount());
+    assertNotNull(view.getEndLocation().getMonster());
+    assertFalse(view.getStartLocation().hasMonster());
+  }
+
+  @Test
+  public void testTreasureAndArrowCounts() {
+    GameState game = new GameState(30, 40, 10, "wrapping", 35, 8, 17);
+    IDungeonView view = game.getDungeonView();
+    DungeonFeatures features = DungeonFeatures.of(game);
+    assertEquals((int) Math.ceil(features.getCaveCount() * 0.35), features.getTreasureCaveCount());
+    assertEquals((int) Math.ceil(30 * 40 * 0.35), count(view, TreasureType.ARROWS));
+    assertEquals(8, features.getMonsterCount());
+  }
+
+  @Test
+  public void testLootTableKeepsMonstersAway() {
+    Placement placement = new Placement(Placement.UNIFORM, Placement.UNIFORM,
+            Placement.lootTable(0, 0, 0, 0, 1));
+    GameState game = new GameState(20, 20, 5, "nonwrapping", 20, 15, 9, placement);
+    IDungeonView view = game.getDungeonView();
+    int[][] distances = distancesFromStart(view);
+    int monsters = 0;
+    for (int row = 0; row < view.getNumRows(); row++) {
+      for (int col = 0; col < view.getNumCols(); col++) {
+        if (view.getLocation(row, col).hasMonster()) {
+          assertTrue(distances[row][col] >= 4);
+          monsters++;
+        }
+      }
+    }
+    assertEquals(15, monsters);
+  }
+
+  @Test
+  public void testArrowsOnlyWhereTheyWeigh() {
+    Placement placement = new Placement(Placement.UNIFORM, Placement.lootTable(1, 0),
+            Placement.UNIFORM);
+    GameState game = new GameState(10, 10, 0, "wrapping", 50, 3, 4, placement);
+    IDungeonView view = game.getDungeonView();
+    assertEquals(50, count(view, TreasureType.ARROWS));
+    assertEquals(50, amount(view.getStartLocation(), TreasureType.ARROWS));
+  }
+
+  @Test
+  public void testTreasureFavoursFarCaves() {
+    Placement far = new Placement(Placement.byDistance(4), Placement.UNIFORM,
+            Placement.UNIFORM);
+    long farDistance = 0;
+    long uniformDistance = 0;
+    for (long seed = 0; seed < 20; seed++) {
+      farDistance += treasureDistance(new GameState(15, 15, 3, "nonwrapping", 10, 3, seed, far));
+      uniformDistance += treasureDistance(new GameState(15, 15, 3, "nonwrapping", 10, 3, seed));
+    }
+    assertTrue(farDistance + " should be above " + uniformDistance,
+            farDistance > uniformDistance);
+  }
+
+  @Test
+  public void testSameSeedSamePlacement() {
+    Placement placement = new Placement(Placement.byDistance(-1), Placement.byDistance(2),
+            Placement.lootTable(0, 1, 3));
+    assertEquals(describe(new GameState(12, 14, 2, "wrapping", 40, 6, 21, placement)),
+            describe(new GameState(12, 14, 2, "wrapping", 40, 6, 21, placement)));
+  }
+
+  @Test
+  public void testStrategiesKeepTheRules() {
+    for (MonsterPlacement strategy : MonsterPlacement.values()) {
+      Placement placement = new Placement(Placement.UNIFORM, Placement.UNIFORM, strategy);
+      for (int monsters : new int[] {1, 6, 1000}) {
+        GameState game = new GameState(16, 18, 6, "wrapping", 30, monsters, 12, placement);
+        IDungeonView view = game.getDungeonView();
+        DungeonFeatures features = DungeonFeatures.of(game);
+        assertEquals(strategy + " " + monsters, Math.min(monsters, features.getCaveCount() - 1),
+                features.getMonsterCount());
+        assertNotNull(view.getEndLocation().getMonster());
+        assertFalse(view.getStartLocation().hasMonster());
+      }
+    }
+  }
+
+  @Test
+  public void testSpreadCoversTheDungeon() {
+    Placement spread = new Placement(Placement.UNIFORM, Placement.UNIFORM,
+            MonsterPlacement.SPREAD);
+    long spreadRadius = 0;
+    long drawnRadius = 0;
+    for (long seed = 0; seed < 20; seed++) {
+      spreadRadius += coveringRadius(new GameState(20, 20, 10, "nonwrapping", 20, 8, seed,
+              spread));
+      drawnRadius += coveringRadius(new GameState(20, 20, 10, "nonwrapping", 20, 8, seed));
+    }
+    assertTrue(spreadRadius + " should be below " + drawnRadius, spreadRadius < drawnRadius);
+  }
+
+  @Test
+  public void testMonstersOnChokepoints() {
+    Placement chokepoints = new Placement(Placement.UNIFORM, Placement.UNIFORM,
+            MonsterPlacement.CHOKEPOINTS);
+    int blocking = 0;
+    for (long seed = 0; seed < 20; seed++) {
+      GameState game = new GameState(12, 12, 0, "nonwrapping", 20, 3, seed, chokepoints);
+      IDungeonView view = game.getDungeonView();
+      ILocation end = view.getEndLocation();
+      int available = 0;
+      int onChokepoints = 0;
+      for (int row = 0; row < view.getNumRows(); row++) {
+        for (int col = 0; col < view.getNumCols(); col++) {
+          ILocation location = view.getLocation(row, col);
+          if (location.isCave() && !same(location, view.getStartLocation())
+                  && !same(location, end)
+                  && distancesFromStart(view, row, col)[end.getRowCoordinate()]
+                  [end.getColCoordinate()] == -1) {
+            available++;
+            if (location.hasMonster()) {
+              onChokepoints++;
+            }
+          }
+        }
+      }
+      assertEquals(Math.min(2, available), onChokepoints);
+      blocking += onChokepoints;
+    }
+    assertTrue(blocking > 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullStrategy() {
+    new Placement(Placement.UNIFORM, Placement.UNIFORM, (MonsterPlacement) null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEmptyLootTable() {
+    Placement.lootTable();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testLootTableWithoutWeight() {
+    Placement.lootTable(0, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeWeight() {
+    new GameState(10, 10, 0, "wrapping", 50, 3, 4, new Placement(distance -> -1,
+            Placement.UNIFORM, Placement.UNIFORM));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooFewCavesForTheTreasure() {
+    //Only the start weighs, and half the caves need treasure
+    new GameState(10, 10, 0, "wrapping", 50, 3, 4, new Placement(Placement.lootTable(1, 0),
+            Placement.UNIFORM, Placement.UNIFORM));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooFewCavesForTheMonsters() {
+    //Monsters never go in the start, the only location that weighs
+    new GameState(10, 10, 0, "wrapping", 50, 3, 4, new Placement(Placement.UNIFORM,
+            Placement.UNIFORM, Placement.lootTable(1, 0)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullPlacement() {
+    new GameState(10, 10, 0, "wrapping", 50, 3, 4, (Placement) null);
+  }
+
+  private static long treasureDistance(GameState game) {
+    IDungeonView view = game.getDungeonView();
+    int[][] distances = distancesFromStart(view);
+    long total = 0;
+    for (int row = 0; row < view.getNumRows(); row++) {
+      for (int col = 0; col < view.getNumCols(); col++) {
+        if (amount(view.getLocation(row, col), TreasureType.DIAMONDS) > 0) {
+          total += distances[row][col];
+        }
+      }
+    }
+    return total;
+  }
+
+  private static int count(IDungeonView view, TreasureType type) {
+    int total = 0;
+    for (int row = 0; row < view.getNumRows(); row++) {
+      for (int col = 0; col < view.getNumCols(); col++) {
+        total += amount(view.getLocation(row, col), type);
+      }
+    }
+    return total;
+  }
+
+  private static int amount(ILocation location, TreasureType type) {
+    ITreasure treasure = location.getTreasure();
+    return treasure == null ? 0 : treasure.getTreasure().getOrDefault(type, 0);
+  }
+
+  private static String describe(GameState game) {
+    IDungeonView view = game.getDungeonView();
+    StringBuilder description = new StringBuilder();
+    for (int row = 0; row < view.getNumRows(); row++) {
+      for (int col = 0; col < view.getNumCols(); col++) {
+        ILocation location = view.getLocation(row, col);
+        description.append(location.hasMonster()).append(location.getTreasure() == null ? ""
+                : location.getTreasure().getTreasure()).append('\n');
+      }
+    }
+    return description.toString();
+  }
+
+  private static long coveringRadius(GameState game) {
+    //The furthest a cave is from the start or a monster
+    IDungeonView view = game.getDungeonView();
+    int[][] distances = new int[view.getNumRows()][view.getNumCols()];
+    Queue<ILocation> queue = new ArrayDeque<>();
+    for (int row = 0; row < view.getNumRows(); row++) {
+      Arrays.fill(distances[row], -1);
+      for (int col = 0; col < view.getNumCols(); col++) {
+        ILocation location = view.getLocation(row, col);
+        if (location.hasMonster() || same(location, view.getStartLocation())) {
+          distances[row][col] = 0;
+          queue.add(location);
+        }
+      }
+    }
+    search(queue, distances, -1, -1);
+    int radius = 0;
+    for (int row = 0; row < view.getNumRows(); row++) {
+      for (int col = 0; col < view.getNumCols(); col++) {
+        if (view.getLocation(row, col).isCave()) {
+          radius = Math.max(radius, distances[row][col]);
+        }
+      }
+    }
+    return radius;
+  }
+
+  private static boolean same(ILocation first, ILocation second) {
+    return first.getRowCoordinate() == second.getRowCoordinate()
+            && first.getColCoordinate() == second.getColCoordinate();
+  }
+
+  private static int[][] distancesFromStart(IDungeonView view) {
+    return distancesFromStart(view, -1, -1);
+  }
+
+  private static int[][] distancesFromStart(IDungeonView view, int closedRow, int closedCol) {
+    //Distances not going through the closed location, -1 where it cannot be reached
+    int[][] distances = new int[view.getNumRows()][view.getNumCols()];
+    for (int[] row : distances) {
+      Arrays.fill(row, -1);
+    }
+    ILocation start = view.getStartLocation();
+    distances[start.getRowCoordinate()][start.getColCoordinate()] = 0;
+    Queue<ILocation> queue = new ArrayDeque<>();
+    queue.add(start);
+    search(queue, distances, closedRow, closedCol);
+    return distances;
+  }
+
+  private static void search(Queue<ILocation> queue, int[][] distances, int closedRow,
+                             int closedCol) {
+    while (!queue.isEmpty()) {
+      ILocation location = queue.remove();
+      int distance = distances[location.getRowCoordinate()][location.getColCoordinate()];
+      for (Map.Entry<?, ILocation> neighbour : location.getNeighbours().entrySet()) {
+        ILocation next = neighbour.getValue();
+        if (next.getRowCoordinate() == closedRow && next.getColCoordinate() == closedCol) {
+          continue;
+        }
+        if (distances[next.getRowCoordinate()][next.getColCoordinate()] == -1) {
+          distances[next.getRowCoordinate()][next.getColCoordinate()] = distance + 1;
+          queue.add(next);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,110 @@
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import dungeon.generation.TiledMazeGenerator;
+import dungeon.model.DungeonFeatures;
+import dungeon.model.GameSnapshot;
+import dungeon.model.GameState;
+import dungeon.model.RandomStreams;
+import dungeon.model.RandomStreams.Phase;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Tests the random number streams and games generated from a seed.
+ */
+public class RandomStreamsTest {
+
+  @Test
+  public void testStreamsStartOver() {
+    RandomStreams streams = new RandomStreams(42);
+    assertEquals(streams.stream(Phase.PATHS).nextLong(), streams.stream(Phase.PATHS).nextLong());
+    assertEquals(streams.stream(Phase.TREASURE_AMOUNTS, 7).nextLong(),
+            new RandomStreams(42).stream(Phase.TREASURE_AMOUNTS, 7).nextLong());
+  }
+
+  @Test
+  public void testStreamsAreIndependent() {
+    RandomStreams streams = new RandomStreams(42);
+    long[] firsts = new long[Phase.values().length];
+    for (Phase phase : Phase.values()) {
+      firsts[phase.ordinal()] = streams.stream(phase).nextLong();
+    }
+    assertEquals(firsts.length, Arrays.stream(firsts).distinct().count());
+    assertNotEquals(streams.stream(Phase.TREASURE_AMOUNTS, 0).nextLong(),
+            streams.stream(Phase.TREASURE_AMOUNTS, 1).nextLong());
+    assertNotEquals(streams.seed(Phase.PATHS), new RandomStreams(43).seed(Phase.PATHS));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeCellId() {
+    new RandomStreams(42).stream(Phase.TREASURE_AMOUNTS, -1);
+  }
+
+  @Test
+  public void testSameSeedSameGame() {
+    assertArrayEquals(GameSnapshot.toBytes(new GameState(20, 20, 5, "wrapping", 30, 6, 99)),
+            GameSnapshot.toBytes(new GameState(20, 20, 5, "wrapping", 30, 6, 99)));
+    assertFalse(Arrays.equals(GameSnapshot.toBytes(new GameState(20, 20, 5, "wrapping", 30, 6, 99)),
+            GameSnapshot.toBytes(new GameState(20, 20, 5, "wrapping", 30, 6, 100))));
+  }
+
+  @Test
+  public void testSameGameAloneOrWithOthers() throws Exception {
+    List<byte[]> alone = LongStream.range(0, 200)
+            .mapToObj(RandomStreamsTest::snapshotOf)
+            .collect(Collectors.toList());
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      List<byte[]> together = pool.submit(() -> LongStream.range(0, 200).parallel()
+              .mapToObj(RandomStreamsTest::snapshotOf)
+              .collect(Collectors.toList())).get();
+      for (int i = 0; i < alone.size(); i++) {
+        assertArrayEquals("Seed " + i, alone.get(i), together.get(i));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testSameSeedSameGameInGeneratedDungeon() {
+    byte[] doors = new TiledMazeGenerator(30, 30, 5, "wrapping", 7).generate();
+    assertArrayEquals(GameSnapshot.toBytes(new GameState(30, 30, doors, 20, 5, 11)),
+            GameSnapshot.toBytes(new GameState(30, 30, doors, 20, 5, 11)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSeededGame() {
+    new GameState(5, 20, 0, "wrapping", 30, 6, 99);
+  }
+
+  @Test
+  public void testSeededGameClampsMonstersQuietly() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PrintStream console = System.out;
+    System.setOut(new PrintStream(out));
+    DungeonFeatures features;
+    try {
+      features = DungeonFeatures.of(new GameState(10, 10, 3, "wrapping", 30, 1000000, 5));
+    } finally {
+      System.setOut(console);
+    }
+    assertEquals(0, out.size());
+    assertEquals(features.getCaveCount() - 1, features.getMonsterCount());
+  }
+
+  private static byte[] snapshotOf(long seed) {
+    return GameSnapshot.toBytes(new GameState(12, 15, 4, "nonwrapping", 40, 4, seed));
+  }
+}
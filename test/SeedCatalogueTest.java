@@ -0,0 +1,142 @@
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+import dungeon.catalogue.FeatureRange;
+import dungeon.catalogue.SeedCatalogue;
+import dungeon.catalogue.SeedFeature;
+import dungeon.factory.DungeonParameters;
+import dungeon.model.DungeonFeatures;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests building, writing and searching a seed catalogue.
+ */
+public class SeedCatalogueTest {
+
+  private static final DungeonParameters PARAMETERS = new DungeonParameters(12, 12, 3,
+          "wrapping", 30, 4);
+  private static final long FIRST_SEED = 1000;
+  private static final int SIZE = 300;
+  private static DungeonFeatures[] expected;
+  private static SeedCatalogue catalogue;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @BeforeClass
+  public static void setUpClass() {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      catalogue = SeedCatalogue.build(PARAMETERS, FIRST_SEED, SIZE, pool);
+    } finally {
+      pool.shutdown();
+    }
+    expected = new DungeonFeatures[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      expected[i] = DungeonFeatures.of(PARAMETERS.generate(FIRST_SEED + i));
+    }
+  }
+
+  @Test
+  public void testFeaturesOfEverySeed() {
+    assertEquals(SIZE, catalogue.size());
+    assertEquals(PARAMETERS, catalogue.getParameters());
+    for (int i = 0; i < SIZE; i++) {
+      for (SeedFeature feature : SeedFeature.values()) {
+        assertEquals("Seed " + (FIRST_SEED + i) + " " + feature,
+                feature.valueOf(expected[i]), catalogue.getFeature(FIRST_SEED + i, feature));
+      }
+    }
+  }
+
+  @Test
+  public void testFindMatchesEveryRange() {
+    FeatureRange[] ranges = {FeatureRange.atLeast(SeedFeature.START_END_DISTANCE, 6),
+        FeatureRange.atLeast(SeedFeature.CAVES, 70),
+        FeatureRange.atMost(SeedFeature.DEAD_ENDS, 40)};
+    long[] matching = LongStream.range(0, SIZE)
+            .filter(i -> expected[(int) i].getStartEndDistance() >= 6
+                    && expected[(int) i].getCaveCount() >= 70
+                    && expected[(int) i].getDeadEndCount() <= 40)
+            .map(i -> FIRST_SEED + i)
+            .toArray();
+    assertTrue(matching.length > 0 && matching.length < SIZE);
+    assertArrayEquals(matching, catalogue.find(SIZE, ranges));
+    assertEquals(matching.length, catalogue.count(ranges));
+    assertArrayEquals(Arrays.copyOf(matching, 1), catalogue.find(1, ranges));
+  }
+
+  @Test
+  public void testFindWithoutRanges() {
+    assertEquals(SIZE, catalogue.count());
+    assertEquals(FIRST_SEED + 2, catalogue.find(3)[2]);
+    assertEquals(0, catalogue.count(FeatureRange.atLeast(SeedFeature.CAVES, 145)));
+  }
+
+  @Test
+  public void testParseRanges() {
+    FeatureRange range = FeatureRange.parse("start_end_distance>=15");
+    assertEquals(SeedFeature.START_END_DISTANCE, range.getFeature());
+    assertEquals(15, range.getMin());
+    assertEquals(Integer.MAX_VALUE, range.getMax());
+    assertEquals(30, FeatureRange.parse("DEAD_ENDS<=30").getMax());
+    range = FeatureRange.parse("monsters=4");
+    assertEquals(4, range.getMin());
+    assertEquals(4, range.getMax());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseInvalidRange() {
+    FeatureRange.parse("caves>40");
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("catalogue.seeds");
+    catalogue.write(file);
+    SeedCatalogue read = SeedCatalogue.read(file);
+    assertEquals(PARAMETERS, read.getParameters());
+    assertEquals(FIRST_SEED, read.getFirstSeed());
+    FeatureRange range = FeatureRange.atLeast(SeedFeature.DIAMETER, 14);
+    assertArrayEquals(catalogue.find(SIZE, range), read.find(SIZE, range));
+    for (SeedFeature feature : SeedFeature.values()) {
+      assertEquals(catalogue.getFeature(FIRST_SEED + 7, feature),
+              read.getFeature(FIRST_SEED + 7, feature));
+    }
+    //A byte per feature per seed, the totals of treasure apart
+    assertTrue(Files.size(file) < SIZE * SeedFeature.values().length * 2);
+  }
+
+  @Test(expected = IOException.class)
+  public void testTruncatedFile() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("catalogue.seeds");
+    catalogue.write(file);
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+    SeedCatalogue.read(file);
+  }
+
+  @Test(expected = IOException.class)
+  public void testNotACatalogue() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("catalogue.seeds");
+    Files.write(file, new byte[100]);
+    SeedCatalogue.read(file);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSeedNotInCatalogue() {
+    catalogue.getFeature(FIRST_SEED + SIZE, SeedFeature.CAVES);
+  }
+}
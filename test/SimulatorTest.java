@@ -0,0 +1,93 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import dungeon.simulation.GameResult;
+import dungeon.simulation.HunterBot;
+import dungeon.simulation.RandomBot;
+import dungeon.simulation.SimulationStats;
+import dungeon.simulation.Simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the headless simulator and its bots.
+ */
+public class SimulatorTest {
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullBots() {
+    new Simulator(6, 6, 0, "nonwrapping", 20, 5, null, 100);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMaxTurns() {
+    new Simulator(6, 6, 0, "nonwrapping", 20, 5, RandomBot::new, 0);
+  }
+
+  @Test
+  public void testSameTotalsWhateverTheThreads() throws InterruptedException {
+    Simulator simulator = new Simulator(10, 10, 2, "wrapping", 20, 3, HunterBot::new, 500);
+    SimulationStats oneThread = simulator.run(300, 42, 1, 1000, null);
+    SimulationStats threeThreads = simulator.run(300, 42, 3, 1000, null);
+
+    assertEquals(oneThread.toString(), threeThreads.toString());
+    assertEquals(oneThread.getTurns(), threeThreads.getTurns());
+    assertEquals(oneThread.getTreasureCollected(), threeThreads.getTreasureCollected());
+  }
+
+  @Test
+  public void testTotalsAddUp() throws InterruptedException {
+    Simulator simulator = new Simulator(8, 8, 0, "nonwrapping", 50, 2, HunterBot::new, 500);
+    SimulationStats stats = simulator.run(200, 7, 2, 1000, null);
+
+    assertEquals(200, stats.getGames());
+    assertTrue(stats.getWins() + stats.getDeaths() <= stats.getGames());
+    assertTrue(stats.getWins() > 0);
+    assertTrue(stats.getDeaths() > 0);
+    assertTrue(stats.getArrowsUsed() > 0);
+    assertTrue(stats.getTreasureCollected() > 0);
+    assertEquals((double) stats.getWins() / 200, stats.getWinRate(), 1e-9);
+  }
+
+  @Test
+  public void testRandomBotCannotWin() throws InterruptedException {
+    //There is a healthy monster at the end and the random bot never shoots
+    Simulator simulator = new Simulator(6, 6, 0, "nonwrapping", 20, 5, RandomBot::new, 1000);
+    SimulationStats stats = simulator.run(100, 1, 2, 1000, null);
+
+    assertEquals(0, stats.getWins());
+    assertEquals(0, stats.getArrowsUsed());
+  }
+
+  @Test
+  public void testProgressIsReported() throws InterruptedException {
+    Simulator simulator = new Simulator(6, 6, 0, "nonwrapping", 20, 5, RandomBot::new, 100);
+    List<Long> reported = new ArrayList<>();
+    simulator.run(100, 1, 4, 25, stats -> reported.add(stats.getGames()));
+
+    assertEquals(4, reported.size());
+    for (long games : reported) {
+      assertTrue(games > 0 && games <= 100);
+    }
+  }
+
+  @Test
+  public void testBotQuits() {
+    Simulator simulator = new Simulator(6, 6, 0, "nonwrapping", 20, 5,
+            () -> (model, random) -> null, 100);
+    GameResult result = simulator.play(1);
+
+    assertEquals(0, result.getTurns());
+    assertEquals(false, result.isWon());
+    assertEquals(false, result.isEaten());
+  }
+
+  @Test
+  public void testTurnLimit() {
+    Simulator simulator = new Simulator(20, 20, 10, "wrapping", 20, 1, RandomBot::new, 3);
+    assertTrue(simulator.play(1).getTurns() <= 3);
+  }
+}
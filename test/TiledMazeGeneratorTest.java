@@ -0,0 +1,160 @@
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import dungeon.generation.TiledMazeGenerator;
+import dungeon.model.GameState;
+import dungeon.model.directions.Direction;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the parallel tiled dungeon generator and games in the dungeons it generates.
+ */
+public class TiledMazeGeneratorTest {
+
+  private static final int NORTH = 1;
+  private static final int SOUTH = 2;
+  private static final int EAST = 4;
+  private static final int WEST = 8;
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidTileSize() {
+    new TiledMazeGenerator(10, 10, 0, "wrapping", 1, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooSmall() {
+    new TiledMazeGenerator(10, 5, 0, "wrapping", 1);
+  }
+
+  @Test
+  public void testIsSpanningTree() {
+    for (int seed = 0; seed < 10; seed++) {
+      checkDungeon(new TiledMazeGenerator(6 + seed, 40 - seed, 0, "nonwrapping", seed, 5)
+              .generate(), 6 + seed, 40 - seed, false, 0);
+      checkDungeon(new TiledMazeGenerator(6 + seed, 40 - seed, 0, "wrapping", seed, 5)
+              .generate(), 6 + seed, 40 - seed, true, 0);
+    }
+  }
+
+  @Test
+  public void testSameDungeonWhateverTheTilesAndThreads() {
+    ForkJoinPool one = new ForkJoinPool(1);
+    ForkJoinPool four = new ForkJoinPool(4);
+    try {
+      byte[] expected = new TiledMazeGenerator(50, 70, 20, "wrapping", 42, 1000).generate(one);
+      for (int tileSize : new int[] {1, 3, 8, 64}) {
+        assertArrayEquals(expected,
+                new TiledMazeGenerator(50, 70, 20, "wrapping", 42, tileSize).generate(one));
+        assertArrayEquals(expected,
+                new TiledMazeGenerator(50, 70, 20, "wrapping", 42, tileSize).generate(four));
+      }
+    } finally {
+      one.shutdown();
+      four.shutdown();
+    }
+  }
+
+  @Test
+  public void testDifferentSeedsDifferentDungeons() {
+    assertFalse(Arrays.equals(
+            new TiledMazeGenerator(20, 20, 0, "nonwrapping", 1).generate(),
+            new TiledMazeGenerator(20, 20, 0, "nonwrapping", 2).generate()));
+  }
+
+  @Test
+  public void testInterconnectivity() {
+    checkDungeon(new TiledMazeGenerator(12, 10, 8, "nonwrapping", 3, 4).generate(),
+            12, 10, false, 8);
+    //More than half of the paths left out are opened
+    checkDungeon(new TiledMazeGenerator(12, 10, 90, "wrapping", 3, 4).generate(),
+            12, 10, true, 90);
+    checkDungeon(new TiledMazeGenerator(12, 10, 1000, "wrapping", 3, 4).generate(),
+            12, 10, true, 2 * 12 * 10 - 119);
+  }
+
+  @Test
+  public void testGameInGeneratedDungeon() {
+    byte[] doors = new TiledMazeGenerator(30, 30, 5, "wrapping", 7).generate();
+    GameState model = new GameState(30, 30, doors, 20, 5, new Random(7));
+
+    int cellId = model.getPlayerCurrentLocation().getRowCoordinate() * 30
+            + model.getPlayerCurrentLocation().getColCoordinate();
+    for (Direction direction : model.getAvailableDirectionsFromPlayerPosition()) {
+      assertTrue((doors[cellId] & (1 << direction.ordinal())) != 0);
+    }
+    assertEquals(Integer.bitCount(doors[cellId]),
+            model.getAvailableDirectionsFromPlayerPosition().size());
+    assertTrue(model.getPlayerEndLocation().hasMonster());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDoorWithoutDoorBack() {
+    byte[] doors = new TiledMazeGenerator(6, 6, 0, "nonwrapping", 7).generate();
+    doors[0] |= SOUTH;
+    doors[6] &= ~NORTH;
+    new GameState(6, 6, doors, 20, 5, new Random(7));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnreachableLocation() {
+    byte[] doors = new TiledMazeGenerator(6, 6, 0, "nonwrapping", 7).generate();
+    //Close every door of the last location
+    doors[35] = 0;
+    doors[34] &= ~EAST;
+    doors[29] &= ~SOUTH;
+    new GameState(6, 6, doors, 20, 5, new Random(7));
+  }
+
+  /**
+   * Check that the doors are symmetric, stay inside a non-wrapping dungeon, connect every
+   * location and are a spanning tree plus the given number of extra paths.
+   */
+  private void checkDungeon(byte[] doors, int rows, int cols, boolean wrapping, int extras) {
+    assertEquals(rows * cols, doors.length);
+    long paths = 0;
+    for (int cell = 0; cell < doors.length; cell++) {
+      int row = cell / cols;
+      int col = cell % cols;
+      int south = ((row + 1) % rows) * cols + col;
+      int east = row * cols + (col + 1) % cols;
+      assertEquals((doors[cell] & SOUTH) != 0, (doors[south] & NORTH) != 0);
+      assertEquals((doors[cell] & EAST) != 0, (doors[east] & WEST) != 0);
+      if (!wrapping) {
+        assertTrue(row < rows - 1 || (doors[cell] & SOUTH) == 0);
+        assertTrue(col < cols - 1 || (doors[cell] & EAST) == 0);
+      }
+      paths += Integer.bitCount(doors[cell]);
+    }
+    assertEquals((long) rows * cols - 1 + extras, paths / 2);
+
+    boolean[] visited = new boolean[doors.length];
+    Deque<Integer> queue = new ArrayDeque<>();
+    queue.add(0);
+    visited[0] = true;
+    int reached = 0;
+    while (!queue.isEmpty()) {
+      int cell = queue.remove();
+      reached++;
+      int row = cell / cols;
+      int col = cell % cols;
+      int[] neighbours = {((row + rows - 1) % rows) * cols + col, ((row + 1) % rows) * cols + col,
+          row * cols + (col + 1) % cols, row * cols + (col + cols - 1) % cols};
+      for (int direction = 0; direction < 4; direction++) {
+        if ((doors[cell] & (1 << direction)) != 0 && !visited[neighbours[direction]]) {
+          visited[neighbours[direction]] = true;
+          queue.add(neighbours[direction]);
+        }
+      }
+    }
+    assertEquals(doors.length, reached);
+  }
+}